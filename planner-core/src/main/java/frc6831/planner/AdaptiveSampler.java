@@ -0,0 +1,215 @@
+package frc6831.planner;
+
+import org.a05annex.util.geo2d.KochanekBartelsSpline;
+import org.a05annex.util.geo2d.KochanekBartelsSpline.ControlPoint;
+import org.a05annex.util.geo2d.KochanekBartelsSpline.PathPoint;
+import org.jetbrains.annotations.NotNull;
+
+import java.awt.geom.Line2D;
+import java.util.Arrays;
+
+/**
+ * A segment of the path sampled for drawing: a polyline that follows the segment to within a distance tolerance,
+ * with points placed by the shape of the path rather than by time. The path samples of the {@link PathAnalysis}
+ * are uniformly spaced in time, so a slow section has many more points than it needs to be drawn smoothly, and a
+ * fast tight turn has too few and is drawn jagged. This subdivides the segment in half until the middle of each
+ * piece is within the tolerance of the straight line between its ends, and the direction turns through no more
+ * than {@link #MAX_TURN_RADIANS} across it, so straight sections are a few long lines and turns are as many short
+ * lines as they need.
+ * <p>
+ * The segment is evaluated by the path follower of the library, so the polyline is on the same curve as the path
+ * samples. Sampling is done by the {@link PathAnalyzer} on the analysis thread, as part of the
+ * {@link SegmentAnalysis}, so only the segments around an edited control point are sampled again and the canvas
+ * only draws and hit tests the published polylines. The tolerance is the distance on the field that is a fraction
+ * of a pixel on the screen, so the segments are sampled again when the drawing scale changes.
+ */
+@SuppressWarnings("HungarianNotationMemberVariables")
+public final class AdaptiveSampler {
+
+    /**
+     * The maximum turn in the direction of the path across a piece of the polyline, in radians, unless the
+     * piece is already shorter than the tolerance.
+     */
+    public static final double MAX_TURN_RADIANS = 0.15;
+    // the segment is split at least into 4 pieces, so an S bend whose middle is on the chord is not missed, and
+    // at most into 1024, so a cusp does not subdivide forever
+    private static final int MIN_DEPTH = 2;
+    private static final int MAX_DEPTH = 10;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final double m_tolerance;
+    private int m_count = 0;
+    private double[] m_fieldX = new double[INITIAL_CAPACITY];
+    private double[] m_fieldY = new double[INITIAL_CAPACITY];
+    private double[] m_time = new double[INITIAL_CAPACITY];
+
+    /**
+     * Sample a segment of a path.
+     *
+     * @param path      The path, which must not be changed while it is sampled.
+     * @param segment   The index of the segment, which is from control point {@code segment} to the next one.
+     * @param tolerance The distance the polyline may be from the path, in meters; i.e. half a pixel divided by
+     *                  the drawing scale.
+     */
+    public AdaptiveSampler(@NotNull KochanekBartelsSpline path, int segment, double tolerance) {
+        m_tolerance = tolerance;
+        ControlPoint segmentStart = path.getControlPoints().get(segment);
+        ControlPoint segmentEnd = path.getControlPoints().get(segment + 1);
+        Point start = new Point();
+        Point end = new Point();
+        evaluate(path, segmentEnd, segmentStart.getTime() / path.getSpeedMultiplier(), start);
+        evaluate(path, segmentEnd, segmentEnd.getTime() / path.getSpeedMultiplier(), end);
+        add(start);
+        subdivide(path, segmentEnd, start, end, 0);
+        add(end);
+        m_fieldX = Arrays.copyOf(m_fieldX, m_count);
+        m_fieldY = Arrays.copyOf(m_fieldY, m_count);
+        m_time = Arrays.copyOf(m_time, m_count);
+    }
+
+    /**
+     * A point on the path at a path time.
+     */
+    private static final class Point {
+        double x;
+        double y;
+        double time;
+    }
+
+    private static void evaluate(@NotNull KochanekBartelsSpline path, @NotNull ControlPoint segmentEnd,
+                                 double time, @NotNull Point point) {
+        // the follower may only go forward along the path, and the subdivision goes back and forth, so each time
+        // has its own follower
+        PathPoint pathPoint = path.getPathFollower().getPointAt(time);
+        point.time = time;
+        if (null == pathPoint) {
+            // the end of the path, where rounding may put the time just past the last path point
+            point.x = segmentEnd.getFieldX();
+            point.y = segmentEnd.getFieldY();
+        } else {
+            point.x = pathPoint.fieldPt.getX();
+            point.y = pathPoint.fieldPt.getY();
+        }
+    }
+
+    /**
+     * Add the points strictly between two points on the segment.
+     */
+    private void subdivide(@NotNull KochanekBartelsSpline path, @NotNull ControlPoint segmentEnd,
+                           @NotNull Point start, @NotNull Point end, int depth) {
+        if (depth >= MAX_DEPTH) {
+            return;
+        }
+        Point middle = new Point();
+        evaluate(path, segmentEnd, (start.time + end.time) / 2.0, middle);
+        if ((depth >= MIN_DEPTH) && isFlat(start, middle, end)) {
+            return;
+        }
+        subdivide(path, segmentEnd, start, middle, depth + 1);
+        add(middle);
+        subdivide(path, segmentEnd, middle, end, depth + 1);
+    }
+
+    /**
+     * Test whether the middle of a piece of the path is close enough to the straight line between its ends,
+     * and the path does not turn too much across it.
+     */
+    private boolean isFlat(@NotNull Point start, @NotNull Point middle, @NotNull Point end) {
+        if (Line2D.ptSegDistSq(start.x, start.y, end.x, end.y, middle.x, middle.y) > m_tolerance * m_tolerance) {
+            return false;
+        }
+        double chord = Math.hypot(end.x - start.x, end.y - start.y);
+        if (chord <= m_tolerance) {
+            return true;
+        }
+        double turn = Math.atan2(end.y - middle.y, end.x - middle.x) -
+                Math.atan2(middle.y - start.y, middle.x - start.x);
+        turn = Math.abs(Math.IEEEremainder(turn, 2.0 * Math.PI));
+        return turn <= MAX_TURN_RADIANS;
+    }
+
+    private void add(@NotNull Point point) {
+        if (m_count == m_fieldX.length) {
+            m_fieldX = Arrays.copyOf(m_fieldX, m_count * 2);
+            m_fieldY = Arrays.copyOf(m_fieldY, m_count * 2);
+            m_time = Arrays.copyOf(m_time, m_count * 2);
+        }
+        m_fieldX[m_count] = point.x;
+        m_fieldY[m_count] = point.y;
+        m_time[m_count] = point.time;
+        m_count++;
+    }
+
+    /**
+     * @return The distance the polyline may be from the path, in meters.
+     */
+    public double getTolerance() {
+        return m_tolerance;
+    }
+
+    /**
+     * @return The number of points in the polyline, including both ends of the segment.
+     */
+    public int getCount() {
+        return m_count;
+    }
+
+    public double getFieldX(int index) {
+        return m_fieldX[index];
+    }
+
+    public double getFieldY(int index) {
+        return m_fieldY[index];
+    }
+
+    /**
+     * @param index The index of the point.
+     * @return The path time at the point, in seconds.
+     */
+    public double getTime(int index) {
+        return m_time[index];
+    }
+
+    /**
+     * Find where a field position is on the polyline, i.e. to test whether the mouse is over the path.
+     *
+     * @param fieldX    The field X of the position.
+     * @param fieldY    The field Y of the position.
+     * @param tolerance How near the position must be to the polyline, in meters.
+     * @return The path time at the nearest point on the polyline, {@code Double.NaN} if no point on the
+     * polyline is within the tolerance.
+     */
+    public double findTime(double fieldX, double fieldY, double tolerance) {
+        double[] nearest = {tolerance * tolerance, Double.NaN};
+        findNearest(fieldX, fieldY, nearest);
+        return nearest[1];
+    }
+
+    /**
+     * Find the nearest point on the polyline to a field position, if it is nearer than a point already found,
+     * i.e. on another segment of the path.
+     *
+     * @param fieldX  The field X of the position.
+     * @param fieldY  The field Y of the position.
+     * @param nearest The squared distance of the nearest point found so far, and its path time. These are
+     *                replaced if there is a point on this polyline at least as near.
+     */
+    void findNearest(double fieldX, double fieldY, @NotNull double[] nearest) {
+        for (int i = 1; i < m_count; i++) {
+            double x0 = m_fieldX[i - 1];
+            double y0 = m_fieldY[i - 1];
+            double dx = m_fieldX[i] - x0;
+            double dy = m_fieldY[i] - y0;
+            double lengthSq = (dx * dx) + (dy * dy);
+            double f = (lengthSq > 0.0) ?
+                    Math.max(0.0, Math.min(1.0, (((fieldX - x0) * dx) + ((fieldY - y0) * dy)) / lengthSq)) : 0.0;
+            double offsetX = fieldX - (x0 + (f * dx));
+            double offsetY = fieldY - (y0 + (f * dy));
+            double distanceSq = (offsetX * offsetX) + (offsetY * offsetY);
+            if (distanceSq <= nearest[0]) {
+                nearest[0] = distanceSq;
+                nearest[1] = m_time[i - 1] + (f * (m_time[i] - m_time[i - 1]));
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package frc6831.planner;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The immutable state of a path animation at one tick: where the robot is on the path, at what path time,
+ * and whether it is stopped to run a command. Frames are looked up in the {@link TrajectoryTable} by the
+ * {@code PathAnimator} on its own thread and published as a whole, so the canvas always paints a robot
+ * position, speeds, and description that belong to the same tick.
+ */
+@SuppressWarnings("HungarianNotationMemberVariables")
+public final class AnimationFrame {
+
+    private final double m_time;
+    private final double m_pathTime;
+    private final double m_fieldX;
+    private final double m_fieldY;
+    private final double m_headingSin;
+    private final double m_headingCos;
+    private final double m_speedForward;
+    private final double m_speedStrafe;
+    private final double m_speedRotation;
+    private final boolean m_tooFast;
+    private final String m_stopAndRunDescription;
+    private final MultiRobotFrame m_robots;
+
+    AnimationFrame(double time, double pathTime, double fieldX, double fieldY, double headingSin,
+                   double headingCos, double speedForward, double speedStrafe, double speedRotation,
+                   boolean tooFast, @Nullable String stopAndRunDescription) {
+        this(time, pathTime, fieldX, fieldY, headingSin, headingCos, speedForward, speedStrafe, speedRotation,
+                tooFast, stopAndRunDescription, null);
+    }
+
+    private AnimationFrame(double time, double pathTime, double fieldX, double fieldY, double headingSin,
+                           double headingCos, double speedForward, double speedStrafe, double speedRotation,
+                           boolean tooFast, @Nullable String stopAndRunDescription,
+                           @Nullable MultiRobotFrame robots) {
+        m_time = time;
+        m_pathTime = pathTime;
+        m_fieldX = fieldX;
+        m_fieldY = fieldY;
+        m_headingSin = headingSin;
+        m_headingCos = headingCos;
+        m_speedForward = speedForward;
+        m_speedStrafe = speedStrafe;
+        m_speedRotation = speedRotation;
+        m_tooFast = tooFast;
+        m_stopAndRunDescription = stopAndRunDescription;
+        m_robots = robots;
+    }
+
+    /**
+     * Make a copy of this frame with the other robots on the field.
+     *
+     * @param time   The playback time of the robots, in seconds, which may be after the end of the path being
+     *               edited if a playback robot has a longer path.
+     * @param robots The robots.
+     * @return The frame with the robots.
+     */
+    @NotNull
+    AnimationFrame withRobots(double time, @NotNull MultiRobotFrame robots) {
+        return new AnimationFrame(time, m_pathTime, m_fieldX, m_fieldY, m_headingSin, m_headingCos,
+                m_speedForward, m_speedStrafe, m_speedRotation, m_tooFast, m_stopAndRunDescription, robots);
+    }
+
+    /**
+     * @return The playback time, in seconds, including the time stopped to run commands.
+     */
+    public double getTime() {
+        return m_time;
+    }
+
+    /**
+     * @return The time on the path, in seconds.
+     */
+    public double getPathTime() {
+        return m_pathTime;
+    }
+
+    public double getFieldX() {
+        return m_fieldX;
+    }
+
+    public double getFieldY() {
+        return m_fieldY;
+    }
+
+    /**
+     * @return The sine of the robot heading, the X component of the heading direction.
+     */
+    public double getHeadingSin() {
+        return m_headingSin;
+    }
+
+    /**
+     * @return The cosine of the robot heading, the Y component of the heading direction.
+     */
+    public double getHeadingCos() {
+        return m_headingCos;
+    }
+
+    public double getSpeedForward() {
+        return m_speedForward;
+    }
+
+    public double getSpeedStrafe() {
+        return m_speedStrafe;
+    }
+
+    public double getSpeedRotation() {
+        return m_speedRotation;
+    }
+
+    /**
+     * @return {@code true} if the robot cannot achieve the speeds at this point on the path.
+     */
+    public boolean isTooFast() {
+        return m_tooFast;
+    }
+
+    /**
+     * @return The description of the command the robot is stopped to run, {@code null} if the robot is
+     * following the path.
+     */
+    @Nullable
+    public String getStopAndRunDescription() {
+        return m_stopAndRunDescription;
+    }
+
+    /**
+     * @return All the robots on the field, {@code null} if only the path being edited is played.
+     */
+    @Nullable
+    public MultiRobotFrame getRobots() {
+        return m_robots;
+    }
+}
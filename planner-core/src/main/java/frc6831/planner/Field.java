@@ -2,21 +2,28 @@ package frc6831.planner;
 
 import org.a05annex.util.geo2d.Plane2d;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 import org.json.simple.parser.ParseException;
 
-import java.awt.*;
-import java.awt.geom.*;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Point2D;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 
 import static org.a05annex.util.JsonSupport.*;
 
 /**
- * This class maintains and draws the field we will be plotting the path on. Note that the default
- * with no loaded field data is to draw the axes and a dotted outline of the field.
+ * This class maintains the field we will be plotting the path on: the field extent and view, the components
+ * placed on the field, and the boundary test for the robot. Note that the default with no loaded field data is
+ * just the extent of the field. The field has no drawing code (the planner draws it with its
+ * {@code FieldRenderer}) so the field can be loaded and tested against without AWT graphics.
  */
 @SuppressWarnings("HungarianNotationMemberVariables")
 public class Field {
@@ -84,35 +91,6 @@ public class Field {
     private final String m_default_title = "2023 field";
     private final String m_default_description = "The 2023 field outline with no game elements.";
 
-    // Additional colors - for 2021 Infinite Recharge at home
-    private static final Color GREEN_ZONE = new Color(118, 215, 196);
-    private static final Color YELLOW_ZONE = new Color(247, 220, 111);
-    private static final Color BLUE_ZONE = new Color(133, 193, 233);
-    private static final Color PURPLE_ZONE = new Color(187, 143, 206);
-    private static final Color RED_ZONE = new Color(236, 112, 99);
-
-    // the axis lines - probably resized whenever a field description is read.
-    private final Point2D.Double X_AXIS_START = new Point2D.Double(X_VIEW_MIN - AXIS_MARGIN, 0.0);
-    private final Point2D.Double X_AXIS_END = new Point2D.Double(X_VIEW_MAX + AXIS_MARGIN, 0.0);
-    private final Point2D.Double Y_AXIS_START = new Point2D.Double(0.0, Y_VIEW_MIN - AXIS_MARGIN);
-    private final Point2D.Double Y_AXIS_END = new Point2D.Double(0.0, Y_VIEW_MAX + AXIS_MARGIN);
-
-    // the un-transformed field outline.
-    private final Point2D.Double[] FIELD_OUTLINE = {
-            new Point2D.Double(X_FIELD_MIN, Y_FIELD_MIN),
-            new Point2D.Double(X_FIELD_MIN, Y_FIELD_MAX),
-            new Point2D.Double(X_FIELD_MAX, Y_FIELD_MAX),
-            new Point2D.Double(X_FIELD_MAX, Y_FIELD_MIN)
-    };
-
-    // the transformed (to screen coordinate) field outline.
-    private final Point2D.Double[] m_xfmField = {
-            new Point2D.Double(X_FIELD_MIN, Y_FIELD_MIN),
-            new Point2D.Double(X_FIELD_MIN, Y_FIELD_MAX),
-            new Point2D.Double(X_FIELD_MAX, Y_FIELD_MAX),
-            new Point2D.Double(X_FIELD_MAX, Y_FIELD_MIN)
-    };
-
     private final Plane2d[] fieldPlanes = {
             new Plane2d(1.0, 0.0, -X_FIELD_MAX),
             new Plane2d(-1.0, 0.0, X_FIELD_MIN),
@@ -123,6 +101,7 @@ public class Field {
     private final MinMax m_minMax =
             new MinMax(X_VIEW_MIN - AXIS_MARGIN, Y_VIEW_MIN - AXIS_MARGIN,
                     X_VIEW_MAX + AXIS_MARGIN, Y_VIEW_MAX + AXIS_MARGIN);
+    private final MinMax m_extent = new MinMax(X_FIELD_MIN, Y_FIELD_MIN, X_FIELD_MAX, Y_FIELD_MAX);
 
     private String m_title = m_default_title;
     private String m_description = m_default_description;
@@ -152,16 +131,16 @@ public class Field {
             m_maxY = maxY;
         }
 
-        double getMinX() {
+        public double getMinX() {
             return m_minX;
         }
-        double getMinY() {
+        public double getMinY() {
             return m_minY;
         }
-        double getMaxX() {
+        public double getMaxX() {
             return m_maxX;
         }
-        double getMaxY() {
+        public double getMaxY() {
             return m_maxY;
         }
     }
@@ -176,14 +155,25 @@ public class Field {
             m_next = nextShape;
         }
 
-        FieldShape getNext() {
+        /**
+         * Get the next shape of the component.
+         *
+         * @return The next shape, {@code null} if this is the last shape.
+         */
+        public @Nullable FieldShape getNext() {
             return m_next;
         }
 
-        abstract void draw(Graphics2D g2d, AffineTransform drawXfm, Color outline, Color fill);
+        /**
+         * Write this shape to the compiled field in the field cache.
+         *
+         * @param out The compiled field output stream.
+         * @throws IOException Thrown if the shape could not be written.
+         */
+        abstract void write(DataOutputStream out) throws IOException;
     }
 
-    private static class FieldCircle extends FieldShape {
+    public static class FieldCircle extends FieldShape {
 
         Point2D m_center = new Point2D.Double(0.0, 0.0);
         double m_radius = 1.0;
@@ -194,27 +184,28 @@ public class Field {
             m_radius = parseDouble(shapeDesc, CIRCLE_RADIUS, 1.0);
         }
 
+        FieldCircle(DataInputStream in) throws IOException {
+            m_center = readPoint(in);
+            m_radius = in.readDouble();
+        }
+
         @Override
-        void draw(Graphics2D g2d, AffineTransform drawXfm, Color outline, Color fill) {
-            Point2D.Double ptCenter = (Point2D.Double) drawXfm.transform(m_center, null);
-            double scale = Math.sqrt((drawXfm.getScaleX() * drawXfm.getScaleX()) +
-                    (drawXfm.getShearX() * drawXfm.getShearX()));
-            double scaledRadius = scale * m_radius;
-            if (null != fill) {
-                g2d.setPaint(fill);
-                g2d.fillOval((int) (ptCenter.getX() - scaledRadius), (int) (ptCenter.getY() - scaledRadius),
-                        (int) (2.0 * scaledRadius), (int) (2.0 * scaledRadius));
-            }
-            if (null != outline) {
-                g2d.setPaint(outline);
-                g2d.drawOval((int) (ptCenter.getX() - scaledRadius), (int) (ptCenter.getY() - scaledRadius),
-                        (int) (2.0 * scaledRadius), (int) (2.0 * scaledRadius));
-            }
+        void write(DataOutputStream out) throws IOException {
+            out.writeUTF(TYPE_CIRCLE);
+            writePoint(out, m_center);
+            out.writeDouble(m_radius);
+        }
 
+        public @NotNull Point2D getCenter() {
+            return m_center;
+        }
+
+        public double getRadius() {
+            return m_radius;
         }
     }
 
-    private static class FieldRect extends FieldShape {
+    public static class FieldRect extends FieldShape {
         Point2D m_LL;
         final Point2D m_UR;
 
@@ -224,77 +215,70 @@ public class Field {
 
         }
 
+        FieldRect(DataInputStream in) throws IOException {
+            m_LL = readPoint(in);
+            m_UR = readPoint(in);
+        }
+
         @Override
-        void draw(Graphics2D g2d, AffineTransform drawXfm, Color outline, Color fill) {
-            Point2D.Double ptLL = (Point2D.Double) drawXfm.transform(m_LL, null);
-            Point2D.Double ptUR = (Point2D.Double) drawXfm.transform(m_UR, null);
-            int x, y, width, height;
-            if (ptLL.x < ptUR.x) {
-                x = (int) ptLL.x;
-                width = (int) (ptUR.x - ptLL.x);
-            } else {
-                x = (int) ptUR.x;
-                width = (int) (ptLL.x - ptUR.x);
+        void write(DataOutputStream out) throws IOException {
+            out.writeUTF(TYPE_RECT);
+            writePoint(out, m_LL);
+            writePoint(out, m_UR);
+        }
 
-            }
-            if (ptLL.y < ptUR.y) {
-                y = (int) ptLL.y;
-                height = (int) (ptUR.y - ptLL.y);
-            } else {
-                y = (int) ptUR.y;
-                height = (int) (ptLL.y - ptUR.y);
+        public @NotNull Point2D getLowerLeft() {
+            return m_LL;
+        }
 
-            }
-            if (null != fill) {
-                g2d.setPaint(fill);
-                g2d.fillRect(x, y, width, height);
-            }
-            if (null != outline) {
-                g2d.setPaint(outline);
-                g2d.drawRect(x, y, width, height);
-            }
+        public @NotNull Point2D getUpperRight() {
+            return m_UR;
         }
     }
 
-    private static class FieldPolygon extends FieldShape {
+    public static class FieldPolygon extends FieldShape {
         final Point2D[] m_pts;
-        final Point2D[] m_xfmPts;
 
         FieldPolygon(JSONObject shapeDesc) {
             JSONArray ptList = getJSONArray(shapeDesc, POINTS);
             int index = 0;
             m_pts = new Point2D[ptList.size()];
-            m_xfmPts = new Point2D[ptList.size()];
             for (Object ptObj : ptList) {
                 m_pts[index++] = parsePoint((JSONArray) ptObj);
             }
         }
 
-        @Override
-        void draw(Graphics2D g2d, AffineTransform drawXfm, Color outline, Color fill) {
-            drawXfm.transform(m_pts, 0, m_xfmPts, 0, m_pts.length);
-            GeneralPath polyPath = new GeneralPath(GeneralPath.WIND_NON_ZERO, 4);
-            for (int i = 0; i < m_xfmPts.length; i++) {
-                if (i == 0) {
-                    polyPath.moveTo(m_xfmPts[i].getX(), m_xfmPts[i].getY());
-                } else {
-                    polyPath.lineTo(m_xfmPts[i].getX(), m_xfmPts[i].getY());
-                }
+        FieldPolygon(DataInputStream in) throws IOException {
+            m_pts = new Point2D[in.readInt()];
+            for (int i = 0; i < m_pts.length; i++) {
+                m_pts[i] = readPoint(in);
             }
-            polyPath.closePath();
-            if (null != fill) {
-                g2d.setPaint(fill);
-                g2d.fill(polyPath);
-            }
-            if (null != outline) {
-                g2d.setPaint(outline);
-                g2d.draw(polyPath);
+        }
+
+        @Override
+        void write(DataOutputStream out) throws IOException {
+            out.writeUTF(TYPE_POLYGON);
+            out.writeInt(m_pts.length);
+            for (Point2D pt : m_pts) {
+                writePoint(out, pt);
             }
+        }
+
+        /**
+         * Get the number of polygon vertices.
+         *
+         * @return The number of vertices.
+         */
+        public int size() {
+            return m_pts.length;
+        }
 
+        public @NotNull Point2D getPoint(int index) {
+            return m_pts[index];
         }
     }
 
-    private static class FieldRing extends FieldShape {
+    public static class FieldRing extends FieldShape {
         Point2D m_center = new Point2D.Double(0.0, 0.0);
         double m_OD = 0.356;
         double m_ID = 0.254;
@@ -305,41 +289,36 @@ public class Field {
             m_ID = parseDouble(shapeDesc, RING_ID, 0.254);
         }
 
+        FieldRing(DataInputStream in) throws IOException {
+            m_center = readPoint(in);
+            m_OD = in.readDouble();
+            m_ID = in.readDouble();
+        }
+
         @Override
-        void draw(Graphics2D g2d, AffineTransform drawXfm, Color outline, Color fill) {
-            Point2D.Double ptCenter = (Point2D.Double) drawXfm.transform(m_center, null);
-            double scale = Math.sqrt((drawXfm.getScaleX() * drawXfm.getScaleX()) +
-                    (drawXfm.getShearX() * drawXfm.getShearX()));
-            double scaledOD = scale * m_OD;
-            double scaledID = scale * m_ID;
-            Ellipse2D outer = new Ellipse2D.Double(
-                    ptCenter.getX() - (scaledOD * 0.5),
-                    ptCenter.getY() - (scaledOD * 0.5),
-                    scaledOD,
-                    scaledOD);
-            Ellipse2D inner = new Ellipse2D.Double(
-                    ptCenter.getX() - (scaledID * 0.5),
-                    ptCenter.getY() - (scaledID * 0.5),
-                    scaledID,
-                    scaledID);
-            Area area = new Area(outer);
-            area.subtract(new Area(inner));
-
-            if (null != fill) {
-                g2d.setColor(fill);
-                g2d.fill(area);
-            }
-            if (null != outline) {
-                g2d.setColor(outline);
-                g2d.draw(area);
-            }
+        void write(DataOutputStream out) throws IOException {
+            out.writeUTF(TYPE_RING);
+            writePoint(out, m_center);
+            out.writeDouble(m_OD);
+            out.writeDouble(m_ID);
+        }
+
+        public @NotNull Point2D getCenter() {
+            return m_center;
+        }
 
+        public double getOD() {
+            return m_OD;
+        }
+
+        public double getID() {
+            return m_ID;
         }
     }
     // -------------------------------------------------------------------------------------------
     // Components that may appear on the field multiple times, and optionally in alliance colors
     // -------------------------------------------------------------------------------------------
-    private static class FieldComponent {
+    public static class FieldComponent {
         String m_name = "default";
         String m_outlineColor = "white";
         String m_fillColor = null;
@@ -365,18 +344,65 @@ public class Field {
             }
         }
 
+        FieldComponent(DataInputStream in) throws IOException {
+            m_name = in.readUTF();
+            m_outlineColor = readNullableString(in);
+            m_fillColor = readNullableString(in);
+            FieldShape lastShape = null;
+            for (int shapeCount = in.readInt(); shapeCount > 0; shapeCount--) {
+                FieldShape fieldShape = readShape(in);
+                if (null == lastShape) {
+                    m_shape = fieldShape;
+                } else {
+                    lastShape.setNext(fieldShape);
+                }
+                lastShape = fieldShape;
+            }
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeUTF(m_name);
+            writeNullableString(out, m_outlineColor);
+            writeNullableString(out, m_fillColor);
+            int shapeCount = 0;
+            for (FieldShape shape = m_shape; null != shape; shape = shape.getNext()) {
+                shapeCount++;
+            }
+            out.writeInt(shapeCount);
+            for (FieldShape shape = m_shape; null != shape; shape = shape.getNext()) {
+                shape.write(out);
+            }
+        }
+
         public String getName() {
             return m_name;
         }
 
-        public void draw(Graphics2D g2d, AffineTransform drawXfm, Color allianceColor) {
-            FieldShape nextShape = m_shape;
-            while (null != nextShape) {
-                nextShape.draw(g2d, drawXfm,
-                        (null == m_outlineColor) ? null : getColor(m_outlineColor, null, allianceColor),
-                        (null == m_fillColor) ? null : getColor(m_fillColor, null, allianceColor));
-                nextShape = nextShape.getNext();
-            }
+        /**
+         * Get the name of the outline color of the shapes, i.e. {@code "white"} or {@code "alliance"}.
+         *
+         * @return The outline color name, {@code null} if the outline is not drawn.
+         */
+        public @Nullable String getOutlineColor() {
+            return m_outlineColor;
+        }
+
+        /**
+         * Get the name of the fill color of the shapes, i.e. {@code "green-zone"} or {@code "alliance"}.
+         *
+         * @return The fill color name, {@code null} if the shapes are not filled.
+         */
+        public @Nullable String getFillColor() {
+            return m_fillColor;
+        }
+
+        /**
+         * Get the first shape of this component, the rest are reached with {@link FieldShape#getNext()}.
+         *
+         * @return The first shape, {@code null} if the component has no shapes.
+         */
+        public @Nullable FieldShape getFirstShape() {
+            return m_shape;
         }
     }
 
@@ -388,23 +414,38 @@ public class Field {
      * A field element is a component that is positioned and drawn onto the field. This component is
      * optionally alliance color coded.
      */
-    static class FieldDraw {
+    public static class FieldDraw {
         final FieldComponent m_component;
         final AffineTransform m_xfm;
-        final Color m_allianceColor;
+        final String m_allianceColor;
 
-        public FieldDraw(FieldComponent component, AffineTransform xfm, Color allianceColor) {
+        public FieldDraw(FieldComponent component, AffineTransform xfm, String allianceColor) {
             m_component = component;
             m_xfm = xfm;
             m_allianceColor = allianceColor;
         }
 
-        public void draw(Graphics2D g2d, AffineTransform drawXfm) {
-            AffineTransform xfm = new AffineTransform(drawXfm);
-            xfm.concatenate(m_xfm);
-            m_component.draw(g2d, xfm, m_allianceColor);
+        public @NotNull FieldComponent getComponent() {
+            return m_component;
+        }
+
+        /**
+         * Get the transformation that positions the component on the field.
+         *
+         * @return The component to field transformation.
+         */
+        public @NotNull AffineTransform getTransform() {
+            return m_xfm;
         }
 
+        /**
+         * Get the name of the alliance color the {@code "alliance"} colors of the component are drawn in.
+         *
+         * @return The alliance color name, {@code null} if the component is not alliance colored.
+         */
+        public @Nullable String getAllianceColor() {
+            return m_allianceColor;
+        }
     }
 
     // ====================================================================================================
@@ -431,6 +472,24 @@ public class Field {
         return m_minMax;
     }
 
+    /**
+     * Get the extent of the field, which is the boundary the robot must stay inside.
+     *
+     * @return The field extent.
+     */
+    public @NotNull MinMax getExtent() {
+        return m_extent;
+    }
+
+    /**
+     * Get the components placed on the field, in the order they are drawn.
+     *
+     * @return The placed components.
+     */
+    public @NotNull List<FieldDraw> getDrawList() {
+        return Collections.unmodifiableList(m_drawList);
+    }
+
     // ----------------------------------------------------------------------------------------------------
     // Loading from a JSON file
     // ----------------------------------------------------------------------------------------------------
@@ -445,22 +504,9 @@ public class Field {
 
     private void resetExtentAndViewDependencies()
     {
-        // reset the axis endpoints
-        X_AXIS_START.setLocation(X_VIEW_MIN - AXIS_MARGIN, 0.0);
-        X_AXIS_END.setLocation(X_VIEW_MAX + AXIS_MARGIN, 0.0);
-        Y_AXIS_START.setLocation(0.0, Y_VIEW_MIN - AXIS_MARGIN);
-        Y_AXIS_END.setLocation(0.0, Y_VIEW_MAX + AXIS_MARGIN);
         // field outline
-        FIELD_OUTLINE[0].setLocation(X_FIELD_MIN, Y_FIELD_MIN);
-        FIELD_OUTLINE[1].setLocation(X_FIELD_MIN, Y_FIELD_MAX);
-        FIELD_OUTLINE[2].setLocation(X_FIELD_MAX, Y_FIELD_MAX);
-        FIELD_OUTLINE[3].setLocation(X_FIELD_MAX, Y_FIELD_MIN);
-        // field transformation
-        m_xfmField[0].setLocation(X_FIELD_MIN, Y_FIELD_MIN);
-        m_xfmField[1].setLocation(X_FIELD_MIN, Y_FIELD_MAX);
-        m_xfmField[2].setLocation(X_FIELD_MAX, Y_FIELD_MAX);
-        m_xfmField[3].setLocation(X_FIELD_MAX, Y_FIELD_MIN);
-        // the transformed (to screen coordinate) field outline.
+        m_extent.setValue(X_FIELD_MIN, Y_FIELD_MIN, X_FIELD_MAX, Y_FIELD_MAX);
+        // the field boundary planes
         fieldPlanes[0].setValue(1.0, 0.0, -X_FIELD_MAX);
         fieldPlanes[1].setValue(-1.0, 0.0, X_FIELD_MIN);
         fieldPlanes[2].setValue(0.0, 1.0, -Y_FIELD_MAX);
@@ -470,11 +516,48 @@ public class Field {
                         X_VIEW_MAX + AXIS_MARGIN, Y_VIEW_MAX + AXIS_MARGIN);
     }
 
-    /** Load a field.
+    /** Load a field. If the field cache has a compiled version of this exact field description, the
+     * compiled field is read from the cache instead of parsing the description.
      *
      * @param filepath The path to the file ccontaining the field description.
+     * @return {@code true} if the field was loaded, {@code false} if the field description could not be
+     * read and the field was reset to the default empty field.
+     */
+    public boolean loadField(@NotNull String filepath) {
+        PlannerEvents.FieldLoad event = new PlannerEvents.FieldLoad();
+        event.begin();
+        setDefaultEmptyField();
+        FieldCache cache = FieldCache.forFile(filepath);
+        boolean fromCache = (null != cache) && cache.read(this);
+        boolean loaded = fromCache || parseField(filepath);
+        if (loaded && !fromCache && (null != cache)) {
+            cache.write(this);
+        }
+        if (event.shouldCommit()) {
+            event.file = filepath;
+            event.loaded = loaded;
+            event.fromCache = fromCache;
+            event.components = m_components.size();
+            for (FieldComponent component : m_components.values()) {
+                for (FieldShape shape = component.m_shape; null != shape; shape = shape.getNext()) {
+                    event.shapes++;
+                }
+            }
+            event.drawn = m_drawList.size();
+            event.commit();
+        }
+        return loaded;
+    }
+
+    /**
+     * Parse a field description, bypassing the field cache. This is separate from {@link #loadField(String)} so
+     * the cost of parsing can be benchmarked.
+     *
+     * @param filepath The path to the file containing the field description.
+     * @return {@code true} if the field was parsed, {@code false} if the field description could not be
+     * read and the field was reset to the default empty field.
      */
-    public void loadField(@NotNull String filepath) {
+    boolean parseField(@NotNull String filepath) {
         setDefaultEmptyField();
         try {
             JSONObject dict = readJsonFileAsJSONObject(filepath);
@@ -539,13 +622,13 @@ public class Field {
                             xfm.scale(scale.getX(), scale.getY());
                         }
                         // and set the alliance color (if there is one)
-                        String colorName = parseString(drawDesc, ALLIANCE, null);
-                        Color allianceColor = (null == colorName) ? null : getColor(colorName, null, null);
+                        String allianceColor = parseString(drawDesc, ALLIANCE, null);
                         // and now add it to the list of field stuff we draw.
                         m_drawList.add(new FieldDraw(component, xfm, allianceColor));
                     }
                 }
             }
+            return true;
 
         } catch (IOException | ParseException | ClassCastException | NullPointerException e) {
             // TODO - do something better (like a meaningful error message dialog) for a bad
@@ -553,6 +636,113 @@ public class Field {
             setDefaultEmptyField();
             resetExtentAndViewDependencies();
             e.printStackTrace();
+            return false;
+        }
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+    // Reading and writing the compiled field for the field cache
+    // ----------------------------------------------------------------------------------------------------
+
+    /**
+     * Write the compiled field - everything built from the field description - to the field cache.
+     *
+     * @param out The compiled field output stream.
+     * @throws IOException Thrown if the field could not be written.
+     */
+    void writeCompiled(@NotNull DataOutputStream out) throws IOException {
+        out.writeUTF(m_title);
+        out.writeUTF(m_description);
+        for (double value : new double[]{X_FIELD_MIN, Y_FIELD_MIN, X_FIELD_MAX, Y_FIELD_MAX,
+                X_VIEW_MIN, Y_VIEW_MIN, X_VIEW_MAX, Y_VIEW_MAX}) {
+            out.writeDouble(value);
+        }
+        out.writeInt(m_components.size());
+        for (FieldComponent component : m_components.values()) {
+            component.write(out);
+        }
+        out.writeInt(m_drawList.size());
+        double[] matrix = new double[6];
+        for (FieldDraw fieldDraw : m_drawList) {
+            out.writeUTF(fieldDraw.m_component.getName());
+            fieldDraw.m_xfm.getMatrix(matrix);
+            for (double value : matrix) {
+                out.writeDouble(value);
+            }
+            writeNullableString(out, fieldDraw.m_allianceColor);
+        }
+    }
+
+    /**
+     * Read the compiled field from the field cache.
+     *
+     * @param in The compiled field input stream.
+     * @throws IOException Thrown if the compiled field could not be read.
+     */
+    void readCompiled(@NotNull DataInputStream in) throws IOException {
+        m_title = in.readUTF();
+        m_description = in.readUTF();
+        X_FIELD_MIN = in.readDouble();
+        Y_FIELD_MIN = in.readDouble();
+        X_FIELD_MAX = in.readDouble();
+        Y_FIELD_MAX = in.readDouble();
+        X_VIEW_MIN = in.readDouble();
+        Y_VIEW_MIN = in.readDouble();
+        X_VIEW_MAX = in.readDouble();
+        Y_VIEW_MAX = in.readDouble();
+        resetExtentAndViewDependencies();
+        for (int componentCount = in.readInt(); componentCount > 0; componentCount--) {
+            FieldComponent component = new FieldComponent(in);
+            m_components.put(component.getName(), component);
+        }
+        double[] matrix = new double[6];
+        for (int drawCount = in.readInt(); drawCount > 0; drawCount--) {
+            String componentName = in.readUTF();
+            FieldComponent component = m_components.get(componentName);
+            if (null == component) {
+                throw new IOException(String.format("No component named '%s'", componentName));
+            }
+            for (int i = 0; i < matrix.length; i++) {
+                matrix[i] = in.readDouble();
+            }
+            String allianceColor = readNullableString(in);
+            m_drawList.add(new FieldDraw(component, new AffineTransform(matrix), allianceColor));
+        }
+    }
+
+    private static FieldShape readShape(DataInputStream in) throws IOException {
+        String type = in.readUTF();
+        switch (type) {
+            case TYPE_CIRCLE:
+                return new FieldCircle(in);
+            case TYPE_RECT:
+                return new FieldRect(in);
+            case TYPE_POLYGON:
+                return new FieldPolygon(in);
+            case TYPE_RING:
+                return new FieldRing(in);
+            default:
+                throw new IOException(String.format("Unknown compiled shape type '%s'", type));
+        }
+    }
+
+    private static Point2D readPoint(DataInputStream in) throws IOException {
+        return new Point2D.Double(in.readDouble(), in.readDouble());
+    }
+
+    private static void writePoint(DataOutputStream out, Point2D pt) throws IOException {
+        out.writeDouble(pt.getX());
+        out.writeDouble(pt.getY());
+    }
+
+    private static String readNullableString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeNullableString(DataOutputStream out, String str) throws IOException {
+        out.writeBoolean(null != str);
+        if (null != str) {
+            out.writeUTF(str);
         }
     }
 
@@ -575,82 +765,6 @@ public class Field {
         }
     }
 
-
-    static Color getColor(String colorName, Color defaultColor, Color allianceColor) {
-        // OK, the color should be a string that is one of the named colors
-        if (null == colorName) {
-            return null;
-        }
-        switch (colorName) {
-            case "alliance":
-                return allianceColor;
-            case "white":
-                return Color.WHITE;
-            case "red":
-                return Color.RED;
-            case "blue":
-                return Color.BLUE;
-            case "yellow":
-                return Color.YELLOW;
-            case "light-gray":
-                return Color.LIGHT_GRAY;
-            case "gray":
-                return Color.GRAY;
-            case "dark-gray":
-                return Color.DARK_GRAY;
-            case "black":
-                return Color.BLACK;
-            case "orange":
-                return Color.ORANGE;
-            case "green":
-                return Color.GREEN;
-            case "cyan":
-                return Color.CYAN;
-            case "magenta":
-                return Color.MAGENTA;
-            case "green-zone":
-                return GREEN_ZONE;
-            case "yellow-zone":
-                return YELLOW_ZONE;
-            case "blue-zone":
-                return BLUE_ZONE;
-            case "purple-zone":
-                return PURPLE_ZONE;
-            case "red-zone":
-                return RED_ZONE;
-            default:
-                return defaultColor;
-        }
-    }
-
-    /**
-     * Draw the field to the screen.
-     *
-     * @param g2d     The 2d graphics configuration
-     * @param drawXfm The field space to screen space transformation.
-     */
-    public void draw(@NotNull Graphics2D g2d, @NotNull AffineTransform drawXfm) {
-        Stroke oldStroke = g2d.getStroke();
-        Color oldColor = g2d.getColor();
-
-        // draw the axis
-        g2d.setPaint(Color.ORANGE);
-        drawLine(g2d, drawXfm, X_AXIS_START, X_AXIS_END);
-        drawLine(g2d, drawXfm, Y_AXIS_START, Y_AXIS_END);
-
-        // draw the field outline as a dotted line
-        g2d.setPaint(Color.WHITE);
-        drawPolyLine(g2d, drawXfm, FIELD_OUTLINE, m_xfmField, true);
-
-        // now draw the field that was read in from the field data file.
-        for (FieldDraw fieldDraw : m_drawList) {
-            fieldDraw.draw(g2d, drawXfm);
-        }
-
-        g2d.setStroke(oldStroke);
-        g2d.setPaint(oldColor);
-    }
-
     /**
      * Test whether a set of points (field relative) is inside the boundary of the field to the specified tolerance.
      * The test fails returns {@code false} at the first point testing closer than tolerance.
@@ -670,38 +784,4 @@ public class Field {
         }
         return true;
     }
-
-    /**
-     *
-     * @param g2d
-     * @param drawXfm
-     * @param start
-     * @param end
-     */
-    private void drawLine(Graphics2D g2d, AffineTransform drawXfm, Point2D.Double start, Point2D.Double end) {
-        Point2D.Double ptStart = (Point2D.Double) drawXfm.transform(start, null);
-        Point2D.Double ptEnd = (Point2D.Double) drawXfm.transform(end, null);
-        g2d.drawLine((int) ptStart.getX(), (int) ptStart.getY(), (int) ptEnd.getX(), (int) ptEnd.getY());
-    }
-
-    /**
-     *
-     * @param g2d
-     * @param drawXfm
-     * @param fieldPts
-     * @param xfmPts
-     * @param closed
-     */
-    private void drawPolyLine(Graphics2D g2d, AffineTransform drawXfm,
-                              Point2D.Double[] fieldPts, Point2D.Double[] xfmPts, boolean closed) {
-        drawXfm.transform(fieldPts, 0, xfmPts, 0, fieldPts.length);
-        Point2D.Double lastPt = closed ? xfmPts[fieldPts.length - 1] : null;
-        for (int n = 0; n < fieldPts.length; n++) {
-            Point2D.Double thisPt = xfmPts[n];
-            if (null != lastPt) {
-                g2d.drawLine((int) thisPt.getX(), (int) thisPt.getY(), (int) lastPt.getX(), (int) lastPt.getY());
-            }
-            lastPt = thisPt;
-        }
-    }
 }
@@ -0,0 +1,108 @@
+package frc6831.planner;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * An on-disk cache of compiled fields. Field description files change rarely, but are loaded every time the
+ * planner starts, so the result of parsing a field description (the components, shapes, draw list, transforms,
+ * extents, and colors) is written to the cache in a compact binary form and read directly on the next load.
+ * <p>
+ * A compiled field is keyed by a hash of the field description file contents and the {@link #COMPILED_VERSION},
+ * so editing the description, or changing how descriptions are parsed, simply misses the cache.
+ */
+@SuppressWarnings("HungarianNotationMemberVariables")
+public class FieldCache {
+
+    /**
+     * The version of the field loader and compiled format. This must be incremented whenever a change to
+     * {@link Field} changes what is built from a field description or how it is written to the cache.
+     */
+    static final int COMPILED_VERSION = 2;
+
+    private static final String CACHE_DIRECTORY = "field-cache";
+    private static final String CACHE_SUFFIX = ".field";
+
+    private final File m_cacheFile;
+
+    private FieldCache(@NotNull File cacheFile) {
+        m_cacheFile = cacheFile;
+    }
+
+    /**
+     * Get the cache entry for a field description file.
+     *
+     * @param filepath The path to the field description file.
+     * @return The cache entry, {@code null} if the field description cannot be read or there is no cache
+     * directory.
+     */
+    @Nullable
+    static FieldCache forFile(@NotNull String filepath) {
+        File directory = PlannerFiles.getDirectory(CACHE_DIRECTORY);
+        if (null == directory) {
+            return null;
+        }
+        try {
+            String hash = PlannerFiles.sha256Hex(Integer.toString(COMPILED_VERSION).getBytes(),
+                    Files.readAllBytes(new File(filepath).toPath()));
+            return new FieldCache(new File(directory, hash + CACHE_SUFFIX));
+        } catch (IOException e) {
+            // can't read the description, it will fail (and report why) when it is parsed.
+            return null;
+        }
+    }
+
+    /**
+     * Read the compiled field from the cache.
+     *
+     * @param field The field to be read into. This should be the default empty field.
+     * @return {@code true} if the compiled field was read, {@code false} if the field is not in the cache, or
+     * the cache entry could not be read (in which case the field should be parsed from the description).
+     */
+    boolean read(@NotNull Field field) {
+        if (!m_cacheFile.isFile()) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(m_cacheFile)))) {
+            field.readCompiled(in);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Discarding unreadable field cache entry: " + m_cacheFile.getAbsolutePath());
+            //noinspection ResultOfMethodCallIgnored
+            m_cacheFile.delete();
+            return false;
+        }
+    }
+
+    /**
+     * Write the compiled field to the cache. The entry is written to a temporary file of its own and moved into
+     * place so another planner never reads a partially written entry, and two planners writing the same entry
+     * never write the same temporary file.
+     *
+     * @param field The field that was just parsed from the description.
+     */
+    void write(@NotNull Field field) {
+        File tempFile = null;
+        try {
+            tempFile = Files.createTempFile(m_cacheFile.getParentFile().toPath(), m_cacheFile.getName() + ".",
+                    ".tmp").toFile();
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+                field.writeCompiled(out);
+            }
+            Files.move(tempFile.toPath(), m_cacheFile.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Could not write field cache entry: " + m_cacheFile.getAbsolutePath());
+            e.printStackTrace();
+            if (null != tempFile) {
+                //noinspection ResultOfMethodCallIgnored
+                tempFile.delete();
+            }
+        }
+    }
+}
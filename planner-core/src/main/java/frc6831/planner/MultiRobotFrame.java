@@ -0,0 +1,110 @@
+package frc6831.planner;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * The immutable state of all the robots on the field at one tick of a {@link MultiRobotPlayback}: where each
+ * robot is, the corners of its bumpers, and which robots are colliding. Robot 0 is the robot following the
+ * path being edited, robots 1 and up are the playback robots. A multi-robot frame is published as part of the
+ * {@link AnimationFrame} of the edited path, so all the robots painted in a frame are from the same tick.
+ */
+@SuppressWarnings("HungarianNotationMemberVariables")
+public final class MultiRobotFrame {
+
+    /**
+     * The number of corners of a bumper rectangle.
+     */
+    public static final int CORNERS = 4;
+
+    private final String[] m_names;
+    private final boolean[] m_opponent;
+    private final AnimationFrame[] m_frames;
+    // the bumper corners, CORNERS consecutive corners for each robot, in order around the bumpers
+    private final double[] m_cornerX;
+    private final double[] m_cornerY;
+    // bit (a * MultiRobotPlayback.MAX_ROBOTS + b), a < b, is set if robots a and b are colliding
+    private final long m_collisions;
+
+    MultiRobotFrame(@NotNull String[] names, @NotNull boolean[] opponent, @NotNull AnimationFrame[] frames,
+                    @NotNull double[] cornerX, @NotNull double[] cornerY, long collisions) {
+        m_names = names;
+        m_opponent = opponent;
+        m_frames = frames;
+        m_cornerX = cornerX;
+        m_cornerY = cornerY;
+        m_collisions = collisions;
+    }
+
+    /**
+     * @return The number of robots, including the robot following the path being edited.
+     */
+    public int getRobotCount() {
+        return m_frames.length;
+    }
+
+    @NotNull
+    public String getName(int robot) {
+        return m_names[robot];
+    }
+
+    /**
+     * @param robot The robot index.
+     * @return {@code true} if the robot is on the opposing alliance to the path being edited.
+     */
+    public boolean isOpponent(int robot) {
+        return m_opponent[robot];
+    }
+
+    @NotNull
+    public AnimationFrame getFrame(int robot) {
+        return m_frames[robot];
+    }
+
+    public double getCornerX(int robot, int corner) {
+        return m_cornerX[(robot * CORNERS) + corner];
+    }
+
+    public double getCornerY(int robot, int corner) {
+        return m_cornerY[(robot * CORNERS) + corner];
+    }
+
+    /**
+     * @param a One robot index.
+     * @param b The other robot index.
+     * @return {@code true} if the bumpers of the robots overlap.
+     */
+    public boolean isColliding(int a, int b) {
+        return (a != b) && (0 != (m_collisions & collisionBit(Math.min(a, b), Math.max(a, b))));
+    }
+
+    /**
+     * @param robot The robot index.
+     * @return {@code true} if the bumpers of the robot overlap the bumpers of any other robot.
+     */
+    public boolean isColliding(int robot) {
+        for (int other = 0; other < m_frames.length; other++) {
+            if (isColliding(robot, other)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return {@code true} if any robots are colliding.
+     */
+    public boolean hasCollisions() {
+        return 0 != m_collisions;
+    }
+
+    /**
+     * @return The collisions, as a set of bits indexed by robot pair.
+     */
+    long getCollisions() {
+        return m_collisions;
+    }
+
+    static long collisionBit(int a, int b) {
+        return 1L << ((a * MultiRobotPlayback.MAX_ROBOTS) + b);
+    }
+}
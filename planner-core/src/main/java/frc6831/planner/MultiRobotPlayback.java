@@ -0,0 +1,291 @@
+package frc6831.planner;
+
+import org.a05annex.util.geo2d.KochanekBartelsSpline;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.util.Arrays;
+
+/**
+ * The other robots on the field while the path plays, i.e. our alliance partners and the opposing alliance
+ * running their autos: up to {@link #MAX_ROBOTS} robots in all, {@link #MAX_ROBOTS_PER_ALLIANCE} on each
+ * alliance, including the robot following the path being edited. Each playback robot follows its own path
+ * with its own robot description, and is looked up in its own {@link TrajectoryTable} at the time on the same
+ * {@code SimulationClock} as the edited path, so all the robots pause, step, scrub, and change play rate
+ * together.
+ * <p>
+ * Each tick the bumpers of every pair of robots are checked for collisions. The broad phase is a sweep and
+ * prune of the bumper bounding boxes along the field X axis, so only robots whose bounding boxes overlap are
+ * tested, and the narrow phase is a separating axis test of the rotated bumper rectangles. Everything is in
+ * primitive arrays, so a tick with every robot moving is a handful of table lookups and comparisons.
+ * <p>
+ * A playback is immutable; adding a robot makes a new playback, which is handed to the {@code PathAnimator}.
+ */
+@SuppressWarnings("HungarianNotationMemberVariables")
+public final class MultiRobotPlayback {
+
+    /**
+     * The maximum number of robots, including the robot following the path being edited.
+     */
+    public static final int MAX_ROBOTS = 6;
+    /**
+     * The maximum number of robots on each alliance, including the robot following the path being edited.
+     */
+    public static final int MAX_ROBOTS_PER_ALLIANCE = 3;
+    /**
+     * The name of the robot following the path being edited, which is robot 0 in a {@link MultiRobotFrame}.
+     */
+    public static final String EDITED_PATH_NAME = "this path";
+
+    private final String[] m_names;
+    private final boolean[] m_opponent;
+    private final TrajectoryTable[] m_trajectories;
+    private final double m_duration;
+
+    /**
+     * Create a playback with no other robots.
+     */
+    public MultiRobotPlayback() {
+        this(new String[0], new boolean[0], new TrajectoryTable[0]);
+    }
+
+    private MultiRobotPlayback(@NotNull String[] names, @NotNull boolean[] opponent,
+                               @NotNull TrajectoryTable[] trajectories) {
+        m_names = names;
+        m_opponent = opponent;
+        m_trajectories = trajectories;
+        double duration = 0.0;
+        for (TrajectoryTable trajectory : trajectories) {
+            duration = Math.max(duration, trajectory.getDuration());
+        }
+        m_duration = duration;
+    }
+
+    /**
+     * Load a path and build its trajectory for a playback robot.
+     *
+     * @param pathFile The path file.
+     * @param robot    The robot following the path.
+     * @return The trajectory, {@code null} if the path could not be loaded or is empty.
+     */
+    @Nullable
+    public static TrajectoryTable loadTrajectory(@NotNull File pathFile, @NotNull Robot robot) {
+        try {
+            KochanekBartelsSpline path = new KochanekBartelsSpline();
+            PlannerEvents.loadPath(path, pathFile.getAbsolutePath());
+            TrajectoryTable trajectory = TrajectoryTable.build(path, path.getCurveSegments(), robot);
+            if (null == trajectory) {
+                System.err.println("Playback robot path is empty: " + pathFile.getAbsolutePath());
+            }
+            return trajectory;
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            System.err.println("Could not load playback robot path: " + pathFile.getAbsolutePath());
+            return null;
+        }
+    }
+
+    /**
+     * @return The number of playback robots, not including the robot following the path being edited.
+     */
+    public int size() {
+        return m_trajectories.length;
+    }
+
+    @NotNull
+    public String getName(int index) {
+        return m_names[index];
+    }
+
+    public boolean isOpponent(int index) {
+        return m_opponent[index];
+    }
+
+    @NotNull
+    public TrajectoryTable getTrajectory(int index) {
+        return m_trajectories[index];
+    }
+
+    /**
+     * @return The time for the slowest playback robot to finish its path, in seconds, including the time
+     * stopped to run commands; 0 if there are no playback robots.
+     */
+    public double getDuration() {
+        return m_duration;
+    }
+
+    /**
+     * Test whether another robot can be added to an alliance.
+     *
+     * @param opponent {@code true} for the opposing alliance, {@code false} for the alliance of the path
+     *                 being edited.
+     * @return {@code true} if the alliance has room for another robot.
+     */
+    public boolean canAdd(boolean opponent) {
+        // the robot following the path being edited is on its own alliance
+        int count = opponent ? 0 : 1;
+        for (boolean robotOpponent : m_opponent) {
+            count += (robotOpponent == opponent) ? 1 : 0;
+        }
+        return count < MAX_ROBOTS_PER_ALLIANCE;
+    }
+
+    /**
+     * Make a playback with another robot.
+     *
+     * @param name       The name of the robot, i.e. the path file name.
+     * @param opponent   {@code true} if the robot is on the opposing alliance.
+     * @param trajectory The trajectory of the robot.
+     * @return The new playback.
+     * @throws IllegalStateException if the alliance already has {@link #MAX_ROBOTS_PER_ALLIANCE} robots.
+     */
+    @NotNull
+    public MultiRobotPlayback withRobot(@NotNull String name, boolean opponent,
+                                        @NotNull TrajectoryTable trajectory) {
+        if (!canAdd(opponent)) {
+            throw new IllegalStateException(String.format("An alliance can only have %d robots.",
+                    MAX_ROBOTS_PER_ALLIANCE));
+        }
+        int count = m_trajectories.length;
+        String[] names = Arrays.copyOf(m_names, count + 1);
+        boolean[] opponents = Arrays.copyOf(m_opponent, count + 1);
+        TrajectoryTable[] trajectories = Arrays.copyOf(m_trajectories, count + 1);
+        names[count] = name;
+        opponents[count] = opponent;
+        trajectories[count] = trajectory;
+        return new MultiRobotPlayback(names, opponents, trajectories);
+    }
+
+    /**
+     * Get the state of all the robots at a playback time.
+     *
+     * @param time             The playback time, in seconds. A robot that has finished its path stays at the end
+     *                         of the path.
+     * @param edited           The frame of the robot following the path being edited at the time.
+     * @param editedTrajectory The trajectory of the path being edited.
+     * @return The frame of all the robots.
+     */
+    @NotNull
+    public MultiRobotFrame frameAt(double time, @NotNull AnimationFrame edited,
+                                   @NotNull TrajectoryTable editedTrajectory) {
+        int count = m_trajectories.length + 1;
+        String[] names = new String[count];
+        boolean[] opponent = new boolean[count];
+        AnimationFrame[] frames = new AnimationFrame[count];
+        double[] cornerX = new double[count * MultiRobotFrame.CORNERS];
+        double[] cornerY = new double[count * MultiRobotFrame.CORNERS];
+        names[0] = EDITED_PATH_NAME;
+        frames[0] = edited;
+        setCorners(cornerX, cornerY, 0, edited, editedTrajectory);
+        for (int i = 1; i < count; i++) {
+            names[i] = m_names[i - 1];
+            opponent[i] = m_opponent[i - 1];
+            frames[i] = m_trajectories[i - 1].frameAt(time);
+            setCorners(cornerX, cornerY, i, frames[i], m_trajectories[i - 1]);
+        }
+        return new MultiRobotFrame(names, opponent, frames, cornerX, cornerY,
+                findCollisions(count, cornerX, cornerY));
+    }
+
+    /**
+     * Set the bumper corners of a robot. The heading is the direction of the bumper length.
+     */
+    private static void setCorners(@NotNull double[] cornerX, @NotNull double[] cornerY, int robot,
+                                   @NotNull AnimationFrame frame, @NotNull TrajectoryTable trajectory) {
+        double lengthX = frame.getHeadingSin() * trajectory.getBumperLength() / 2.0;
+        double lengthY = frame.getHeadingCos() * trajectory.getBumperLength() / 2.0;
+        double widthX = frame.getHeadingCos() * trajectory.getBumperWidth() / 2.0;
+        double widthY = -frame.getHeadingSin() * trajectory.getBumperWidth() / 2.0;
+        int i = robot * MultiRobotFrame.CORNERS;
+        cornerX[i] = frame.getFieldX() - widthX - lengthX;
+        cornerY[i] = frame.getFieldY() - widthY - lengthY;
+        cornerX[i + 1] = frame.getFieldX() - widthX + lengthX;
+        cornerY[i + 1] = frame.getFieldY() - widthY + lengthY;
+        cornerX[i + 2] = frame.getFieldX() + widthX + lengthX;
+        cornerY[i + 2] = frame.getFieldY() + widthY + lengthY;
+        cornerX[i + 3] = frame.getFieldX() + widthX - lengthX;
+        cornerY[i + 3] = frame.getFieldY() + widthY - lengthY;
+    }
+
+    /**
+     * Find the robots whose bumpers overlap. Bumpers that just touch are colliding.
+     *
+     * @param count   The number of robots, no more than {@link #MAX_ROBOTS}.
+     * @param cornerX The X of the bumper corners, {@link MultiRobotFrame#CORNERS} corners for each robot, in
+     *                order around the bumpers.
+     * @param cornerY The Y of the bumper corners.
+     * @return The collisions, bit {@link MultiRobotFrame#collisionBit(int, int)} is set for each pair of
+     * colliding robots.
+     */
+    static long findCollisions(int count, @NotNull double[] cornerX, @NotNull double[] cornerY) {
+        // the bounding boxes
+        double[] minX = new double[count];
+        double[] maxX = new double[count];
+        double[] minY = new double[count];
+        double[] maxY = new double[count];
+        int[] order = new int[count];
+        for (int robot = 0; robot < count; robot++) {
+            int first = robot * MultiRobotFrame.CORNERS;
+            minX[robot] = maxX[robot] = cornerX[first];
+            minY[robot] = maxY[robot] = cornerY[first];
+            for (int corner = first + 1; corner < first + MultiRobotFrame.CORNERS; corner++) {
+                minX[robot] = Math.min(minX[robot], cornerX[corner]);
+                maxX[robot] = Math.max(maxX[robot], cornerX[corner]);
+                minY[robot] = Math.min(minY[robot], cornerY[corner]);
+                maxY[robot] = Math.max(maxY[robot], cornerY[corner]);
+            }
+            // insertion sort by the start of the bounding box along X
+            int i = robot;
+            while ((i > 0) && (minX[order[i - 1]] > minX[robot])) {
+                order[i] = order[i - 1];
+                i--;
+            }
+            order[i] = robot;
+        }
+
+        // sweep along X, each robot is only tested against the robots that start before it ends
+        long collisions = 0L;
+        for (int i = 0; i < count; i++) {
+            int a = order[i];
+            for (int j = i + 1; (j < count) && (minX[order[j]] <= maxX[a]); j++) {
+                int b = order[j];
+                if ((minY[a] <= maxY[b]) && (minY[b] <= maxY[a]) &&
+                        !isSeparated(a, b, cornerX, cornerY) && !isSeparated(b, a, cornerX, cornerY)) {
+                    collisions |= MultiRobotFrame.collisionBit(Math.min(a, b), Math.max(a, b));
+                }
+            }
+        }
+        return collisions;
+    }
+
+    /**
+     * Test whether a line through an edge of the bumpers of robot {@code a} separates them from the bumpers of
+     * robot {@code b}, i.e. whether the projections of the bumpers on the normal of an edge do not overlap.
+     */
+    private static boolean isSeparated(int a, int b, @NotNull double[] cornerX, @NotNull double[] cornerY) {
+        int firstA = a * MultiRobotFrame.CORNERS;
+        int firstB = b * MultiRobotFrame.CORNERS;
+        // the bumpers are rectangles, the other two edges are parallel to these
+        for (int edge = 0; edge < 2; edge++) {
+            double normalX = cornerY[firstA + edge + 1] - cornerY[firstA + edge];
+            double normalY = cornerX[firstA + edge] - cornerX[firstA + edge + 1];
+            double minA = Double.POSITIVE_INFINITY;
+            double maxA = Double.NEGATIVE_INFINITY;
+            double minB = Double.POSITIVE_INFINITY;
+            double maxB = Double.NEGATIVE_INFINITY;
+            for (int corner = 0; corner < MultiRobotFrame.CORNERS; corner++) {
+                double projectionA = (cornerX[firstA + corner] * normalX) + (cornerY[firstA + corner] * normalY);
+                double projectionB = (cornerX[firstB + corner] * normalX) + (cornerY[firstB + corner] * normalY);
+                minA = Math.min(minA, projectionA);
+                maxA = Math.max(maxA, projectionA);
+                minB = Math.min(minB, projectionB);
+                maxB = Math.max(maxB, projectionB);
+            }
+            if ((maxA < minB) || (maxB < minA)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,70 @@
+package frc6831.planner;
+
+import org.a05annex.util.geo2d.KochanekBartelsSpline.PathPoint;
+import org.a05annex.util.geo2d.KochanekBartelsSpline.RobotActionType;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * An immutable robot action on a path: a stop and run command at a control point, or a command scheduled at a
+ * time along the path. The spline reports actions on the path points it samples, which are not kept once the
+ * analysis is done, so this is the action separated from the path point.
+ */
+@SuppressWarnings("HungarianNotationMemberVariables")
+public final class PathAction {
+
+    private final double m_time;
+    private final RobotActionType m_type;
+    private final String m_command;
+    private final double m_duration;
+
+    /**
+     * Create an action.
+     *
+     * @param time     The path time of the action, in seconds.
+     * @param type     The type of action.
+     * @param command  The command.
+     * @param duration The approximate duration of a stop and run command, in seconds.
+     */
+    public PathAction(double time, @NotNull RobotActionType type, @NotNull String command, double duration) {
+        m_time = time;
+        m_type = type;
+        m_command = command;
+        m_duration = duration;
+    }
+
+    /**
+     * Get the action of a path point.
+     *
+     * @param pathPoint A path point that has an action.
+     * @return The action.
+     */
+    @NotNull
+    public static PathAction of(@NotNull PathPoint pathPoint) {
+        return new PathAction(pathPoint.time, pathPoint.action.actionType, pathPoint.action.command,
+                pathPoint.action.approxDuration);
+    }
+
+    /**
+     * @return The path time of the action, in seconds.
+     */
+    public double getTime() {
+        return m_time;
+    }
+
+    @NotNull
+    public RobotActionType getType() {
+        return m_type;
+    }
+
+    @NotNull
+    public String getCommand() {
+        return m_command;
+    }
+
+    /**
+     * @return The approximate duration of a stop and run command, in seconds.
+     */
+    public double getDuration() {
+        return m_duration;
+    }
+}
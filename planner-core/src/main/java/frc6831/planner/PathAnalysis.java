@@ -0,0 +1,275 @@
+package frc6831.planner;
+
+import org.a05annex.util.geo2d.KochanekBartelsSpline.RobotActionType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The immutable result of analyzing a path: the path points of the path, and for each path point whether the
+ * robot can achieve the speeds and whether the robot is inside the field, the robot actions, the trajectory
+ * table for playing the path, and each segment sampled by its shape for drawing. An analysis is computed by the
+ * {@link PathAnalyzer} on a background thread from a {@link PathSnapshot}, by splicing together the
+ * {@link SegmentAnalysis} of each segment, and may be freely read on any thread. The path points are read from
+ * the segments they are in, so splicing a long path after an edit costs an index per segment rather than a copy
+ * of every path point.
+ */
+@SuppressWarnings("HungarianNotationMemberVariables")
+public final class PathAnalysis {
+
+    private final PathSnapshot m_snapshot;
+    private final SegmentAnalysis[] m_segments;
+    // the index of the first path point of each segment, followed by the number of path points
+    private final int[] m_firsts;
+    private final int m_count;
+    private final List<PathAction> m_actions;
+    // the path points that have a robot action, in order, and the action at each of them
+    private final int[] m_actionSamples;
+    private final PathAction[] m_sampleActions;
+    private final int m_tooFastCount;
+    private final int m_outsideCount;
+    private final TrajectoryTable m_trajectory;
+
+    /**
+     * Splice the analyses of the segments of a path into the analysis of the path.
+     *
+     * @param snapshot   The snapshot of the path that was analyzed.
+     * @param segments   The analysis of each segment of the path, in order.
+     * @param actions    The robot actions on the path, in path time order.
+     * @param trajectory The trajectory table for playing the path, {@code null} if the path is empty.
+     */
+    PathAnalysis(@NotNull PathSnapshot snapshot, @NotNull SegmentAnalysis[] segments,
+                 @NotNull List<PathAction> actions, @Nullable TrajectoryTable trajectory) {
+        m_snapshot = snapshot;
+        m_segments = segments;
+        m_trajectory = trajectory;
+        m_firsts = new int[segments.length + 1];
+        int tooFastCount = 0;
+        int outsideCount = 0;
+        for (int i = 0; i < segments.length; i++) {
+            m_firsts[i + 1] = m_firsts[i] + segments[i].m_count;
+            tooFastCount += segments[i].m_tooFastCount;
+            outsideCount += segments[i].m_outsideCount;
+        }
+        m_count = m_firsts[segments.length];
+        m_tooFastCount = tooFastCount;
+        m_outsideCount = outsideCount;
+
+        // Each action is at the path point nearest its time. A stop and run command stops the robot, so it is
+        // the action shown at its path point if a command is also scheduled there.
+        m_actions = Collections.unmodifiableList(actions);
+        int[] actionSamples = new int[actions.size()];
+        PathAction[] sampleActions = new PathAction[actions.size()];
+        int actionCount = 0;
+        for (PathAction action : actions) {
+            int sample = nearestSample(action.getTime());
+            if ((actionCount > 0) && (actionSamples[actionCount - 1] == sample)) {
+                if (RobotActionType.STOP_AND_RUN_COMMAND == action.getType()) {
+                    sampleActions[actionCount - 1] = action;
+                }
+            } else if (sample >= 0) {
+                actionSamples[actionCount] = sample;
+                sampleActions[actionCount++] = action;
+            }
+        }
+        m_actionSamples = Arrays.copyOf(actionSamples, actionCount);
+        m_sampleActions = Arrays.copyOf(sampleActions, actionCount);
+    }
+
+    /**
+     * @return The index of the segment a path point is in.
+     */
+    private int segmentOf(int index) {
+        int found = Arrays.binarySearch(m_firsts, 0, m_segments.length, index);
+        return (found >= 0) ? found : -found - 2;
+    }
+
+    /**
+     * Find the sample nearest to a path time.
+     *
+     * @param pathTime The path time, in seconds.
+     * @return The index of the nearest sample, -1 if there are no samples.
+     */
+    public int nearestSample(double pathTime) {
+        if (0 == m_count) {
+            return -1;
+        }
+        // the first sample at or after the time, then whichever of it and the previous sample is nearer
+        int low = 0;
+        int high = m_count - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (getSampleTime(mid) < pathTime) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return ((low > 0) && ((pathTime - getSampleTime(low - 1)) <= (getSampleTime(low) - pathTime))) ?
+                low - 1 : low;
+    }
+
+    /**
+     * @return The snapshot of the path that was analyzed.
+     */
+    @NotNull
+    public PathSnapshot getSnapshot() {
+        return m_snapshot;
+    }
+
+    /**
+     * @return The number of segments of the path, which is one less than the number of control points.
+     */
+    public int getSegmentCount() {
+        return m_segments.length;
+    }
+
+    /**
+     * Get a segment of the path sampled by its shape for drawing and hit testing.
+     *
+     * @param segment The index of the segment.
+     * @return The polyline of the segment, which starts where the polyline of the previous segment ends.
+     */
+    @NotNull
+    public AdaptiveSampler getOutline(int segment) {
+        return m_segments[segment].m_outline;
+    }
+
+    /**
+     * Find where a field position is on the polyline of the path, i.e. to test whether the mouse is over the
+     * path.
+     *
+     * @param fieldX    The field X of the position.
+     * @param fieldY    The field Y of the position.
+     * @param tolerance How near the position must be to the polyline, in meters.
+     * @return The path time at the nearest point on the polyline, {@code Double.NaN} if no point on the
+     * polyline is within the tolerance.
+     */
+    public double findTime(double fieldX, double fieldY, double tolerance) {
+        double[] nearest = {tolerance * tolerance, Double.NaN};
+        for (SegmentAnalysis segment : m_segments) {
+            segment.m_outline.findNearest(fieldX, fieldY, nearest);
+        }
+        return nearest[1];
+    }
+
+    public int getSampleCount() {
+        return m_count;
+    }
+
+    /**
+     * @param index The index of the sample.
+     * @return The path time of the sample, in seconds.
+     */
+    public double getSampleTime(int index) {
+        int segment = segmentOf(index);
+        return m_segments[segment].m_time[index - m_firsts[segment]];
+    }
+
+    public double getFieldX(int index) {
+        int segment = segmentOf(index);
+        return m_segments[segment].m_fieldX[index - m_firsts[segment]];
+    }
+
+    public double getFieldY(int index) {
+        int segment = segmentOf(index);
+        return m_segments[segment].m_fieldY[index - m_firsts[segment]];
+    }
+
+    /**
+     * @param index The index of the sample.
+     * @return The field heading of the robot at the sample, in radians.
+     */
+    public double getHeading(int index) {
+        int segment = segmentOf(index);
+        return m_segments[segment].m_heading[index - m_firsts[segment]];
+    }
+
+    /**
+     * @param index The index of the sample.
+     * @return The field X velocity of the robot at the sample, meters/sec.
+     */
+    public double getFieldDx(int index) {
+        int segment = segmentOf(index);
+        return m_segments[segment].m_fieldDx[index - m_firsts[segment]];
+    }
+
+    /**
+     * @param index The index of the sample.
+     * @return The field Y velocity of the robot at the sample, meters/sec.
+     */
+    public double getFieldDy(int index) {
+        int segment = segmentOf(index);
+        return m_segments[segment].m_fieldDy[index - m_firsts[segment]];
+    }
+
+    /**
+     * @param index The index of the sample.
+     * @return The rotation speed of the robot at the sample, radians/sec.
+     */
+    public double getSpeedRotation(int index) {
+        int segment = segmentOf(index);
+        return m_segments[segment].m_speedRotation[index - m_firsts[segment]];
+    }
+
+    /**
+     * Get the robot action at a path sample.
+     *
+     * @param index The index of the sample.
+     * @return The action, {@code null} if there is no action at the sample.
+     */
+    @Nullable
+    public PathAction getAction(int index) {
+        int found = Arrays.binarySearch(m_actionSamples, index);
+        return (found >= 0) ? m_sampleActions[found] : null;
+    }
+
+    /**
+     * @return The robot actions on the path, in path time order.
+     */
+    @NotNull
+    public List<PathAction> getActions() {
+        return m_actions;
+    }
+
+    /**
+     * Test whether the robot can achieve the speeds at a path sample.
+     *
+     * @param index The index of the sample.
+     * @return {@code true} if the speeds exceed the capability of the robot, {@code false} otherwise.
+     */
+    public boolean isTooFast(int index) {
+        int segment = segmentOf(index);
+        return m_segments[segment].m_tooFast[index - m_firsts[segment]];
+    }
+
+    /**
+     * Test whether the robot is inside the field at a path sample.
+     *
+     * @param index The index of the sample.
+     * @return {@code true} if the robot bumpers are inside the field, {@code false} otherwise.
+     */
+    public boolean isInside(int index) {
+        int segment = segmentOf(index);
+        return m_segments[segment].m_inside[index - m_firsts[segment]];
+    }
+
+    public int getTooFastCount() {
+        return m_tooFastCount;
+    }
+
+    public int getOutsideCount() {
+        return m_outsideCount;
+    }
+
+    /**
+     * @return The trajectory table for playing the path, {@code null} if the path is empty.
+     */
+    @Nullable
+    public TrajectoryTable getTrajectory() {
+        return m_trajectory;
+    }
+}
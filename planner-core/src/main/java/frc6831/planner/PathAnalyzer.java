@@ -0,0 +1,223 @@
+package frc6831.planner;
+
+import org.a05annex.util.geo2d.KochanekBartelsSpline.RobotActionType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Analyzes the path on a background thread so sampling the spline and testing every sample against the robot
+ * capabilities and the field boundary never runs on the event dispatch thread. The canvas submits a
+ * {@link PathSnapshot} whenever the path changes; the analyzer samples and tests it, builds the
+ * {@link TrajectoryTable} for playing it and the {@link AdaptiveSampler} polylines for drawing it, and publishes
+ * the resulting immutable {@link PathAnalysis}. The canvas always paints the latest published analysis, so
+ * dragging a control point stays at display rate however long the analysis takes - the path simply catches up
+ * with the control points when the analysis completes.
+ * <p>
+ * The path is analyzed a segment at a time, and the {@link SegmentAnalysis} of each segment whose control points
+ * did not change since the last analysis is reused, so an edit costs sampling, testing and following the
+ * segments around the edited point, and splicing them in with the others, rather than all of the path.
+ * <p>
+ * Only the latest submission matters: a submission that has not started when a newer one arrives is never
+ * run, and one that is running notices it is stale between segments and stops.
+ */
+@SuppressWarnings("HungarianNotationMemberVariables")
+public class PathAnalyzer {
+
+    // the distance the robot bumpers must be inside the field boundary
+    static final double FIELD_TOLERANCE = 0.05;
+
+    private final ExecutorService m_executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "path-analysis");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicLong m_generation = new AtomicLong();
+    private final AtomicReference<PathAnalysis> m_latest = new AtomicReference<>();
+    private final Runnable m_onPublished;
+    private Future<?> m_pending = null;
+
+    // The segment analyses of the last analysis, by the state of their start control point, and the robot and
+    // field they were computed for. A robot or field is never changed once it is submitted, a different robot or
+    // field file is loaded into a new one, so the segments are reused while the robot and field are the same
+    // instances. These are only used on the analysis thread.
+    private Map<PathSnapshot.PointState, SegmentAnalysis> m_cache = new IdentityHashMap<>();
+    private Robot m_cacheRobot = null;
+    private Field m_cacheField = null;
+    private int m_lastRecomputedCount = 0;
+
+    /**
+     * Create a path analyzer.
+     *
+     * @param onPublished Called on the analysis thread when a new analysis is published, i.e. to schedule a
+     *                    repaint of the canvas on the event dispatch thread.
+     */
+    public PathAnalyzer(@NotNull Runnable onPublished) {
+        m_onPublished = onPublished;
+    }
+
+    /**
+     * Submit a path for analysis, superseding any previous submission. This should be called on the event
+     * dispatch thread.
+     *
+     * @param snapshot  The snapshot of the path.
+     * @param robot     The robot that will follow the path, which must not be changed once it is submitted.
+     * @param field     The field the path is on, which must not be changed once it is submitted.
+     * @param tolerance The distance the drawing polyline may be from the path, in meters; i.e. a fraction of a
+     *                  pixel divided by the drawing scale.
+     */
+    public void submit(@NotNull PathSnapshot snapshot, @NotNull Robot robot, @NotNull Field field,
+                       double tolerance) {
+        long generation = m_generation.incrementAndGet();
+        if (null != m_pending) {
+            m_pending.cancel(false);
+        }
+        m_pending = m_executor.submit(() -> analyze(generation, snapshot, robot, field, tolerance));
+    }
+
+    /**
+     * Get the latest published analysis.
+     *
+     * @return The latest analysis, {@code null} if no analysis has been published yet.
+     */
+    @Nullable
+    public PathAnalysis getLatest() {
+        return m_latest.get();
+    }
+
+    /**
+     * Wait for the latest submission to be analyzed and published. This is for rendering the path headless,
+     * i.e. in tests and benchmarks, where there is no next frame to catch up in.
+     */
+    void awaitLatest() {
+        if (null == m_pending) {
+            return;
+        }
+        try {
+            m_pending.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | CancellationException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * @return The number of segments the last analysis pass computed, rather than reused. This is only
+     * meaningful after {@link #awaitLatest()}.
+     */
+    int getLastRecomputedCount() {
+        return m_lastRecomputedCount;
+    }
+
+    /**
+     * Stop the analysis thread.
+     */
+    public void close() {
+        m_executor.shutdownNow();
+    }
+
+    private boolean isStale(long generation) {
+        return generation != m_generation.get();
+    }
+
+    private void analyze(long generation, @NotNull PathSnapshot snapshot, @NotNull Robot robot,
+                         @NotNull Field field, double tolerance) {
+        if (isStale(generation)) {
+            return;
+        }
+        PlannerEvents.PathAnalysisPass event = new PlannerEvents.PathAnalysisPass();
+        event.begin();
+        if ((robot != m_cacheRobot) || (field != m_cacheField)) {
+            m_cache.clear();
+            m_cacheRobot = robot;
+            m_cacheField = field;
+        }
+        SegmentAnalysis[] segments = new SegmentAnalysis[Math.max(0, snapshot.size() - 1)];
+        Map<PathSnapshot.PointState, SegmentAnalysis> cache = new IdentityHashMap<>();
+        boolean cancelled = false;
+        int recomputed = 0;
+        for (int i = 0; i < segments.length; i++) {
+            SegmentAnalysis segment = m_cache.get(snapshot.getPoint(i));
+            if ((null == segment) || !segment.matches(snapshot, i, tolerance)) {
+                if (isStale(generation)) {
+                    cancelled = true;
+                    break;
+                }
+                segment = new SegmentAnalysis(snapshot, i, robot, field, tolerance);
+                recomputed++;
+            }
+            segments[i] = segment;
+            cache.put(snapshot.getPoint(i), segment);
+        }
+        if (cancelled) {
+            // keep what was computed, the next submission is most likely the same path a frame later
+            m_cache.putAll(cache);
+        } else {
+            m_cache = cache;
+        }
+        m_lastRecomputedCount = recomputed;
+
+        PathAnalysis analysis = null;
+        if (!cancelled && !isStale(generation)) {
+            List<PathAction> actions = getActions(snapshot);
+            TrajectoryTable.Segment[] trajectory = new TrajectoryTable.Segment[segments.length];
+            for (int i = 0; i < segments.length; i++) {
+                trajectory[i] = segments[i].m_trajectory;
+            }
+            analysis = new PathAnalysis(snapshot, segments, actions,
+                    TrajectoryTable.build(trajectory, actions, robot));
+        }
+        if (event.shouldCommit()) {
+            event.controlPoints = snapshot.size();
+            event.segments = segments.length;
+            event.recomputedSegments = recomputed;
+            event.cancelled = cancelled;
+            if (null != analysis) {
+                event.samples = analysis.getSampleCount();
+                event.tooFast = analysis.getTooFastCount();
+                event.outside = analysis.getOutsideCount();
+            }
+            event.commit();
+        }
+        if ((null != analysis) && !isStale(generation)) {
+            m_latest.set(analysis);
+            m_onPublished.run();
+        }
+    }
+
+    /**
+     * Get the robot actions of a path from its snapshot: the stop and run command of each control point that has
+     * one, at the time of the control point, and the scheduled commands.
+     *
+     * @param snapshot The snapshot of the path.
+     * @return The actions, in path time order.
+     */
+    @NotNull
+    static List<PathAction> getActions(@NotNull PathSnapshot snapshot) {
+        List<PathAction> actions = new ArrayList<>();
+        double speedMultiplier = snapshot.getSpeedMultiplier();
+        for (int i = 0; i < snapshot.size(); i++) {
+            PathSnapshot.PointState point = snapshot.getPoint(i);
+            if (null != point.actionCommand) {
+                actions.add(new PathAction(point.time / speedMultiplier, RobotActionType.STOP_AND_RUN_COMMAND,
+                        point.actionCommand, point.actionDuration));
+            }
+        }
+        for (int i = 0; i < snapshot.getScheduledCount(); i++) {
+            actions.add(new PathAction(snapshot.getScheduledTime(i) / speedMultiplier,
+                    RobotActionType.SCHEDULE_COMMAND, snapshot.getScheduledCommand(i), 0.0));
+        }
+        // a stable sort, so a stop and run command stays before a command scheduled at the same time
+        actions.sort(Comparator.comparingDouble(PathAction::getTime));
+        return actions;
+    }
+}
@@ -0,0 +1,390 @@
+package frc6831.planner;
+
+import net.sourceforge.argparse4j.ArgumentParsers;
+import net.sourceforge.argparse4j.helper.HelpScreenException;
+import net.sourceforge.argparse4j.impl.Arguments;
+import net.sourceforge.argparse4j.inf.ArgumentParser;
+import net.sourceforge.argparse4j.inf.ArgumentParserException;
+import net.sourceforge.argparse4j.inf.Namespace;
+import org.a05annex.util.geo2d.KochanekBartelsSpline;
+import org.a05annex.util.geo2d.KochanekBartelsSpline.PathPoint;
+import org.a05annex.util.geo2d.KochanekBartelsSpline.RobotActionType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.json.simple.JSONValue;
+
+import java.awt.geom.Point2D;
+import java.io.File;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@code evaluate} command: load a robot, a field, and a path, and print the path statistics - total
+ * time, distance, peak speeds, the intervals where the robot cannot achieve the path speeds, is outside the
+ * field, or collides with a partner or opponent robot, and the timeline of the robot actions - as text or
+ * JSON, i.e. for a pre-match checklist script that checks every auto.
+ * <p>
+ * The evaluator never creates a window or touches Swing, it runs headless from the same
+ * {@link TrajectoryTable}, field boundary test, and {@link MultiRobotPlayback} collision test as the planner.
+ * All times are seconds from the start of the path, including the time stopped to run commands.
+ * <p>
+ * The report is the only output on stdout, so a script can parse it; diagnostics from loading the descriptions
+ * go to stderr.
+ * <p>
+ * The exit status is 0 if the path has no problems, 1 if the arguments are wrong or the descriptions could not
+ * be loaded, and 2 if the path has too fast, outside the field, or collision intervals.
+ */
+@SuppressWarnings("HungarianNotationMemberVariables")
+public class PathEvaluator {
+
+    /**
+     * The command that runs the evaluator, the first command line argument.
+     */
+    public static final String COMMAND = "evaluate";
+
+    private static final int EXIT_OK = 0;
+    private static final int EXIT_ERROR = 1;
+    private static final int EXIT_PROBLEMS = 2;
+
+    /**
+     * An interval of the path where something is wrong.
+     */
+    private static class Interval {
+        private final double m_start;
+        private double m_end;
+        private final String m_description;
+
+        Interval(double start, @Nullable String description) {
+            m_start = start;
+            m_end = start;
+            m_description = description;
+        }
+    }
+
+    /**
+     * A robot action on the path.
+     */
+    private static class Action {
+        private final double m_time;
+        private final double m_pathTime;
+        private final boolean m_stopAndRun;
+        private final String m_command;
+        private final double m_duration;
+
+        Action(double time, @NotNull PathPoint pathPoint) {
+            m_time = time;
+            m_pathTime = pathPoint.time;
+            m_stopAndRun = RobotActionType.STOP_AND_RUN_COMMAND == pathPoint.action.actionType;
+            m_command = pathPoint.action.command;
+            m_duration = m_stopAndRun ? pathPoint.action.approxDuration : 0.0;
+        }
+    }
+
+    private final String m_pathFile;
+    private final double m_duration;
+    private final double m_pathDuration;
+    private final double m_maxModuleSpeed;
+    private double m_distance = 0.0;
+    private double m_peakSpeed = 0.0;
+    private double m_peakRotation = 0.0;
+    private double m_peakModuleSpeed = 0.0;
+    private final List<Interval> m_tooFast = new ArrayList<>();
+    private final List<Interval> m_outside = new ArrayList<>();
+    private final List<Interval> m_collisions = new ArrayList<>();
+    private final List<Action> m_actions = new ArrayList<>();
+
+    /**
+     * Evaluate a path.
+     *
+     * @param pathFile   The path file name, for the report.
+     * @param path       The path.
+     * @param robot      The robot following the path.
+     * @param field      The field.
+     * @param playback   The partner and opponent robots, which are checked for collisions.
+     * @param trajectory The trajectory of the path.
+     */
+    PathEvaluator(@NotNull String pathFile, @NotNull KochanekBartelsSpline path, @NotNull Robot robot,
+                  @NotNull Field field, @NotNull MultiRobotPlayback playback, @NotNull TrajectoryTable trajectory) {
+        m_pathFile = pathFile;
+        m_pathDuration = trajectory.getPathDuration();
+        m_duration = Math.max(trajectory.getDuration(), playback.getDuration());
+        m_maxModuleSpeed = robot.getMaxModuleSpeed();
+
+        // distance and peaks from the path samples
+        for (int i = 0; i < trajectory.getSampleCount(); i++) {
+            if (i > 0) {
+                m_distance += Point2D.distance(trajectory.getFieldX(i - 1), trajectory.getFieldY(i - 1),
+                        trajectory.getFieldX(i), trajectory.getFieldY(i));
+            }
+            m_peakSpeed = Math.max(m_peakSpeed, Math.hypot(trajectory.getSpeedForward(i),
+                    trajectory.getSpeedStrafe(i)));
+            m_peakRotation = Math.max(m_peakRotation, Math.abs(trajectory.getSpeedRotation(i)));
+            m_peakModuleSpeed = Math.max(m_peakModuleSpeed, trajectory.getPeakModuleSpeed(i));
+        }
+
+        // the problem intervals, played through the same as the animation
+        Point2D.Double[] corners = new Point2D.Double[MultiRobotFrame.CORNERS];
+        for (int corner = 0; corner < MultiRobotFrame.CORNERS; corner++) {
+            corners[corner] = new Point2D.Double();
+        }
+        Interval tooFast = null;
+        Interval outside = null;
+        Interval[] collisions = new Interval[MultiRobotPlayback.MAX_ROBOTS * MultiRobotPlayback.MAX_ROBOTS];
+        int steps = (int) Math.ceil(m_duration / TrajectoryTable.SAMPLE_INTERVAL);
+        for (int step = 0; step <= steps; step++) {
+            double time = Math.min(step * TrajectoryTable.SAMPLE_INTERVAL, m_duration);
+            AnimationFrame frame = trajectory.frameAt(time);
+            MultiRobotFrame robots = playback.frameAt(time, frame, trajectory);
+            tooFast = track(m_tooFast, tooFast, frame.isTooFast(), time, null);
+            for (int corner = 0; corner < MultiRobotFrame.CORNERS; corner++) {
+                corners[corner].setLocation(robots.getCornerX(0, corner), robots.getCornerY(0, corner));
+            }
+            boolean inside = field.isInsideField(corners, PathAnalyzer.FIELD_TOLERANCE);
+            outside = track(m_outside, outside, !inside, time, null);
+            for (int a = 0; a < robots.getRobotCount(); a++) {
+                for (int b = a + 1; b < robots.getRobotCount(); b++) {
+                    int pair = (a * MultiRobotPlayback.MAX_ROBOTS) + b;
+                    collisions[pair] = track(m_collisions, collisions[pair], robots.isColliding(a, b), time,
+                            robots.getName(a) + " and " + robots.getName(b));
+                }
+            }
+        }
+        m_collisions.sort((c1, c2) -> Double.compare(c1.m_start, c2.m_start));
+
+        for (PathPoint pathPoint : path.getCurveSegments()) {
+            if (null != pathPoint.action) {
+                m_actions.add(new Action(trajectory.toPlaybackTime(pathPoint.time), pathPoint));
+            }
+        }
+    }
+
+    /**
+     * Track an interval: start one when the condition becomes true, extend it while the condition is true.
+     *
+     * @return The interval in progress, {@code null} if the condition is false.
+     */
+    @Nullable
+    private static Interval track(@NotNull List<Interval> intervals, @Nullable Interval current, boolean active,
+                                  double time, @Nullable String description) {
+        if (!active) {
+            return null;
+        }
+        if (null == current) {
+            current = new Interval(time, description);
+            intervals.add(current);
+        }
+        current.m_end = time;
+        return current;
+    }
+
+    /**
+     * @return {@code true} if the path has too fast, outside the field, or collision intervals.
+     */
+    boolean hasProblems() {
+        return !m_tooFast.isEmpty() || !m_outside.isEmpty() || !m_collisions.isEmpty();
+    }
+
+    /**
+     * @return The report as text.
+     */
+    @NotNull
+    String toText() {
+        StringBuilder text = new StringBuilder();
+        text.append(String.format("path:              %s%n", m_pathFile));
+        text.append(String.format("time:              %.2f s (%.2f s following the path)%n", m_duration,
+                m_pathDuration));
+        text.append(String.format("distance:          %.2f m%n", m_distance));
+        text.append(String.format("peak speed:        %.2f m/s%n", m_peakSpeed));
+        text.append(String.format("peak rotation:     %.2f rad/s%n", m_peakRotation));
+        text.append(String.format("peak module speed: %.2f m/s (robot maximum %.2f m/s)%n", m_peakModuleSpeed,
+                m_maxModuleSpeed));
+        appendIntervals(text, "too fast:          ", m_tooFast);
+        appendIntervals(text, "outside field:     ", m_outside);
+        appendIntervals(text, "collisions:        ", m_collisions);
+        text.append(String.format("actions:%s%n", m_actions.isEmpty() ? "           none" : ""));
+        for (Action action : m_actions) {
+            text.append(String.format("    %7.2f s  %-13s %s", action.m_time,
+                    action.m_stopAndRun ? "stop and run" : "schedule", action.m_command));
+            text.append(action.m_stopAndRun ? String.format(" (%.2f s)%n", action.m_duration) :
+                    String.format("%n"));
+        }
+        return text.toString();
+    }
+
+    private static void appendIntervals(@NotNull StringBuilder text, @NotNull String label,
+                                        @NotNull List<Interval> intervals) {
+        text.append(label);
+        if (intervals.isEmpty()) {
+            text.append(String.format("none%n"));
+        }
+        for (int i = 0; i < intervals.size(); i++) {
+            Interval interval = intervals.get(i);
+            if (i > 0) {
+                text.append(" ".repeat(label.length()));
+            }
+            text.append(String.format("%.2f - %.2f s", interval.m_start, interval.m_end));
+            text.append((null == interval.m_description) ? String.format("%n") :
+                    String.format("  %s%n", interval.m_description));
+        }
+    }
+
+    /**
+     * @return The report as JSON.
+     */
+    @NotNull
+    String toJson() {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("path", m_pathFile);
+        json.put("time", m_duration);
+        json.put("pathTime", m_pathDuration);
+        json.put("distance", m_distance);
+        json.put("peakSpeed", m_peakSpeed);
+        json.put("peakRotation", m_peakRotation);
+        json.put("peakModuleSpeed", m_peakModuleSpeed);
+        json.put("maxModuleSpeed", m_maxModuleSpeed);
+        json.put("tooFast", intervalsToJson(m_tooFast));
+        json.put("outsideField", intervalsToJson(m_outside));
+        json.put("collisions", intervalsToJson(m_collisions));
+        List<Object> actions = new ArrayList<>();
+        for (Action action : m_actions) {
+            Map<String, Object> actionJson = new LinkedHashMap<>();
+            actionJson.put("time", action.m_time);
+            actionJson.put("pathTime", action.m_pathTime);
+            actionJson.put("type", action.m_stopAndRun ? "stopAndRun" : "schedule");
+            actionJson.put("command", action.m_command);
+            actionJson.put("duration", action.m_duration);
+            actions.add(actionJson);
+        }
+        json.put("actions", actions);
+        return JSONValue.toJSONString(json);
+    }
+
+    @NotNull
+    private static List<Object> intervalsToJson(@NotNull List<Interval> intervals) {
+        List<Object> json = new ArrayList<>();
+        for (Interval interval : intervals) {
+            Map<String, Object> intervalJson = new LinkedHashMap<>();
+            intervalJson.put("start", interval.m_start);
+            intervalJson.put("end", interval.m_end);
+            if (null != interval.m_description) {
+                intervalJson.put("robots", interval.m_description);
+            }
+            json.add(intervalJson);
+        }
+        return json;
+    }
+
+    /**
+     * Run the evaluate command.
+     *
+     * @param args The command line arguments after {@link #COMMAND}.
+     * @return The exit status.
+     */
+    public static int run(@NotNull String[] args) {
+        ArgumentParser parser = ArgumentParsers.newFor("PathPlanner " + COMMAND).build()
+                .description("Print the statistics of a path without opening the planner window");
+        parser.addArgument("-r", "--robot")
+                .type(String.class)
+                .help("specify a robot description file");
+        parser.addArgument("-f", "--field")
+                .type(String.class)
+                .help("specify a field description file");
+        parser.addArgument("-p", "--path")
+                .type(String.class)
+                .required(true)
+                .help("specify the path file to evaluate");
+        parser.addArgument("--partner")
+                .type(String.class)
+                .action(Arguments.append())
+                .help("a partner robot path file to check for collisions, may be repeated");
+        parser.addArgument("--opponent")
+                .type(String.class)
+                .action(Arguments.append())
+                .help("an opponent robot path file to check for collisions, may be repeated");
+        parser.addArgument("--format")
+                .choices("text", "json")
+                .setDefault("text")
+                .help("the report format");
+        Namespace parsedArgs;
+        try {
+            parsedArgs = parser.parseArgs(args);
+        } catch (HelpScreenException e) {
+            return EXIT_OK;
+        } catch (ArgumentParserException e) {
+            parser.handleError(e);
+            return EXIT_ERROR;
+        }
+
+        // anything printed while loading and evaluating, including by a05annexUtil, goes to stderr
+        PrintStream report = System.out;
+        System.setOut(System.err);
+        try {
+            return evaluate(parsedArgs, report);
+        } finally {
+            System.setOut(report);
+        }
+    }
+
+    /**
+     * Load the descriptions named by the arguments, evaluate the path, and print the report.
+     *
+     * @param parsedArgs The parsed command line arguments.
+     * @param report     The stream the report is printed to.
+     * @return The exit status.
+     */
+    private static int evaluate(@NotNull Namespace parsedArgs, @NotNull PrintStream report) {
+        String robotDescFile = parsedArgs.get("robot");
+        String fieldDescFile = parsedArgs.get("field");
+        String pathFile = parsedArgs.get("path");
+        Robot robot = new Robot();
+        if ((null != robotDescFile) && !robot.loadRobot(robotDescFile)) {
+            System.err.println("Could not load the robot: " + robotDescFile);
+            return EXIT_ERROR;
+        }
+        Field field = new Field();
+        if ((null != fieldDescFile) && !field.loadField(fieldDescFile)) {
+            System.err.println("Could not load the field: " + fieldDescFile);
+            return EXIT_ERROR;
+        }
+        KochanekBartelsSpline path = new KochanekBartelsSpline();
+        try {
+            PlannerEvents.loadPath(path, new File(pathFile).getAbsolutePath());
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            System.err.println("Could not load the path: " + pathFile);
+            return EXIT_ERROR;
+        }
+        TrajectoryTable trajectory = TrajectoryTable.build(path, path.getCurveSegments(), robot);
+        if (null == trajectory) {
+            System.err.println("The path is empty: " + pathFile);
+            return EXIT_ERROR;
+        }
+
+        // the partners and opponents are the same robot as the path, there is only one robot description
+        MultiRobotPlayback playback = new MultiRobotPlayback();
+        for (String key : new String[]{"partner", "opponent"}) {
+            List<String> robotPaths = parsedArgs.getList(key);
+            for (String robotPath : (null == robotPaths) ? List.<String>of() : robotPaths) {
+                boolean opponent = key.equals("opponent");
+                TrajectoryTable robotTrajectory = MultiRobotPlayback.loadTrajectory(new File(robotPath), robot);
+                if (null == robotTrajectory) {
+                    return EXIT_ERROR;
+                }
+                if (!playback.canAdd(opponent)) {
+                    System.err.printf("An alliance can only have %d robots.%n",
+                            MultiRobotPlayback.MAX_ROBOTS_PER_ALLIANCE);
+                    return EXIT_ERROR;
+                }
+                playback = playback.withRobot(new File(robotPath).getName(), opponent, robotTrajectory);
+            }
+        }
+
+        PathEvaluator evaluator = new PathEvaluator(pathFile, path, robot, field, playback, trajectory);
+        report.print(parsedArgs.getString("format").equals("json") ?
+                evaluator.toJson() + System.lineSeparator() : evaluator.toText());
+        return evaluator.hasProblems() ? EXIT_PROBLEMS : EXIT_OK;
+    }
+}
@@ -0,0 +1,495 @@
+package frc6831.planner;
+
+import org.a05annex.util.geo2d.KochanekBartelsSpline;
+import org.a05annex.util.geo2d.KochanekBartelsSpline.PathPoint;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.ParseException;
+
+import java.io.*;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+
+import static org.a05annex.util.JsonSupport.parseString;
+import static org.a05annex.util.JsonSupport.readJsonFileAsJSONObject;
+
+/**
+ * An index of the path files under a library root, i.e. {@code resources/paths}, for finding an auto without
+ * opening path files one by one. Every {@code .json} file under the root is read once for its title,
+ * description, duration, distance, actions, and alliance side, and the results are kept in an on-disk index
+ * so the next scan only reads the files whose modification time or size changed since they were indexed.
+ * Files that are not paths (i.e. field and robot descriptions) are indexed too, so they are not read again,
+ * but are never listed.
+ * <p>
+ * Changed files are read in parallel on a pool of background threads. A scan blocks, so the caller runs it
+ * off the event dispatch thread; the entries of the latest scan are immutable and can be searched from any
+ * thread.
+ */
+@SuppressWarnings("HungarianNotationMemberVariables")
+public class PathLibrary {
+
+    /**
+     * The version of the index format. This must be incremented whenever a change to the metadata extracted from
+     * a path, or to how it is written to the index, makes existing indices stale.
+     */
+    static final int INDEX_VERSION = 1;
+
+    private static final String INDEX_DIRECTORY = "library-index";
+    private static final String INDEX_SUFFIX = ".index";
+    private static final String PATH_SUFFIX = ".json";
+
+    // keys in the path description
+    private static final String TITLE = "title";
+    private static final String DESCRIPTION = "description";
+    private static final String CONTROL_POINTS = "controlPoints";
+
+    // a path starting this close to the center line is not on either alliance side of the field
+    private static final double CENTER_TOLERANCE = 0.5;
+
+    /**
+     * The alliance side of the field a path starts on. Flipping the alliance of a path rotates it 180&deg;
+     * about the field center, so a path starts at the red end of the field (+Y, where the bundled fields draw
+     * the red alliance elements) or the blue end (-Y), or near the center line, which is typical of test and
+     * calibration paths.
+     */
+    public enum AllianceSide {
+        RED("Red"),
+        BLUE("Blue"),
+        CENTER("Center");
+
+        private final String m_label;
+
+        AllianceSide(@NotNull String label) {
+            m_label = label;
+        }
+
+        @Override
+        public String toString() {
+            return m_label;
+        }
+
+        static @NotNull AllianceSide forStart(double fieldY) {
+            return (fieldY > CENTER_TOLERANCE) ? RED : (fieldY < -CENTER_TOLERANCE) ? BLUE : CENTER;
+        }
+    }
+
+    /**
+     * The indexed metadata of one file in the library.
+     */
+    public static final class Entry {
+        private final String m_relativePath;
+        private final long m_modified;
+        private final long m_size;
+        private final boolean m_isPath;
+        private final String m_title;
+        private final String m_description;
+        private final double m_duration;
+        private final double m_distance;
+        private final List<String> m_actions;
+        private final AllianceSide m_side;
+        private final String m_searchText;
+
+        private Entry(@NotNull String relativePath, long modified, long size, boolean isPath, @NotNull String title,
+                      @NotNull String description, double duration, double distance, @NotNull List<String> actions,
+                      @NotNull AllianceSide side) {
+            m_relativePath = relativePath;
+            m_modified = modified;
+            m_size = size;
+            m_isPath = isPath;
+            m_title = title;
+            m_description = description;
+            m_duration = duration;
+            m_distance = distance;
+            m_actions = Collections.unmodifiableList(actions);
+            m_side = side;
+            m_searchText = String.join(" ", relativePath, title, description, String.join(" ", actions))
+                    .toLowerCase(Locale.ROOT);
+        }
+
+        private static @NotNull Entry notAPath(@NotNull String relativePath, long modified, long size) {
+            return new Entry(relativePath, modified, size, false, "", "", 0.0, 0.0, List.of(),
+                    AllianceSide.CENTER);
+        }
+
+        /**
+         * @return The path file name relative to the library root, with {@code /} separators.
+         */
+        public @NotNull String getRelativePath() {
+            return m_relativePath;
+        }
+
+        /**
+         * @return The modification time of the path file when it was indexed, in milliseconds since the epoch.
+         */
+        public long getModified() {
+            return m_modified;
+        }
+
+        /**
+         * @return The size of the path file when it was indexed, in bytes.
+         */
+        public long getSize() {
+            return m_size;
+        }
+
+        public @NotNull String getTitle() {
+            return m_title;
+        }
+
+        public @NotNull String getDescription() {
+            return m_description;
+        }
+
+        /**
+         * @return The time to play the path, in seconds, including the time stopped to run commands.
+         */
+        public double getDuration() {
+            return m_duration;
+        }
+
+        /**
+         * @return The distance the robot travels along the path, in meters.
+         */
+        public double getDistance() {
+            return m_distance;
+        }
+
+        /**
+         * @return The commands run along the path, in path order.
+         */
+        public @NotNull List<String> getActions() {
+            return m_actions;
+        }
+
+        public @NotNull AllianceSide getSide() {
+            return m_side;
+        }
+
+        /**
+         * Test whether this entry matches a search. Every search term must appear in the file name, title,
+         * description, or action commands, ignoring case.
+         *
+         * @param terms The lower case search terms.
+         * @param side  The alliance side, {@code null} for either side.
+         * @return {@code true} if the entry matches.
+         */
+        boolean matches(@NotNull String[] terms, @Nullable AllianceSide side) {
+            if ((null != side) && (side != m_side)) {
+                return false;
+            }
+            for (String term : terms) {
+                if (!m_searchText.contains(term)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void write(@NotNull DataOutputStream out) throws IOException {
+            out.writeUTF(m_relativePath);
+            out.writeLong(m_modified);
+            out.writeLong(m_size);
+            out.writeBoolean(m_isPath);
+            if (m_isPath) {
+                out.writeUTF(m_title);
+                out.writeUTF(m_description);
+                out.writeDouble(m_duration);
+                out.writeDouble(m_distance);
+                out.writeInt(m_actions.size());
+                for (String action : m_actions) {
+                    out.writeUTF(action);
+                }
+                out.writeUTF(m_side.name());
+            }
+        }
+
+        private static @NotNull Entry read(@NotNull DataInputStream in) throws IOException {
+            String relativePath = in.readUTF();
+            long modified = in.readLong();
+            long size = in.readLong();
+            if (!in.readBoolean()) {
+                return notAPath(relativePath, modified, size);
+            }
+            String title = in.readUTF();
+            String description = in.readUTF();
+            double duration = in.readDouble();
+            double distance = in.readDouble();
+            List<String> actions = new ArrayList<>();
+            for (int actionCount = in.readInt(); actionCount > 0; actionCount--) {
+                actions.add(in.readUTF());
+            }
+            return new Entry(relativePath, modified, size, true, title, description, duration, distance, actions,
+                    AllianceSide.valueOf(in.readUTF()));
+        }
+    }
+
+    private final File m_root;
+    private final File m_indexFile;
+    private volatile List<Entry> m_entries = List.of();
+    private volatile int m_extractedCount = 0;
+
+    /**
+     * Create a library of the paths under a root directory. The index is kept in the planner directory, keyed
+     * by the root directory.
+     *
+     * @param root The library root directory.
+     */
+    public PathLibrary(@NotNull File root) {
+        this(root, getIndexFile(root));
+    }
+
+    /**
+     * Create a library with a specified index file, i.e. for testing.
+     *
+     * @param root      The library root directory.
+     * @param indexFile The index file, {@code null} if the index should not be kept on disk.
+     */
+    PathLibrary(@NotNull File root, @Nullable File indexFile) {
+        m_root = root.getAbsoluteFile();
+        m_indexFile = indexFile;
+    }
+
+    @Nullable
+    private static File getIndexFile(@NotNull File root) {
+        File directory = PlannerFiles.getDirectory(INDEX_DIRECTORY);
+        if (null == directory) {
+            return null;
+        }
+        return new File(directory, PlannerFiles.sha256Hex(
+                root.getAbsoluteFile().toPath().normalize().toString().getBytes()) + INDEX_SUFFIX);
+    }
+
+    public @NotNull File getRoot() {
+        return m_root;
+    }
+
+    /**
+     * Get the file of an entry.
+     *
+     * @param entry The entry.
+     * @return The path file.
+     */
+    public @NotNull File getFile(@NotNull Entry entry) {
+        return new File(m_root, entry.getRelativePath());
+    }
+
+    /**
+     * Get the paths found by the latest scan.
+     *
+     * @return The paths, sorted by relative path name.
+     */
+    public @NotNull List<Entry> getEntries() {
+        return m_entries;
+    }
+
+    /**
+     * @return The number of files the latest scan had to read because they were not in the index, or had
+     * changed since they were indexed.
+     */
+    int getExtractedCount() {
+        return m_extractedCount;
+    }
+
+    /**
+     * Search the paths found by the latest scan.
+     *
+     * @param query The search text, split into terms at white space. Every term must appear in the file name,
+     *              title, description, or action commands of a path, ignoring case.
+     * @param side  The alliance side the path must start on, {@code null} for either side.
+     * @return The matching paths, sorted by relative path name.
+     */
+    public @NotNull List<Entry> search(@NotNull String query, @Nullable AllianceSide side) {
+        String trimmed = query.trim().toLowerCase(Locale.ROOT);
+        String[] terms = trimmed.isEmpty() ? new String[0] : trimmed.split("\\s+");
+        List<Entry> matches = new ArrayList<>();
+        for (Entry entry : m_entries) {
+            if (entry.matches(terms, side)) {
+                matches.add(entry);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Scan the library root, reading the files that are not in the index or have changed since they were
+     * indexed, and update the index. This blocks until the scan is complete, so it should not be called on the
+     * event dispatch thread.
+     *
+     * @return The paths, sorted by relative path name.
+     */
+    public @NotNull List<Entry> scan() {
+        Map<String, Entry> indexed = readIndex();
+        Map<Path, BasicFileAttributes> files = new TreeMap<>();
+        if (m_root.isDirectory()) {
+            try {
+                Files.walkFileTree(m_root.toPath(), new SimpleFileVisitor<Path>() {
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                        if (attributes.isRegularFile() &&
+                                file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(PATH_SUFFIX)) {
+                            files.put(file, attributes);
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFileFailed(Path file, IOException e) {
+                        // an unreadable file or directory is just not in the library
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+            } catch (IOException e) {
+                System.out.println("Could not scan the path library: " + m_root.getAbsolutePath());
+                e.printStackTrace();
+            }
+        }
+
+        List<Entry> entries = new ArrayList<>(files.size());
+        List<Callable<Entry>> changed = new ArrayList<>();
+        for (Map.Entry<Path, BasicFileAttributes> file : files.entrySet()) {
+            String relativePath = m_root.toPath().relativize(file.getKey()).toString()
+                    .replace(File.separatorChar, '/');
+            long modified = file.getValue().lastModifiedTime().toMillis();
+            long size = file.getValue().size();
+            Entry entry = indexed.get(relativePath);
+            if ((null != entry) && (entry.m_modified == modified) && (entry.m_size == size)) {
+                entries.add(entry);
+            } else {
+                changed.add(() -> extract(file.getKey().toFile(), relativePath, modified, size));
+            }
+        }
+        if (!changed.isEmpty()) {
+            entries.addAll(extractAll(changed));
+            entries.sort(Comparator.comparing(Entry::getRelativePath));
+        }
+        if (!changed.isEmpty() || (entries.size() != indexed.size())) {
+            writeIndex(entries);
+        }
+
+        m_extractedCount = changed.size();
+        m_entries = Collections.unmodifiableList(
+                entries.stream().filter(entry -> entry.m_isPath).collect(Collectors.toList()));
+        return m_entries;
+    }
+
+    @NotNull
+    private static List<Entry> extractAll(@NotNull List<Callable<Entry>> changed) {
+        int threads = Math.min(Runtime.getRuntime().availableProcessors(), changed.size());
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "path-library");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Entry> entries = new ArrayList<>(changed.size());
+            for (Future<Entry> entry : executor.invokeAll(changed)) {
+                entries.add(entry.get());
+            }
+            return entries;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return List.of();
+        } catch (ExecutionException e) {
+            // extract() reports and indexes unreadable files itself, so this is a bug
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Read the metadata of a file.
+     */
+    @NotNull
+    private static Entry extract(@NotNull File file, @NotNull String relativePath, long modified, long size) {
+        try {
+            JSONObject dict = readJsonFileAsJSONObject(file.getAbsolutePath());
+            if (!(dict.get(CONTROL_POINTS) instanceof JSONArray)) {
+                return Entry.notAPath(relativePath, modified, size);
+            }
+            KochanekBartelsSpline path = new KochanekBartelsSpline();
+            PlannerEvents.loadPath(path, file.getAbsolutePath());
+            if (path.getControlPoints().isEmpty()) {
+                return Entry.notAPath(relativePath, modified, size);
+            }
+            List<PathPoint> samples = path.getCurveSegments();
+            TrajectoryTable trajectory = TrajectoryTable.build(path, samples, new Robot());
+            double distance = 0.0;
+            List<String> actions = new ArrayList<>();
+            for (int i = 0; i < samples.size(); i++) {
+                PathPoint pathPoint = samples.get(i);
+                if (i > 0) {
+                    distance += pathPoint.fieldPt.distance(samples.get(i - 1).fieldPt);
+                }
+                if ((null != pathPoint.action) && (null != pathPoint.action.command)) {
+                    actions.add(pathPoint.action.command);
+                }
+            }
+            return new Entry(relativePath, modified, size, true, parseString(dict, TITLE, ""),
+                    parseString(dict, DESCRIPTION, ""), (null == trajectory) ? 0.0 : trajectory.getDuration(),
+                    distance, actions, AllianceSide.forStart(path.getControlPoints().get(0).getFieldY()));
+        } catch (IOException | ParseException | RuntimeException e) {
+            System.out.println("Could not index path library file: " + file.getAbsolutePath());
+            e.printStackTrace();
+            return Entry.notAPath(relativePath, modified, size);
+        }
+    }
+
+    @NotNull
+    private Map<String, Entry> readIndex() {
+        Map<String, Entry> indexed = new HashMap<>();
+        if ((null == m_indexFile) || !m_indexFile.isFile()) {
+            return indexed;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(m_indexFile)))) {
+            if (INDEX_VERSION == in.readInt()) {
+                for (int entryCount = in.readInt(); entryCount > 0; entryCount--) {
+                    Entry entry = Entry.read(in);
+                    indexed.put(entry.getRelativePath(), entry);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Discarding unreadable path library index: " + m_indexFile.getAbsolutePath());
+            indexed.clear();
+        }
+        return indexed;
+    }
+
+    /**
+     * Write the index. The index is written to a temporary file of its own and moved into place so another
+     * planner never reads a partially written index, and two planners indexing the same library never write the
+     * same temporary file.
+     */
+    private void writeIndex(@NotNull List<Entry> entries) {
+        if (null == m_indexFile) {
+            return;
+        }
+        File tempFile = null;
+        try {
+            tempFile = Files.createTempFile(m_indexFile.getParentFile().toPath(), m_indexFile.getName() + ".",
+                    ".tmp").toFile();
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+                out.writeInt(INDEX_VERSION);
+                out.writeInt(entries.size());
+                for (Entry entry : entries) {
+                    entry.write(out);
+                }
+            }
+            Files.move(tempFile.toPath(), m_indexFile.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Could not write path library index: " + m_indexFile.getAbsolutePath());
+            e.printStackTrace();
+            if (null != tempFile) {
+                //noinspection ResultOfMethodCallIgnored
+                tempFile.delete();
+            }
+        }
+    }
+}
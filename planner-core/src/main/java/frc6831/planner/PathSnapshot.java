@@ -0,0 +1,292 @@
+package frc6831.planner;
+
+import org.a05annex.util.AngleD;
+import org.a05annex.util.AngleUnit;
+import org.a05annex.util.geo2d.KochanekBartelsSpline;
+import org.a05annex.util.geo2d.KochanekBartelsSpline.ControlPoint;
+import org.a05annex.util.geo2d.KochanekBartelsSpline.PathPoint;
+import org.a05annex.util.geo2d.KochanekBartelsSpline.RobotActionType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An immutable snapshot of the editable state of a path - the control points, the scheduled commands, and the
+ * speed multiplier. Snapshots are persistent: when a snapshot is captured relative to a previous snapshot, every
+ * control point that did not change shares the {@link PointState} of the previous snapshot, so a snapshot after
+ * a single edit costs one array of references plus the states of the points that actually changed. This is what
+ * lets the undo history keep thousands of steps in a few megabytes.
+ * <p>
+ * Because unchanged points share the same {@link PointState} instance, identity comparison of point states is
+ * a cheap and exact test of whether a point changed between two snapshots.
+ */
+@SuppressWarnings("HungarianNotationMemberVariables")
+public final class PathSnapshot {
+
+    /**
+     * The immutable editable state of a single control point.
+     */
+    public static final class PointState {
+        public final double fieldX;
+        public final double fieldY;
+        public final double rawTangentX;
+        public final double rawTangentY;
+        public final boolean derivativesEdited;
+        public final double fieldHeading;
+        public final double rotationSpeed;
+        public final double time;
+        public final String actionCommand;
+        public final double actionDuration;
+
+        private PointState(@NotNull ControlPoint point) {
+            KochanekBartelsSpline.RobotAction action = point.getRobotAction();
+            fieldX = point.getFieldX();
+            fieldY = point.getFieldY();
+            rawTangentX = point.getRawTangentX();
+            rawTangentY = point.getRawTangentY();
+            derivativesEdited = point.getDerivativesManuallyEdited();
+            fieldHeading = point.getFieldHeading().getRadians();
+            rotationSpeed = point.getRotationSpeed();
+            time = point.getTime();
+            actionCommand = (null == action) ? null : action.command;
+            actionDuration = (null == action) ? 0.0 : action.approxDuration;
+        }
+
+        /**
+         * Test whether this state describes the current state of a control point.
+         *
+         * @param point The control point.
+         * @return {@code true} if this state matches the control point, {@code false} otherwise.
+         */
+        boolean matches(@NotNull ControlPoint point) {
+            KochanekBartelsSpline.RobotAction action = point.getRobotAction();
+            return (fieldX == point.getFieldX()) && (fieldY == point.getFieldY()) &&
+                    (rawTangentX == point.getRawTangentX()) && (rawTangentY == point.getRawTangentY()) &&
+                    (derivativesEdited == point.getDerivativesManuallyEdited()) &&
+                    (fieldHeading == point.getFieldHeading().getRadians()) &&
+                    (rotationSpeed == point.getRotationSpeed()) && (time == point.getTime()) &&
+                    ((null == action) ? (null == actionCommand) :
+                            (action.command.equals(actionCommand) && (action.approxDuration == actionDuration)));
+        }
+    }
+
+    private static final PointState[] NO_POINTS = new PointState[0];
+    private static final double[] NO_TIMES = new double[0];
+    private static final String[] NO_COMMANDS = new String[0];
+
+    private final PointState[] m_points;
+    private final double[] m_scheduledTimes;
+    private final String[] m_scheduledCommands;
+    private final double m_speedMultiplier;
+
+    private PathSnapshot(@NotNull PointState[] points, @NotNull double[] scheduledTimes,
+                         @NotNull String[] scheduledCommands, double speedMultiplier) {
+        m_points = points;
+        m_scheduledTimes = scheduledTimes;
+        m_scheduledCommands = scheduledCommands;
+        m_speedMultiplier = speedMultiplier;
+    }
+
+    /**
+     * Capture a snapshot of a path.
+     *
+     * @param path     The path.
+     * @param previous The previous snapshot of this path, {@code null} if there is none. Unchanged control
+     *                 points, and unchanged scheduled commands, share the state of the previous snapshot.
+     * @return The snapshot, which is {@code previous} itself if nothing changed.
+     */
+    @NotNull
+    public static PathSnapshot capture(@NotNull KochanekBartelsSpline path, @Nullable PathSnapshot previous) {
+        PointState[] previousPoints = (null == previous) ? NO_POINTS : previous.m_points;
+        PointState[] points = capturePoints(path, previousPoints);
+
+        // scheduled commands are only visible as actions on the path points
+        List<Double> times = new ArrayList<>();
+        List<String> commands = new ArrayList<>();
+        for (PathPoint pathPoint : path.getCurveSegments()) {
+            if ((null != pathPoint.action) && (RobotActionType.SCHEDULE_COMMAND == pathPoint.action.actionType)) {
+                times.add(pathPoint.time * path.getSpeedMultiplier());
+                commands.add(pathPoint.action.command);
+            }
+        }
+        double[] scheduledTimes = times.isEmpty() ? NO_TIMES : times.stream().mapToDouble(d -> d).toArray();
+        String[] scheduledCommands = commands.isEmpty() ? NO_COMMANDS : commands.toArray(NO_COMMANDS);
+        if (null != previous) {
+            if (Arrays.equals(scheduledTimes, previous.m_scheduledTimes) &&
+                    Arrays.equals(scheduledCommands, previous.m_scheduledCommands)) {
+                scheduledTimes = previous.m_scheduledTimes;
+                scheduledCommands = previous.m_scheduledCommands;
+                if ((points == previousPoints) && (path.getSpeedMultiplier() == previous.m_speedMultiplier)) {
+                    return previous;
+                }
+            }
+        }
+        return new PathSnapshot(points, scheduledTimes, scheduledCommands, path.getSpeedMultiplier());
+    }
+
+    /**
+     * Capture a snapshot of a path without sampling the path to find the scheduled commands, which are instead
+     * taken from a snapshot known to have the current scheduled commands. This is for capturing the path on
+     * every frame while control points are dragged - dragging never changes the scheduled commands, and
+     * sampling the path is exactly the work that should not be done on every frame.
+     *
+     * @param path          The path.
+     * @param previous      The previous snapshot of this path, {@code null} if there is none. Unchanged control
+     *                      points share the state of the previous snapshot.
+     * @param scheduledFrom A snapshot with the current scheduled commands, i.e. the current undo step.
+     * @return The snapshot, which is {@code previous} itself if nothing changed.
+     */
+    @NotNull
+    public static PathSnapshot captureControlPoints(@NotNull KochanekBartelsSpline path,
+                                                    @Nullable PathSnapshot previous,
+                                                    @NotNull PathSnapshot scheduledFrom) {
+        PointState[] previousPoints = (null == previous) ? NO_POINTS : previous.m_points;
+        PointState[] points = capturePoints(path, previousPoints);
+        if ((null != previous) && (points == previousPoints) &&
+                (scheduledFrom.m_scheduledTimes == previous.m_scheduledTimes) &&
+                (scheduledFrom.m_scheduledCommands == previous.m_scheduledCommands) &&
+                (path.getSpeedMultiplier() == previous.m_speedMultiplier)) {
+            return previous;
+        }
+        return new PathSnapshot(points, scheduledFrom.m_scheduledTimes, scheduledFrom.m_scheduledCommands,
+                path.getSpeedMultiplier());
+    }
+
+    /**
+     * Capture the control point states of a path.
+     *
+     * @param path           The path.
+     * @param previousPoints The control point states of the previous snapshot.
+     * @return The control point states, which is {@code previousPoints} itself if no control point changed.
+     */
+    @NotNull
+    private static PointState[] capturePoints(@NotNull KochanekBartelsSpline path,
+                                              @NotNull PointState[] previousPoints) {
+        List<ControlPoint> controlPoints = path.getControlPoints();
+        PointState[] points = controlPoints.isEmpty() ? NO_POINTS : new PointState[controlPoints.size()];
+        boolean pointsChanged = (points.length != previousPoints.length);
+        int index = 0;
+        for (ControlPoint controlPoint : controlPoints) {
+            // an insert or delete shifts the unchanged points by one, so look at the neighbors too
+            PointState state = findMatch(previousPoints, index, controlPoint);
+            if (null == state) {
+                state = findMatch(previousPoints, index - 1, controlPoint);
+            }
+            if (null == state) {
+                state = findMatch(previousPoints, index + 1, controlPoint);
+            }
+            if (null == state) {
+                state = new PointState(controlPoint);
+            }
+            pointsChanged |= (index >= previousPoints.length) || (state != previousPoints[index]);
+            points[index++] = state;
+        }
+        return pointsChanged ? points : previousPoints;
+    }
+
+    @Nullable
+    private static PointState findMatch(@NotNull PointState[] states, int index, @NotNull ControlPoint point) {
+        return ((index >= 0) && (index < states.length) && states[index].matches(point)) ? states[index] : null;
+    }
+
+    /**
+     * Restore a path to the state described by this snapshot.
+     *
+     * @param path The path to be restored.
+     */
+    public void restore(@NotNull KochanekBartelsSpline path) {
+        restore(path, 0, m_points.length - 1);
+        for (int i = 0; i < m_scheduledTimes.length; i++) {
+            path.scheduleCommand(m_scheduledTimes[i], m_scheduledCommands[i]);
+        }
+    }
+
+    /**
+     * Restore a path to a run of the control points of this snapshot, without the scheduled commands. A segment
+     * of the path depends only on its control points and the ones its tangents are computed from, so this is
+     * for evaluating a few segments of a long path without restoring all of it.
+     *
+     * @param path  The path to be restored.
+     * @param first The index of the first control point to restore.
+     * @param last  The index of the last control point to restore.
+     */
+    void restore(@NotNull KochanekBartelsSpline path, int first, int last) {
+        path.clearPath();
+        for (int i = first; i <= last; i++) {
+            path.addControlPoint(new Point2D.Double(m_points[i].fieldX, m_points[i].fieldY));
+        }
+        // The spline recomputes derivatives that were not manually edited from the neighboring points, so all
+        // the times are set before the derivatives, and all the headings before the rotation speeds.
+        List<ControlPoint> controlPoints = path.getControlPoints();
+        for (int i = first; i <= last; i++) {
+            if (controlPoints.get(i - first).getTime() != m_points[i].time) {
+                controlPoints.get(i - first).setTime(m_points[i].time, true);
+            }
+        }
+        for (int i = first; i <= last; i++) {
+            PointState state = m_points[i];
+            ControlPoint controlPoint = controlPoints.get(i - first);
+            controlPoint.setFieldHeading(new AngleD(AngleUnit.RADIANS, state.fieldHeading));
+            if (null != state.actionCommand) {
+                controlPoint.setRobotAction(state.actionCommand, state.actionDuration);
+            }
+            if (state.derivativesEdited) {
+                controlPoint.setTangent(state.rawTangentX, state.rawTangentY);
+            }
+        }
+        for (int i = first; i <= last; i++) {
+            if (controlPoints.get(i - first).getRotationSpeed() != m_points[i].rotationSpeed) {
+                controlPoints.get(i - first).setRotationSpeed(m_points[i].rotationSpeed);
+            }
+        }
+        path.setSpeedMultiplier(m_speedMultiplier);
+    }
+
+    /**
+     * @return The number of control points in the path.
+     */
+    public int size() {
+        return m_points.length;
+    }
+
+    /**
+     * Get the state of a control point.
+     *
+     * @param index The index of the control point.
+     * @return The state of the control point.
+     */
+    @NotNull
+    public PointState getPoint(int index) {
+        return m_points[index];
+    }
+
+    public double getSpeedMultiplier() {
+        return m_speedMultiplier;
+    }
+
+    /**
+     * @return The number of commands scheduled along the path.
+     */
+    public int getScheduledCount() {
+        return m_scheduledTimes.length;
+    }
+
+    /**
+     * Get the time of a scheduled command.
+     *
+     * @param index The index of the scheduled command.
+     * @return The time of the command, in seconds, before the speed multiplier is applied.
+     */
+    public double getScheduledTime(int index) {
+        return m_scheduledTimes[index];
+    }
+
+    @NotNull
+    public String getScheduledCommand(int index) {
+        return m_scheduledCommands[index];
+    }
+}
@@ -0,0 +1,161 @@
+package frc6831.planner;
+
+import jdk.jfr.*;
+import org.a05annex.util.geo2d.KochanekBartelsSpline;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * The Java Flight Recorder events the planner emits around the work that varies with the field, robot, and
+ * path: loading the field and robot descriptions, loading and saving paths, painting, mouse hit testing, and
+ * path analysis. The events carry the sizes (components, shapes, control points, path samples) that explain
+ * why one field or path is slower than another.
+ * <p>
+ * When nothing is recording, creating, beginning, and testing an event is optimized away by the JVM, so the
+ * events cost nothing in normal use. The sizes are only computed when {@link Event#shouldCommit()} says the
+ * event will actually be recorded. Recordings are started and dumped with the planner
+ * {@code FlightRecorderControl}.
+ */
+public final class PlannerEvents {
+
+    private static final String CATEGORY = "Swerve Path Planner";
+
+    private PlannerEvents() {
+    }
+
+    @Name("frc6831.planner.FieldLoad")
+    @Label("Field Load")
+    @Description("Loading a field description, from the field cache or by parsing the description.")
+    @Category(CATEGORY)
+    static final class FieldLoad extends Event {
+        @Label("File")
+        String file;
+        @Label("Loaded")
+        boolean loaded;
+        @Label("From Cache")
+        boolean fromCache;
+        @Label("Components")
+        int components;
+        @Label("Shapes")
+        int shapes;
+        @Label("Drawn Components")
+        int drawn;
+    }
+
+    @Name("frc6831.planner.RobotLoad")
+    @Label("Robot Load")
+    @Description("Loading a robot description.")
+    @Category(CATEGORY)
+    static final class RobotLoad extends Event {
+        @Label("File")
+        String file;
+        @Label("Loaded")
+        boolean loaded;
+    }
+
+    @Name("frc6831.planner.PathLoad")
+    @Label("Path Load")
+    @Description("Loading a path file.")
+    @Category(CATEGORY)
+    static final class PathLoad extends Event {
+        @Label("File")
+        String file;
+        @Label("Control Points")
+        int controlPoints;
+    }
+
+    @Name("frc6831.planner.PathSave")
+    @Label("Path Save")
+    @Description("Saving a path file, or a crash recovery snapshot of the path.")
+    @Category(CATEGORY)
+    static final class PathSave extends Event {
+        @Label("File")
+        String file;
+        @Label("Control Points")
+        int controlPoints;
+    }
+
+    @Name("frc6831.planner.PaintFrame")
+    @Label("Paint Frame")
+    @Description("Painting the field, path, and robot into the canvas back buffer.")
+    @Category(CATEGORY)
+    static final class PaintFrame extends Event {
+        @Label("Width")
+        int width;
+        @Label("Height")
+        int height;
+        @Label("Control Points")
+        int controlPoints;
+        @Label("Path Samples")
+        int pathSamples;
+        @Label("Animating")
+        boolean animating;
+    }
+
+    @Name("frc6831.planner.HitTest")
+    @Label("Hit Test")
+    @Description("Testing what the mouse is over on the canvas.")
+    @Category(CATEGORY)
+    static final class HitTest extends Event {
+        @Label("Control Points")
+        int controlPoints;
+        @Label("Path Samples")
+        int pathSamples;
+        @Label("Over")
+        String over;
+    }
+
+    @Name("frc6831.planner.PathAnalysis")
+    @Label("Path Analysis")
+    @Description("Sampling a path and testing the samples against the robot capabilities and field boundary.")
+    @Category(CATEGORY)
+    static final class PathAnalysisPass extends Event {
+        @Label("Control Points")
+        int controlPoints;
+        @Label("Samples")
+        int samples;
+        @Label("Segments")
+        int segments;
+        @Label("Recomputed Segments")
+        int recomputedSegments;
+        @Label("Too Fast Samples")
+        int tooFast;
+        @Label("Outside Field Samples")
+        int outside;
+        @Label("Cancelled")
+        boolean cancelled;
+    }
+
+    /**
+     * Load a path from a file, recording a {@link PathLoad} event.
+     *
+     * @param path     The path to be loaded into.
+     * @param filepath The path file.
+     */
+    static void loadPath(@NotNull KochanekBartelsSpline path, @NotNull String filepath) {
+        PathLoad event = new PathLoad();
+        event.begin();
+        path.loadPath(filepath);
+        if (event.shouldCommit()) {
+            event.file = filepath;
+            event.controlPoints = path.getControlPoints().size();
+            event.commit();
+        }
+    }
+
+    /**
+     * Save a path to a file, recording a {@link PathSave} event.
+     *
+     * @param path     The path to be saved.
+     * @param filepath The path file.
+     */
+    static void savePath(@NotNull KochanekBartelsSpline path, @NotNull String filepath) {
+        PathSave event = new PathSave();
+        event.begin();
+        path.savePath(filepath);
+        if (event.shouldCommit()) {
+            event.file = filepath;
+            event.controlPoints = path.getControlPoints().size();
+            event.commit();
+        }
+    }
+}
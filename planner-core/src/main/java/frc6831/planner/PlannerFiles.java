@@ -0,0 +1,63 @@
+package frc6831.planner;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * The locations of the files the planner keeps for itself (recovery journals, caches, indices) as opposed to
+ * the path, field, and robot description files the user reads and writes. These all live in a
+ * {@code .swervePathPlanner} directory in the user's home directory.
+ */
+public final class PlannerFiles {
+
+    private static final String APPLICATION_DIRECTORY = ".swervePathPlanner";
+
+    private PlannerFiles() {
+    }
+
+    /**
+     * Get a subdirectory of the planner directory, creating it if it does not exist.
+     *
+     * @param name The name of the subdirectory, i.e. {@code "recovery"} or {@code "cache"}.
+     * @return The subdirectory, or {@code null} if it does not exist and could not be created.
+     */
+    @Nullable
+    public static File getDirectory(@NotNull String name) {
+        File directory = new File(new File(System.getProperty("user.home"), APPLICATION_DIRECTORY), name);
+        // another thread may be creating the directory concurrently, so check it exists after trying to create it
+        if (!directory.mkdirs() && !directory.isDirectory()) {
+            System.err.println("Could not create planner directory: " + directory.getAbsolutePath());
+            return null;
+        }
+        return directory;
+    }
+
+    /**
+     * Hash some data for naming a cache or index file, i.e. from the contents of the file it was built from.
+     *
+     * @param parts The data, hashed as if the parts were concatenated.
+     * @return The SHA-256 hash of the data, as 64 lower case hexadecimal digits.
+     */
+    @NotNull
+    public static String sha256Hex(@NotNull byte[]... parts) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+        for (byte[] part : parts) {
+            digest.update(part);
+        }
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
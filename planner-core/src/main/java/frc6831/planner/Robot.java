@@ -69,6 +69,20 @@ public class Robot {
      * these speeds exceed the capability of the robot.
      */
     public boolean canRobotAchieve(double forward, double strafe, double rotation)
+    {
+        // if the fastest module is less than the max, we are good
+        return getPeakModuleSpeed(forward, strafe, rotation) <= m_moduleMaxSpeed;
+    }
+
+    /**
+     * Get the speed of the fastest swerve module when the robot is moving at the path forward, strafe, and
+     * rotation speeds. The robot can follow the path if this is no more than {@link #getMaxModuleSpeed()}.
+     * @param forward The forward speed, meters/sec.
+     * @param strafe The strafe speed, meters/sec.
+     * @param rotation The rotation, radians/sec
+     * @return The speed of the fastest module, meters/sec.
+     */
+    public double getPeakModuleSpeed(double forward, double strafe, double rotation)
     {
         // calculate a, b, c and d variables
         double a = strafe - (rotation * (m_driveLength / m_driveDiagonal));
@@ -76,11 +90,11 @@ public class Robot {
         double c = forward - (rotation * (m_driveWidth / m_driveDiagonal));
         double d = forward + (rotation * (m_driveWidth / m_driveDiagonal));
 
-        // calculate module speeds, if they are all less than the max, we are good
-        return (Utl.length(b, c) <= m_moduleMaxSpeed) &&    // right front
-                (Utl.length(b, d) <= m_moduleMaxSpeed) &&   // left front
-                (Utl.length(a, d) <= m_moduleMaxSpeed) &&   // left rear
-                (Utl.length(a, c) <= m_moduleMaxSpeed) ;    // right rear
+        // calculate module speeds
+        return Math.max(Math.max(Utl.length(b, c),      // right front
+                        Utl.length(b, d)),              // left front
+                Math.max(Utl.length(a, d),              // left rear
+                        Utl.length(a, c)));             // right rear
     }
 
     // ----------------------------------------------------------------------------------------------------
@@ -109,7 +123,26 @@ public class Robot {
     // ----------------------------------------------------------------------------------------------------
     // Loading from a JSON file
     // ----------------------------------------------------------------------------------------------------
-    public void loadRobot(String filename) {
+    /**
+     * Load the robot description from a file.
+     *
+     * @param filename The path to the file containing the robot description.
+     * @return {@code true} if the robot description was loaded, {@code false} if the description
+     * could not be read.
+     */
+    public boolean loadRobot(String filename) {
+        PlannerEvents.RobotLoad event = new PlannerEvents.RobotLoad();
+        event.begin();
+        boolean loaded = readRobot(filename);
+        if (event.shouldCommit()) {
+            event.file = filename;
+            event.loaded = loaded;
+            event.commit();
+        }
+        return loaded;
+    }
+
+    private boolean readRobot(String filename) {
         try {
             JSONObject dict = readJsonFileAsJSONObject(filename);
             if (null != dict) {
@@ -134,11 +167,13 @@ public class Robot {
                 }
                 m_driveDiagonal = Utl.length(m_driveLength, m_driveWidth);
                 m_driveRadius = m_driveDiagonal / 2.0;
+                return true;
             }
 
 
         } catch (IOException | ParseException | ClassCastException | NullPointerException e) {
             e.printStackTrace();
         }
+        return false;
     }
 }
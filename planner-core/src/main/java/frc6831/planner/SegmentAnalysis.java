@@ -0,0 +1,172 @@
+package frc6831.planner;
+
+import org.a05annex.util.geo2d.KochanekBartelsSpline;
+import org.a05annex.util.geo2d.KochanekBartelsSpline.PathPoint;
+import org.jetbrains.annotations.NotNull;
+
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Point2D;
+
+/**
+ * The analysis of one segment of the path, between two adjacent control points: the path points of the segment,
+ * and for each of them whether the robot can achieve the speeds and whether the robot is inside the field. A
+ * segment depends only on the states of its two control points and the speed multiplier, and because unchanged
+ * control points share their {@link PathSnapshot.PointState} between snapshots, the {@link PathAnalyzer} reuses
+ * the analysis of every segment whose end states are the same instances as before. Moving a control point
+ * changes the point and the computed tangents of its neighbors, so an edit samples and tests the few segments
+ * around it however long the path is.
+ * <p>
+ * The segment is sampled the way {@link KochanekBartelsSpline#getCurveSegments()} samples each segment of the
+ * whole path, {@link #PATH_POINTS_PER_SEGMENT} path points evenly spaced in time from the start control point,
+ * and the last segment also has a path point at the end of the path. The path points are followed on a path
+ * restored from just the control points the segment is computed from, so nothing is restored or sampled for the
+ * rest of the path. A path point exactly at a control point may be computed as the end of the previous segment,
+ * so the state of the control point before the segment is kept too, and the segment is analyzed again when it
+ * changes. The segment also keeps its samples of the {@link TrajectoryTable}, which is spliced together the same
+ * way, and its {@link AdaptiveSampler} polyline for drawing, which depends on the drawing scale too.
+ */
+@SuppressWarnings("HungarianNotationMemberVariables")
+final class SegmentAnalysis {
+
+    /**
+     * The number of path points the library samples each segment with, which is found from the path points of
+     * a path with a single segment, less the one at the end of the path.
+     */
+    static final int PATH_POINTS_PER_SEGMENT = countPathPointsPerSegment();
+
+    private final PathSnapshot.PointState m_previous;
+    private final PathSnapshot.PointState m_start;
+    private final PathSnapshot.PointState m_end;
+    private final double m_speedMultiplier;
+
+    // the path points of the segment
+    final int m_count;
+    final double[] m_time;
+    final double[] m_fieldX;
+    final double[] m_fieldY;
+    final double[] m_heading;
+    final double[] m_fieldDx;
+    final double[] m_fieldDy;
+    final double[] m_speedRotation;
+    final boolean[] m_tooFast;
+    final boolean[] m_inside;
+    final int m_tooFastCount;
+    final int m_outsideCount;
+    // the trajectory table samples in this segment
+    final TrajectoryTable.Segment m_trajectory;
+    // the segment sampled for drawing
+    final AdaptiveSampler m_outline;
+
+    /**
+     * Sample and test the path points of a segment of a path.
+     *
+     * @param snapshot  The snapshot of the path.
+     * @param segment   The index of the segment.
+     * @param robot     The robot that will follow the path.
+     * @param field     The field the path is on.
+     * @param tolerance The distance the drawing polyline may be from the path, in meters.
+     */
+    SegmentAnalysis(@NotNull PathSnapshot snapshot, int segment, @NotNull Robot robot, @NotNull Field field,
+                    double tolerance) {
+        m_previous = (0 == segment) ? null : snapshot.getPoint(segment - 1);
+        m_start = snapshot.getPoint(segment);
+        m_end = snapshot.getPoint(segment + 1);
+        m_speedMultiplier = snapshot.getSpeedMultiplier();
+
+        // The tangents at the ends of the segment are computed from the control points on either side, and the
+        // path point at the start may be computed as the end of the previous segment, whose start tangent is
+        // computed from the control point before it. The restored path starts at the first control point of the
+        // path only if the segment is the first, and ends at the last only if the segment is the last, so the
+        // segment samples the same as it does in the whole path.
+        int first = Math.max(0, segment - 2);
+        KochanekBartelsSpline path = new KochanekBartelsSpline();
+        snapshot.restore(path, first, Math.min(snapshot.size() - 1, segment + 2));
+        m_trajectory = new TrajectoryTable.Segment(path, segment - first, robot);
+        m_outline = new AdaptiveSampler(path, segment - first, tolerance);
+
+        boolean isLast = (snapshot.size() - 2 == segment);
+        m_count = PATH_POINTS_PER_SEGMENT + (isLast ? 1 : 0);
+        m_time = new double[m_count];
+        m_fieldX = new double[m_count];
+        m_fieldY = new double[m_count];
+        m_heading = new double[m_count];
+        m_fieldDx = new double[m_count];
+        m_fieldDy = new double[m_count];
+        m_speedRotation = new double[m_count];
+        m_tooFast = new boolean[m_count];
+        m_inside = new boolean[m_count];
+
+        Point2D.Double[] robotCorners = {
+                new Point2D.Double(-robot.getBumperWidth() / 2.0, -robot.getBumperLength() / 2.0),
+                new Point2D.Double(-robot.getBumperWidth() / 2.0, robot.getBumperLength() / 2.0),
+                new Point2D.Double(robot.getBumperWidth() / 2.0, robot.getBumperLength() / 2.0),
+                new Point2D.Double(robot.getBumperWidth() / 2.0, -robot.getBumperLength() / 2.0)};
+        Point2D.Double[] xfmRobotCorners =
+                {new Point2D.Double(), new Point2D.Double(), new Point2D.Double(), new Point2D.Double()};
+        AffineTransform xfmRobot = new AffineTransform();
+        KochanekBartelsSpline.PathFollower follower = path.getPathFollower();
+        int tooFastCount = 0;
+        int outsideCount = 0;
+        for (int i = 0; i < m_count; i++) {
+            PathPoint pathPoint = followTo(follower, m_start.time, m_end.time, i);
+            m_time[i] = pathPoint.time;
+            m_fieldX[i] = pathPoint.fieldPt.getX();
+            m_fieldY[i] = pathPoint.fieldPt.getY();
+            m_heading[i] = pathPoint.fieldHeading.getRadians();
+            m_fieldDx[i] = pathPoint.field_dX;
+            m_fieldDy[i] = pathPoint.field_dY;
+            m_speedRotation[i] = pathPoint.speedRotation;
+            m_tooFast[i] = !robot.canRobotAchieve(pathPoint.speedForward, pathPoint.speedStrafe,
+                    pathPoint.speedRotation);
+            xfmRobot.setToTranslation(pathPoint.fieldPt.getX(), pathPoint.fieldPt.getY());
+            xfmRobot.rotate(-pathPoint.fieldHeading.getRadians());
+            xfmRobot.transform(robotCorners, 0, xfmRobotCorners, 0, 4);
+            m_inside[i] = field.isInsideField(xfmRobotCorners, PathAnalyzer.FIELD_TOLERANCE);
+            tooFastCount += m_tooFast[i] ? 1 : 0;
+            outsideCount += m_inside[i] ? 0 : 1;
+        }
+        m_tooFastCount = tooFastCount;
+        m_outsideCount = outsideCount;
+    }
+
+    /**
+     * Follow the path to a path point of the segment, at the time the library samples it.
+     */
+    @NotNull
+    private PathPoint followTo(@NotNull KochanekBartelsSpline.PathFollower follower, double startTime,
+                               double endTime, int index) {
+        double u = index / (double) PATH_POINTS_PER_SEGMENT;
+        PathPoint pathPoint = follower.getPointAt((startTime + (u * (endTime - startTime))) / m_speedMultiplier);
+        if (null == pathPoint) {
+            // the end of the path, where rounding may put the time just past it
+            pathPoint = follower.getPointAt(endTime / m_speedMultiplier);
+        }
+        return pathPoint;
+    }
+
+    private static int countPathPointsPerSegment() {
+        KochanekBartelsSpline path = new KochanekBartelsSpline();
+        path.addControlPoint(new Point2D.Double(0.0, 0.0));
+        path.addControlPoint(new Point2D.Double(0.0, 1.0));
+        return path.getCurveSegments().size() - 1;
+    }
+
+    /**
+     * Test whether this is the analysis of a segment of a snapshot.
+     *
+     * @param snapshot  The snapshot.
+     * @param segment   The index of the segment.
+     * @param tolerance The distance the drawing polyline may be from the path, in meters.
+     * @return {@code true} if the segment, and the control point before it, have the same states and speed
+     * multiplier as the segment this analysis was computed for, it is still the first or last segment if it
+     * was, and it has the same drawing tolerance, {@code false} otherwise.
+     */
+    boolean matches(@NotNull PathSnapshot snapshot, int segment, double tolerance) {
+        return (m_previous == ((0 == segment) ? null : snapshot.getPoint(segment - 1))) &&
+                (m_start == snapshot.getPoint(segment)) && (m_end == snapshot.getPoint(segment + 1)) &&
+                (m_speedMultiplier == snapshot.getSpeedMultiplier()) &&
+                (m_trajectory.m_isFirst == (0 == segment)) &&
+                (m_trajectory.m_isLast == (snapshot.size() - 2 == segment)) &&
+                (m_outline.getTolerance() == tolerance);
+    }
+}
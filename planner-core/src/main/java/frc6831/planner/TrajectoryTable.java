@@ -0,0 +1,429 @@
+package frc6831.planner;
+
+import org.a05annex.util.geo2d.KochanekBartelsSpline;
+import org.a05annex.util.geo2d.KochanekBartelsSpline.ControlPoint;
+import org.a05annex.util.geo2d.KochanekBartelsSpline.PathPoint;
+import org.a05annex.util.geo2d.KochanekBartelsSpline.RobotActionType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The path sampled uniformly in time into primitive arrays, for playback and scrubbing. Following the spline
+ * with a {@link KochanekBartelsSpline.PathFollower} walks and evaluates the spline and allocates a path point
+ * for every lookup, and can only move forward; a lookup in the table is an index computation and a linear
+ * interpolation between two samples, in either direction, however long the path is. The path is followed a
+ * segment at a time, and the table is spliced together from the segments, so the {@link PathAnalyzer} can reuse
+ * the samples of the segments an edit did not change.
+ * <p>
+ * The table also lays the stop and run commands out on the playback timeline: the playback time is the path
+ * time plus the time the robot has spent stopped to run commands, so the robot is stopped for the full
+ * duration of each command wherever playback starts or is moved to. A table is built by the
+ * {@link PathAnalyzer} each time the path changes, and is immutable.
+ */
+@SuppressWarnings("HungarianNotationMemberVariables")
+public final class TrajectoryTable {
+
+    /**
+     * The time between samples, in seconds.
+     */
+    public static final double SAMPLE_INTERVAL = 0.01;
+
+    private final int m_count;
+    private final double[] m_fieldX;
+    private final double[] m_fieldY;
+    private final double[] m_headingSin;
+    private final double[] m_headingCos;
+    private final double[] m_speedForward;
+    private final double[] m_speedStrafe;
+    private final double[] m_speedRotation;
+    private final double[] m_peakModuleSpeed;
+    private final boolean[] m_tooFast;
+    // the index into m_actionCommands of the action in the sample interval, -1 if there is none
+    private final int[] m_actionIndex;
+    private final String[] m_actionCommands;
+
+    // the stop and run commands, in path time order
+    private final double[] m_stopPathTime;
+    private final double[] m_stopDuration;
+    private final String[] m_stopDescription;
+
+    private final double m_pathDuration;
+    private final double m_duration;
+    // the limits of the robot the table was built for
+    private final double m_maxModuleSpeed;
+    private final double m_maxRotationalSpeed;
+    private final double m_bumperLength;
+    private final double m_bumperWidth;
+
+    private TrajectoryTable(int count, @NotNull List<PathAction> actions, @NotNull Robot robot) {
+        m_count = count;
+        m_fieldX = new double[count];
+        m_fieldY = new double[count];
+        m_headingSin = new double[count];
+        m_headingCos = new double[count];
+        m_speedForward = new double[count];
+        m_speedStrafe = new double[count];
+        m_speedRotation = new double[count];
+        m_peakModuleSpeed = new double[count];
+        m_tooFast = new boolean[count];
+        m_actionIndex = new int[count];
+        m_actionCommands = new String[actions.size()];
+        int stops = 0;
+        for (PathAction action : actions) {
+            stops += (RobotActionType.STOP_AND_RUN_COMMAND == action.getType()) ? 1 : 0;
+        }
+        m_stopPathTime = new double[stops];
+        m_stopDuration = new double[stops];
+        m_stopDescription = new String[stops];
+        double stoppedDuration = 0.0;
+        int stop = 0;
+        for (int i = 0; i < actions.size(); i++) {
+            PathAction action = actions.get(i);
+            m_actionCommands[i] = action.getCommand();
+            if (RobotActionType.STOP_AND_RUN_COMMAND == action.getType()) {
+                m_stopPathTime[stop] = action.getTime();
+                m_stopDuration[stop] = action.getDuration();
+                m_stopDescription[stop] = "Stop and Run: " + action.getCommand();
+                stoppedDuration += action.getDuration();
+                stop++;
+            }
+        }
+        m_pathDuration = (count - 1) * SAMPLE_INTERVAL;
+        m_duration = m_pathDuration + stoppedDuration;
+        m_maxModuleSpeed = robot.getMaxModuleSpeed();
+        m_maxRotationalSpeed = robot.getMaxRotationalSpeed();
+        m_bumperLength = robot.getBumperLength();
+        m_bumperWidth = robot.getBumperWidth();
+    }
+
+    /**
+     * Build the table for a path.
+     *
+     * @param path    The path. The path is followed from start to end, so it must not be changed by another
+     *                thread while the table is built.
+     * @param samples The path samples from {@link KochanekBartelsSpline#getCurveSegments()}, which carry the
+     *                robot actions.
+     * @param robot   The robot following the path.
+     * @return The table, {@code null} if the path is empty.
+     */
+    @Nullable
+    public static TrajectoryTable build(@NotNull KochanekBartelsSpline path, @NotNull List<PathPoint> samples,
+                                        @NotNull Robot robot) {
+        // the actions are on the samples at the times they happen, which the table samples may step over
+        List<PathAction> actions = new ArrayList<>();
+        for (PathPoint pathPoint : samples) {
+            if (null != pathPoint.action) {
+                actions.add(PathAction.of(pathPoint));
+            }
+        }
+        Segment[] segments = new Segment[Math.max(0, path.getControlPoints().size() - 1)];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment(path, i, robot);
+        }
+        return build(segments, actions, robot);
+    }
+
+    /**
+     * Build the table by splicing together the samples of each segment of the path, which may have been
+     * computed for a previous version of the path, see {@link Segment}.
+     *
+     * @param segments The samples of each segment of the path, in order.
+     * @param actions  The robot actions on the path, in path time order.
+     * @param robot    The robot following the path, which the segments were sampled for.
+     * @return The table, {@code null} if the path is empty.
+     */
+    @Nullable
+    static TrajectoryTable build(@NotNull Segment[] segments, @NotNull List<PathAction> actions,
+                                 @NotNull Robot robot) {
+        if (0 == segments.length) {
+            return null;
+        }
+        Segment last = segments[segments.length - 1];
+        if (0 == last.m_first + last.m_count) {
+            return null;
+        }
+        TrajectoryTable table = new TrajectoryTable(last.m_first + last.m_count, actions, robot);
+        for (Segment segment : segments) {
+            int first = segment.m_first;
+            int count = segment.m_count;
+            System.arraycopy(segment.m_fieldX, 0, table.m_fieldX, first, count);
+            System.arraycopy(segment.m_fieldY, 0, table.m_fieldY, first, count);
+            System.arraycopy(segment.m_headingSin, 0, table.m_headingSin, first, count);
+            System.arraycopy(segment.m_headingCos, 0, table.m_headingCos, first, count);
+            System.arraycopy(segment.m_speedForward, 0, table.m_speedForward, first, count);
+            System.arraycopy(segment.m_speedStrafe, 0, table.m_speedStrafe, first, count);
+            System.arraycopy(segment.m_speedRotation, 0, table.m_speedRotation, first, count);
+            System.arraycopy(segment.m_peakModuleSpeed, 0, table.m_peakModuleSpeed, first, count);
+            System.arraycopy(segment.m_tooFast, 0, table.m_tooFast, first, count);
+        }
+        Arrays.fill(table.m_actionIndex, -1);
+        for (int i = 0; i < actions.size(); i++) {
+            table.m_actionIndex[table.nearestSample(actions.get(i).getTime())] = i;
+        }
+        return table;
+    }
+
+    /**
+     * The table samples in one segment of the path: the samples whose times are in the segment, which are the
+     * samples from the first at or after the start of the segment to the last before the end, except that the
+     * first segment also has the samples before it starts and the last segment has the sample at the end of the
+     * path. The samples of a segment depend only on the segment, its start and end times, and whether it is
+     * the first or last segment - except that a sample exactly at the start of the segment may be the end of the
+     * previous segment, depending on how the library follows the path - so the {@link PathAnalyzer} keeps them
+     * with the {@link SegmentAnalysis} and reuses them while the segment and the one before it do not change.
+     */
+    static final class Segment {
+        final boolean m_isFirst;
+        final boolean m_isLast;
+        // the index of the first sample in the table, and the number of samples
+        final int m_first;
+        final int m_count;
+        final double[] m_fieldX;
+        final double[] m_fieldY;
+        final double[] m_headingSin;
+        final double[] m_headingCos;
+        final double[] m_speedForward;
+        final double[] m_speedStrafe;
+        final double[] m_speedRotation;
+        final double[] m_peakModuleSpeed;
+        final boolean[] m_tooFast;
+
+        /**
+         * Sample a segment of a path.
+         *
+         * @param path    The path, which must not be changed by another thread while it is sampled.
+         * @param segment The segment index.
+         * @param robot   The robot following the path.
+         */
+        Segment(@NotNull KochanekBartelsSpline path, int segment, @NotNull Robot robot) {
+            List<ControlPoint> controlPoints = path.getControlPoints();
+            m_isFirst = (0 == segment);
+            m_isLast = (controlPoints.size() - 2 == segment);
+            m_first = m_isFirst ? 0 :
+                    firstSampleAtOrAfter(controlPoints.get(segment).getTime() / path.getSpeedMultiplier());
+            // The last segment has a sample at every interval until the follower runs off the end of the path,
+            // the others stop before the first sample of the next segment. The follower only moves forward, so
+            // a new one is started for every segment.
+            double endTime = controlPoints.get(segment + 1).getTime() / path.getSpeedMultiplier();
+            List<PathPoint> pathPoints = new ArrayList<>();
+            KochanekBartelsSpline.PathFollower follower = path.getPathFollower();
+            for (int i = m_first; m_isLast || (i * SAMPLE_INTERVAL < endTime); i++) {
+                PathPoint pathPoint = follower.getPointAt(i * SAMPLE_INTERVAL);
+                if (null == pathPoint) {
+                    break;
+                }
+                pathPoints.add(pathPoint);
+            }
+            m_count = pathPoints.size();
+            m_fieldX = new double[m_count];
+            m_fieldY = new double[m_count];
+            m_headingSin = new double[m_count];
+            m_headingCos = new double[m_count];
+            m_speedForward = new double[m_count];
+            m_speedStrafe = new double[m_count];
+            m_speedRotation = new double[m_count];
+            m_peakModuleSpeed = new double[m_count];
+            m_tooFast = new boolean[m_count];
+            double maxModuleSpeed = robot.getMaxModuleSpeed();
+            for (int i = 0; i < m_count; i++) {
+                PathPoint pathPoint = pathPoints.get(i);
+                m_fieldX[i] = pathPoint.fieldPt.getX();
+                m_fieldY[i] = pathPoint.fieldPt.getY();
+                m_headingSin[i] = pathPoint.fieldHeading.sin();
+                m_headingCos[i] = pathPoint.fieldHeading.cos();
+                m_speedForward[i] = pathPoint.speedForward;
+                m_speedStrafe[i] = pathPoint.speedStrafe;
+                m_speedRotation[i] = pathPoint.speedRotation;
+                m_peakModuleSpeed[i] = robot.getPeakModuleSpeed(pathPoint.speedForward, pathPoint.speedStrafe,
+                        pathPoint.speedRotation);
+                m_tooFast[i] = m_peakModuleSpeed[i] > maxModuleSpeed;
+            }
+        }
+
+        /**
+         * Find the first sample at or after a path time, computing the sample times exactly as they are
+         * followed, so each sample is in exactly one segment.
+         */
+        private static int firstSampleAtOrAfter(double pathTime) {
+            int index = Math.max(0, (int) Math.ceil(pathTime / SAMPLE_INTERVAL));
+            while ((index > 0) && ((index - 1) * SAMPLE_INTERVAL >= pathTime)) {
+                index--;
+            }
+            while (index * SAMPLE_INTERVAL < pathTime) {
+                index++;
+            }
+            return index;
+        }
+    }
+
+    /**
+     * @return The number of samples.
+     */
+    public int getSampleCount() {
+        return m_count;
+    }
+
+    /**
+     * @return The time to follow the path, in seconds, not including the time stopped to run commands.
+     */
+    public double getPathDuration() {
+        return m_pathDuration;
+    }
+
+    /**
+     * @return The playback time, in seconds, the path time plus the time stopped to run commands.
+     */
+    public double getDuration() {
+        return m_duration;
+    }
+
+    /**
+     * @return The maximum module speed of the robot the table was built for, meters/sec.
+     */
+    public double getMaxModuleSpeed() {
+        return m_maxModuleSpeed;
+    }
+
+    /**
+     * @return The maximum rotational speed of the robot the table was built for, radians/sec.
+     */
+    public double getMaxRotationalSpeed() {
+        return m_maxRotationalSpeed;
+    }
+
+    /**
+     * @return The bumper length of the robot the table was built for, meters.
+     */
+    public double getBumperLength() {
+        return m_bumperLength;
+    }
+
+    /**
+     * @return The bumper width of the robot the table was built for, meters.
+     */
+    public double getBumperWidth() {
+        return m_bumperWidth;
+    }
+
+    /**
+     * @param index The sample index.
+     * @return The path time of the sample, in seconds.
+     */
+    public double getSampleTime(int index) {
+        return index * SAMPLE_INTERVAL;
+    }
+
+    public double getFieldX(int index) {
+        return m_fieldX[index];
+    }
+
+    public double getFieldY(int index) {
+        return m_fieldY[index];
+    }
+
+    /**
+     * @param index The sample index.
+     * @return {@code true} if the robot cannot achieve the speeds at the sample.
+     */
+    public boolean isTooFast(int index) {
+        return m_tooFast[index];
+    }
+
+    public double getSpeedForward(int index) {
+        return m_speedForward[index];
+    }
+
+    public double getSpeedStrafe(int index) {
+        return m_speedStrafe[index];
+    }
+
+    public double getSpeedRotation(int index) {
+        return m_speedRotation[index];
+    }
+
+    /**
+     * @param index The sample index.
+     * @return The speed of the fastest swerve module at the sample, meters/sec.
+     */
+    public double getPeakModuleSpeed(int index) {
+        return m_peakModuleSpeed[index];
+    }
+
+    /**
+     * Convert a path time to a playback time, by adding the time stopped to run commands before it.
+     *
+     * @param pathTime The path time, in seconds.
+     * @return The playback time, in seconds. A path time at a stop and run command is the start of the stop.
+     */
+    public double toPlaybackTime(double pathTime) {
+        double time = pathTime;
+        for (int stop = 0; (stop < m_stopPathTime.length) && (m_stopPathTime[stop] < pathTime); stop++) {
+            time += m_stopDuration[stop];
+        }
+        return time;
+    }
+
+    /**
+     * Get the command of the robot action nearest to a path time.
+     *
+     * @param pathTime The path time, in seconds.
+     * @return The command, {@code null} if there is no action within half a sample of the time.
+     */
+    @Nullable
+    public String getActionCommand(double pathTime) {
+        int actionIndex = m_actionIndex[nearestSample(pathTime)];
+        return (-1 == actionIndex) ? null : m_actionCommands[actionIndex];
+    }
+
+    /**
+     * Get the animation frame at a playback time.
+     *
+     * @param time The playback time, in seconds, which is limited to the range 0 to {@link #getDuration()}.
+     * @return The animation frame.
+     */
+    @NotNull
+    public AnimationFrame frameAt(double time) {
+        time = Math.max(0.0, Math.min(m_duration, time));
+        // take out the time stopped before this time, or find the stop this time is in
+        double pathTime = time;
+        String stopAndRunDescription = null;
+        for (int stop = 0; stop < m_stopPathTime.length; stop++) {
+            if (pathTime <= m_stopPathTime[stop]) {
+                break;
+            } else if (pathTime <= m_stopPathTime[stop] + m_stopDuration[stop]) {
+                pathTime = m_stopPathTime[stop];
+                stopAndRunDescription = m_stopDescription[stop];
+                break;
+            }
+            pathTime -= m_stopDuration[stop];
+        }
+
+        // interpolate between the samples either side of the path time
+        double position = Math.min(pathTime / SAMPLE_INTERVAL, m_count - 1);
+        int i = Math.min((int) position, Math.max(0, m_count - 2));
+        int j = Math.min(i + 1, m_count - 1);
+        double f = position - i;
+        double headingSin = lerp(m_headingSin, i, j, f);
+        double headingCos = lerp(m_headingCos, i, j, f);
+        double headingLength = Math.hypot(headingSin, headingCos);
+        if (headingLength > 0.0) {
+            headingSin /= headingLength;
+            headingCos /= headingLength;
+        }
+        return new AnimationFrame(time, pathTime, lerp(m_fieldX, i, j, f), lerp(m_fieldY, i, j, f),
+                headingSin, headingCos, lerp(m_speedForward, i, j, f), lerp(m_speedStrafe, i, j, f),
+                lerp(m_speedRotation, i, j, f), m_tooFast[(f < 0.5) ? i : j], stopAndRunDescription);
+    }
+
+    private int nearestSample(double pathTime) {
+        return Math.max(0, Math.min(m_count - 1, (int) Math.round(pathTime / SAMPLE_INTERVAL)));
+    }
+
+    private static double lerp(@NotNull double[] values, int i, int j, double f) {
+        return values[i] + ((values[j] - values[i]) * f);
+    }
+}
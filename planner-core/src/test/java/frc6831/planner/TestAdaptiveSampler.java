@@ -0,0 +1,87 @@
+package frc6831.planner;
+
+import org.a05annex.util.geo2d.KochanekBartelsSpline;
+import org.a05annex.util.geo2d.KochanekBartelsSpline.ControlPoint;
+import org.a05annex.util.geo2d.KochanekBartelsSpline.PathPoint;
+import org.junit.jupiter.api.Test;
+
+import java.awt.geom.Line2D;
+import java.awt.geom.Point2D;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that the {@link AdaptiveSampler} polyline follows a segment of the path to within its tolerance, from
+ * control point to control point, with few points on straight sections, and finds the path time of a position on
+ * the line.
+ */
+public class TestAdaptiveSampler {
+
+    private static final double TOLERANCE = 0.005;
+
+    private static KochanekBartelsSpline path(double[][] points) {
+        KochanekBartelsSpline path = new KochanekBartelsSpline();
+        for (double[] point : points) {
+            path.addControlPoint(new Point2D.Double(point[0], point[1]));
+        }
+        return path;
+    }
+
+    /**
+     * @return The distance of a position from the polyline.
+     */
+    private static double distance(AdaptiveSampler outline, double x, double y) {
+        double distance = Double.MAX_VALUE;
+        for (int i = 1; i < outline.getCount(); i++) {
+            distance = Math.min(distance, Line2D.ptSegDist(outline.getFieldX(i - 1), outline.getFieldY(i - 1),
+                    outline.getFieldX(i), outline.getFieldY(i), x, y));
+        }
+        return distance;
+    }
+
+    @Test
+    void testFollowsPathWithinTolerance() {
+        // a tight turn between long straight runs
+        KochanekBartelsSpline path = path(new double[][]{{0.0, -6.0}, {0.0, -1.0}, {0.5, -0.5}, {0.0, 0.0},
+                {0.0, 5.0}});
+        List<ControlPoint> controlPoints = path.getControlPoints();
+        for (int segment = 0; segment < controlPoints.size() - 1; segment++) {
+            AdaptiveSampler outline = new AdaptiveSampler(path, segment, TOLERANCE);
+            double startTime = controlPoints.get(segment).getTime();
+            double endTime = controlPoints.get(segment + 1).getTime();
+            for (PathPoint pathPoint : path.getCurveSegments()) {
+                if ((pathPoint.time >= startTime) && (pathPoint.time <= endTime)) {
+                    assertTrue(distance(outline, pathPoint.fieldPt.getX(), pathPoint.fieldPt.getY()) <=
+                            TOLERANCE * 1.01, "path point at " + pathPoint.time);
+                }
+            }
+            assertEquals(startTime, outline.getTime(0));
+            assertEquals(endTime, outline.getTime(outline.getCount() - 1));
+            for (int i = 1; i < outline.getCount(); i++) {
+                assertTrue(outline.getTime(i) > outline.getTime(i - 1));
+            }
+        }
+    }
+
+    @Test
+    void testStraightSegmentHasFewPoints() {
+        KochanekBartelsSpline path = path(new double[][]{{0.0, -6.0}, {0.0, -2.0}, {0.0, 2.0}, {0.0, 6.0}});
+        for (int segment = 0; segment < 3; segment++) {
+            // the minimum subdivision of 4 pieces
+            assertEquals(4 + 1, new AdaptiveSampler(path, segment, TOLERANCE).getCount());
+        }
+    }
+
+    @Test
+    void testFindTime() {
+        KochanekBartelsSpline path = path(new double[][]{{0.0, -6.0}, {0.0, -2.0}, {0.0, 2.0}, {0.0, 6.0}});
+        AdaptiveSampler outline = new AdaptiveSampler(path, 1, TOLERANCE);
+        Point2D fieldPt = path.getPathFollower().getPointAt(1.3).fieldPt;
+        assertEquals(1.3, outline.findTime(fieldPt.getX() + 0.05, fieldPt.getY(), 0.1), 0.01);
+        assertTrue(Double.isNaN(outline.findTime(fieldPt.getX() + 0.2, fieldPt.getY(), 0.1)));
+        // a position on another segment is not on this one
+        fieldPt = path.getPathFollower().getPointAt(2.5).fieldPt;
+        assertTrue(Double.isNaN(outline.findTime(fieldPt.getX(), fieldPt.getY(), 0.1)));
+    }
+}
@@ -0,0 +1,53 @@
+package frc6831.planner;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that the compiled core classes reference no AWT graphics, Swing, or image I/O classes, so the core
+ * stays usable by batch tools and robot code. The {@code java.awt.geom} geometry classes are allowed because
+ * the a05annexUtil spline API is built on {@code Point2D}.
+ */
+public class TestCoreDependencies {
+
+    private static final String[] FORBIDDEN = {"java/awt/", "javax/swing/", "javax/imageio/"};
+    private static final String ALLOWED = "java/awt/geom/";
+
+    @Test
+    void testNoWindowingReferences() throws IOException, URISyntaxException {
+        Path classes = new File(Field.class.getProtectionDomain().getCodeSource().getLocation().toURI()).toPath();
+        assertTrue(Files.isDirectory(classes), "core classes are not a directory: " + classes);
+        List<Path> classFiles;
+        try (Stream<Path> walk = Files.walk(classes)) {
+            classFiles = walk.filter(path -> path.toString().endsWith(".class")).collect(Collectors.toList());
+        }
+        assertTrue(classFiles.contains(classes.resolve("frc6831/planner/Field.class")));
+        List<String> references = new ArrayList<>();
+        for (Path classFile : classFiles) {
+            // class names in the constant pool are modified UTF-8, which is plain ASCII for these packages
+            String contents = new String(Files.readAllBytes(classFile), StandardCharsets.ISO_8859_1);
+            for (String forbidden : FORBIDDEN) {
+                for (int index = contents.indexOf(forbidden); index >= 0;
+                     index = contents.indexOf(forbidden, index + 1)) {
+                    if (!contents.startsWith(ALLOWED, index)) {
+                        references.add(classes.relativize(classFile) + " references " + forbidden);
+                        break;
+                    }
+                }
+            }
+        }
+        assertEquals(List.of(), references);
+    }
+}
@@ -0,0 +1,66 @@
+package frc6831.planner;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the {@link MultiRobotPlayback} bumper collision check, on bumper rectangles placed directly rather
+ * than by following paths.
+ */
+public class TestMultiRobotPlayback {
+
+    private double[] m_cornerX = new double[0];
+    private double[] m_cornerY = new double[0];
+
+    /**
+     * Add a robot with bumpers of the given size centered at a point, rotated by an angle.
+     */
+    private void addRobot(double x, double y, double width, double length, double angle) {
+        int first = m_cornerX.length;
+        m_cornerX = Arrays.copyOf(m_cornerX, first + MultiRobotFrame.CORNERS);
+        m_cornerY = Arrays.copyOf(m_cornerY, first + MultiRobotFrame.CORNERS);
+        double[] localX = {-width / 2.0, -width / 2.0, width / 2.0, width / 2.0};
+        double[] localY = {-length / 2.0, length / 2.0, length / 2.0, -length / 2.0};
+        for (int corner = 0; corner < MultiRobotFrame.CORNERS; corner++) {
+            m_cornerX[first + corner] = x + (localX[corner] * Math.cos(angle)) - (localY[corner] * Math.sin(angle));
+            m_cornerY[first + corner] = y + (localX[corner] * Math.sin(angle)) + (localY[corner] * Math.cos(angle));
+        }
+    }
+
+    private long findCollisions() {
+        return MultiRobotPlayback.findCollisions(m_cornerX.length / MultiRobotFrame.CORNERS, m_cornerX,
+                m_cornerY);
+    }
+
+    @Test
+    void testOverlappingAndSeparated() {
+        addRobot(0.0, 0.0, 1.0, 1.0, 0.0);
+        addRobot(0.5, 0.5, 1.0, 1.0, 0.0);
+        addRobot(3.0, 0.0, 1.0, 1.0, 0.0);
+        assertEquals(MultiRobotFrame.collisionBit(0, 1), findCollisions());
+    }
+
+    @Test
+    void testOverlappingBoundsButSeparated() {
+        // a robot rotated 45 degrees off the corner of another: the bounding boxes overlap, the bumpers do not
+        addRobot(0.0, 0.0, 1.0, 1.0, 0.0);
+        addRobot(1.2, 1.2, 1.0, 1.0, Math.PI / 4.0);
+        assertEquals(0L, findCollisions());
+        // and one with its corner just inside
+        addRobot(0.45 + Math.sqrt(0.5), -0.3, 1.0, 1.0, Math.PI / 4.0);
+        assertEquals(MultiRobotFrame.collisionBit(0, 2), findCollisions());
+    }
+
+    @Test
+    void testSweepOrder() {
+        // robots added right to left, so the sweep order is not the robot order
+        addRobot(4.0, 0.0, 0.7, 1.1, 0.0);
+        addRobot(3.5, 0.0, 0.7, 1.1, Math.PI / 2.0);
+        addRobot(0.0, 0.0, 0.7, 1.1, 0.0);
+        addRobot(-0.5, 0.8, 0.7, 1.1, 0.0);
+        assertEquals(MultiRobotFrame.collisionBit(0, 1) | MultiRobotFrame.collisionBit(2, 3), findCollisions());
+    }
+}
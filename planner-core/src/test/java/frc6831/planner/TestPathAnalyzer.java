@@ -0,0 +1,206 @@
+package frc6831.planner;
+
+import org.a05annex.util.AngleD;
+import org.a05annex.util.AngleUnit;
+import org.a05annex.util.geo2d.KochanekBartelsSpline;
+import org.a05annex.util.geo2d.KochanekBartelsSpline.ControlPoint;
+import org.a05annex.util.geo2d.KochanekBartelsSpline.PathPoint;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.awt.geom.Point2D;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that the {@link PathAnalyzer} re-analyzes only the segments around an edited control point, that the
+ * spliced analysis is the same as analyzing the edited path from scratch, that its samples are the path points
+ * of the library, including the ones at the ends of the segments, and that the robot actions are at their
+ * samples.
+ */
+public class TestPathAnalyzer {
+
+    private static final int CONTROL_POINTS = 20;
+    private static final double TOLERANCE = 0.005;
+    // path point values that are the same but for rounding
+    private static final double SAME = 1.0e-9;
+
+    private final Robot m_robot = new Robot();
+    private final Field m_field = new Field();
+    private final PathAnalyzer m_analyzer = new PathAnalyzer(() -> { });
+
+    @AfterEach
+    void closeAnalyzer() {
+        m_analyzer.close();
+    }
+
+    /**
+     * A long path that weaves across the field, partly off the side of the field and too fast in places.
+     */
+    private static KochanekBartelsSpline longPath() {
+        KochanekBartelsSpline path = new KochanekBartelsSpline();
+        for (int i = 0; i < CONTROL_POINTS; i++) {
+            ControlPoint controlPoint = path.addControlPoint(
+                    new Point2D.Double(((i % 2) == 0) ? -2.0 : 3.9, -7.5 + (0.75 * i)));
+            controlPoint.setFieldHeading(new AngleD(AngleUnit.RADIANS, 0.25 * i));
+        }
+        for (int i = CONTROL_POINTS - 1; i >= 0; i--) {
+            path.getControlPoints().get(i).setTime(0.6 * i, false);
+        }
+        return path;
+    }
+
+    private PathAnalysis analyze(PathAnalyzer analyzer, PathSnapshot snapshot) {
+        analyzer.submit(snapshot, m_robot, m_field, TOLERANCE);
+        analyzer.awaitLatest();
+        PathAnalysis analysis = analyzer.getLatest();
+        assertNotNull(analysis);
+        assertSame(snapshot, analysis.getSnapshot());
+        return analysis;
+    }
+
+    private static void assertSameAnalysis(PathAnalysis expected, PathAnalysis actual) {
+        assertEquals(expected.getSampleCount(), actual.getSampleCount());
+        for (int i = 0; i < expected.getSampleCount(); i++) {
+            assertEquals(expected.getSampleTime(i), actual.getSampleTime(i), "sample " + i);
+            assertEquals(expected.getFieldX(i), actual.getFieldX(i), "sample " + i);
+            assertEquals(expected.getFieldY(i), actual.getFieldY(i), "sample " + i);
+            assertEquals(expected.getHeading(i), actual.getHeading(i), "sample " + i);
+            assertEquals(expected.getSpeedRotation(i), actual.getSpeedRotation(i), "sample " + i);
+            assertEquals(expected.isTooFast(i), actual.isTooFast(i), "sample " + i);
+            assertEquals(expected.isInside(i), actual.isInside(i), "sample " + i);
+        }
+        assertEquals(expected.getTooFastCount(), actual.getTooFastCount());
+        assertEquals(expected.getOutsideCount(), actual.getOutsideCount());
+
+        TrajectoryTable expectedTrajectory = expected.getTrajectory();
+        TrajectoryTable actualTrajectory = actual.getTrajectory();
+        assertNotNull(expectedTrajectory);
+        assertNotNull(actualTrajectory);
+        assertEquals(expectedTrajectory.getSampleCount(), actualTrajectory.getSampleCount());
+        for (int i = 0; i < expectedTrajectory.getSampleCount(); i++) {
+            assertEquals(expectedTrajectory.getFieldX(i), actualTrajectory.getFieldX(i), "table sample " + i);
+            assertEquals(expectedTrajectory.getFieldY(i), actualTrajectory.getFieldY(i), "table sample " + i);
+            assertEquals(expectedTrajectory.getPeakModuleSpeed(i), actualTrajectory.getPeakModuleSpeed(i),
+                    "table sample " + i);
+        }
+    }
+
+    /**
+     * Test that the samples of an analysis are the path points the library samples the path with. The segments
+     * are followed rather than sampled as a whole, which may round the times differently, and a path point at a
+     * control point may be followed as the end of the previous segment, which has the same position and heading
+     * but not necessarily the same speeds.
+     */
+    private static void assertLibrarySamples(KochanekBartelsSpline path, PathAnalysis analysis) {
+        List<PathPoint> pathPoints = path.getCurveSegments();
+        assertEquals(pathPoints.size(), analysis.getSampleCount());
+        for (int i = 0; i < pathPoints.size(); i++) {
+            PathPoint pathPoint = pathPoints.get(i);
+            assertEquals(pathPoint.time, analysis.getSampleTime(i), SAME, "sample " + i);
+            assertEquals(pathPoint.fieldPt.getX(), analysis.getFieldX(i), SAME, "sample " + i);
+            assertEquals(pathPoint.fieldPt.getY(), analysis.getFieldY(i), SAME, "sample " + i);
+            assertEquals(pathPoint.fieldHeading.getRadians(), analysis.getHeading(i), SAME, "sample " + i);
+        }
+    }
+
+    @Test
+    void testSamplesAreLibraryPathPoints() {
+        KochanekBartelsSpline path = longPath();
+        PathSnapshot snapshot = PathSnapshot.capture(path, null);
+        PathAnalysis analysis = analyze(m_analyzer, snapshot);
+        assertLibrarySamples(path, analysis);
+
+        // each segment starts with a path point at its start control point
+        for (int segment = 0; segment < CONTROL_POINTS - 1; segment++) {
+            assertEquals(path.getControlPoints().get(segment).getTime(),
+                    analysis.getSampleTime(segment * SegmentAnalysis.PATH_POINTS_PER_SEGMENT), SAME,
+                    "segment " + segment);
+        }
+
+        // the spliced analysis of an edit still has the library samples at the ends of the reused segments
+        path.getControlPoints().get(CONTROL_POINTS / 2).setFieldLocation(new Point2D.Double(0.5, 0.3));
+        assertLibrarySamples(path, analyze(m_analyzer, PathSnapshot.capture(path, snapshot)));
+        path.setSpeedMultiplier(1.5);
+        assertLibrarySamples(path, analyze(m_analyzer, PathSnapshot.capture(path, snapshot)));
+    }
+
+    @Test
+    void testStopAndRunActions() {
+        KochanekBartelsSpline path = longPath();
+        path.getControlPoints().get(3).setRobotAction("shoot", 1.5);
+        path.setSpeedMultiplier(1.5);
+        PathAnalysis analysis = analyze(m_analyzer, PathSnapshot.capture(path, null));
+        assertEquals(1, analysis.getActions().size());
+        PathAction action = analysis.getActions().get(0);
+        assertEquals("shoot", action.getCommand());
+        assertEquals(path.getControlPoints().get(3).getTime() / 1.5, action.getTime());
+        assertSame(action, analysis.getAction(3 * SegmentAnalysis.PATH_POINTS_PER_SEGMENT));
+        assertNull(analysis.getAction((3 * SegmentAnalysis.PATH_POINTS_PER_SEGMENT) + 1));
+    }
+
+    @Test
+    void testEditReanalyzesNeighboringSegments() {
+        KochanekBartelsSpline path = longPath();
+        PathSnapshot snapshot = PathSnapshot.capture(path, null);
+        PathAnalysis analysis = analyze(m_analyzer, snapshot);
+        assertEquals(CONTROL_POINTS - 1, m_analyzer.getLastRecomputedCount());
+        assertEquals(path.getCurveSegments().size(), analysis.getSampleCount());
+        assertEquals(SegmentAnalysis.PATH_POINTS_PER_SEGMENT * (CONTROL_POINTS - 1) + 1, analysis.getSampleCount());
+        assertTrue(analysis.getOutsideCount() > 0);
+        assertNotNull(analysis.getTrajectory());
+
+        // moving a middle point changes it and the tangents of its neighbors, which are 4 segments, and the
+        // segment after them starts at a changed point
+        path.getControlPoints().get(CONTROL_POINTS / 2).setFieldLocation(new Point2D.Double(0.5, 0.3));
+        PathSnapshot edited = PathSnapshot.capture(path, snapshot);
+        PathAnalysis incremental = analyze(m_analyzer, edited);
+        int recomputed = m_analyzer.getLastRecomputedCount();
+        assertTrue((recomputed > 0) && (recomputed <= 5), "recomputed " + recomputed + " segments");
+        // the path line of an unchanged segment is not sampled again
+        assertSame(analysis.getOutline(0), incremental.getOutline(0));
+        assertNotSame(analysis.getOutline(CONTROL_POINTS / 2), incremental.getOutline(CONTROL_POINTS / 2));
+
+        PathAnalyzer fresh = new PathAnalyzer(() -> { });
+        try {
+            assertSameAnalysis(analyze(fresh, edited), incremental);
+            assertEquals(CONTROL_POINTS - 1, fresh.getLastRecomputedCount());
+        } finally {
+            fresh.close();
+        }
+    }
+
+    @Test
+    void testRobotFieldAndSpeedMultiplier() {
+        KochanekBartelsSpline path = longPath();
+        PathSnapshot snapshot = PathSnapshot.capture(path, null);
+        analyze(m_analyzer, snapshot);
+
+        // nothing changed, nothing is recomputed
+        analyze(m_analyzer, PathSnapshot.capture(path, snapshot));
+        assertEquals(0, m_analyzer.getLastRecomputedCount());
+
+        // a different robot or field was loaded
+        m_analyzer.submit(snapshot, new Robot(), m_field, TOLERANCE);
+        m_analyzer.awaitLatest();
+        assertEquals(CONTROL_POINTS - 1, m_analyzer.getLastRecomputedCount());
+        m_analyzer.submit(snapshot, m_robot, new Field(), TOLERANCE);
+        m_analyzer.awaitLatest();
+        assertEquals(CONTROL_POINTS - 1, m_analyzer.getLastRecomputedCount());
+        analyze(m_analyzer, snapshot);
+        assertEquals(CONTROL_POINTS - 1, m_analyzer.getLastRecomputedCount());
+
+        // the drawing scale changed, so the path line is sampled to a different tolerance
+        m_analyzer.submit(snapshot, m_robot, m_field, TOLERANCE / 2.0);
+        m_analyzer.awaitLatest();
+        assertEquals(CONTROL_POINTS - 1, m_analyzer.getLastRecomputedCount());
+        analyze(m_analyzer, snapshot);
+        assertEquals(CONTROL_POINTS - 1, m_analyzer.getLastRecomputedCount());
+
+        // the speed multiplier changes the timing of every segment
+        path.setSpeedMultiplier(1.5);
+        analyze(m_analyzer, PathSnapshot.capture(path, snapshot));
+        assertEquals(CONTROL_POINTS - 1, m_analyzer.getLastRecomputedCount());
+    }
+}
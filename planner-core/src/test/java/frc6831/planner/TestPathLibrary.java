@@ -0,0 +1,75 @@
+package frc6831.planner;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the {@link PathLibrary} index: paths are listed and other descriptions are not, unchanged files are
+ * read from the index, and searches filter the listed paths.
+ */
+public class TestPathLibrary {
+
+    private static void writePath(Path file, String title, double startY) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, String.format("{\"title\": \"%s\", \"description\": \"test path\", " +
+                "\"controlPoints\": [{\"fieldX\": 0.0, \"fieldY\": %f, \"time\": 0.0}, " +
+                "{\"fieldX\": 1.0, \"fieldY\": %f, \"time\": 1.0}]}", title, startY, startY));
+    }
+
+    private static List<String> relativePaths(List<PathLibrary.Entry> entries) {
+        return entries.stream().map(PathLibrary.Entry::getRelativePath).collect(Collectors.toList());
+    }
+
+    @Test
+    void testIncrementalScan(@TempDir Path temp) throws IOException {
+        Path root = temp.resolve("paths");
+        File index = temp.resolve("library.index").toFile();
+        writePath(root.resolve("red/amp.json"), "Amp Auto", 7.0);
+        writePath(root.resolve("blue/source.json"), "Source Auto", -7.0);
+        Files.writeString(root.resolve("field.json"), "{\"title\": \"not a path\", \"components\": []}");
+
+        PathLibrary library = new PathLibrary(root.toFile(), index);
+        assertEquals(List.of("blue/source.json", "red/amp.json"), relativePaths(library.scan()));
+        assertEquals(3, library.getExtractedCount());
+        assertTrue(index.isFile());
+
+        // a new library reads everything from the index
+        library = new PathLibrary(root.toFile(), index);
+        assertEquals(List.of("blue/source.json", "red/amp.json"), relativePaths(library.scan()));
+        assertEquals(0, library.getExtractedCount());
+        assertEquals("Amp Auto", library.getEntries().get(1).getTitle());
+        assertEquals(PathLibrary.AllianceSide.RED, library.getEntries().get(1).getSide());
+        assertEquals(PathLibrary.AllianceSide.BLUE, library.getEntries().get(0).getSide());
+
+        // only the changed file is read again
+        writePath(root.resolve("red/amp.json"), "Amp Two Note", 7.0);
+        assertTrue(root.resolve("red/amp.json").toFile().setLastModified(System.currentTimeMillis() + 2000));
+        library = new PathLibrary(root.toFile(), index);
+        library.scan();
+        assertEquals(1, library.getExtractedCount());
+        assertEquals("Amp Two Note", library.getEntries().get(1).getTitle());
+    }
+
+    @Test
+    void testSearch(@TempDir Path temp) throws IOException {
+        writePath(temp.resolve("amp.json"), "Amp Auto", 7.0);
+        writePath(temp.resolve("source.json"), "Source Auto", -7.0);
+        writePath(temp.resolve("straight.json"), "Calibrate Straight", 0.0);
+        PathLibrary library = new PathLibrary(temp.toFile(), null);
+        library.scan();
+        assertEquals(List.of("amp.json", "source.json"), relativePaths(library.search("auto", null)));
+        assertEquals(List.of("source.json"), relativePaths(library.search("  AUTO source ", null)));
+        assertEquals(List.of("amp.json"), relativePaths(library.search("", PathLibrary.AllianceSide.RED)));
+        assertEquals(List.of("straight.json"), relativePaths(library.search("test", PathLibrary.AllianceSide.CENTER)));
+        assertEquals(3, library.search("", null).size());
+    }
+}
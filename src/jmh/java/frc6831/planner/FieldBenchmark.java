@@ -0,0 +1,95 @@
+package frc6831.planner;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for loading, drawing, and testing against each of the bundled season fields. Run these with
+ * {@code gradlew jmh -Pjmh.includes=FieldBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class FieldBenchmark {
+
+    private static final int WIDTH = 1200;
+    private static final int HEIGHT = 700;
+
+    @Param({"resources/fields/2020_infinite_recharge.json",
+            "resources/fields/2021_at_home_grid.json",
+            "resources/fields/2022_rapid_react.json",
+            "resources/fields/2023_charged_up.json",
+            "resources/fields/2024-crescendo.json",
+            "resources/fields/2025_reefscape.json"})
+    public String fieldFile;
+
+    private Field field;
+    private BufferedImage image;
+    private Graphics2D graphics;
+    private AffineTransform drawXfm;
+    private Point2D[][] robotCorners;
+    private int next = 0;
+
+    @Setup
+    public void setup() {
+        field = new Field();
+        field.loadField(fieldFile);
+        image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        graphics = image.createGraphics();
+        drawXfm = PathCanvas.pkgFitFieldTransform(field.getMinMax(), WIDTH, HEIGHT);
+        Field.MinMax minMax = field.getMinMax();
+        // robot bumper corners scattered over (and a little beyond) the field, most inside, some outside
+        robotCorners = new Point2D[256][];
+        Random random = new Random(6831);
+        for (int i = 0; i < robotCorners.length; i++) {
+            double x = minMax.getMinX() + (random.nextDouble() * (minMax.getMaxX() - minMax.getMinX()));
+            double y = minMax.getMinY() + (random.nextDouble() * (minMax.getMaxY() - minMax.getMinY()));
+            robotCorners[i] = new Point2D[]{new Point2D.Double(x - 0.4, y - 0.4), new Point2D.Double(x - 0.4, y + 0.4),
+                    new Point2D.Double(x + 0.4, y + 0.4), new Point2D.Double(x + 0.4, y - 0.4)};
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        graphics.dispose();
+    }
+
+    /**
+     * Load the field the way the planner does, which reads the compiled field from the field cache after
+     * the first load.
+     */
+    @Benchmark
+    public boolean loadField() {
+        return new Field().loadField(fieldFile);
+    }
+
+    /**
+     * Parse the field description, bypassing the field cache.
+     */
+    @Benchmark
+    public boolean parseField() {
+        return new Field().parseField(fieldFile);
+    }
+
+    @Benchmark
+    public void draw(Blackhole blackhole) {
+        graphics.clearRect(0, 0, WIDTH, HEIGHT);
+        FieldRenderer.draw(field, graphics, drawXfm);
+        blackhole.consume(image);
+    }
+
+    @Benchmark
+    public boolean isInsideField() {
+        return field.isInsideField(robotCorners[next++ & (robotCorners.length - 1)], 0.0);
+    }
+}
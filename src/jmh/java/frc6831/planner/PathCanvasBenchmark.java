@@ -0,0 +1,107 @@
+package frc6831.planner;
+
+import org.a05annex.util.geo2d.KochanekBartelsSpline;
+import org.a05annex.util.geo2d.KochanekBartelsSpline.ControlPoint;
+import org.a05annex.util.geo2d.KochanekBartelsSpline.PathPoint;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.awt.*;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for sampling a path, hit testing the mouse against it, and painting a full frame of the path
+ * canvas into an image. The canvas is created headless, so these run without a display. Run these with
+ * {@code gradlew jmh -Pjmh.includes=PathCanvasBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class PathCanvasBenchmark {
+
+    private static final int WIDTH = 1200;
+    private static final int HEIGHT = 700;
+    private static final String FIELD_FILE = "resources/fields/2024-crescendo.json";
+    private static final String ROBOT_FILE = "resources/robots/2023_competition.json";
+
+    @Param({"resources/paths/test/4_corner_test.json",
+            "resources/paths/2021/2021_barrel_racing.json",
+            "resources/paths/2024/twoNoteAmpSide.json"})
+    public String pathFile;
+
+    private KochanekBartelsSpline path;
+    private PathCanvas canvas;
+    private BufferedImage image;
+    private Graphics2D graphics;
+    private Point2D[] probes;
+    private int next = 0;
+
+    @Setup
+    public void setup() {
+        Robot robot = new Robot();
+        robot.loadRobot(ROBOT_FILE);
+        Field field = new Field();
+        field.loadField(FIELD_FILE);
+        image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        graphics = image.createGraphics();
+        canvas = new PathCanvas(graphics.getDeviceConfiguration(), robot, field, () -> {
+        });
+        canvas.setSize(WIDTH, HEIGHT);
+        canvas.resetFieldGeometry();
+        path = new KochanekBartelsSpline();
+        path.loadPath(new File(pathFile).getAbsolutePath());
+        canvas.setLoadedPath(new File(pathFile), path);
+        canvas.pkgAwaitAnalysis();
+
+        // mouse positions on the control points, on the path, and at random places on the field; the last is
+        // the common case as the mouse moves across the field.
+        List<Point2D> points = new ArrayList<>();
+        for (ControlPoint point : path.getControlPoints()) {
+            points.add(new Point2D.Double(point.getFieldX(), point.getFieldY()));
+        }
+        for (PathPoint pathPoint : path.getCurveSegments()) {
+            points.add(pathPoint.fieldPt);
+        }
+        Field.MinMax minMax = field.getMinMax();
+        Random random = new Random(6831);
+        while (points.size() < 1024) {
+            points.add(new Point2D.Double(
+                    minMax.getMinX() + (random.nextDouble() * (minMax.getMaxX() - minMax.getMinX())),
+                    minMax.getMinY() + (random.nextDouble() * (minMax.getMaxY() - minMax.getMinY()))));
+        }
+        probes = points.subList(0, 1024).toArray(new Point2D[0]);
+    }
+
+    @TearDown
+    public void tearDown() {
+        graphics.dispose();
+    }
+
+    @Benchmark
+    public void sampleCurveSegments(Blackhole blackhole) {
+        for (PathPoint pathPoint : path.getCurveSegments()) {
+            blackhole.consume(pathPoint);
+        }
+    }
+
+    @Benchmark
+    public void hitTest() {
+        canvas.testMouseOver(probes[next++ & (probes.length - 1)]);
+    }
+
+    @Benchmark
+    public void paintFrame(Blackhole blackhole) {
+        graphics.clearRect(0, 0, WIDTH, HEIGHT);
+        canvas.pkgPaintBuffer(graphics);
+        blackhole.consume(image);
+    }
+}
@@ -0,0 +1,46 @@
+package frc6831.planner;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the robot capability test that is made for every point along the path when it is drawn. Run
+ * these with {@code gradlew jmh -Pjmh.includes=RobotBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RobotBenchmark {
+
+    @Param({"resources/robots/2022_competition.json", "resources/robots/2023_competition.json"})
+    public String robotFile;
+
+    private Robot robot;
+    private double[] speeds;
+    private int next = 0;
+
+    @Setup
+    public void setup() {
+        robot = new Robot();
+        robot.loadRobot(robotFile);
+        // forward, strafe, and rotation speeds spanning what paths ask for, so some are achievable and some are not
+        Random random = new Random(6831);
+        speeds = new double[3 * 1024];
+        for (int i = 0; i < speeds.length; i += 3) {
+            speeds[i] = (random.nextDouble() * 8.0) - 4.0;
+            speeds[i + 1] = (random.nextDouble() * 8.0) - 4.0;
+            speeds[i + 2] = (random.nextDouble() * 6.0) - 3.0;
+        }
+    }
+
+    @Benchmark
+    public boolean canRobotAchieve() {
+        int i = 3 * (next++ & 1023);
+        return robot.canRobotAchieve(speeds[i], speeds[i + 1], speeds[i + 2]);
+    }
+}
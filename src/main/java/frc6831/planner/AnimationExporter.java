@@ -0,0 +1,331 @@
+package frc6831.planner;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.w3c.dom.Node;
+
+import javax.imageio.*;
+import javax.imageio.metadata.IIOInvalidTreeException;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.*;
+
+/**
+ * Exports the path animation as an animated GIF or a numbered PNG image sequence, at a fixed frame rate and
+ * resolution, without a window, i.e. to share an auto with alliance partners. The partner and opponent robots
+ * of a {@link MultiRobotPlayback} are included.
+ * <p>
+ * Each frame is a lookup in the immutable {@link TrajectoryTable}s, so frames are independent and are rendered
+ * concurrently on a thread pool, each into its own image. The field and the paths, which are the same in every
+ * frame, are drawn once into a background image that every frame starts from. PNG frames are written by the
+ * thread that renders them; GIF frames are rendered into the GIF palette and encoded in order as they finish.
+ * Only a few frames are rendered ahead of the encoder, so memory use does not depend on the path duration.
+ */
+@SuppressWarnings("HungarianNotationMemberVariables")
+public class AnimationExporter {
+
+    public static final int DEFAULT_WIDTH = 960;
+    public static final int DEFAULT_HEIGHT = 540;
+    public static final int DEFAULT_FRAME_RATE = 30;
+
+    private static final String PNG_FRAME_FORMAT = "frame_%05d.png";
+    private static final int HEADING_LENGTH = 20;
+
+    private final TrajectoryTable m_trajectory;
+    private final MultiRobotPlayback m_playback;
+    private final int m_width;
+    private final int m_height;
+    private final int m_frameRate;
+    private final int m_frameCount;
+    private final AffineTransform m_drawXfm;
+    private final BufferedImage m_background;
+
+    /**
+     * Create an exporter. The background is drawn now, on the calling thread, so the field is not drawn while
+     * it could be changed.
+     *
+     * @param field      The field.
+     * @param trajectory The trajectory of the path.
+     * @param playback   The partner and opponent robots played with the path.
+     * @param width      The frame width, in pixels.
+     * @param height     The frame height, in pixels.
+     * @param frameRate  The frames per second.
+     */
+    public AnimationExporter(@NotNull Field field, @NotNull TrajectoryTable trajectory,
+                             @NotNull MultiRobotPlayback playback, int width, int height, int frameRate) {
+        m_trajectory = trajectory;
+        m_playback = playback;
+        m_width = width;
+        m_height = height;
+        m_frameRate = frameRate;
+        double duration = Math.max(trajectory.getDuration(), playback.getDuration());
+        m_frameCount = (int) Math.floor(duration * frameRate) + 1;
+        m_drawXfm = PathCanvas.pkgFitFieldTransform(field.getMinMax(), width, height);
+        m_background = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = m_background.createGraphics();
+        try {
+            g2d.setPaint(Color.BLACK);
+            g2d.fillRect(0, 0, width, height);
+            FieldRenderer.draw(field, g2d, m_drawXfm);
+            for (int robot = 0; robot < playback.size(); robot++) {
+                drawPath(g2d, playback.getTrajectory(robot),
+                        playback.isOpponent(robot) ? PathCanvas.OPPONENT_COLOR : PathCanvas.PARTNER_COLOR, null);
+            }
+            drawPath(g2d, trajectory, Color.WHITE, Color.RED);
+        } finally {
+            g2d.dispose();
+        }
+    }
+
+    /**
+     * @return The number of frames that will be exported.
+     */
+    public int getFrameCount() {
+        return m_frameCount;
+    }
+
+    /**
+     * Export the animation as a looping animated GIF.
+     *
+     * @param file The GIF file.
+     * @throws IOException Thrown if a frame could not be rendered or the file could not be written.
+     */
+    public void exportGif(@NotNull File file) throws IOException {
+        // frames are rendered directly into the default 256 color palette, so encoding does not quantize colors
+        BufferedImage background = new BufferedImage(m_width, m_height, BufferedImage.TYPE_BYTE_INDEXED);
+        Graphics2D g2d = background.createGraphics();
+        g2d.drawImage(m_background, 0, 0, null);
+        g2d.dispose();
+        IndexColorModel palette = (IndexColorModel) background.getColorModel();
+
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("gif").next();
+        if (file.exists() && !file.delete()) {
+            throw new IOException("Could not replace " + file.getAbsolutePath());
+        }
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(file)) {
+            writer.setOutput(out);
+            writer.prepareWriteSequence(null);
+            render(frame -> {
+                BufferedImage image = new BufferedImage(palette,
+                        background.getRaster().createCompatibleWritableRaster(), false, null);
+                image.setData(background.getRaster());
+                drawFrame(image, frame);
+                return image;
+            }, (frame, image) -> writer.writeToSequence(
+                    new IIOImage(image, null, gifMetadata(writer, image, frame)), null));
+            writer.endWriteSequence();
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    /**
+     * Export the animation as a numbered sequence of PNG images, i.e. to make a video with another tool.
+     *
+     * @param directory The directory the images are written to, which is created if it does not exist.
+     * @throws IOException Thrown if a frame could not be rendered or written.
+     */
+    public void exportPngSequence(@NotNull File directory) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create " + directory.getAbsolutePath());
+        }
+        render(frame -> {
+            BufferedImage image = new BufferedImage(m_width, m_height, BufferedImage.TYPE_INT_RGB);
+            image.setData(m_background.getRaster());
+            drawFrame(image, frame);
+            File file = new File(directory, String.format(PNG_FRAME_FORMAT, frame));
+            if (!ImageIO.write(image, "png", file)) {
+                throw new IOException("No PNG writer for " + file.getAbsolutePath());
+            }
+            return image;
+        }, (frame, image) -> { });
+    }
+
+    /**
+     * Renders one frame on a render thread.
+     */
+    private interface FrameRenderer {
+        @NotNull
+        BufferedImage render(int frame) throws IOException;
+    }
+
+    /**
+     * Encodes one frame on the exporting thread, frames are encoded in order.
+     */
+    private interface FrameEncoder {
+        void encode(int frame, @NotNull BufferedImage image) throws IOException;
+    }
+
+    /**
+     * Render all the frames on a thread pool, and encode them in order.
+     */
+    private void render(@NotNull FrameRenderer renderer, @NotNull FrameEncoder encoder) throws IOException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "animation-export");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            Deque<Future<BufferedImage>> rendering = new ArrayDeque<>();
+            int encoded = 0;
+            for (int frame = 0; frame < m_frameCount; frame++) {
+                final int thisFrame = frame;
+                rendering.add(executor.submit(() -> renderer.render(thisFrame)));
+                if (rendering.size() >= 2 * threads) {
+                    encoder.encode(encoded++, await(rendering.remove()));
+                }
+            }
+            while (!rendering.isEmpty()) {
+                encoder.encode(encoded++, await(rendering.remove()));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @NotNull
+    private static BufferedImage await(@NotNull Future<BufferedImage> future) throws IOException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Could not render a frame", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Export interrupted", e);
+        }
+    }
+
+    /**
+     * Draw a path as a line through the trajectory samples, in the too fast color where the robot cannot
+     * achieve the path speeds.
+     */
+    private void drawPath(@NotNull Graphics2D g2d, @NotNull TrajectoryTable trajectory, @NotNull Color color,
+                          @Nullable Color tooFastColor) {
+        Point2D.Double fieldPt = new Point2D.Double();
+        Point2D.Double lastPt = new Point2D.Double();
+        Point2D.Double thisPt = new Point2D.Double();
+        for (int i = 0; i < trajectory.getSampleCount(); i++) {
+            fieldPt.setLocation(trajectory.getFieldX(i), trajectory.getFieldY(i));
+            m_drawXfm.transform(fieldPt, thisPt);
+            if (i > 0) {
+                g2d.setPaint(((null != tooFastColor) && trajectory.isTooFast(i)) ? tooFastColor : color);
+                g2d.drawLine((int) lastPt.getX(), (int) lastPt.getY(), (int) thisPt.getX(), (int) thisPt.getY());
+            }
+            lastPt.setLocation(thisPt);
+        }
+    }
+
+    /**
+     * Draw the robots and the time of a frame over the background.
+     */
+    private void drawFrame(@NotNull BufferedImage image, int frame) {
+        double time = frame / (double) m_frameRate;
+        AnimationFrame pathFrame = m_trajectory.frameAt(time);
+        MultiRobotFrame robots = m_playback.frameAt(time, pathFrame, m_trajectory);
+        Graphics2D g2d = image.createGraphics();
+        try {
+            int[] x = new int[MultiRobotFrame.CORNERS];
+            int[] y = new int[MultiRobotFrame.CORNERS];
+            Point2D.Double fieldPt = new Point2D.Double();
+            Point2D.Double canvasPt = new Point2D.Double();
+            Point2D.Double headingPt = new Point2D.Double();
+            for (int robot = 0; robot < robots.getRobotCount(); robot++) {
+                for (int corner = 0; corner < MultiRobotFrame.CORNERS; corner++) {
+                    fieldPt.setLocation(robots.getCornerX(robot, corner), robots.getCornerY(robot, corner));
+                    m_drawXfm.transform(fieldPt, canvasPt);
+                    x[corner] = (int) canvasPt.getX();
+                    y[corner] = (int) canvasPt.getY();
+                }
+                AnimationFrame robotFrame = robots.getFrame(robot);
+                if (0 == robot) {
+                    g2d.setPaint(robotFrame.isTooFast() ? Color.RED : Color.MAGENTA);
+                } else {
+                    g2d.setPaint(robots.isOpponent(robot) ? PathCanvas.OPPONENT_COLOR : PathCanvas.PARTNER_COLOR);
+                }
+                g2d.fillPolygon(x, y, MultiRobotFrame.CORNERS);
+                if (robots.isColliding(robot)) {
+                    g2d.setPaint(PathCanvas.COLLISION_COLOR);
+                    g2d.setStroke(PathCanvas.COLLISION_STROKE);
+                    g2d.drawPolygon(x, y, MultiRobotFrame.CORNERS);
+                }
+                // the heading
+                fieldPt.setLocation(robotFrame.getFieldX(), robotFrame.getFieldY());
+                m_drawXfm.transform(fieldPt, canvasPt);
+                m_drawXfm.deltaTransform(new Point2D.Double(robotFrame.getHeadingSin(), robotFrame.getHeadingCos()),
+                        headingPt);
+                double scale = HEADING_LENGTH / Math.max(1.0e-9, headingPt.distance(0.0, 0.0));
+                g2d.setPaint(Color.WHITE);
+                g2d.setStroke(new BasicStroke(2.0f));
+                g2d.drawLine((int) canvasPt.getX(), (int) canvasPt.getY(),
+                        (int) (canvasPt.getX() + (headingPt.getX() * scale)),
+                        (int) (canvasPt.getY() + (headingPt.getY() * scale)));
+                if (robot > 0) {
+                    g2d.drawString(robots.getName(robot), (int) canvasPt.getX() + 5, (int) canvasPt.getY() - 5);
+                }
+            }
+            g2d.setPaint(Color.WHITE);
+            g2d.drawString(String.format("time = %.2f", time), 10, 20);
+            if (null != pathFrame.getStopAndRunDescription()) {
+                g2d.drawString(pathFrame.getStopAndRunDescription(), 10, 35);
+            }
+        } finally {
+            g2d.dispose();
+        }
+    }
+
+    /**
+     * The GIF metadata for a frame: the frame delay, and for the first frame, loop forever. GIF delays are in
+     * hundredths of a second, so the delays are rounded such that the total delay tracks the frame times.
+     */
+    @NotNull
+    private IIOMetadata gifMetadata(@NotNull ImageWriter writer, @NotNull BufferedImage image, int frame)
+            throws IIOInvalidTreeException {
+        IIOMetadata metadata = writer.getDefaultImageMetadata(ImageTypeSpecifier.createFromRenderedImage(image),
+                null);
+        String format = metadata.getNativeMetadataFormatName();
+        IIOMetadataNode root = (IIOMetadataNode) metadata.getAsTree(format);
+        int delay = (int) (Math.round((frame + 1) * 100.0 / m_frameRate) - Math.round(frame * 100.0 / m_frameRate));
+        IIOMetadataNode control = child(root, "GraphicControlExtension");
+        control.setAttribute("disposalMethod", "none");
+        control.setAttribute("userInputFlag", "FALSE");
+        control.setAttribute("transparentColorFlag", "FALSE");
+        control.setAttribute("delayTime", Integer.toString(delay));
+        control.setAttribute("transparentColorIndex", "0");
+        if (0 == frame) {
+            IIOMetadataNode loop = new IIOMetadataNode("ApplicationExtension");
+            loop.setAttribute("applicationID", "NETSCAPE");
+            loop.setAttribute("authenticationCode", "2.0");
+            // loop forever
+            loop.setUserObject(new byte[]{1, 0, 0});
+            child(root, "ApplicationExtensions").appendChild(loop);
+        }
+        metadata.setFromTree(format, root);
+        return metadata;
+    }
+
+    @NotNull
+    private static IIOMetadataNode child(@NotNull IIOMetadataNode parent, @NotNull String name) {
+        for (Node node = parent.getFirstChild(); null != node; node = node.getNextSibling()) {
+            if (node.getNodeName().equals(name)) {
+                return (IIOMetadataNode) node;
+            }
+        }
+        IIOMetadataNode node = new IIOMetadataNode(name);
+        parent.appendChild(node);
+        return node;
+    }
+}
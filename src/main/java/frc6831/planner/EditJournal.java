@@ -0,0 +1,538 @@
+package frc6831.planner;
+
+import org.a05annex.util.AngleD;
+import org.a05annex.util.AngleUnit;
+import org.a05annex.util.geo2d.KochanekBartelsSpline;
+import org.a05annex.util.geo2d.KochanekBartelsSpline.ControlPoint;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * This is an append-only journal of the edits made to the path so that unsaved work can be recovered if the
+ * planner crashes. Every edit appends a small text record (one line) to the journal; the records are queued
+ * and written by a background thread in batches, so journaling is effectively free even while dragging. Every
+ * {@link #COMPACT_RECORDS} records, and whenever the path is loaded or saved, the journal is compacted: the
+ * path is written to a snapshot file and the journal restarts with a header referencing that snapshot. The
+ * compaction only captures a {@link PathSnapshot} of the path; the snapshot file is written by the background
+ * thread too.
+ * <p>
+ * On startup, if the journal from the previous session describes unsaved work, the path is recovered by loading
+ * the snapshot and replaying the records. A clean exit discards the journal.
+ * <p>
+ * Records reference control points by their index in the path, and carry the values that resulted from the
+ * edit (not the mouse position that caused it) so replay does not depend on the view.
+ */
+@SuppressWarnings("HungarianNotationMemberVariables")
+public class EditJournal {
+
+    private static final String JOURNAL_FILE = "edits.journal";
+    private static final String JOURNAL_TEMP_FILE = "edits.journal.tmp";
+    private static final String LOCK_FILE = "edits.lock";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".json";
+
+    // compact the journal into a snapshot after this many records
+    private static final int COMPACT_RECORDS = 2000;
+
+    // the record types - the first field of every record
+    private static final String SNAPSHOT = "SNAPSHOT";
+    private static final String ADD = "ADD";
+    private static final String MOVE = "MOVE";
+    private static final String TANGENT = "TANGENT";
+    private static final String RESET_TANGENT = "RESET_TANGENT";
+    private static final String HEADING = "HEADING";
+    private static final String ROTATION = "ROTATION";
+    private static final String TIME = "TIME";
+    private static final String ACTION = "ACTION";
+    private static final String DELETE = "DELETE";
+    private static final String INSERT = "INSERT";
+    private static final String SCHEDULE = "SCHEDULE";
+    private static final String UNSCHEDULE = "UNSCHEDULE";
+    private static final String SPEED = "SPEED";
+    private static final String ALLIANCE = "ALLIANCE";
+
+    /**
+     * The unsaved work from a previous session that did not exit cleanly.
+     */
+    public static class Recovery {
+        final File m_snapshot;
+        final File m_pathFile;
+        final List<String> m_records;
+
+        Recovery(@NotNull File snapshot, @Nullable File pathFile, @NotNull List<String> records) {
+            m_snapshot = snapshot;
+            m_pathFile = pathFile;
+            m_records = records;
+        }
+
+        /**
+         * @return The path file the recovered path was loaded from or last saved to, {@code null} if the
+         * path had never been saved.
+         */
+        @Nullable
+        public File getPathFile() {
+            return m_pathFile;
+        }
+
+        /**
+         * Recover the path by loading the snapshot and replaying the journal records after it.
+         *
+         * @param path The path to be recovered into.
+         */
+        public void recover(@NotNull KochanekBartelsSpline path) {
+            PlannerEvents.loadPath(path, m_snapshot.getAbsolutePath());
+            for (String record : m_records) {
+                try {
+                    replay(path, record);
+                } catch (RuntimeException e) {
+                    // a partially written last record, or a record that no longer applies - skip it
+                    System.out.println("Skipping journal record: " + record);
+                }
+            }
+        }
+    }
+
+    /**
+     * A request (queued with the records) for the writer thread to restart the journal from a new snapshot.
+     */
+    private static class Compaction {
+        final PathSnapshot m_path;
+        final File m_snapshot;
+        final File m_pathFile;
+        final boolean m_modified;
+
+        Compaction(PathSnapshot path, File snapshot, File pathFile, boolean modified) {
+            m_path = path;
+            m_snapshot = snapshot;
+            m_pathFile = pathFile;
+            m_modified = modified;
+        }
+    }
+
+    // queued to tell the writer thread the planner is exiting cleanly
+    private static final Object CLOSE = new Object();
+
+    private final File m_directory;
+    private final BlockingQueue<Object> m_queue = new LinkedBlockingQueue<>();
+    private FileLock m_lock = null;
+    private Thread m_writer = null;
+    private File m_pathFile = null;
+    private int m_recordsSinceSnapshot = 0;
+    private int m_snapshotCount = 0;
+    // the last snapshot of the path, so unchanged control points are shared by the next one
+    private PathSnapshot m_lastPath = null;
+    // the path the writer thread restores snapshots into to write them
+    private final KochanekBartelsSpline m_writerPath = new KochanekBartelsSpline();
+
+    /**
+     * Create an edit journal.
+     *
+     * @param directory The directory for the journal and snapshots. If {@code null}, or if another planner
+     *                  is already journaling to this directory, this journal silently does nothing.
+     */
+    public EditJournal(@Nullable File directory) {
+        File journalDirectory = null;
+        if (null != directory) {
+            try {
+                @SuppressWarnings("resource")
+                FileChannel lockChannel = new RandomAccessFile(new File(directory, LOCK_FILE), "rw").getChannel();
+                m_lock = lockChannel.tryLock();
+                if (null == m_lock) {
+                    lockChannel.close();
+                    System.out.println("Edit journal is in use by another planner, no crash recovery.");
+                } else {
+                    journalDirectory = directory;
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        m_directory = journalDirectory;
+    }
+
+    /**
+     * @return {@code true} if this journal is recording edits, {@code false} otherwise.
+     */
+    public boolean isEnabled() {
+        return null != m_directory;
+    }
+
+    /**
+     * Get the unsaved work left by a previous session that did not exit cleanly. This must be called before
+     * the first {@link #compact(KochanekBartelsSpline, File, boolean)}, which starts a new journal.
+     *
+     * @return The unsaved work, or {@code null} if there is nothing to recover.
+     */
+    @Nullable
+    public Recovery getRecovery() {
+        if (!isEnabled()) {
+            return null;
+        }
+        File journal = new File(m_directory, JOURNAL_FILE);
+        if (!journal.isFile()) {
+            return null;
+        }
+        try {
+            List<String> records = Files.readAllLines(journal.toPath(), StandardCharsets.UTF_8);
+            if (records.isEmpty()) {
+                return null;
+            }
+            String[] header = split(records.remove(0));
+            File snapshot = new File(m_directory, header[1]);
+            boolean modified = Boolean.parseBoolean(header[3]);
+            if (!SNAPSHOT.equals(header[0]) || !snapshot.isFile() || (!modified && records.isEmpty())) {
+                return null;
+            }
+            return new Recovery(snapshot, header[2].isEmpty() ? null : new File(header[2]), records);
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Compact the journal - write the path to a new snapshot and restart the journal from that snapshot. This
+     * is called when the path is loaded, saved, or cleared, and periodically as records accumulate.
+     *
+     * @param path     The path.
+     * @param pathFile The path file, {@code null} if the path has never been saved.
+     * @param modified {@code true} if the path has been modified since it was last saved.
+     */
+    public void compact(@NotNull KochanekBartelsSpline path, @Nullable File pathFile, boolean modified) {
+        if (!isEnabled()) {
+            return;
+        }
+        if (null == m_writer) {
+            m_writer = new Thread(this::writeLoop, "edit-journal");
+            m_writer.setDaemon(true);
+            m_writer.start();
+        }
+        m_pathFile = pathFile;
+        m_recordsSinceSnapshot = 0;
+        m_lastPath = PathSnapshot.capture(path, m_lastPath);
+        File snapshot = new File(m_directory, String.format("%s%d-%d%s",
+                SNAPSHOT_PREFIX, System.currentTimeMillis(), m_snapshotCount++, SNAPSHOT_SUFFIX));
+        m_queue.add(new Compaction(m_lastPath, snapshot, pathFile, modified));
+    }
+
+    /**
+     * The planner is exiting cleanly, anything unsaved was intentionally discarded, so discard the journal.
+     */
+    public void close() {
+        if (!isEnabled()) {
+            return;
+        }
+        if (null == m_writer) {
+            discardJournal();
+        } else {
+            m_queue.add(CLOSE);
+            try {
+                m_writer.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    // Recording edits
+    // -----------------------------------------------------------------------------------------------------------------
+    public void recordAdd(@NotNull KochanekBartelsSpline path, @NotNull ControlPoint point) {
+        record(path, ADD, point.getFieldX(), point.getFieldY());
+    }
+
+    public void recordLocation(@NotNull KochanekBartelsSpline path, @NotNull ControlPoint point) {
+        record(path, MOVE, indexOf(path, point), point.getFieldX(), point.getFieldY());
+    }
+
+    public void recordTangent(@NotNull KochanekBartelsSpline path, @NotNull ControlPoint point) {
+        record(path, TANGENT, indexOf(path, point), point.getRawTangentX(), point.getRawTangentY());
+    }
+
+    public void recordResetTangent(@NotNull KochanekBartelsSpline path, @NotNull ControlPoint point) {
+        record(path, RESET_TANGENT, indexOf(path, point));
+    }
+
+    public void recordHeading(@NotNull KochanekBartelsSpline path, @NotNull ControlPoint point) {
+        record(path, HEADING, indexOf(path, point), point.getFieldHeading().getRadians());
+    }
+
+    public void recordRotation(@NotNull KochanekBartelsSpline path, @NotNull ControlPoint point) {
+        record(path, ROTATION, indexOf(path, point), point.getRotationSpeed());
+    }
+
+    public void recordTime(@NotNull KochanekBartelsSpline path, @NotNull ControlPoint point) {
+        record(path, TIME, indexOf(path, point), point.getTime());
+    }
+
+    public void recordAction(@NotNull KochanekBartelsSpline path, @NotNull ControlPoint point) {
+        KochanekBartelsSpline.RobotAction action = point.getRobotAction();
+        if (null == action) {
+            record(path, ACTION, indexOf(path, point));
+        } else {
+            record(path, ACTION, indexOf(path, point), action.command, action.approxDuration);
+        }
+    }
+
+    /**
+     * Record the deletion of a control point. This must be called before the point is deleted.
+     *
+     * @param path  The path.
+     * @param point The control point about to be deleted.
+     */
+    public void recordDelete(@NotNull KochanekBartelsSpline path, @NotNull ControlPoint point) {
+        record(path, DELETE, indexOf(path, point));
+    }
+
+    public void recordInsert(@NotNull KochanekBartelsSpline path, double time) {
+        record(path, INSERT, time);
+    }
+
+    public void recordSchedule(@NotNull KochanekBartelsSpline path, double time, @NotNull String command) {
+        record(path, SCHEDULE, time, command);
+    }
+
+    /**
+     * Record the deletion of a scheduled command. A command may be scheduled more than once, so this records
+     * the time too, and replay deletes the scheduled command nearest that time.
+     *
+     * @param path         The path.
+     * @param scheduleTime The time the command was scheduled at, i.e. the path time times the speed multiplier.
+     * @param command      The command.
+     */
+    public void recordUnschedule(@NotNull KochanekBartelsSpline path, double scheduleTime,
+                                 @NotNull String command) {
+        record(path, UNSCHEDULE, scheduleTime, command);
+    }
+
+    public void recordSpeedMultiplier(@NotNull KochanekBartelsSpline path) {
+        record(path, SPEED, path.getSpeedMultiplier());
+    }
+
+    public void recordSwitchAlliance(@NotNull KochanekBartelsSpline path) {
+        record(path, ALLIANCE);
+    }
+
+    private static int indexOf(@NotNull KochanekBartelsSpline path, @NotNull ControlPoint point) {
+        return path.getControlPoints().indexOf(point);
+    }
+
+    private void record(@NotNull KochanekBartelsSpline path, @NotNull Object... fields) {
+        if ((!isEnabled()) || (null == m_writer)) {
+            return;
+        }
+        StringBuilder record = new StringBuilder();
+        for (Object field : fields) {
+            if (record.length() > 0) {
+                record.append('\t');
+            }
+            record.append(escape(field.toString()));
+        }
+        m_queue.add(record.toString());
+        if (++m_recordsSinceSnapshot >= COMPACT_RECORDS) {
+            compact(path, m_pathFile, true);
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    // Replaying edits
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Replay a single journal record against the path.
+     *
+     * @param path   The path.
+     * @param record The journal record.
+     */
+    static void replay(@NotNull KochanekBartelsSpline path, @NotNull String record) {
+        String[] fields = split(record);
+        List<ControlPoint> points = path.getControlPoints();
+        switch (fields[0]) {
+            case ADD:
+                path.addControlPoint(new Point2D.Double(toDouble(fields[1]), toDouble(fields[2])));
+                break;
+            case MOVE:
+                points.get(toInt(fields[1])).setFieldLocation(toDouble(fields[2]), toDouble(fields[3]));
+                break;
+            case TANGENT:
+                points.get(toInt(fields[1])).setTangent(toDouble(fields[2]), toDouble(fields[3]));
+                break;
+            case RESET_TANGENT:
+                points.get(toInt(fields[1])).resetDerivative();
+                break;
+            case HEADING:
+                points.get(toInt(fields[1])).setFieldHeading(new AngleD(AngleUnit.RADIANS, toDouble(fields[2])));
+                break;
+            case ROTATION:
+                points.get(toInt(fields[1])).setRotationSpeed(toDouble(fields[2]));
+                break;
+            case TIME:
+                points.get(toInt(fields[1])).setTime(toDouble(fields[2]), true);
+                break;
+            case ACTION:
+                if (fields.length > 2) {
+                    points.get(toInt(fields[1])).setRobotAction(fields[2], toDouble(fields[3]));
+                } else {
+                    points.get(toInt(fields[1])).setRobotAction(null, 0.0);
+                }
+                break;
+            case DELETE:
+                path.deleteControlPoint(points.get(toInt(fields[1])));
+                break;
+            case INSERT:
+                path.insertControlPoint(toDouble(fields[1]));
+                break;
+            case SCHEDULE:
+                path.scheduleCommand(toDouble(fields[1]), fields[2]);
+                break;
+            case UNSCHEDULE:
+                KochanekBartelsSpline.RobotAction scheduled =
+                        PathCanvas.findScheduledCommand(path, fields[2], toDouble(fields[1]));
+                if (null != scheduled) {
+                    path.deleteScheduledCommand(scheduled);
+                }
+                break;
+            case SPEED:
+                path.setSpeedMultiplier(toDouble(fields[1]));
+                break;
+            case ALLIANCE:
+                PathCanvas.flipAlliance(path);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown journal record: " + fields[0]);
+        }
+    }
+
+    private static double toDouble(@NotNull String field) {
+        return Double.parseDouble(field);
+    }
+
+    private static int toInt(@NotNull String field) {
+        return Integer.parseInt(field);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    // The writer thread
+    // -----------------------------------------------------------------------------------------------------------------
+    private void writeLoop() {
+        List<Object> batch = new ArrayList<>();
+        Writer out = null;
+        try {
+            while (true) {
+                batch.add(m_queue.take());
+                m_queue.drainTo(batch);
+                for (Object entry : batch) {
+                    if (entry == CLOSE) {
+                        if (null != out) {
+                            out.close();
+                        }
+                        discardJournal();
+                        return;
+                    } else if (entry instanceof Compaction) {
+                        if (null != out) {
+                            out.close();
+                        }
+                        out = restartJournal((Compaction) entry);
+                    } else if (null != out) {
+                        out.write((String) entry);
+                        out.write('\n');
+                    }
+                }
+                if (null != out) {
+                    out.flush();
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            System.out.println("Edit journal write failed, no crash recovery for the rest of this session.");
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Restart the journal from a snapshot. The snapshot file is written first, then the new journal is written
+     * beside the old one and moved over it, so the journal on disk always references a snapshot that exists.
+     * Older snapshots are deleted after the move.
+     *
+     * @param compaction The compaction request.
+     * @return The writer for the new journal.
+     * @throws IOException Thrown if the new journal cannot be written.
+     */
+    @NotNull
+    private Writer restartJournal(@NotNull Compaction compaction) throws IOException {
+        compaction.m_path.restore(m_writerPath);
+        PlannerEvents.savePath(m_writerPath, compaction.m_snapshot.getAbsolutePath());
+        File tempJournal = new File(m_directory, JOURNAL_TEMP_FILE);
+        try (Writer header = new OutputStreamWriter(new FileOutputStream(tempJournal), StandardCharsets.UTF_8)) {
+            header.write(String.join("\t", SNAPSHOT, compaction.m_snapshot.getName(),
+                    escape((null == compaction.m_pathFile) ? "" : compaction.m_pathFile.getAbsolutePath()),
+                    Boolean.toString(compaction.m_modified)));
+            header.write('\n');
+        }
+        File journal = new File(m_directory, JOURNAL_FILE);
+        Files.move(tempJournal.toPath(), journal.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        deleteSnapshotsExcept(compaction.m_snapshot);
+        return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(journal, true), StandardCharsets.UTF_8));
+    }
+
+    private void discardJournal() {
+        //noinspection ResultOfMethodCallIgnored
+        new File(m_directory, JOURNAL_FILE).delete();
+        deleteSnapshotsExcept(null);
+    }
+
+    private void deleteSnapshotsExcept(@Nullable File keep) {
+        File[] snapshots = m_directory.listFiles((dir, name) -> name.startsWith(SNAPSHOT_PREFIX));
+        if (null != snapshots) {
+            for (File snapshot : snapshots) {
+                if (!snapshot.equals(keep)) {
+                    //noinspection ResultOfMethodCallIgnored
+                    snapshot.delete();
+                }
+            }
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    // Record fields are tab separated, so tabs, newlines, and backslashes in commands or file names are escaped.
+    // -----------------------------------------------------------------------------------------------------------------
+    @NotNull
+    private static String escape(@NotNull String field) {
+        return field.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n");
+    }
+
+    @NotNull
+    private static String[] split(@NotNull String record) {
+        String[] fields = record.split("\t", -1);
+        for (int i = 0; i < fields.length; i++) {
+            StringBuilder field = new StringBuilder();
+            String escaped = fields[i];
+            for (int n = 0; n < escaped.length(); n++) {
+                char c = escaped.charAt(n);
+                if (('\\' == c) && (n + 1 < escaped.length())) {
+                    char next = escaped.charAt(++n);
+                    field.append(('t' == next) ? '\t' : (('n' == next) ? '\n' : next));
+                } else {
+                    field.append(c);
+                }
+            }
+            fields[i] = field.toString();
+        }
+        return fields;
+    }
+}
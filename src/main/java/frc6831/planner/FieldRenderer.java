@@ -0,0 +1,224 @@
+package frc6831.planner;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.*;
+import java.awt.geom.*;
+
+/**
+ * Draws a {@link Field} to the screen. The field itself has no drawing code, so this is where the named colors
+ * of the field description become AWT colors. Note that the default with no loaded field data is to draw the
+ * axes and a dotted outline of the field.
+ */
+public final class FieldRenderer {
+
+    // Additional colors - for 2021 Infinite Recharge at home
+    private static final Color GREEN_ZONE = new Color(118, 215, 196);
+    private static final Color YELLOW_ZONE = new Color(247, 220, 111);
+    private static final Color BLUE_ZONE = new Color(133, 193, 233);
+    private static final Color PURPLE_ZONE = new Color(187, 143, 206);
+    private static final Color RED_ZONE = new Color(236, 112, 99);
+
+    private FieldRenderer() {
+    }
+
+    /**
+     * Draw the field to the screen.
+     *
+     * @param field   The field.
+     * @param g2d     The 2d graphics configuration
+     * @param drawXfm The field space to screen space transformation.
+     */
+    public static void draw(@NotNull Field field, @NotNull Graphics2D g2d, @NotNull AffineTransform drawXfm) {
+        Stroke oldStroke = g2d.getStroke();
+        Color oldColor = g2d.getColor();
+
+        // draw the axis
+        Field.MinMax minMax = field.getMinMax();
+        g2d.setPaint(Color.ORANGE);
+        drawLine(g2d, drawXfm, minMax.getMinX(), 0.0, minMax.getMaxX(), 0.0);
+        drawLine(g2d, drawXfm, 0.0, minMax.getMinY(), 0.0, minMax.getMaxY());
+
+        // draw the field outline
+        Field.MinMax extent = field.getExtent();
+        g2d.setPaint(Color.WHITE);
+        drawLine(g2d, drawXfm, extent.getMinX(), extent.getMinY(), extent.getMaxX(), extent.getMinY());
+        drawLine(g2d, drawXfm, extent.getMinX(), extent.getMaxY(), extent.getMinX(), extent.getMinY());
+        drawLine(g2d, drawXfm, extent.getMaxX(), extent.getMaxY(), extent.getMinX(), extent.getMaxY());
+        drawLine(g2d, drawXfm, extent.getMaxX(), extent.getMinY(), extent.getMaxX(), extent.getMaxY());
+
+        // now draw the field that was read in from the field data file.
+        for (Field.FieldDraw fieldDraw : field.getDrawList()) {
+            AffineTransform xfm = new AffineTransform(drawXfm);
+            xfm.concatenate(fieldDraw.getTransform());
+            Field.FieldComponent component = fieldDraw.getComponent();
+            Color allianceColor = getColor(fieldDraw.getAllianceColor(), null, null);
+            Color outline = getColor(component.getOutlineColor(), null, allianceColor);
+            Color fill = getColor(component.getFillColor(), null, allianceColor);
+            for (Field.FieldShape shape = component.getFirstShape(); null != shape; shape = shape.getNext()) {
+                drawShape(g2d, xfm, shape, outline, fill);
+            }
+        }
+
+        g2d.setStroke(oldStroke);
+        g2d.setPaint(oldColor);
+    }
+
+    /**
+     * Get the color for a color name in the field description.
+     *
+     * @param colorName     The color name, may be {@code null}.
+     * @param defaultColor  The color for an unknown color name.
+     * @param allianceColor The color for the {@code "alliance"} color name.
+     * @return The color, {@code null} if the color name is {@code null}.
+     */
+    static Color getColor(@Nullable String colorName, Color defaultColor, Color allianceColor) {
+        // OK, the color should be a string that is one of the named colors
+        if (null == colorName) {
+            return null;
+        }
+        switch (colorName) {
+            case "alliance":
+                return allianceColor;
+            case "white":
+                return Color.WHITE;
+            case "red":
+                return Color.RED;
+            case "blue":
+                return Color.BLUE;
+            case "yellow":
+                return Color.YELLOW;
+            case "light-gray":
+                return Color.LIGHT_GRAY;
+            case "gray":
+                return Color.GRAY;
+            case "dark-gray":
+                return Color.DARK_GRAY;
+            case "black":
+                return Color.BLACK;
+            case "orange":
+                return Color.ORANGE;
+            case "green":
+                return Color.GREEN;
+            case "cyan":
+                return Color.CYAN;
+            case "magenta":
+                return Color.MAGENTA;
+            case "green-zone":
+                return GREEN_ZONE;
+            case "yellow-zone":
+                return YELLOW_ZONE;
+            case "blue-zone":
+                return BLUE_ZONE;
+            case "purple-zone":
+                return PURPLE_ZONE;
+            case "red-zone":
+                return RED_ZONE;
+            default:
+                return defaultColor;
+        }
+    }
+
+    private static void drawShape(Graphics2D g2d, AffineTransform drawXfm, Field.FieldShape shape,
+                                  Color outline, Color fill) {
+        if (shape instanceof Field.FieldCircle) {
+            drawCircle(g2d, drawXfm, (Field.FieldCircle) shape, outline, fill);
+        } else if (shape instanceof Field.FieldRect) {
+            drawRect(g2d, drawXfm, (Field.FieldRect) shape, outline, fill);
+        } else if (shape instanceof Field.FieldPolygon) {
+            drawPolygon(g2d, drawXfm, (Field.FieldPolygon) shape, outline, fill);
+        } else if (shape instanceof Field.FieldRing) {
+            drawRing(g2d, drawXfm, (Field.FieldRing) shape, outline, fill);
+        }
+    }
+
+    private static double getScale(AffineTransform drawXfm) {
+        return Math.sqrt((drawXfm.getScaleX() * drawXfm.getScaleX()) +
+                (drawXfm.getShearX() * drawXfm.getShearX()));
+    }
+
+    private static void drawCircle(Graphics2D g2d, AffineTransform drawXfm, Field.FieldCircle circle,
+                                   Color outline, Color fill) {
+        Point2D ptCenter = drawXfm.transform(circle.getCenter(), null);
+        double scaledRadius = getScale(drawXfm) * circle.getRadius();
+        if (null != fill) {
+            g2d.setPaint(fill);
+            g2d.fillOval((int) (ptCenter.getX() - scaledRadius), (int) (ptCenter.getY() - scaledRadius),
+                    (int) (2.0 * scaledRadius), (int) (2.0 * scaledRadius));
+        }
+        if (null != outline) {
+            g2d.setPaint(outline);
+            g2d.drawOval((int) (ptCenter.getX() - scaledRadius), (int) (ptCenter.getY() - scaledRadius),
+                    (int) (2.0 * scaledRadius), (int) (2.0 * scaledRadius));
+        }
+    }
+
+    private static void drawRect(Graphics2D g2d, AffineTransform drawXfm, Field.FieldRect rect,
+                                 Color outline, Color fill) {
+        Point2D ptLL = drawXfm.transform(rect.getLowerLeft(), null);
+        Point2D ptUR = drawXfm.transform(rect.getUpperRight(), null);
+        int x = (int) Math.min(ptLL.getX(), ptUR.getX());
+        int y = (int) Math.min(ptLL.getY(), ptUR.getY());
+        int width = (int) Math.abs(ptUR.getX() - ptLL.getX());
+        int height = (int) Math.abs(ptUR.getY() - ptLL.getY());
+        if (null != fill) {
+            g2d.setPaint(fill);
+            g2d.fillRect(x, y, width, height);
+        }
+        if (null != outline) {
+            g2d.setPaint(outline);
+            g2d.drawRect(x, y, width, height);
+        }
+    }
+
+    private static void drawPolygon(Graphics2D g2d, AffineTransform drawXfm, Field.FieldPolygon polygon,
+                                    Color outline, Color fill) {
+        GeneralPath polyPath = new GeneralPath(GeneralPath.WIND_NON_ZERO, 4);
+        Point2D.Double xfmPt = new Point2D.Double();
+        for (int i = 0; i < polygon.size(); i++) {
+            drawXfm.transform(polygon.getPoint(i), xfmPt);
+            if (i == 0) {
+                polyPath.moveTo(xfmPt.getX(), xfmPt.getY());
+            } else {
+                polyPath.lineTo(xfmPt.getX(), xfmPt.getY());
+            }
+        }
+        polyPath.closePath();
+        if (null != fill) {
+            g2d.setPaint(fill);
+            g2d.fill(polyPath);
+        }
+        if (null != outline) {
+            g2d.setPaint(outline);
+            g2d.draw(polyPath);
+        }
+    }
+
+    private static void drawRing(Graphics2D g2d, AffineTransform drawXfm, Field.FieldRing ring,
+                                 Color outline, Color fill) {
+        Point2D ptCenter = drawXfm.transform(ring.getCenter(), null);
+        double scale = getScale(drawXfm);
+        double scaledOD = scale * ring.getOD();
+        double scaledID = scale * ring.getID();
+        Area area = new Area(new Ellipse2D.Double(ptCenter.getX() - (scaledOD * 0.5),
+                ptCenter.getY() - (scaledOD * 0.5), scaledOD, scaledOD));
+        area.subtract(new Area(new Ellipse2D.Double(ptCenter.getX() - (scaledID * 0.5),
+                ptCenter.getY() - (scaledID * 0.5), scaledID, scaledID)));
+        if (null != fill) {
+            g2d.setColor(fill);
+            g2d.fill(area);
+        }
+        if (null != outline) {
+            g2d.setColor(outline);
+            g2d.draw(area);
+        }
+    }
+
+    private static void drawLine(Graphics2D g2d, AffineTransform drawXfm, double startX, double startY,
+                                 double endX, double endY) {
+        Point2D ptStart = drawXfm.transform(new Point2D.Double(startX, startY), null);
+        Point2D ptEnd = drawXfm.transform(new Point2D.Double(endX, endY), null);
+        g2d.drawLine((int) ptStart.getX(), (int) ptStart.getY(), (int) ptEnd.getX(), (int) ptEnd.getY());
+    }
+}
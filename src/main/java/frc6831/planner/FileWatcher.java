@@ -0,0 +1,256 @@
+package frc6831.planner;
+
+import org.jetbrains.annotations.NotNull;
+
+import javax.swing.*;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * This class watches the currently loaded path, field, and robot description files and hot-reloads them
+ * when they are changed outside the planner (i.e. hand-edited in a text editor). Editors typically save
+ * as a burst of file system events (truncate, write, rename, touch), so the reload is debounced until the
+ * file has been quiet for {@link #DEBOUNCE_MS}. The file is re-parsed on a background thread, and the
+ * newly loaded description is swapped into the planner on the event dispatch thread.
+ * <p>
+ * Each watched file has a role ({@link #PATH}, {@link #FIELD}, or {@link #ROBOT}); watching a new file
+ * for a role replaces the file previously watched for that role.
+ */
+@SuppressWarnings("HungarianNotationMemberVariables")
+public class FileWatcher {
+
+    public static final String PATH = "path";
+    public static final String FIELD = "field";
+    public static final String ROBOT = "robot";
+
+    // how long a file must be quiet after a change event before it is reloaded
+    private static final long DEBOUNCE_MS = 150;
+
+    /**
+     * Loads a description from a file. This is called on the background reload thread, so it must
+     * not touch any state of the planner.
+     *
+     * @param <T> The type of the loaded description.
+     */
+    public interface Loader<T> {
+        /**
+         * Load the description.
+         *
+         * @param file The file to be loaded.
+         * @return The loaded description, or {@code null} if the file could not be loaded (i.e. the
+         * file is being rewritten, or the hand edit introduced an error).
+         */
+        T load(@NotNull File file);
+    }
+
+    /**
+     * Swaps a newly loaded description into the planner. This is called on the event dispatch thread.
+     *
+     * @param <T> The type of the loaded description.
+     */
+    public interface Applier<T> {
+        void apply(@NotNull T loaded);
+    }
+
+    /**
+     * A file being watched for a role, and what to do when it changes.
+     */
+    private static class WatchedFile<T> {
+        final String m_role;
+        final Path m_path;
+        final Loader<T> m_loader;
+        final Applier<T> m_applier;
+        long m_lastModified;
+        long m_length;
+        ScheduledFuture<?> m_pending = null;
+
+        WatchedFile(String role, Path path, Loader<T> loader, Applier<T> applier) {
+            m_role = role;
+            m_path = path;
+            m_loader = loader;
+            m_applier = applier;
+            File file = path.toFile();
+            m_lastModified = file.lastModified();
+            m_length = file.length();
+        }
+
+        boolean isUnchanged() {
+            File file = m_path.toFile();
+            return (file.lastModified() == m_lastModified) && (file.length() == m_length);
+        }
+    }
+
+    private final WatchService m_watchService;
+    private final ScheduledExecutorService m_reloadExecutor;
+    private final Map<String, WatchedFile<?>> m_watched = new HashMap<>();
+    private final Map<Path, WatchKey> m_watchedDirectories = new HashMap<>();
+
+    /**
+     * Create a file watcher and start the thread that waits for file system change events.
+     *
+     * @throws IOException Thrown if the platform file system watch service could not be created.
+     */
+    public FileWatcher() throws IOException {
+        m_watchService = FileSystems.getDefault().newWatchService();
+        m_reloadExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "file-reload");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Thread watchThread = new Thread(this::watchLoop, "file-watcher");
+        watchThread.setDaemon(true);
+        watchThread.start();
+    }
+
+    /**
+     * Start watching a file for a role, replacing any file previously watched for that role. This is also
+     * called after the planner writes the file so that the change event for the planner's own write is not
+     * treated as an external edit.
+     *
+     * @param role    The role of the file, one of {@link #PATH}, {@link #FIELD}, or {@link #ROBOT}.
+     * @param file    The file to watch.
+     * @param loader  Loads the description from the file on the background reload thread.
+     * @param applier Swaps the loaded description into the planner on the event dispatch thread.
+     * @param <T>     The type of the loaded description.
+     */
+    public synchronized <T> void watch(@NotNull String role, @NotNull File file,
+                                       @NotNull Loader<T> loader, @NotNull Applier<T> applier) {
+        Path path = file.toPath().toAbsolutePath().normalize();
+        Path directory = path.getParent();
+        if ((null != directory) && !m_watchedDirectories.containsKey(directory)) {
+            try {
+                m_watchedDirectories.put(directory,
+                        directory.register(m_watchService, ENTRY_CREATE, ENTRY_MODIFY));
+            } catch (IOException e) {
+                System.out.println("Cannot watch directory for changes: " + directory);
+                e.printStackTrace();
+                return;
+            }
+        }
+        unwatch(role);
+        m_watched.put(role, new WatchedFile<>(role, path, loader, applier));
+    }
+
+    /**
+     * Stop watching the file for a role.
+     *
+     * @param role The role of the file, one of {@link #PATH}, {@link #FIELD}, or {@link #ROBOT}.
+     */
+    public synchronized void unwatch(@NotNull String role) {
+        WatchedFile<?> watched = m_watched.remove(role);
+        if ((null != watched) && (null != watched.m_pending)) {
+            watched.m_pending.cancel(false);
+        }
+    }
+
+    /**
+     * The watch thread - wait for change events in watched directories and schedule a debounced reload of
+     * any watched file that changed.
+     */
+    private void watchLoop() {
+        while (true) {
+            WatchKey key;
+            try {
+                key = m_watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            Path directory = (Path) key.watchable();
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (OVERFLOW == event.kind()) {
+                    // events were lost, reload anything that might have changed in this directory
+                    scheduleReloadIn(directory);
+                } else {
+                    scheduleReload(directory.resolve((Path) event.context()));
+                }
+            }
+            key.reset();
+        }
+    }
+
+    private synchronized void scheduleReloadIn(@NotNull Path directory) {
+        for (WatchedFile<?> watched : m_watched.values()) {
+            if (directory.equals(watched.m_path.getParent())) {
+                debounce(watched);
+            }
+        }
+    }
+
+    private synchronized void scheduleReload(@NotNull Path changed) {
+        for (WatchedFile<?> watched : m_watched.values()) {
+            if (changed.equals(watched.m_path)) {
+                debounce(watched);
+            }
+        }
+    }
+
+    private void debounce(@NotNull WatchedFile<?> watched) {
+        if (null != watched.m_pending) {
+            watched.m_pending.cancel(false);
+        }
+        watched.m_pending = m_reloadExecutor.schedule(
+                () -> reload(watched.m_role), DEBOUNCE_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Reload the file currently watched for a role. The registration is looked up again here because the
+     * file may have been re-watched (i.e. saved by the planner) while the reload was waiting.
+     *
+     * @param role The role of the file to be reloaded.
+     */
+    private void reload(@NotNull String role) {
+        WatchedFile<?> watched;
+        synchronized (this) {
+            watched = m_watched.get(role);
+            if ((null == watched) || watched.isUnchanged()) {
+                return;
+            }
+            File file = watched.m_path.toFile();
+            watched.m_lastModified = file.lastModified();
+            watched.m_length = file.length();
+        }
+        reload(watched);
+    }
+
+    private <T> void reload(@NotNull WatchedFile<T> watched) {
+        long startTime = System.currentTimeMillis();
+        T loaded = watched.m_loader.load(watched.m_path.toFile());
+        if (null == loaded) {
+            System.out.println("Could not reload " + watched.m_role + " from: " + watched.m_path);
+            return;
+        }
+        System.out.printf("Reloaded %s in %dms from: %s%n",
+                watched.m_role, System.currentTimeMillis() - startTime, watched.m_path);
+        SwingUtilities.invokeLater(() -> {
+            // only apply the reload if the file is still the one being watched for this role
+            synchronized (this) {
+                if (m_watched.get(watched.m_role) != watched) {
+                    return;
+                }
+            }
+            watched.m_applier.apply(loaded);
+        });
+    }
+
+    /**
+     * Stop watching all files and shut down the watch and reload threads.
+     */
+    public synchronized void close() {
+        m_watched.clear();
+        m_reloadExecutor.shutdownNow();
+        try {
+            m_watchService.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
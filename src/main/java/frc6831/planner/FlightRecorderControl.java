@@ -0,0 +1,102 @@
+package frc6831.planner;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * Starts and stops a Java Flight Recorder recording from the planner menu, so a slowdown on a particular
+ * laptop or field can be profiled without restarting the planner with JFR command line options. The recording
+ * uses the JDK {@code profile} settings plus all the {@link PlannerEvents}, and is dumped to a {@code .jfr}
+ * file that can be opened in JDK Mission Control.
+ */
+@SuppressWarnings("HungarianNotationMemberVariables")
+public class FlightRecorderControl {
+
+    private Recording m_recording = null;
+
+    public boolean isRecording() {
+        return null != m_recording;
+    }
+
+    /**
+     * Start a recording.
+     *
+     * @return {@code true} if recording was started, {@code false} if flight recording is not available in
+     * this JVM or could not be started.
+     */
+    public boolean start() {
+        if (null != m_recording) {
+            return true;
+        }
+        if (!FlightRecorder.isAvailable()) {
+            System.out.println("Flight recording is not available in this JVM.");
+            return false;
+        }
+        try {
+            Recording recording = new Recording(Configuration.getConfiguration("profile"));
+            recording.setName("Swerve Path Planner");
+            recording.setToDisk(true);
+            recording.start();
+            m_recording = recording;
+            System.out.println("Flight recording started.");
+            return true;
+        } catch (IOException | ParseException | IllegalStateException | SecurityException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Stop the recording and write it to a file.
+     *
+     * @param file The file the recording is written to, {@code null} to discard the recording.
+     * @throws IOException Thrown if the recording could not be written.
+     */
+    public void stop(File file) throws IOException {
+        if (null == m_recording) {
+            return;
+        }
+        Recording recording = m_recording;
+        m_recording = null;
+        try {
+            recording.stop();
+            if (null != file) {
+                recording.dump(file.toPath());
+                System.out.println("Flight recording written to: " + file.getAbsolutePath());
+            } else {
+                System.out.println("Flight recording discarded.");
+            }
+        } finally {
+            recording.close();
+        }
+    }
+
+    /**
+     * Get a file name for a recording that identifies when it was made.
+     *
+     * @return The suggested file name, i.e. {@code planner-20250315-142210.jfr}.
+     */
+    @NotNull
+    public static String suggestedFileName() {
+        return "planner-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + ".jfr";
+    }
+
+    /**
+     * Discard any recording in progress, i.e. when the planner exits.
+     */
+    public void close() {
+        try {
+            stop(null);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
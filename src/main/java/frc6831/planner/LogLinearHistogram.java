@@ -0,0 +1,100 @@
+package frc6831.planner;
+
+import java.util.Arrays;
+
+/**
+ * A fixed-size histogram of non-negative {@code long} values (i.e. nanoseconds or bytes) with log-linear
+ * buckets: each power of 2 range is split into {@link #SUB_BUCKETS} equal buckets, so any recorded value is
+ * reported to within 1/{@link #SUB_BUCKETS} (6.25%) of its actual value, and the histogram covers the whole
+ * {@code long} range in under 1000 counters. Recording is a couple of shifts and an increment, and never
+ * allocates, so it can be done on every frame.
+ * <p>
+ * This is not thread-safe; the planner records and reads its histograms on the event dispatch thread.
+ */
+@SuppressWarnings("HungarianNotationMemberVariables")
+public class LogLinearHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // values below this are counted exactly, one bucket per value
+    private static final long LINEAR_LIMIT = 2L * SUB_BUCKETS;
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final long[] m_counts = new long[BUCKET_COUNT];
+    private long m_totalCount = 0;
+    private long m_max = 0;
+
+    /**
+     * Record a value.
+     *
+     * @param value The value, negative values are recorded as 0.
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        m_counts[bucketIndex(value)]++;
+        m_totalCount++;
+        if (value > m_max) {
+            m_max = value;
+        }
+    }
+
+    /**
+     * Clear all recorded values.
+     */
+    public void reset() {
+        Arrays.fill(m_counts, 0);
+        m_totalCount = 0;
+        m_max = 0;
+    }
+
+    public long getCount() {
+        return m_totalCount;
+    }
+
+    public long getMax() {
+        return m_max;
+    }
+
+    /**
+     * Get the value at a percentile of the recorded values.
+     *
+     * @param percentile The percentile, 0.0 to 100.0, i.e. {@code 99.0} for the p99 value.
+     * @return The upper bound of the bucket containing the value at that percentile (never more than the
+     * maximum recorded value), or 0 if nothing has been recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (0 == m_totalCount) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil((percentile / 100.0) * m_totalCount));
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            count += m_counts[i];
+            if (count >= target) {
+                return Math.min(bucketUpperBound(i), m_max);
+            }
+        }
+        return m_max;
+    }
+
+    static int bucketIndex(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int shift = (63 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+        // the top SUB_BUCKET_BITS + 1 bits of the value, the leading 1 bit is implied by the shift
+        int subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+        return ((shift + 1) * SUB_BUCKETS) + subBucket;
+    }
+
+    static long bucketUpperBound(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        int shift = (index / SUB_BUCKETS) - 1;
+        long top = (index % SUB_BUCKETS) + SUB_BUCKETS;
+        return ((top + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,269 @@
+package frc6831.planner;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.swing.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Animates the robot along the path on a dedicated scheduler thread. Each tick computes an immutable
+ * {@link AnimationFrame} and publishes it through a single atomic reference, which is the only state shared
+ * with the canvas: the canvas paints whatever frame is current, and never sees a robot position from one tick
+ * with the speeds or stop and run description of another. There is no locking, and painting never waits for
+ * a tick or a tick for painting.
+ * <p>
+ * The position on the path is looked up in a {@link TrajectoryTable} at the time on a {@link SimulationClock},
+ * not computed from when the tick happened, so playback can be run faster or slower than real time, paused,
+ * stepped, and scrubbed, and a late tick only delays a frame rather than changing where the robot is. The
+ * trajectory table is immutable and can be replaced while the path is animated, i.e. when the path is edited.
+ * <p>
+ * Other robots, i.e. alliance partners and opponents, can be played on the same clock with a
+ * {@link MultiRobotPlayback}; their positions and collisions are published in the same frame as the robot
+ * following the path, and a collision is logged when it starts.
+ */
+@SuppressWarnings("HungarianNotationMemberVariables")
+public class PathAnimator {
+
+    /**
+     * The period of the animation ticks in milliseconds.
+     */
+    public static final int TICK_MILLIS = 20;
+    /**
+     * The simulated time of a single step, in seconds.
+     */
+    public static final double STEP_SECONDS = 0.05;
+
+    private final ScheduledExecutorService m_executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "path-animation");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicReference<AnimationFrame> m_frame = new AtomicReference<>();
+    private final SimulationClock m_clock = new SimulationClock();
+    private final Runnable m_onFrame;
+    private final Runnable m_onFinished;
+    private volatile MultiRobotPlayback m_playback = new MultiRobotPlayback();
+    private Run m_run = null;
+    private ScheduledFuture<?> m_ticks = null;
+
+    /**
+     * Create a path animator.
+     *
+     * @param onFrame    Called on the event dispatch thread when a new frame is published, i.e. to repaint
+     *                   the canvas.
+     * @param onFinished Called on the event dispatch thread when the animation reaches the end of the path.
+     */
+    public PathAnimator(@NotNull Runnable onFrame, @NotNull Runnable onFinished) {
+        m_onFrame = onFrame;
+        m_onFinished = onFinished;
+    }
+
+    /**
+     * Start animating a path from the beginning, stopping any animation in progress. This should be called on
+     * the event dispatch thread.
+     *
+     * @param trajectory The trajectory of the path to be animated.
+     * @param paused     {@code true} to start paused at the beginning of the path, i.e. to step through it.
+     */
+    public void start(@NotNull TrajectoryTable trajectory, boolean paused) {
+        stop();
+        m_run = new Run(trajectory);
+        m_frame.set(m_run.m_published);
+        m_clock.pause();
+        m_clock.seek(0.0);
+        if (!paused) {
+            m_clock.play();
+        }
+        System.out.printf("    seconds     forward      strafe     angular    too fast!%n");
+        m_ticks = m_executor.scheduleAtFixedRate(m_run, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop the animation in progress. A tick that is being computed when the animation is stopped is not
+     * published. This should be called on the event dispatch thread.
+     */
+    public void stop() {
+        if (null != m_ticks) {
+            m_ticks.cancel(false);
+            m_ticks = null;
+        }
+        m_run = null;
+        m_frame.set(null);
+    }
+
+    /**
+     * Replace the trajectory being animated, i.e. because the path was edited. The animation continues from
+     * the same time on the new trajectory. This should be called on the event dispatch thread.
+     *
+     * @param trajectory The new trajectory.
+     */
+    public void setTrajectory(@NotNull TrajectoryTable trajectory) {
+        if (null != m_run) {
+            m_run.m_trajectory = trajectory;
+            refresh();
+        }
+    }
+
+    /**
+     * Set the other robots played with the path. The change is shown immediately if a path is being animated.
+     * This should be called on the event dispatch thread.
+     *
+     * @param playback The other robots.
+     */
+    public void setPlayback(@NotNull MultiRobotPlayback playback) {
+        m_playback = playback;
+        refresh();
+    }
+
+    @NotNull
+    public MultiRobotPlayback getPlayback() {
+        return m_playback;
+    }
+
+    /**
+     * Compute and publish a frame now rather than at the next tick, i.e. after the clock was moved by
+     * scrubbing. The frame is computed on the animation thread, so it is never computed at the same time as
+     * a tick. This should be called on the event dispatch thread.
+     */
+    public void refresh() {
+        if (null != m_run) {
+            m_executor.submit(m_run);
+        }
+    }
+
+    /**
+     * @return {@code true} if a path is being animated.
+     */
+    public boolean isAnimating() {
+        return null != m_frame.get();
+    }
+
+    /**
+     * Get the current animation frame.
+     *
+     * @return The current frame, {@code null} if no path is being animated.
+     */
+    @Nullable
+    public AnimationFrame getFrame() {
+        return m_frame.get();
+    }
+
+    /**
+     * Get the clock that drives the animation, to pause, step, scrub, or change the play rate. Changes are
+     * shown at the next tick, or immediately after a {@link #refresh()}.
+     *
+     * @return The simulation clock.
+     */
+    @NotNull
+    public SimulationClock getClock() {
+        return m_clock;
+    }
+
+    /**
+     * Stop the animation thread.
+     */
+    public void close() {
+        m_executor.shutdownNow();
+    }
+
+    /**
+     * One animation of the path. The frames are computed on the animation thread; the only thing shared is
+     * the published frame, which is replaced by compare-and-set against the frame this run last published, so
+     * a run that has been stopped or superseded can never publish again.
+     */
+    private class Run implements Runnable {
+        private volatile TrajectoryTable m_trajectory;
+        private TrajectoryTable m_publishedTrajectory;
+        private MultiRobotPlayback m_publishedPlayback = null;
+        private AnimationFrame m_published;
+
+        Run(@NotNull TrajectoryTable trajectory) {
+            m_trajectory = trajectory;
+            m_publishedTrajectory = trajectory;
+            m_published = trajectory.frameAt(0.0);
+        }
+
+        @Override
+        public void run() {
+            if (m_frame.get() != m_published) {
+                // this run was stopped or superseded by a new animation
+                throw new AnimationFinished();
+            }
+            TrajectoryTable trajectory = m_trajectory;
+            MultiRobotPlayback playback = m_playback;
+            double duration = Math.max(trajectory.getDuration(), playback.getDuration());
+            double time = m_clock.getTime();
+            if (time > duration) {
+                if (!m_clock.isPaused()) {
+                    // reached the end of the path
+                    if (m_frame.compareAndSet(m_published, null)) {
+                        SwingUtilities.invokeLater(m_onFinished);
+                    }
+                    throw new AnimationFinished();
+                }
+                // scrubbed or stepped past the end
+                time = duration;
+            }
+            if ((time == m_published.getTime()) && (trajectory == m_publishedTrajectory) &&
+                    (playback == m_publishedPlayback)) {
+                // paused, nothing has changed
+                return;
+            }
+            AnimationFrame next = trajectory.frameAt(time);
+            if (playback.size() > 0) {
+                next = next.withRobots(time, playback.frameAt(time, next, trajectory));
+            }
+            if (!m_frame.compareAndSet(m_published, next)) {
+                throw new AnimationFinished();
+            }
+            logCollisions(next);
+            if (null != next.getStopAndRunDescription()) {
+                if (!next.getStopAndRunDescription().equals(m_published.getStopAndRunDescription())) {
+                    System.out.printf("    " + next.getStopAndRunDescription() + "%n");
+                }
+            } else {
+                System.out.printf("%10.3f, %10.3f, %10.3f, %10.3f      %b %n", next.getPathTime(),
+                        next.getSpeedForward(), next.getSpeedStrafe(), next.getSpeedRotation(), next.isTooFast());
+            }
+            m_published = next;
+            m_publishedTrajectory = trajectory;
+            m_publishedPlayback = playback;
+            SwingUtilities.invokeLater(m_onFrame);
+        }
+
+        /**
+         * Log the collisions that started since the last published frame.
+         */
+        private void logCollisions(@NotNull AnimationFrame next) {
+            MultiRobotFrame robots = next.getRobots();
+            if ((null == robots) || !robots.hasCollisions()) {
+                return;
+            }
+            MultiRobotFrame last = m_published.getRobots();
+            long started = robots.getCollisions() & ~((null == last) ? 0L : last.getCollisions());
+            for (int a = 0; (0 != started) && (a < robots.getRobotCount()); a++) {
+                for (int b = a + 1; b < robots.getRobotCount(); b++) {
+                    if (0 != (started & MultiRobotFrame.collisionBit(a, b))) {
+                        System.out.printf("    COLLISION at %.3f: %s and %s%n", next.getTime(), robots.getName(a),
+                                robots.getName(b));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Thrown from a tick to end a run: an exception is how a task scheduled at a fixed rate stops itself
+     * without a reference to its own future.
+     */
+    private static class AnimationFinished extends RuntimeException {
+        AnimationFinished() {
+            super(null, null, false, false);
+        }
+    }
+}
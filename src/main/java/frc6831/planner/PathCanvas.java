@@ -20,6 +20,8 @@ import java.awt.geom.GeneralPath;
 import java.awt.geom.NoninvertibleTransformException;
 import java.awt.geom.Point2D;
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * This is the canvas we draw the field and path to. It is derived from a
@@ -30,6 +32,8 @@ public class PathCanvas extends Canvas implements ActionListener {
 
     // constants to manage the interaction
     private static final double OVER_TOL = 5.0;
+    // how far the drawn path line may be from the path, in pixels
+    private static final double OUTLINE_TOL = 0.25;
 
     // The editing mode
     private static final int MODE_ADD = 0;      // adding control points to extend the path
@@ -40,19 +44,27 @@ public class PathCanvas extends Canvas implements ActionListener {
     private static final int OVER_TANGENT_POINT = 2;
     private static final int OVER_HEADING_POINT = 3;
     private static final int OVER_PATH_POINT = 4;
-
-    private final PopupMenu contextMenu;
-    private final MenuItem menuItemClearPath;
-    private final MenuItem menuSwitchAlliance;
-    private final MenuItem menuItemAnimatePath;
-    private final MenuItem menuItemStopAnimate;
-    private final MenuItem menuItemExtendPath;
-    private final MenuItem menuItemEndPath;
-    private final MenuItem menuItemInsert;
-    private final MenuItem menuItemDelete;
-    private final MenuItem menuItemResetTangent;
-    private final MenuItem menuItemSetTime;
-    private final MenuItem menuItemInfo;
+    // the names of what the mouse is over, indexed by the OVER_* constants, for flight recorder events
+    private static final String[] OVER_NAMES = {"nothing", "control point", "tangent point", "heading point",
+            "path point"};
+    // the colors of the playback robots, and the outline of colliding robots
+    static final Color PARTNER_COLOR = new Color(0, 160, 255);
+    static final Color OPPONENT_COLOR = new Color(180, 100, 255);
+    static final Color COLLISION_COLOR = Color.YELLOW;
+    static final Stroke COLLISION_STROKE = new BasicStroke(3.0f);
+
+    private PopupMenu contextMenu;
+    private MenuItem menuItemClearPath;
+    private MenuItem menuSwitchAlliance;
+    private MenuItem menuItemAnimatePath;
+    private MenuItem menuItemStopAnimate;
+    private MenuItem menuItemExtendPath;
+    private MenuItem menuItemEndPath;
+    private MenuItem menuItemInsert;
+    private MenuItem menuItemDelete;
+    private MenuItem menuItemResetTangent;
+    private MenuItem menuItemSetTime;
+    private MenuItem menuItemInfo;
 
     // the back buffer to support double buffering
     private int bufferWidth;
@@ -61,12 +73,15 @@ public class PathCanvas extends Canvas implements ActionListener {
     private Graphics bufferGraphics;
 
     // the actual data for the robot, field, and path
-    private final Robot robot;                        // the robot description
-    private final Field field;
+    private Robot robot;                              // the robot description
+    private Field field;
     private final TitleChangeListener titleChange;
+    private FileWatcher fileWatcher = null;
+    private EditJournal journal = new EditJournal(null);
+    private final UndoHistory undoHistory = new UndoHistory();
     private File pathFile = null;
     private boolean modifiedSinceSave = false;
-    private final KochanekBartelsSpline path = new KochanekBartelsSpline();
+    private KochanekBartelsSpline path = new KochanekBartelsSpline();
     private AffineTransform drawXfm = null;
     private AffineTransform mouseXfm = null;
     private double scale;
@@ -82,22 +97,37 @@ public class PathCanvas extends Canvas implements ActionListener {
     // controlling the user interaction with the path
     private ControlPoint newControlPoint = null;
     private ControlPoint overControlPoint = null;
-    private PathPoint overPathPoint = null;
+    private PathAnalysis overPathAnalysis = null;   // the analysis the path sample under the cursor is in
+    private int overPathSample = -1;
     private int mode = MODE_ADD;
     private int overWhat = OVER_NOTHING;
     private final Stroke highlightStroke = new BasicStroke(2.0f);
     private Point2D.Double mouse = null;
-
-    // The members that support the path animation functionality
-    private Timer timer = null;
-    private long pathStartTime = -1;
-    private Double currentPathTime = 0.0;
-    private long stopAndRunEndTime = -1;
-    private String stopAndRunDescription = null;
-    private long stopAndRunDuration = 0;
-    private PathPoint currentPathPoint = null;
-    private KochanekBartelsSpline.PathFollower pathFollower = null;
-    private boolean animate = false;
+    private boolean pendingUndoStep = false;    // a mouse add or drag that is recorded as one undo step on release
+
+    // Mice can report drags 1000 times a second, the drag is applied to the path at most once a frame
+    private static final int DRAG_FRAME_MILLIS = 16;
+    private final Timer dragTimer = new Timer(DRAG_FRAME_MILLIS, e -> pkgApplyDrag());
+    private Point2D pendingDragPt = null;       // the latest drag position that has not been applied to the path
+    private long lastDragNanos = 0;             // when a drag position was last applied to the path
+
+    // The path is sampled and analyzed on a background thread, the canvas paints the latest published analysis
+    private final PathAnalyzer analyzer =
+            new PathAnalyzer(() -> SwingUtilities.invokeLater(this::pkgAnalysisPublished));
+    private PathSnapshot analysisSnapshot = null;   // the snapshot of the path last submitted for analysis
+    private Robot analysisRobot = null;             // the robot last submitted for analysis
+    private Field analysisField = null;             // the field last submitted for analysis
+    private double analysisTolerance = Double.NaN;  // the path line tolerance last submitted for analysis
+
+    // The path is animated on its own thread, the canvas paints the latest published animation frame
+    private final PathAnimator animator = new PathAnimator(this::pkgAnimationTick, this::pkgAnimationFinished);
+    private final List<Runnable> timelineListeners = new ArrayList<>();
+    // the path time highlighted on the field and the timeline plot, NaN if nothing is highlighted
+    private double highlightPathTime = Double.NaN;
+    private final PerformanceMonitor performanceMonitor = new PerformanceMonitor();
+
+    // Read-only paths drawn beneath the edited path, i.e. to compare autos
+    private final PathOverlays overlays = new PathOverlays();
 
     // The symbol for a stop and run action
     private final int[] robotStopAndRunActionX = {0,  5,  5,  0, -5, -5};
@@ -128,6 +158,7 @@ public class PathCanvas extends Canvas implements ActionListener {
     private class MouseHandler extends MouseAdapter {
         @Override
         public void mousePressed(MouseEvent e) {
+            performanceMonitor.inputReceived(e.getWhen());
             Point2D pt = mouse = (Point2D.Double) mouseXfm.transform(
                     new Point2D.Double(e.getPoint().getX(), e.getPoint().getY()), null);
             if (e.isPopupTrigger()) {
@@ -138,7 +169,9 @@ public class PathCanvas extends Canvas implements ActionListener {
                 displayContextMenu(e);
             } else if ((mode == MODE_ADD) && (e.getClickCount() == 1)) {
                 newControlPoint = path.addControlPoint(pt);
+                journal.recordAdd(path, newControlPoint);
                 modifiedSinceSave = true;
+                pendingUndoStep = true;
                 repaint();
             } else if (mode == MODE_EDIT) {
                 testMouseOver(pt);
@@ -148,6 +181,15 @@ public class PathCanvas extends Canvas implements ActionListener {
 
         @Override
         public void mouseReleased(MouseEvent e) {
+            performanceMonitor.inputReceived(e.getWhen());
+            // apply the last drag position before the drag is recorded as an undo step
+            dragTimer.stop();
+            pkgApplyDrag();
+            if (pendingUndoStep) {
+                // the add or drag is done, all the mouse events since the press are a single undo step
+                pendingUndoStep = false;
+                undoHistory.record(path);
+            }
             if (e.isPopupTrigger()) {
                 displayContextMenu(e);
             } else if (mode == MODE_ADD) {
@@ -176,88 +218,35 @@ public class PathCanvas extends Canvas implements ActionListener {
 
         @Override
         public void mouseDragged(MouseEvent e) {
+            performanceMonitor.inputReceived(e.getWhen());
             Point2D pt = mouse = (Point2D.Double) mouseXfm.transform(
                     new Point2D.Double(e.getPoint().getX(), e.getPoint().getY()), null);
-            if ((mode == MODE_ADD) && null != newControlPoint) {
-                newControlPoint.setFieldLocation(pt);
-                modifiedSinceSave = true;
-            } else if ((mode == MODE_EDIT) && (null != overControlPoint)) {
-                if (OVER_CONTROL_POINT == overWhat) {
-                    overControlPoint.setFieldLocation(pt);
-                    modifiedSinceSave = true;
-                } else if (OVER_TANGENT_POINT == overWhat) {
-                    overControlPoint.setTangentLocation(pt);
-                    modifiedSinceSave = true;
-                } else if (OVER_HEADING_POINT == overWhat) {
-                    overControlPoint.setHeadingLocation(pt);
-                    modifiedSinceSave = true;
+            // Coalesce the drag events: only the latest position is applied to the path, at most once a frame.
+            pendingDragPt = pt;
+            if (!dragTimer.isRunning()) {
+                long sinceLastDrag = (System.nanoTime() - lastDragNanos) / 1_000_000;
+                if (sinceLastDrag >= DRAG_FRAME_MILLIS) {
+                    pkgApplyDrag();
+                } else {
+                    dragTimer.setInitialDelay((int) (DRAG_FRAME_MILLIS - sinceLastDrag));
+                    dragTimer.start();
                 }
             }
-            repaint();
         }
 
         @Override
         public void mouseMoved(MouseEvent e) {
+            performanceMonitor.inputReceived(e.getWhen());
             Point2D pt = mouse = (Point2D.Double) mouseXfm.transform(
                     new Point2D.Double(e.getPoint().getX(), e.getPoint().getY()), null);
             if (mode == MODE_EDIT) {
                 testMouseOver(pt);
+                setHighlightPathTime((OVER_PATH_POINT == overWhat) ?
+                        overPathAnalysis.getSampleTime(overPathSample) : Double.NaN);
             }
             repaint();
         }
 
-        /**
-         * Determine whether the mouse is over anything that is significant for path editing. Significant
-         * for path editing are:
-         * <ul>
-         *     <li>Control Points - control point tangent and heading handles, as well as control point
-         *     field position</li>
-         *     <li></li>
-         * </ul>
-         *
-         * @param pt (Point2D, not null) The position of the mouse transformed to field coordinates.
-         */
-        private void testMouseOver(@NotNull Point2D pt) {
-            overControlPoint = null;
-            overPathPoint = null;
-            overWhat = OVER_NOTHING;
-            // loop through the control points and see is we are over a control point handle. These are tested
-            // first as they are most important in controlling the path
-            for (ControlPoint point : path.getControlPoints()) {
-                // Normally we test the tangent point first, because it is rare that the tangents would be 0,
-                // which would make the tangent point coincident with the control point and would stop the
-                // robot at that point. The notable exception is when the robot stops to do something. In
-                // that case the tangent is explicitly set to 0.0, and cannot be changed unless the stop and
-                // do something action is removed.
-                if ((null == point.getRobotAction()) &&
-                        point.testOveTangentPoint(pt.getX(), pt.getY(), OVER_TOL / scale)) {
-                    overControlPoint = point;
-                    overWhat = OVER_TANGENT_POINT;
-
-                } else if (point.testOverControlPoint(pt.getX(), pt.getY(), OVER_TOL / scale)) {
-                    overControlPoint = point;
-                    overWhat = OVER_CONTROL_POINT;
-
-                } else if (point.testOverHeadingPoint(pt.getX(), pt.getY(), OVER_TOL / scale)) {
-                    overControlPoint = point;
-                    overWhat = OVER_HEADING_POINT;
-                }
-            }
-            // If we are not over any  control point handle, then test path points to see if we are over
-            // a path point. There are few actions for path points, however, sometimes we want something
-            // to happen along the path.
-            if (OVER_NOTHING == overWhat) {
-                // Draw the path as a set of segments uniformly spaced in time.
-                for (PathPoint pathPoint : path.getCurveSegments()) {
-                    if (pathPoint.testOverPathPoint(pt.getX(), pt.getY(), OVER_TOL / scale)) {
-                        overPathPoint = pathPoint;
-                        overWhat = OVER_PATH_POINT;
-                        break;
-                    }
-                }
-            }
-        }
-
         /**
          * Display the right mouse context menu. Appropriately enable/disable menu items based on the
          * current context.
@@ -268,14 +257,14 @@ public class PathCanvas extends Canvas implements ActionListener {
         private void displayContextMenu(MouseEvent e) {
             // check the current state of the path and editing state and enable choices that are valid in
             // the current state; disable choices that are invalid in the current state.
-            menuItemStopAnimate.setEnabled(animate);
+            menuItemStopAnimate.setEnabled(animator.isAnimating());
 
             menuSwitchAlliance.setEnabled(true);
 
             menuItemExtendPath.setEnabled(mode != MODE_ADD);
             menuItemEndPath.setEnabled(mode == MODE_ADD);
 
-            boolean pathPointSelected = (null != overPathPoint) && (overWhat == OVER_PATH_POINT);
+            boolean pathPointSelected = (null != overPathAnalysis) && (overWhat == OVER_PATH_POINT);
             menuItemInsert.setEnabled(pathPointSelected);
 
             boolean controlPointSelected = (null != overControlPoint) && (overWhat == OVER_CONTROL_POINT);
@@ -308,25 +297,29 @@ public class PathCanvas extends Canvas implements ActionListener {
         this.robot = robot;
         this.field = field;
         this.titleChange = titleChange;
-
-        // build the right menu popup
-        contextMenu = new PopupMenu();
-        menuItemAnimatePath = pkgCreateMenuItem(contextMenu, "Play Path", this);
-        menuItemStopAnimate = pkgCreateMenuItem(contextMenu, "Stop Play", this);
-        contextMenu.addSeparator();
-        menuItemExtendPath = pkgCreateMenuItem(contextMenu, "Extend Path", this);
-        menuItemEndPath = pkgCreateMenuItem(contextMenu, "End Path", this);
-        contextMenu.addSeparator();
-        menuItemInsert = pkgCreateMenuItem(contextMenu, "Insert Control Point", this);
-        menuItemDelete = pkgCreateMenuItem(contextMenu, "Delete Control Point", this);
-        menuItemResetTangent = pkgCreateMenuItem(contextMenu, "Reset Tangent", this);
-        menuItemSetTime = pkgCreateMenuItem(contextMenu, "Set Time", this);
-        menuItemInfo = pkgCreateMenuItem(contextMenu, "Info", this);
-        contextMenu.addSeparator();
-        menuSwitchAlliance = pkgCreateMenuItem(contextMenu, "Switch Alliance", this);
-        contextMenu.addSeparator();
-        menuItemClearPath = pkgCreateMenuItem(contextMenu, "Clear Path", this);
-        add(contextMenu);
+        dragTimer.setRepeats(false);
+
+        // build the right menu popup - there is no popup when the canvas is used headless, i.e. to render
+        // images or to benchmark painting and hit testing
+        if (!GraphicsEnvironment.isHeadless()) {
+            contextMenu = new PopupMenu();
+            menuItemAnimatePath = pkgCreateMenuItem(contextMenu, "Play Path", this);
+            menuItemStopAnimate = pkgCreateMenuItem(contextMenu, "Stop Play", this);
+            contextMenu.addSeparator();
+            menuItemExtendPath = pkgCreateMenuItem(contextMenu, "Extend Path", this);
+            menuItemEndPath = pkgCreateMenuItem(contextMenu, "End Path", this);
+            contextMenu.addSeparator();
+            menuItemInsert = pkgCreateMenuItem(contextMenu, "Insert Control Point", this);
+            menuItemDelete = pkgCreateMenuItem(contextMenu, "Delete Control Point", this);
+            menuItemResetTangent = pkgCreateMenuItem(contextMenu, "Reset Tangent", this);
+            menuItemSetTime = pkgCreateMenuItem(contextMenu, "Set Time", this);
+            menuItemInfo = pkgCreateMenuItem(contextMenu, "Info", this);
+            contextMenu.addSeparator();
+            menuSwitchAlliance = pkgCreateMenuItem(contextMenu, "Switch Alliance", this);
+            contextMenu.addSeparator();
+            menuItemClearPath = pkgCreateMenuItem(contextMenu, "Clear Path", this);
+            add(contextMenu);
+        }
 
         // setup all of the stuff for the path panel
         setBackground(Color.BLACK);
@@ -335,6 +328,7 @@ public class PathCanvas extends Canvas implements ActionListener {
         addMouseMotionListener(mouseHandler);
         addComponentListener(new ComponentHandler());
         resetRobotGeometry();
+        undoHistory.reset(path);
     }
 
     /**
@@ -368,28 +362,85 @@ public class PathCanvas extends Canvas implements ActionListener {
 
     }
 
-    public void resetFieldGeometry() {
-        float width = this.getWidth();
-        float height = this.getHeight();
+    /**
+     * Get the read-only overlay paths drawn beneath the edited path. The canvas must be repainted after the
+     * overlays are changed.
+     *
+     * @return The overlay paths.
+     */
+    @NotNull
+    public PathOverlays getOverlays() {
+        return overlays;
+    }
+
+    /**
+     * Get the monitor that records paint, input latency, timer, and allocation performance for this canvas.
+     *
+     * @return The performance monitor.
+     */
+    @NotNull
+    public PerformanceMonitor getPerformanceMonitor() {
+        return performanceMonitor;
+    }
+
+    /**
+     * Swap in a new robot description (i.e. a robot loaded or hot-reloaded from a file) and rebuild the
+     * graphic representation of the robot. Nothing else depends on the robot, so this is the only cached
+     * geometry that needs to be reset.
+     *
+     * @param robot The new robot description.
+     */
+    public void setRobot(@NotNull Robot robot) {
+        this.robot = robot;
+        resetRobotGeometry();
+        repaint();
+    }
+
+    /**
+     * Swap in a new field description (i.e. a field loaded or hot-reloaded from a file) and reset the
+     * field to screen transformation for the extent of the new field.
+     *
+     * @param field The new field description.
+     */
+    public void setField(@NotNull Field field) {
+        this.field = field;
+        resetFieldGeometry();
+        repaint();
+    }
+
+    /**
+     * Compute the field to window transform that scales the field to fill the window while maintaining the
+     * correct field aspect ratio.
+     *
+     * @param fieldMinMax The extent of the field view.
+     * @param width       The width of the window.
+     * @param height      The height of the window.
+     * @return The field to window transform.
+     */
+    static AffineTransform pkgFitFieldTransform(@NotNull Field.MinMax fieldMinMax, double width, double height) {
         // OK, so here we pick whether we scale X or Y to fill the window, reverse Y,
         // and, translate 0,0 to center screen.
-        Field.MinMax fieldMinMax = field.getMinMax();
         // this is the scale that fits the X into the window
         double scaleX = width / (fieldMinMax.getMaxX() - fieldMinMax.getMinX());
         // this is the scale that fits y into the window
         double scaleY = height / (fieldMinMax.getMaxY() - fieldMinMax.getMinY());
         // this is the scale that fits them both into the window
-        scale = Math.min(scaleX, scaleY);
+        double scale = Math.min(scaleX, scaleY);
         // OK, what is happening here?? Magic - well, not really. The width/2.0 and height/2.0 bits of the
         // m02 and m12 shift the origin to the center of the screen window. For the default competition field
         // this is great because we adopted 0,0 as center field. For the 2021 at home field, the 0.0 is at
         // a corner of the field - the next term is the shift of the 0,0 for the field from center window,
         // scaled by the field to window scale.
-        drawXfm = new AffineTransform(scale, 0.0f, 0.0f, -scale,
+        return new AffineTransform(scale, 0.0f, 0.0f, -scale,
                 (width / 2.0) -
                         (scale * (((fieldMinMax.getMaxX() - fieldMinMax.getMinX()) / 2.0) + fieldMinMax.getMinX())),
                 (height / 2.0) +
                         (scale * (((fieldMinMax.getMaxY() - fieldMinMax.getMinY()) / 2.0) + fieldMinMax.getMinY())));
+    }
+
+    public void resetFieldGeometry() {
+        drawXfm = pkgFitFieldTransform(field.getMinMax(), this.getWidth(), this.getHeight());
+        scale = drawXfm.getScaleX();
         mouseXfm = new AffineTransform(drawXfm);
         try {
             mouseXfm.invert();
@@ -399,42 +450,78 @@ public class PathCanvas extends Canvas implements ActionListener {
     }
 
     /**
-     * An action listener for the {@link PathCanvas} that is specifically looking for {@link #timer} events
-     * during path animation.
+     * Determine whether the mouse is over anything that is significant for path editing. Significant
+     * for path editing are:
+     * <ul>
+     *     <li>Control Points - control point tangent and heading handles, as well as control point
+     *     field position</li>
+     *     <li></li>
+     * </ul>
+     *
+     * @param pt (Point2D, not null) The position of the mouse transformed to field coordinates.
+     */
+    void testMouseOver(@NotNull Point2D pt) {
+        PlannerEvents.HitTest event = new PlannerEvents.HitTest();
+        event.begin();
+        overControlPoint = null;
+        overPathAnalysis = null;
+        overPathSample = -1;
+        overWhat = OVER_NOTHING;
+        // loop through the control points and see is we are over a control point handle. These are tested
+        // first as they are most important in controlling the path
+        for (ControlPoint point : path.getControlPoints()) {
+            // Normally we test the tangent point first, because it is rare that the tangents would be 0,
+            // which would make the tangent point coincident with the control point and would stop the
+            // robot at that point. The notable exception is when the robot stops to do something. In
+            // that case the tangent is explicitly set to 0.0, and cannot be changed unless the stop and
+            // do something action is removed.
+            if ((null == point.getRobotAction()) &&
+                    point.testOveTangentPoint(pt.getX(), pt.getY(), OVER_TOL / scale)) {
+                overControlPoint = point;
+                overWhat = OVER_TANGENT_POINT;
+
+            } else if (point.testOverControlPoint(pt.getX(), pt.getY(), OVER_TOL / scale)) {
+                overControlPoint = point;
+                overWhat = OVER_CONTROL_POINT;
+
+            } else if (point.testOverHeadingPoint(pt.getX(), pt.getY(), OVER_TOL / scale)) {
+                overControlPoint = point;
+                overWhat = OVER_HEADING_POINT;
+            }
+        }
+        // If we are not over any  control point handle, then test path points to see if we are over
+        // a path point. There are few actions for path points, however, sometimes we want something
+        // to happen along the path.
+        if (OVER_NOTHING == overWhat) {
+            // Test the path line of the latest analysis, which is what is drawn, and select the path sample
+            // nearest to where the mouse is on the line.
+            PathAnalysis analysis = analyzer.getLatest();
+            double pathTime = (null == analysis) ? Double.NaN :
+                    analysis.findTime(pt.getX(), pt.getY(), OVER_TOL / scale);
+            if (!Double.isNaN(pathTime)) {
+                overPathAnalysis = analysis;
+                overPathSample = analysis.nearestSample(pathTime);
+                overWhat = OVER_PATH_POINT;
+            }
+        }
+        if (event.shouldCommit()) {
+            PathAnalysis analysis = analyzer.getLatest();
+            event.controlPoints = path.getControlPoints().size();
+            event.pathSamples = (null == analysis) ? 0 : analysis.getSampleCount();
+            event.over = OVER_NAMES[overWhat];
+            event.commit();
+        }
+    }
+
+    /**
+     * An action listener for the {@link PathCanvas} that is specifically looking for context menu events.
      *
      * @param event (ActionEvent) The action event that was sent to this path canvas.
      */
     @Override
     public void actionPerformed(ActionEvent event) {
         final Object src = event.getSource();
-        if ((event.getSource() == timer) && (null != pathFollower)) {
-            // This is a timer event while there is a path follower.
-            if (pathStartTime == -1) {
-                 pathStartTime = event.getWhen();
-            }
-            if (stopAndRunEndTime < event.getWhen()) {
-                if (null != stopAndRunDescription) {
-                    stopAndRunEndTime = -1;
-                    stopAndRunDescription = null;
-                }
-                // This is a point at some time on the path
-                currentPathTime = (event.getWhen() - pathStartTime - stopAndRunDuration) / 1000.0;
-                currentPathPoint = pathFollower.getPointAt(currentPathTime);
-                if (null == currentPathPoint) {
-                    pkgStopAnimation();
-                    // reached the end of the path
-                } else {
-                    if ((null != currentPathPoint.action) &&
-                            (RobotActionType.STOP_AND_RUN_COMMAND == currentPathPoint.action.actionType)) {
-                        stopAndRunEndTime = event.getWhen() + (long) (currentPathPoint.action.approxDuration * 1000.0);
-                        stopAndRunDescription = "Stop and Run: " + currentPathPoint.action.command;
-                        stopAndRunDuration += (long) (currentPathPoint.action.approxDuration * 1000.0);
-                        System.out.printf("    stopping to run: " + currentPathPoint.action.command + "%n");
-                    }
-                }
-            }
-            repaint();
-        } else if (src == menuItemClearPath) {
+        if (src == menuItemClearPath) {
             clearPath();
         } else if (src == menuItemAnimatePath) {
             animatePath();
@@ -448,21 +535,29 @@ public class PathCanvas extends Canvas implements ActionListener {
         } else if (src == menuItemExtendPath) {
             pkgSetExtendMode();
         } else if (src == menuItemInsert) {
-            path.insertControlPoint(overPathPoint.time * path.getSpeedMultiplier());
+            double time = overPathAnalysis.getSampleTime(overPathSample) * path.getSpeedMultiplier();
+            path.insertControlPoint(time);
+            journal.recordInsert(path, time);
             modifiedSinceSave = true;
+            undoHistory.record(path);
             repaint();
         } else if (src == menuItemDelete) {
+            journal.recordDelete(path, overControlPoint);
             path.deleteControlPoint(overControlPoint);
             overControlPoint = null;
             overWhat = OVER_NOTHING;
             modifiedSinceSave = true;
+            undoHistory.record(path);
             repaint();
         } else if (src == menuItemResetTangent) {
             overControlPoint.resetDerivative();
+            journal.recordResetTangent(path, overControlPoint);
             modifiedSinceSave = true;
+            undoHistory.record(path);
             repaint();
         } else if (src == menuItemSetTime) {
             pkgControlPointTimeDialog();
+            undoHistory.record(path);
             repaint();
         } else if (src == menuItemInfo) {
             if (overWhat == OVER_CONTROL_POINT) {
@@ -470,6 +565,7 @@ public class PathCanvas extends Canvas implements ActionListener {
             } else if (overWhat == OVER_PATH_POINT) {
                 pkgPathPointDialog();
             }
+            undoHistory.record(path);
             repaint();
         }
     }
@@ -561,21 +657,25 @@ public class PathCanvas extends Canvas implements ActionListener {
             double new_Y = pkgGetDoubleFromTextField(fieldY, labelY, overControlPoint.getFieldY(), 0.001);
             if ((new_X != overControlPoint.getFieldX()) || (new_Y != overControlPoint.getFieldY())) {
                 overControlPoint.setFieldLocation(new_X, new_Y);
+                journal.recordLocation(path, overControlPoint);
             }
             double new_dX = pkgGetDoubleFromTextField(field_dX, label_dX, overControlPoint.getRawTangentX(), 0.001);
             double new_dY = pkgGetDoubleFromTextField(field_dY, label_dY, overControlPoint.getRawTangentY(), 0.001);
             if ((new_dX != overControlPoint.getRawTangentX()) || (new_dY != overControlPoint.getRawTangentY())) {
                 overControlPoint.setTangent(new_dX, new_dY);
+                journal.recordTangent(path, overControlPoint);
             }
             AngleConstantD new_heading =
                     pkgGetAngleFromTextField(heading, labelHeading, overControlPoint.getFieldHeading(), 0.001);
             if (new_heading != overControlPoint.getFieldHeading()) {
                 overControlPoint.setFieldHeading(new_heading);
+                journal.recordHeading(path, overControlPoint);
             }
             double new_rotation = pkgGetDoubleFromTextField(rotation, labelRotation,
                     overControlPoint.getRotationSpeed(), 0.001);
             if (new_rotation != overControlPoint.getRotationSpeed()) {
                 overControlPoint.setRotationSpeed(new_rotation);
+                journal.recordRotation(path, overControlPoint);
             }
             pkgSetTime(time, labelTime, 0.01);
             if (hasStopAction.isSelected()) {
@@ -585,6 +685,7 @@ public class PathCanvas extends Canvas implements ActionListener {
             } else {
                 overControlPoint.setRobotAction(null,0.0);
             }
+            journal.recordAction(path, overControlPoint);
         }
     }
 
@@ -602,20 +703,22 @@ public class PathCanvas extends Canvas implements ActionListener {
         p.add(labels, BorderLayout.LINE_START);
 
         JPanel controls = new JPanel(new GridLayout(0, 1, 2, 2));
-        JLabel fieldX = pkgLoadAndAddLabel(controls, overPathPoint.fieldPt.getX(),"  %.3f");
-        JLabel fieldY = pkgLoadAndAddLabel(controls, overPathPoint.fieldPt.getY(),"  %.3f");
-        JLabel heading = pkgLoadAndAddLabel(controls, overPathPoint.fieldHeading.getRadians(),"  %.3f");
-        JLabel field_dX = pkgLoadAndAddLabel(controls, overPathPoint.field_dX,"  %.3f");
-        JLabel field_dY = pkgLoadAndAddLabel(controls, overPathPoint.field_dY,"  %.3f");
-        JLabel rotation = pkgLoadAndAddLabel(controls, overPathPoint.speedRotation,"  %.3f");
-        JLabel time = pkgLoadAndAddLabel(controls, overPathPoint.time,"  %.2f");controls.add(time);
+        PathAnalysis analysis = overPathAnalysis;
+        int sample = overPathSample;
+        JLabel fieldX = pkgLoadAndAddLabel(controls, analysis.getFieldX(sample),"  %.3f");
+        JLabel fieldY = pkgLoadAndAddLabel(controls, analysis.getFieldY(sample),"  %.3f");
+        JLabel heading = pkgLoadAndAddLabel(controls, analysis.getHeading(sample),"  %.3f");
+        JLabel field_dX = pkgLoadAndAddLabel(controls, analysis.getFieldDx(sample),"  %.3f");
+        JLabel field_dY = pkgLoadAndAddLabel(controls, analysis.getFieldDy(sample),"  %.3f");
+        JLabel rotation = pkgLoadAndAddLabel(controls, analysis.getSpeedRotation(sample),"  %.3f");
+        JLabel time = pkgLoadAndAddLabel(controls, analysis.getSampleTime(sample),"  %.2f");controls.add(time);
         p.add(controls, BorderLayout.CENTER);
 
         JPanel scheduleAction = new JPanel(new BorderLayout(5, 5));
         JPanel scheduleOnOff = new JPanel(new GridLayout(0, 1, 2, 2));
         scheduleOnOff.add(new JSeparator(SwingConstants.HORIZONTAL));
         JCheckBox hasScheduledAction = new JCheckBox("schedule command");
-        KochanekBartelsSpline.RobotAction robotAction = overPathPoint.action;
+        PathAction robotAction = analysis.getAction(sample);
         hasScheduledAction.setSelected(null != robotAction);
         scheduleOnOff.add(hasScheduledAction);
         scheduleAction.add(scheduleOnOff, BorderLayout.PAGE_START);
@@ -624,7 +727,7 @@ public class PathCanvas extends Canvas implements ActionListener {
         scheduleAction.add(stopLabels, BorderLayout.LINE_START);
         JPanel stopControls = new JPanel(new GridLayout(0, 1, 2, 2));
         JTextField fieldScheduleCommand = pkgLoadAndAddField(
-                stopControls, (null == robotAction) ? "" : robotAction.command);
+                stopControls, (null == robotAction) ? "" : robotAction.getCommand());
         scheduleAction.add(stopControls, BorderLayout.CENTER);
         p.add(scheduleAction, BorderLayout.PAGE_END);
 
@@ -634,20 +737,64 @@ public class PathCanvas extends Canvas implements ActionListener {
                 JOptionPane.PLAIN_MESSAGE,null, buttons, buttons[1]);
         if (status == JOptionPane.OK_OPTION) {
              if (hasScheduledAction.isSelected()) {
-                 if ((null != robotAction) && !fieldScheduleCommand.getText().equals(robotAction.command)) {
+                 if ((null != robotAction) && !fieldScheduleCommand.getText().equals(robotAction.getCommand())) {
                      // the command name has changed - delete the old action
-                     path.deleteScheduledCommand(robotAction);
+                     pkgDeleteScheduledCommand(robotAction);
                  }
-                 if ((null == robotAction) || !fieldScheduleCommand.getText().equals(robotAction.command)) {
+                 if ((null == robotAction) || !fieldScheduleCommand.getText().equals(robotAction.getCommand())) {
                      // there is no old action, of the command has changed and the old action was deleted,
                      // so schedule a new one.
-                     path.scheduleCommand(overPathPoint.time * path.getSpeedMultiplier(),
-                             fieldScheduleCommand.getText());
+                     double scheduleTime = analysis.getSampleTime(sample) * path.getSpeedMultiplier();
+                     path.scheduleCommand(scheduleTime, fieldScheduleCommand.getText());
+                     journal.recordSchedule(path, scheduleTime, fieldScheduleCommand.getText());
                  }
+                 modifiedSinceSave = true;
             } else if (null != robotAction) {
-                 path.deleteScheduledCommand(robotAction);
+                 pkgDeleteScheduledCommand(robotAction);
+                 modifiedSinceSave = true;
+            }
+        }
+    }
+
+    /**
+     * Delete a scheduled command from the path. The analysis only describes the action, so this finds the
+     * action on the path, which is the action with the same command nearest to the same time.
+     *
+     * @param action The action of the scheduled command, from the path analysis.
+     */
+    private void pkgDeleteScheduledCommand(@NotNull PathAction action) {
+        double scheduleTime = action.getTime() * path.getSpeedMultiplier();
+        KochanekBartelsSpline.RobotAction robotAction =
+                findScheduledCommand(path, action.getCommand(), scheduleTime);
+        journal.recordUnschedule(path, scheduleTime, action.getCommand());
+        if (null != robotAction) {
+            path.deleteScheduledCommand(robotAction);
+        }
+    }
+
+    /**
+     * Find a scheduled command on a path. A command may be scheduled more than once, so this is the scheduled
+     * command nearest to a time.
+     *
+     * @param path         The path.
+     * @param command      The command.
+     * @param scheduleTime The time the command was scheduled at, i.e. the path time times the speed multiplier.
+     * @return The action of the scheduled command, {@code null} if the command is not scheduled on the path.
+     */
+    @Nullable
+    static KochanekBartelsSpline.RobotAction findScheduledCommand(@NotNull KochanekBartelsSpline path,
+                                                                  @NotNull String command, double scheduleTime) {
+        KochanekBartelsSpline.RobotAction robotAction = null;
+        double nearest = Double.MAX_VALUE;
+        for (PathPoint pathPoint : path.getCurveSegments()) {
+            if ((null != pathPoint.action) && (RobotActionType.SCHEDULE_COMMAND == pathPoint.action.actionType) &&
+                    command.equals(pathPoint.action.command) &&
+                    (Math.abs((pathPoint.time * path.getSpeedMultiplier()) - scheduleTime) < nearest)) {
+                robotAction = pathPoint.action;
+                nearest = Math.abs((pathPoint.time * path.getSpeedMultiplier()) - scheduleTime);
             }
         }
+        return robotAction;
     }
 
     /**
@@ -665,6 +812,7 @@ public class PathCanvas extends Canvas implements ActionListener {
                             Double.MAX_VALUE : (overControlPoint.getNext().getTime() - 0.1));
             if (newTime != overControlPoint.getTime()) {
                 overControlPoint.setTime(newTime, true);
+                journal.recordTime(path, overControlPoint);
             }
         }
     }
@@ -785,11 +933,26 @@ public class PathCanvas extends Canvas implements ActionListener {
             pkgResetBuffer();
         }
         if (bufferGraphics != null) {
+            performanceMonitor.paintStarted();
             //this clears the back buffer
             bufferGraphics.clearRect(0, 0, bufferWidth, bufferHeight);
 
             // draw the content to the back buffer
+            PlannerEvents.PaintFrame event = new PlannerEvents.PaintFrame();
+            event.begin();
             pkgPaintBuffer(bufferGraphics);
+            performanceMonitor.paintFinished();
+            if (event.shouldCommit()) {
+                event.width = bufferWidth;
+                event.height = bufferHeight;
+                PathAnalysis analysis = analyzer.getLatest();
+                event.controlPoints = path.getControlPoints().size();
+                event.pathSamples = (null == analysis) ? 0 : analysis.getSampleCount();
+                event.animating = animator.isAnimating();
+                event.commit();
+            }
+            // the overlay is drawn after the measurement so it is not measuring itself
+            performanceMonitor.draw((Graphics2D) bufferGraphics, bufferWidth);
 
             // copy the back buffer into this displayed panel
             g.drawImage(bufferImage, 0, 0, this);
@@ -827,49 +990,45 @@ public class PathCanvas extends Canvas implements ActionListener {
     public void pkgPaintBuffer(Graphics g) {
         Graphics2D g2d = (Graphics2D) g;
         g2d.setPaint(Color.WHITE);
+        pkgUpdateAnalysis();
 
         // draw the field first, everything else is on top of the field
-        field.draw(g2d, drawXfm);
+        FieldRenderer.draw(field, g2d, drawXfm);
+        // then the overlay paths, which are beneath the path being edited
+        overlays.draw(g2d, drawXfm, getWidth(), getHeight());
 
         // draw the robot at the control points. otherwise, the robot obscures the path and
         // other control point editing handles.
-        if (animate) {
-            // OK because of race condition in the drawing thread, it may be the case animate is set, but the rest
-            // the event handling is not done, so, check there is a path point before trying to draw the robot there.
-            if (null != currentPathPoint) {
-                g2d.drawString(
-                        String.format("elapsed time = %.3f", (System.currentTimeMillis() - pathStartTime)/1000.0),
-                        10, 20);
-                g2d.drawString(
-                        String.format("path time = %.3f", currentPathTime), 10, 35);
-                g2d.drawString(
-                        String.format("forward = %.3f", currentPathPoint.speedForward), 10, 50);
-                g2d.drawString(
-                        String.format("strafe = %.3f", currentPathPoint.speedStrafe), 10, 65);
-                g2d.drawString(
-                        String.format("angular vel = %.3f", currentPathPoint.speedRotation), 10, 80);
-                if (null != stopAndRunDescription) {
-                    g2d.drawString(stopAndRunDescription, 10, 95);
-                }
-                boolean tooFast = !robot.canRobotAchieve(currentPathPoint.speedForward,
-                        currentPathPoint.speedStrafe, currentPathPoint.speedRotation);
-                System.out.printf("%10.3f, %10.3f, %10.3f, %10.3f      %b %n",
-                        currentPathTime, currentPathPoint.speedForward,
-                        currentPathPoint.speedStrafe, currentPathPoint.speedRotation, tooFast);
-                pkgPaintRobot(g2d, currentPathPoint, tooFast);
-                g2d.setPaint(Color.MAGENTA);
-                double fieldX = currentPathPoint.fieldPt.getX();
-                double fieldY = currentPathPoint.fieldPt.getY();
-                Point2D.Double fieldPt = (Point2D.Double) drawXfm.transform(
-                        new Point2D.Double(fieldX, fieldY), null);
-                double dirX = fieldX + currentPathPoint.fieldHeading.sin();
-                double dirY = fieldY + currentPathPoint.fieldHeading.cos();
-                Point2D.Double dirPt = (Point2D.Double) drawXfm.transform(
-                        new Point2D.Double(dirX, dirY), null);
-                g2d.drawLine((int) fieldPt.getX(), (int) fieldPt.getY(), (int) dirPt.getX(), (int) dirPt.getY());
-                g2d.drawOval((int) dirPt.getX() - 3, (int) dirPt.getY() - 3, 6, 6);
+        // the animation frame is read once, everything drawn for the robot is from the same animation tick
+        AnimationFrame frame = animator.getFrame();
+        if (null != frame) {
+            g2d.drawString(String.format("elapsed time = %.3f", frame.getTime()), 10, 20);
+            g2d.drawString(String.format("path time = %.3f", frame.getPathTime()), 10, 35);
+            g2d.drawString(String.format("forward = %.3f", frame.getSpeedForward()), 10, 50);
+            g2d.drawString(String.format("strafe = %.3f", frame.getSpeedStrafe()), 10, 65);
+            g2d.drawString(String.format("angular vel = %.3f", frame.getSpeedRotation()), 10, 80);
+            SimulationClock clock = animator.getClock();
+            g2d.drawString(String.format("play rate = %.2fx%s", clock.getRate(),
+                    clock.isPaused() ? " (paused)" : ""), 10, 95);
+            if (null != frame.getStopAndRunDescription()) {
+                g2d.drawString(frame.getStopAndRunDescription(), 10, 110);
             }
-
+            MultiRobotFrame robots = frame.getRobots();
+            if (null != robots) {
+                pkgPaintRobots(g2d, robots);
+            }
+            double fieldX = frame.getFieldX();
+            double fieldY = frame.getFieldY();
+            pkgPaintRobot(g2d, fieldX, fieldY, frame.getHeadingSin(), frame.getHeadingCos(), frame.isTooFast());
+            g2d.setPaint(Color.MAGENTA);
+            Point2D.Double fieldPt = (Point2D.Double) drawXfm.transform(
+                    new Point2D.Double(fieldX, fieldY), null);
+            double dirX = fieldX + frame.getHeadingSin();
+            double dirY = fieldY + frame.getHeadingCos();
+            Point2D.Double dirPt = (Point2D.Double) drawXfm.transform(
+                    new Point2D.Double(dirX, dirY), null);
+            g2d.drawLine((int) fieldPt.getX(), (int) fieldPt.getY(), (int) dirPt.getX(), (int) dirPt.getY());
+            g2d.drawOval((int) dirPt.getX() - 3, (int) dirPt.getY() - 3, 6, 6);
         } else {
             for (ControlPoint point : path.getControlPoints()) {
                 pkgPaintRobot(g2d, point);
@@ -877,36 +1036,40 @@ public class PathCanvas extends Canvas implements ActionListener {
         }
         g2d.setPaint(Color.WHITE);
 
-        // Draw the path as a set of segments uniformly spaced in time.
-        PathPoint lastPathPoint;
-        Point2D.Double lastPt;
-        PathPoint thisPathPoint = null;
-        Point2D.Double thisPt = null;
-        for (PathPoint pathPoint : path.getCurveSegments()) {
-            lastPathPoint = thisPathPoint;
-            lastPt = thisPt;
-            thisPathPoint = pathPoint;
-            boolean tooFast = !robot.canRobotAchieve(pathPoint.speedForward,
-                    pathPoint.speedStrafe, pathPoint.speedRotation);
-
-            g2d.setPaint(pkgIsRobotInside(pathPoint.fieldPt, pathPoint.fieldHeading) ?
-                    (tooFast ? Color.RED : Color.WHITE) : Color.ORANGE);
-            thisPt = (Point2D.Double) drawXfm.transform(pathPoint.fieldPt, null);
-
-            if (lastPathPoint != null) {
-                g2d.drawLine((int) lastPt.getX(), (int) lastPt.getY(),
-                        (int) thisPt.getX(), (int) thisPt.getY());
-            }
-            if (null == pathPoint.action) {
+        // Draw the path line sampled by the shape of the path, then mark the samples uniformly spaced in time,
+        // which show the timing. This is the latest analysis, which may be a frame or two behind the control
+        // points while they are being dragged.
+        PathAnalysis analysis = analyzer.getLatest();
+        if (null != analysis) {
+            pkgDrawPathLine(g2d, analysis);
+        }
+        Point2D.Double thisPt;
+        int sampleCount = (null == analysis) ? 0 : analysis.getSampleCount();
+        for (int i = 0; i < sampleCount; i++) {
+            PathAction action = analysis.getAction(i);
+            g2d.setPaint(pkgSampleColor(analysis, i));
+            thisPt = (Point2D.Double) drawXfm.transform(
+                    new Point2D.Double(analysis.getFieldX(i), analysis.getFieldY(i)), null);
+            if (null == action) {
                 g2d.drawOval((int) thisPt.getX() - 2, (int) thisPt.getY() - 2, 4, 4);
-            } else if (RobotActionType.SCHEDULE_COMMAND == pathPoint.action.actionType) {
+            } else if (RobotActionType.SCHEDULE_COMMAND == action.getType()) {
                 pkgDrawScheduledRobotAction(g2d, thisPt, true);
             } else {
                 pkgDrawStopAndRunRobotAction(g2d, thisPt, true);
             }
         }
 
-        if (!animate) {
+        // mark the highlighted time, i.e. the time under the mouse in the timeline plot
+        TrajectoryTable trajectory = getTrajectory();
+        if (!Double.isNaN(highlightPathTime) && (null != trajectory)) {
+            AnimationFrame highlight = trajectory.frameAt(trajectory.toPlaybackTime(highlightPathTime));
+            Point2D.Double highlightPt = (Point2D.Double) drawXfm.transform(
+                    new Point2D.Double(highlight.getFieldX(), highlight.getFieldY()), null);
+            g2d.setPaint(Color.CYAN);
+            g2d.drawOval((int) highlightPt.getX() - 7, (int) highlightPt.getY() - 7, 14, 14);
+        }
+
+        if (null == frame) {
             // draw the control point editing handles.
             for (ControlPoint point : path.getControlPoints()) {
                 g2d.setPaint(Color.RED);
@@ -944,9 +1107,10 @@ public class PathCanvas extends Canvas implements ActionListener {
                 g2d.setPaint(overWhat == OVER_PATH_POINT ? Color.ORANGE : Color.GREEN);
                 switch (overWhat) {
                     case OVER_CONTROL_POINT:
+                        KochanekBartelsSpline.RobotAction robotAction = overControlPoint.getRobotAction();
                         pkgDrawFieldPointHighlight(g2d,
                                 overControlPoint.getFieldX(), overControlPoint.getFieldY(),
-                                overControlPoint.getRobotAction());
+                                (null == robotAction) ? null : robotAction.actionType);
                         break;
                     case OVER_TANGENT_POINT:
                         pkgDrawFieldPointHighlight(g2d,
@@ -957,9 +1121,11 @@ public class PathCanvas extends Canvas implements ActionListener {
                                 overControlPoint.getHeadingX(), overControlPoint.getHeadingY(), null);
                         break;
                     case OVER_PATH_POINT:
+                        PathAction action = overPathAnalysis.getAction(overPathSample);
                         pkgDrawFieldPointHighlight(g2d,
-                                overPathPoint.fieldPt.getX(), overPathPoint.fieldPt.getY(),
-                                overPathPoint.action);
+                                overPathAnalysis.getFieldX(overPathSample),
+                                overPathAnalysis.getFieldY(overPathSample),
+                                (null == action) ? null : action.getType());
                         break;
 
                 }
@@ -980,18 +1146,82 @@ public class PathCanvas extends Canvas implements ActionListener {
     }
 
     private void pkgDrawFieldPointHighlight(Graphics2D g2d, double fieldX, double fieldY,
-                                            KochanekBartelsSpline.RobotAction robotAction) {
+                                            @Nullable RobotActionType actionType) {
         Point2D.Double fieldPt = (Point2D.Double) drawXfm.transform(
                 new Point2D.Double(fieldX, fieldY), null);
-        if (null == robotAction) {
+        if (null == actionType) {
             g2d.drawOval((int) fieldPt.getX() - 4, (int) fieldPt.getY() - 4, 8, 8);
-        } else if (RobotActionType.STOP_AND_RUN_COMMAND == robotAction.actionType) {
+        } else if (RobotActionType.STOP_AND_RUN_COMMAND == actionType) {
             pkgDrawStopAndRunRobotAction(g2d, fieldPt, false);
-        } else if (RobotActionType.SCHEDULE_COMMAND == robotAction.actionType) {
+        } else if (RobotActionType.SCHEDULE_COMMAND == actionType) {
             pkgDrawScheduledRobotAction(g2d, fieldPt, false);
         }
     }
 
+    /**
+     * Draw the path line from the polylines of the segments in the analysis. Each piece of a polyline is split
+     * half-way between adjacent path samples that differ in whether the robot is too fast or inside the field,
+     * and each part is colored by its path sample, so a short change is not lost.
+     *
+     * @param g2d      The graphics to draw into.
+     * @param analysis The latest analysis.
+     */
+    private void pkgDrawPathLine(@NotNull Graphics2D g2d, @NotNull PathAnalysis analysis) {
+        int sampleCount = analysis.getSampleCount();
+        int sample = 0;
+        for (int segment = 0; segment < analysis.getSegmentCount(); segment++) {
+            AdaptiveSampler outline = analysis.getOutline(segment);
+            for (int i = 1; i < outline.getCount(); i++) {
+                double startTime = outline.getTime(i - 1);
+                double endTime = outline.getTime(i);
+                double startX = outline.getFieldX(i - 1);
+                double startY = outline.getFieldY(i - 1);
+                double fromX = startX;
+                double fromY = startY;
+                while ((sample + 1 < sampleCount) && (pkgMidTime(analysis, sample) <= startTime)) {
+                    sample++;
+                }
+                while ((sample + 1 < sampleCount) && (pkgMidTime(analysis, sample) < endTime)) {
+                    Color color = pkgSampleColor(analysis, sample);
+                    if (color != pkgSampleColor(analysis, sample + 1)) {
+                        double f = (pkgMidTime(analysis, sample) - startTime) / (endTime - startTime);
+                        double toX = startX + (f * (outline.getFieldX(i) - startX));
+                        double toY = startY + (f * (outline.getFieldY(i) - startY));
+                        g2d.setPaint(color);
+                        pkgDrawFieldLine(g2d, fromX, fromY, toX, toY);
+                        fromX = toX;
+                        fromY = toY;
+                    }
+                    sample++;
+                }
+                g2d.setPaint(pkgSampleColor(analysis, sample));
+                pkgDrawFieldLine(g2d, fromX, fromY, outline.getFieldX(i), outline.getFieldY(i));
+            }
+        }
+    }
+
+    /**
+     * @return The path time half-way between a path sample and the next one.
+     */
+    private static double pkgMidTime(@NotNull PathAnalysis analysis, int sample) {
+        return (analysis.getSampleTime(sample) + analysis.getSampleTime(sample + 1)) / 2.0;
+    }
+
+    private void pkgDrawFieldLine(@NotNull Graphics2D g2d, double fromX, double fromY, double toX, double toY) {
+        Point2D fromPt = drawXfm.transform(new Point2D.Double(fromX, fromY), null);
+        Point2D toPt = drawXfm.transform(new Point2D.Double(toX, toY), null);
+        g2d.drawLine((int) fromPt.getX(), (int) fromPt.getY(), (int) toPt.getX(), (int) toPt.getY());
+    }
+
+    /**
+     * @return The color of a path sample: orange if the robot is outside the field, red if the robot cannot
+     * achieve the speeds, and white otherwise.
+     */
+    @NotNull
+    private static Color pkgSampleColor(@NotNull PathAnalysis analysis, int index) {
+        return analysis.isInside(index) ? (analysis.isTooFast(index) ? Color.RED : Color.WHITE) : Color.ORANGE;
+    }
+
     private void pkgDrawStopAndRunRobotAction(Graphics2D g2d, Point2D.Double fieldPt, boolean fill) {
         int[] tmpX = new int[6];
         int[] tmpY = new int[6];
@@ -1019,25 +1249,31 @@ public class PathCanvas extends Canvas implements ActionListener {
     }
 
     private void pkgPaintRobot(Graphics2D g2d, ControlPoint controlPoint) {
-        pkgPaintRobot(g2d, new Point2D.Double(controlPoint.getFieldX(), controlPoint.getFieldY()),
-                controlPoint.getFieldHeading(), false);
+        AngleConstantD heading = controlPoint.getFieldHeading();
+        pkgPaintRobot(g2d, controlPoint.getFieldX(), controlPoint.getFieldY(), heading.sin(), heading.cos(), false);
 
     }
 
-    private void pkgPaintRobot(Graphics2D g2d, PathPoint pathPoint, boolean tooFast) {
-        pkgPaintRobot(g2d, pathPoint.fieldPt, pathPoint.fieldHeading, tooFast);
-
-
-    }
-
-    private void pkgPaintRobot(Graphics2D g2d, Point2D fieldPt, AngleConstantD heading, boolean tooFast) {
+    /**
+     * Paint the robot on the field.
+     *
+     * @param g2d        The graphics for the canvas back buffer.
+     * @param fieldX     The field X of the robot center.
+     * @param fieldY     The field Y of the robot center.
+     * @param headingSin The sine of the robot heading.
+     * @param headingCos The cosine of the robot heading.
+     * @param tooFast    {@code true} if the robot cannot achieve the speeds at this point on the path.
+     */
+    private void pkgPaintRobot(Graphics2D g2d, double fieldX, double fieldY, double headingSin,
+                               double headingCos, boolean tooFast) {
         AffineTransform oldXfm = g2d.getTransform();
         AffineTransform xfm = new AffineTransform(oldXfm);
         xfm.concatenate(drawXfm);
 
         AffineTransform xfmRobot = new AffineTransform();
-        xfmRobot.translate(fieldPt.getX(), fieldPt.getY());
-        xfmRobot.rotate(-heading.getRadians());
+        xfmRobot.translate(fieldX, fieldY);
+        // rotate by -heading
+        xfmRobot.rotate(headingCos, -headingSin);
         xfm.concatenate(xfmRobot);
         // don't know why this scale is required, it should be on the oldXfm or the field rendering
         //  would be wrong ---- TODO. figure this out.
@@ -1056,12 +1292,121 @@ public class PathCanvas extends Canvas implements ActionListener {
         g2d.setTransform(oldXfm);
     }
 
-    private boolean pkgIsRobotInside(Point2D fieldPt, AngleConstantD heading) {
-        AffineTransform xfmRobot = new AffineTransform();
-        xfmRobot.translate(fieldPt.getX(), fieldPt.getY());
-        xfmRobot.rotate(-heading.getRadians());
-        xfmRobot.transform(robotCorners, 0, xfmRobotCorners, 0, 4);
-        return field.isInsideField(xfmRobotCorners, 0.05);
+    /**
+     * Paint the playback robots, and flag the robots that are colliding. The robot following the path is
+     * painted by {@link #pkgPaintRobot(Graphics2D, double, double, double, double, boolean)}; if it is
+     * colliding its bumpers are outlined here, and it is painted over the outline.
+     *
+     * @param g2d    The graphics for the canvas back buffer.
+     * @param robots The robots.
+     */
+    private void pkgPaintRobots(Graphics2D g2d, MultiRobotFrame robots) {
+        int[] x = new int[MultiRobotFrame.CORNERS];
+        int[] y = new int[MultiRobotFrame.CORNERS];
+        Point2D.Double fieldPt = new Point2D.Double();
+        Point2D.Double canvasPt = new Point2D.Double();
+        Stroke oldStroke = g2d.getStroke();
+        int textY = 125;
+        for (int robot = 0; robot < robots.getRobotCount(); robot++) {
+            for (int corner = 0; corner < MultiRobotFrame.CORNERS; corner++) {
+                fieldPt.setLocation(robots.getCornerX(robot, corner), robots.getCornerY(robot, corner));
+                drawXfm.transform(fieldPt, canvasPt);
+                x[corner] = (int) canvasPt.getX();
+                y[corner] = (int) canvasPt.getY();
+            }
+            if (robots.isColliding(robot)) {
+                g2d.setPaint(COLLISION_COLOR);
+                g2d.setStroke(COLLISION_STROKE);
+                g2d.drawPolygon(x, y, MultiRobotFrame.CORNERS);
+                g2d.setStroke(oldStroke);
+            }
+            if (robot > 0) {
+                g2d.setPaint(robots.isOpponent(robot) ? OPPONENT_COLOR : PARTNER_COLOR);
+                g2d.fillPolygon(x, y, MultiRobotFrame.CORNERS);
+                AnimationFrame robotFrame = robots.getFrame(robot);
+                fieldPt.setLocation(robotFrame.getFieldX(), robotFrame.getFieldY());
+                drawXfm.transform(fieldPt, canvasPt);
+                g2d.setPaint(Color.WHITE);
+                g2d.drawString(robots.getName(robot), (int) canvasPt.getX() + 5, (int) canvasPt.getY() - 5);
+            }
+            // list the collisions under the animation state
+            for (int other = robot + 1; other < robots.getRobotCount(); other++) {
+                if (robots.isColliding(robot, other)) {
+                    g2d.setPaint(COLLISION_COLOR);
+                    g2d.drawString(String.format("COLLISION: %s and %s", robots.getName(robot),
+                            robots.getName(other)), 10, textY);
+                    textY += 15;
+                }
+            }
+        }
+        g2d.setPaint(Color.WHITE);
+    }
+
+    /**
+     * Apply the latest drag position to the control point, tangent, or heading being dragged. This is called
+     * at most once a frame while dragging, and when the drag ends.
+     */
+    private void pkgApplyDrag() {
+        if (null == pendingDragPt) {
+            return;
+        }
+        Point2D pt = pendingDragPt;
+        pendingDragPt = null;
+        lastDragNanos = System.nanoTime();
+        if ((mode == MODE_ADD) && null != newControlPoint) {
+            newControlPoint.setFieldLocation(pt);
+            journal.recordLocation(path, newControlPoint);
+            modifiedSinceSave = true;
+            pendingUndoStep = true;
+        } else if ((mode == MODE_EDIT) && (null != overControlPoint)) {
+            if (OVER_CONTROL_POINT == overWhat) {
+                overControlPoint.setFieldLocation(pt);
+                journal.recordLocation(path, overControlPoint);
+                modifiedSinceSave = true;
+                pendingUndoStep = true;
+            } else if (OVER_TANGENT_POINT == overWhat) {
+                overControlPoint.setTangentLocation(pt);
+                journal.recordTangent(path, overControlPoint);
+                modifiedSinceSave = true;
+                pendingUndoStep = true;
+            } else if (OVER_HEADING_POINT == overWhat) {
+                overControlPoint.setHeadingLocation(pt);
+                journal.recordHeading(path, overControlPoint);
+                modifiedSinceSave = true;
+                pendingUndoStep = true;
+            }
+        }
+        repaint();
+    }
+
+    /**
+     * Submit the path for analysis if it, the robot, or the field changed since the last submission. This is
+     * called at the start of every paint, which follows every edit, and costs a comparison of each control
+     * point when nothing changed. The path is not sampled here; during a drag the scheduled commands, which
+     * can only be found by sampling, are taken from the current undo step because a drag cannot change them.
+     */
+    private void pkgUpdateAnalysis() {
+        PathSnapshot current = undoHistory.getCurrent();
+        PathSnapshot snapshot = (null == current) ? PathSnapshot.capture(path, analysisSnapshot) :
+                PathSnapshot.captureControlPoints(path, analysisSnapshot, current);
+        double tolerance = OUTLINE_TOL / scale;
+        if ((snapshot != analysisSnapshot) || (robot != analysisRobot) || (field != analysisField) ||
+                (tolerance != analysisTolerance)) {
+            analysisSnapshot = snapshot;
+            analysisRobot = robot;
+            analysisField = field;
+            analysisTolerance = tolerance;
+            analyzer.submit(snapshot, robot, field, tolerance);
+        }
+    }
+
+    /**
+     * Bring the path analysis up to date and wait for it to be published. This is for rendering the path
+     * headless, i.e. in tests and benchmarks, where the next frame never comes.
+     */
+    void pkgAwaitAnalysis() {
+        pkgUpdateAnalysis();
+        analyzer.awaitLatest();
     }
 
     private void pkgSetEditMode() {
@@ -1103,6 +1448,110 @@ public class PathCanvas extends Canvas implements ActionListener {
         return pathFile;
     }
 
+    /**
+     * Set the file watcher that hot-reloads the path file when it is edited outside the planner.
+     *
+     * @param fileWatcher The file watcher, {@code null} if the path file should not be watched.
+     */
+    public void setFileWatcher(@Nullable FileWatcher fileWatcher) {
+        this.fileWatcher = fileWatcher;
+        pkgWatchPathFile();
+    }
+
+    /**
+     * Set the journal that records edits for crash recovery. If the journal has unsaved work from a previous
+     * session that did not exit cleanly, the user is asked whether that work should be recovered.
+     *
+     * @param journal The edit journal.
+     */
+    public void setEditJournal(@NotNull EditJournal journal) {
+        this.journal = journal;
+        EditJournal.Recovery recovery = journal.getRecovery();
+        if (null != recovery) {
+            int result = JOptionPane.showConfirmDialog(this,
+                    "The path planner did not exit cleanly, do you want to recover your unsaved work?",
+                    "Recover Unsaved Work?",
+                    JOptionPane.YES_NO_OPTION,
+                    JOptionPane.QUESTION_MESSAGE);
+            if (result == JOptionPane.YES_OPTION) {
+                recovery.recover(path);
+                undoHistory.reset(path);
+                pathFile = recovery.getPathFile();
+                modifiedSinceSave = true;
+                pkgSetEditMode();
+                pkgWatchPathFile();
+                titleChange.titleChanged();
+                repaint();
+            }
+        }
+        pkgCompactJournal();
+    }
+
+    /**
+     * Set the speed multiplier for the path.
+     *
+     * @param speedMultiplier The speed multiplier.
+     */
+    public void setSpeedMultiplier(double speedMultiplier) {
+        path.setSpeedMultiplier(speedMultiplier);
+        journal.recordSpeedMultiplier(path);
+        modifiedSinceSave = true;
+        undoHistory.record(path);
+        repaint();
+    }
+
+    /**
+     * @return {@code true} if there is an edit that can be undone, {@code false} otherwise.
+     */
+    public boolean canUndo() {
+        return undoHistory.canUndo();
+    }
+
+    /**
+     * @return {@code true} if there is an undone edit that can be redone, {@code false} otherwise.
+     */
+    public boolean canRedo() {
+        return undoHistory.canRedo();
+    }
+
+    /**
+     * Undo the last edit to the path.
+     */
+    public void undo() {
+        if (animator.isAnimating()) {
+            pkgStopAnimation();
+        }
+        if (undoHistory.undo(path)) {
+            pkgPathRestored();
+        }
+    }
+
+    /**
+     * Redo the last undone edit to the path.
+     */
+    public void redo() {
+        if (animator.isAnimating()) {
+            pkgStopAnimation();
+        }
+        if (undoHistory.redo(path)) {
+            pkgPathRestored();
+        }
+    }
+
+    /**
+     * The path was rebuilt from an undo snapshot, so the control points being edited no longer exist.
+     */
+    private void pkgPathRestored() {
+        if (path.getControlPoints().isEmpty()) {
+            pkgSetExtendMode();
+        } else {
+            pkgSetEditMode();
+        }
+        modifiedSinceSave = true;
+        pkgCompactJournal();
+        repaint();
+    }
+
     /**
      * Test whether the path been modified since the last save.
      *
@@ -1122,6 +1571,8 @@ public class PathCanvas extends Canvas implements ActionListener {
         clearPath();
         pathFile = null;
         modifiedSinceSave = false;
+        pkgWatchPathFile();
+        pkgCompactJournal();
         titleChange.titleChanged();
     }
 
@@ -1138,6 +1589,10 @@ public class PathCanvas extends Canvas implements ActionListener {
             pkgSetExtendMode();
             pathFile = null;
             modifiedSinceSave = false;
+            pkgWatchPathFile();
+            pkgCompactJournal();
+            // clearing is undoable, the undo restores the control points of the cleared path
+            undoHistory.record(path);
             repaint();
         }
     }
@@ -1154,13 +1609,34 @@ public class PathCanvas extends Canvas implements ActionListener {
         if (JFileChooser.APPROVE_OPTION == fc.showOpenDialog(this)) {
             File file = fc.getSelectedFile();
             System.out.println("Loading path from: " + file.getAbsolutePath());
-            pathFile = file;
-            path.loadPath(file.getAbsolutePath());
-            modifiedSinceSave = false;
-            titleChange.titleChanged();
+            KochanekBartelsSpline loadedPath = new KochanekBartelsSpline();
+            PlannerEvents.loadPath(loadedPath, file.getAbsolutePath());
+            setLoadedPath(file, loadedPath);
         } else {
             System.out.println("Load path command cancelled by user.");
+            pkgSetEditMode();
+            repaint();
+        }
+    }
+
+    /**
+     * Make a path that was loaded from a file the path being edited. This is used by the load menu action, and
+     * at startup when a path file loaded in the background is named on the command line.
+     *
+     * @param file       The file the path was loaded from.
+     * @param loadedPath The loaded path.
+     */
+    public void setLoadedPath(@NotNull File file, @NotNull KochanekBartelsSpline loadedPath) {
+        if (animator.isAnimating()) {
+            pkgStopAnimation();
         }
+        pathFile = file;
+        path = loadedPath;
+        modifiedSinceSave = false;
+        pkgWatchPathFile();
+        pkgCompactJournal();
+        undoHistory.reset(path);
+        titleChange.titleChanged();
         pkgSetEditMode();
         repaint();
     }
@@ -1170,8 +1646,11 @@ public class PathCanvas extends Canvas implements ActionListener {
      */
     public void reloadPath() {
         System.out.println("Reloading path from: " + pathFile.getAbsolutePath());
-        path.loadPath(pathFile.getAbsolutePath());
+        PlannerEvents.loadPath(path, pathFile.getAbsolutePath());
         modifiedSinceSave = false;
+        pkgWatchPathFile();
+        pkgCompactJournal();
+        undoHistory.reset(path);
         pkgSetEditMode();
         repaint();
     }
@@ -1181,12 +1660,70 @@ public class PathCanvas extends Canvas implements ActionListener {
      */
     public void savePath() {
         System.out.println("Saving path as: " + pathFile.getAbsolutePath());
-        path.savePath(pathFile.getAbsolutePath());
+        PlannerEvents.savePath(path, pathFile.getAbsolutePath());
         modifiedSinceSave = false;
+        // re-watch so the change notification for our own save is not treated as an external edit
+        pkgWatchPathFile();
+        pkgCompactJournal();
         pkgSetEditMode();
         repaint();
     }
 
+    /**
+     * Swap in a path that the {@link FileWatcher} reloaded because the path file was edited outside the
+     * planner. The reload is ignored if there are unsaved changes in the planner, because the user would
+     * lose those changes.
+     *
+     * @param reloadedPath The path that was read from the path file.
+     */
+    void pkgPathFileChanged(@NotNull KochanekBartelsSpline reloadedPath) {
+        if (modifiedSinceSave) {
+            System.out.println("Path file changed, not reloaded because there are unsaved changes: " +
+                    pathFile.getAbsolutePath());
+            return;
+        }
+        System.out.println("Path file changed, reloaded from: " + pathFile.getAbsolutePath());
+        if (animator.isAnimating()) {
+            pkgStopAnimation();
+        }
+        path = reloadedPath;
+        pkgCompactJournal();
+        undoHistory.reset(path);
+        pkgSetEditMode();
+        repaint();
+    }
+
+    /**
+     * Restart the edit journal from a snapshot of the current path, i.e. when the path is loaded or saved.
+     */
+    private void pkgCompactJournal() {
+        journal.compact(path, pathFile, modifiedSinceSave);
+    }
+
+    /**
+     * Start (or stop) watching the current path file for changes made outside the planner.
+     */
+    private void pkgWatchPathFile() {
+        if (null == fileWatcher) {
+            return;
+        }
+        if (null == pathFile) {
+            fileWatcher.unwatch(FileWatcher.PATH);
+        } else {
+            fileWatcher.watch(FileWatcher.PATH, pathFile, file -> {
+                try {
+                    KochanekBartelsSpline reloadedPath = new KochanekBartelsSpline();
+                    PlannerEvents.loadPath(reloadedPath, file.getAbsolutePath());
+                    // an empty path is almost certainly a file caught in the middle of being rewritten
+                    return reloadedPath.getControlPoints().isEmpty() ? null : reloadedPath;
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                    return null;
+                }
+            }, this::pkgPathFileChanged);
+        }
+    }
+
     /**
      * Save the path to a new path file.
      */
@@ -1211,37 +1748,242 @@ public class PathCanvas extends Canvas implements ActionListener {
      * Animate the robot position on the path from start to end of the path.
      */
     public void animatePath() {
-        if (null == timer) {
-            // create the timer if one does not exist
-            timer = new Timer(20, this);
-            timer.setInitialDelay(200);
-            timer.start();
+        pkgStartAnimation(false);
+    }
+
+    /**
+     * Start animating the path from the beginning.
+     *
+     * @param paused {@code true} to start paused, i.e. to step through the path.
+     * @return {@code true} if the animation started, {@code false} if the path is empty.
+     */
+    private boolean pkgStartAnimation(boolean paused) {
+        // playing starts from the trajectory of the path as it is now, so wait for an edit being analyzed
+        pkgAwaitAnalysis();
+        PathAnalysis analysis = analyzer.getLatest();
+        TrajectoryTable trajectory = (null == analysis) ? null : analysis.getTrajectory();
+        if (null == trajectory) {
+            return false;
+        }
+        performanceMonitor.timerStopped();
+        animator.start(trajectory, paused);
+        pkgTimelineChanged();
+        return true;
+    }
+
+    /**
+     * Pause a running animation, or resume a paused one. If the path is not being animated, start animating
+     * it.
+     */
+    public void togglePauseAnimation() {
+        if (!animator.isAnimating()) {
+            animatePath();
+            return;
+        }
+        SimulationClock clock = animator.getClock();
+        if (clock.isPaused()) {
+            clock.play();
         } else {
-            timer.restart();
+            clock.pause();
         }
-        pathStartTime = -1;
-        currentPathTime = 0.0;
-        stopAndRunEndTime = -1;
-        stopAndRunDescription = null;
-        stopAndRunDuration = 0;
-        pathFollower = path.getPathFollower();
-        System.out.printf("    seconds     forward      strafe     angular    too fast!%n");
-        animate = true;
+        // the ticks while paused are not timer jitter
+        performanceMonitor.timerStopped();
+        pkgTimelineChanged();
     }
 
     /**
-     * Stop an animation, normally called when the animation reaches the end of the path.
+     * Pause the animation and step it forward or back. If the path is not being animated, start a paused
+     * animation at the beginning of the path.
+     *
+     * @param steps The number of {@link PathAnimator#STEP_SECONDS} steps, negative to step back.
+     */
+    public void stepAnimation(int steps) {
+        if (animator.isAnimating() || pkgStartAnimation(true)) {
+            animator.getClock().step(steps * PathAnimator.STEP_SECONDS);
+            performanceMonitor.timerStopped();
+            animator.refresh();
+        }
+    }
+
+    /**
+     * Pause the animation and move it to a playback time, i.e. from the scrub bar. If the path is not being
+     * animated, start a paused animation.
+     *
+     * @param time The playback time, in seconds.
+     */
+    public void seekAnimation(double time) {
+        if (animator.isAnimating() || pkgStartAnimation(true)) {
+            SimulationClock clock = animator.getClock();
+            clock.pause();
+            clock.seek(time);
+            performanceMonitor.timerStopped();
+            animator.refresh();
+        }
+    }
+
+    /**
+     * Set the animation play rate.
+     *
+     * @param rate The number of path seconds played per second, from {@link SimulationClock#MIN_RATE} to
+     *             {@link SimulationClock#MAX_RATE}.
+     */
+    public void setPlayRate(double rate) {
+        animator.getClock().setRate(rate);
+        repaint();
+    }
+
+    public double getPlayRate() {
+        return animator.getClock().getRate();
+    }
+
+    public boolean isAnimationPaused() {
+        return animator.getClock().isPaused();
+    }
+
+    /**
+     * Get the current animation frame.
+     *
+     * @return The current frame, {@code null} if the path is not being animated.
+     */
+    @Nullable
+    public AnimationFrame getAnimationFrame() {
+        return animator.getFrame();
+    }
+
+    /**
+     * Get the time to play the path, as of the latest path analysis.
+     *
+     * @return The playback time, in seconds, including the time stopped to run commands; 0 if the path is
+     * empty.
+     */
+    public double getPlaybackDuration() {
+        TrajectoryTable trajectory = getTrajectory();
+        return (null == trajectory) ? 0.0 : Math.max(trajectory.getDuration(), animator.getPlayback().getDuration());
+    }
+
+    /**
+     * Create an exporter for the animation of the path as it is now, with the other robots played with the path.
+     *
+     * @param width     The frame width, in pixels.
+     * @param height    The frame height, in pixels.
+     * @param frameRate The frames per second.
+     * @return The exporter, {@code null} if the path is empty.
+     */
+    @Nullable
+    public AnimationExporter createAnimationExporter(int width, int height, int frameRate) {
+        pkgAwaitAnalysis();
+        TrajectoryTable trajectory = getTrajectory();
+        return (null == trajectory) ? null :
+                new AnimationExporter(field, trajectory, animator.getPlayback(), width, height, frameRate);
+    }
+
+    /**
+     * Get the other robots played with the path, i.e. alliance partners and opponents.
+     *
+     * @return The other robots.
+     */
+    @NotNull
+    public MultiRobotPlayback getMultiRobotPlayback() {
+        return animator.getPlayback();
+    }
+
+    /**
+     * Set the other robots played with the path.
+     *
+     * @param playback The other robots.
+     */
+    public void setMultiRobotPlayback(@NotNull MultiRobotPlayback playback) {
+        animator.setPlayback(playback);
+        pkgTimelineChanged();
+    }
+
+    /**
+     * Get the trajectory of the path, as of the latest path analysis.
+     *
+     * @return The trajectory, {@code null} if the path is empty or has not been analyzed.
+     */
+    @Nullable
+    public TrajectoryTable getTrajectory() {
+        PathAnalysis analysis = analyzer.getLatest();
+        return (null == analysis) ? null : analysis.getTrajectory();
+    }
+
+    /**
+     * Highlight a time on the path, i.e. the time under the mouse in the timeline plot. The robot position at
+     * the time is marked on the field.
+     *
+     * @param pathTime The path time, in seconds, {@code Double.NaN} to clear the highlight.
+     */
+    public void setHighlightPathTime(double pathTime) {
+        if (Double.compare(pathTime, highlightPathTime) != 0) {
+            highlightPathTime = pathTime;
+            pkgTimelineChanged();
+        }
+    }
+
+    /**
+     * @return The highlighted path time, in seconds, {@code Double.NaN} if no time is highlighted.
+     */
+    public double getHighlightPathTime() {
+        return highlightPathTime;
+    }
+
+    /**
+     * Add a listener that is called on the event dispatch thread when the animation frame, the animation
+     * state, the playback duration, or the highlighted path time changes, i.e. to update a scrub bar.
+     *
+     * @param listener The listener.
+     */
+    public void addTimelineListener(@NotNull Runnable listener) {
+        timelineListeners.add(listener);
+    }
+
+    private void pkgTimelineChanged() {
+        for (Runnable listener : timelineListeners) {
+            listener.run();
+        }
+        repaint();
+    }
+
+    /**
+     * Stop an animation.
      */
     private void pkgStopAnimation() {
-        timer.stop();
-        animate = false;
-        pathStartTime = -1;
-        currentPathTime = 0.0;
-        stopAndRunEndTime = -1;
-        stopAndRunDescription = null;
-        stopAndRunDuration = 0;
-        pathFollower = null;
-        currentPathPoint = null;
+        animator.stop();
+        performanceMonitor.timerStopped();
+        pkgTimelineChanged();
+    }
+
+    /**
+     * Called on the event dispatch thread when the analyzer publishes a new analysis of the path. An
+     * animation in progress continues on the new trajectory.
+     */
+    private void pkgAnalysisPublished() {
+        PathAnalysis analysis = analyzer.getLatest();
+        if ((null != analysis) && (null != analysis.getTrajectory())) {
+            animator.setTrajectory(analysis.getTrajectory());
+        }
+        pkgTimelineChanged();
+    }
+
+    /**
+     * Called on the event dispatch thread when the animator publishes a new frame.
+     */
+    private void pkgAnimationTick() {
+        if (animator.isAnimating()) {
+            if (!animator.getClock().isPaused()) {
+                performanceMonitor.timerTick(PathAnimator.TICK_MILLIS);
+            }
+            pkgTimelineChanged();
+        }
+    }
+
+    /**
+     * Called on the event dispatch thread when the animation reaches the end of the path.
+     */
+    private void pkgAnimationFinished() {
+        performanceMonitor.timerStopped();
+        pkgTimelineChanged();
     }
 
     /**
@@ -1249,6 +1991,19 @@ public class PathCanvas extends Canvas implements ActionListener {
      * sign of X and X components.
      */
      void switchAlliance() {
+        flipAlliance(path);
+        journal.recordSwitchAlliance(path);
+        modifiedSinceSave = true;
+        undoHistory.record(path);
+        repaint();
+    }
+
+    /**
+     * Flip the alliance of a path.
+     *
+     * @param path The path to be flipped.
+     */
+    static void flipAlliance(@NotNull KochanekBartelsSpline path) {
         // So, the deal here is that we have built a path for the opposing alliance rather than
         // ours, and we want to flip it. we do that by going through the control points and flipping
         // the sign of anything X and Y (which is a 180deg rotation).
@@ -1259,6 +2014,5 @@ public class PathCanvas extends Canvas implements ActionListener {
             cp.setFieldLocation(-cp.getFieldX(), -cp.getFieldY());
             cp.setFieldHeading(cp.getFieldHeading().add(AngleD.PI));
         }
-        repaint();
     }
 }
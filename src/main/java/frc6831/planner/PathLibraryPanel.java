@@ -0,0 +1,259 @@
+package frc6831.planner;
+
+import org.jetbrains.annotations.NotNull;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * A browser of the paths in a {@link PathLibrary}: a table of the path thumbnails, titles, files, durations,
+ * distances, actions, and alliance sides that is filtered as the search text is typed. Double-clicking a path (or
+ * pressing enter) opens it. The library is scanned in the background whenever the browser is shown or the
+ * library folder changes, and the table is filled when the scan completes; searching the scanned library is
+ * in memory so it keeps up with typing. Thumbnails are only requested for the rows that are painted, and rows
+ * whose thumbnail is not ready yet are painted without one and repainted when it arrives (see
+ * {@link PathThumbnails}).
+ */
+@SuppressWarnings("HungarianNotationMemberVariables")
+public class PathLibraryPanel extends JPanel {
+
+    private static final String ALL_SIDES = "Either side";
+    private static final String[] COLUMN_NAMES =
+            {"Preview", "Title", "File", "Time (s)", "Distance (m)", "Actions", "Side"};
+    private static final Class<?>[] COLUMN_CLASSES =
+            {Icon.class, String.class, String.class, Double.class, Double.class, Integer.class, String.class};
+    private static final int THUMBNAIL_MARGIN = 4;
+
+    private final Consumer<File> m_onOpen;
+    private final JTextField m_search = new JTextField(24);
+    private final JComboBox<Object> m_side = new JComboBox<>(new Object[]{ALL_SIDES,
+            PathLibrary.AllianceSide.RED, PathLibrary.AllianceSide.BLUE, PathLibrary.AllianceSide.CENTER});
+    private final JLabel m_status = new JLabel(" ");
+    private final JLabel m_details = new JLabel(" ");
+    private final PathThumbnails m_thumbnails;
+    private final EntryTableModel m_model = new EntryTableModel();
+    private final JTable m_table = new JTable(m_model);
+    private PathLibrary m_library;
+    private boolean m_scanning = false;
+
+    /**
+     * The filtered entries as a table.
+     */
+    private class EntryTableModel extends AbstractTableModel {
+        private List<PathLibrary.Entry> m_entries = List.of();
+
+        void setEntries(@NotNull List<PathLibrary.Entry> entries) {
+            m_entries = entries;
+            fireTableDataChanged();
+        }
+
+        PathLibrary.Entry getEntry(int row) {
+            return m_entries.get(row);
+        }
+
+        @Override
+        public int getRowCount() {
+            return m_entries.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMN_NAMES.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMN_NAMES[column];
+        }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            return COLUMN_CLASSES[column];
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            PathLibrary.Entry entry = m_entries.get(row);
+            switch (column) {
+                case 0:
+                    return m_thumbnails.get(m_library.getFile(entry), entry);
+                case 1:
+                    return entry.getTitle();
+                case 2:
+                    return entry.getRelativePath();
+                case 3:
+                    return Math.round(entry.getDuration() * 100.0) / 100.0;
+                case 4:
+                    return Math.round(entry.getDistance() * 100.0) / 100.0;
+                case 5:
+                    return entry.getActions().size();
+                default:
+                    return entry.getSide().toString();
+            }
+        }
+    }
+
+    /**
+     * Create the library browser.
+     *
+     * @param root   The library root folder.
+     * @param field  The field the thumbnails are drawn on.
+     * @param onOpen Called on the event dispatch thread with the path file when a path is opened.
+     */
+    public PathLibraryPanel(@NotNull File root, @NotNull Field field, @NotNull Consumer<File> onOpen) {
+        super(new BorderLayout());
+        m_onOpen = onOpen;
+        m_library = new PathLibrary(root);
+        m_thumbnails = new PathThumbnails(m_table::repaint);
+        m_thumbnails.setField(field);
+
+        JPanel controls = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        controls.add(new JLabel("Search:"));
+        controls.add(m_search);
+        controls.add(m_side);
+        JButton folder = new JButton("Folder ...");
+        controls.add(folder);
+        controls.add(m_status);
+        add(controls, BorderLayout.NORTH);
+
+        m_table.setAutoCreateRowSorter(true);
+        // sorting by the preview would request the thumbnail of every path
+        ((DefaultRowSorter<?, ?>) m_table.getRowSorter()).setSortable(0, false);
+        m_table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        m_table.setRowHeight(PathThumbnails.HEIGHT + THUMBNAIL_MARGIN);
+        m_table.getColumnModel().getColumn(0).setPreferredWidth(PathThumbnails.WIDTH + THUMBNAIL_MARGIN);
+        m_table.getColumnModel().getColumn(0).setMinWidth(PathThumbnails.WIDTH + THUMBNAIL_MARGIN);
+        m_table.getColumnModel().getColumn(1).setPreferredWidth(220);
+        m_table.getColumnModel().getColumn(2).setPreferredWidth(220);
+        add(new JScrollPane(m_table), BorderLayout.CENTER);
+        m_details.setBorder(BorderFactory.createEmptyBorder(4, 6, 4, 6));
+        add(m_details, BorderLayout.SOUTH);
+
+        m_search.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                pkgFilter();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                pkgFilter();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                pkgFilter();
+            }
+        });
+        m_side.addActionListener(e -> pkgFilter());
+        folder.addActionListener(e -> pkgChooseFolder());
+        m_table.getSelectionModel().addListSelectionListener(e -> pkgShowDetails());
+        m_table.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (2 == e.getClickCount()) {
+                    pkgOpenSelected();
+                }
+            }
+        });
+        m_table.getInputMap(JComponent.WHEN_ANCESTOR_OF_FOCUSED_COMPONENT)
+                .put(KeyStroke.getKeyStroke(KeyEvent.VK_ENTER, 0), "open");
+        m_table.getActionMap().put("open", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                pkgOpenSelected();
+            }
+        });
+    }
+
+    /**
+     * Scan the library in the background, and show the paths when the scan completes. A scan that is requested
+     * while one is running is ignored.
+     */
+    public void rescan() {
+        if (m_scanning) {
+            return;
+        }
+        m_scanning = true;
+        m_status.setText("Scanning " + m_library.getRoot().getPath() + " ...");
+        final PathLibrary library = m_library;
+        final long start = System.nanoTime();
+        CompletableFuture.supplyAsync(library::scan).whenComplete((entries, e) -> SwingUtilities.invokeLater(() -> {
+            m_scanning = false;
+            if (null != e) {
+                e.printStackTrace();
+            }
+            if (library != m_library) {
+                // the folder changed while scanning
+                rescan();
+                return;
+            }
+            m_status.setText(String.format("%d paths in %s (%d read, %.0f ms)", library.getEntries().size(),
+                    library.getRoot().getPath(), library.getExtractedCount(), (System.nanoTime() - start) / 1.0e6));
+            pkgFilter();
+        }));
+    }
+
+    /**
+     * Set the field the thumbnails are drawn on, i.e. after a different field is loaded. The thumbnails are
+     * only drawn again if the field changed.
+     *
+     * @param field The field.
+     */
+    public void setField(@NotNull Field field) {
+        m_thumbnails.setField(field);
+        m_table.repaint();
+    }
+
+    private void pkgFilter() {
+        Object side = m_side.getSelectedItem();
+        m_model.setEntries(m_library.search(m_search.getText(),
+                (side instanceof PathLibrary.AllianceSide) ? (PathLibrary.AllianceSide) side : null));
+        pkgShowDetails();
+    }
+
+    private PathLibrary.Entry pkgGetSelected() {
+        int row = m_table.getSelectedRow();
+        return (row < 0) ? null : m_model.getEntry(m_table.convertRowIndexToModel(row));
+    }
+
+    private void pkgShowDetails() {
+        PathLibrary.Entry entry = pkgGetSelected();
+        if (null == entry) {
+            m_details.setText(" ");
+            return;
+        }
+        String actions = entry.getActions().isEmpty() ? "no actions" : String.join(", ", entry.getActions());
+        m_details.setText(String.format("%s - %s", entry.getDescription().isEmpty() ? entry.getRelativePath() :
+                entry.getDescription(), actions));
+    }
+
+    private void pkgOpenSelected() {
+        PathLibrary.Entry entry = pkgGetSelected();
+        if (null != entry) {
+            m_onOpen.accept(m_library.getFile(entry));
+        }
+    }
+
+    private void pkgChooseFolder() {
+        JFileChooser fc = new JFileChooser(m_library.getRoot());
+        fc.setDialogTitle("Path Library Folder");
+        fc.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+        if (JFileChooser.APPROVE_OPTION == fc.showOpenDialog(this)) {
+            m_library = new PathLibrary(fc.getSelectedFile());
+            m_model.setEntries(List.of());
+            rescan();
+        }
+    }
+}
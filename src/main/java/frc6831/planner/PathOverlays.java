@@ -0,0 +1,212 @@
+package frc6831.planner;
+
+import org.a05annex.util.geo2d.KochanekBartelsSpline;
+import org.a05annex.util.geo2d.KochanekBartelsSpline.PathPoint;
+import org.jetbrains.annotations.NotNull;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read-only paths drawn beneath the path being edited, i.e. our autos and our alliance partners' autos, to
+ * compare them for conflicts. Overlay paths never change once loaded, so each is drawn once into its own
+ * cached layer image, and the visible layers are composited into one image that is drawn with a single
+ * {@code drawImage} each frame. The layers are redrawn only when the view transform or canvas size changes,
+ * and the composite only when that happens or an overlay is shown, hidden, added, or removed.
+ * <p>
+ * Overlays are managed on the event dispatch thread.
+ */
+@SuppressWarnings("HungarianNotationMemberVariables")
+public class PathOverlays {
+
+    // colors that stand out from the field and from each other, and from the white/red/orange edited path
+    private static final Color[] COLORS = {
+            new Color(0, 200, 255), new Color(120, 255, 120), new Color(255, 120, 255), new Color(255, 230, 0),
+            new Color(160, 160, 255), new Color(0, 255, 200), new Color(255, 170, 120), new Color(200, 200, 200)};
+    private static final float LAYER_ALPHA = 0.75f;
+    private static final int LABEL_SPACING = 12;
+    private static final int LABEL_STAGGER = 4;
+
+    /**
+     * An overlay path, sampled into field coordinates when it is loaded.
+     */
+    private static class Overlay {
+        private final String m_name;
+        private final double[] m_fieldX;
+        private final double[] m_fieldY;
+        private final Color m_color;
+        // autos often start at the same place, so the labels are staggered
+        private final int m_labelOffset;
+        private boolean m_visible = true;
+        private BufferedImage m_layer = null;
+
+        Overlay(@NotNull String name, @NotNull List<PathPoint> samples, @NotNull Color color, int labelOffset) {
+            m_name = name;
+            m_fieldX = new double[samples.size()];
+            m_fieldY = new double[samples.size()];
+            for (int i = 0; i < samples.size(); i++) {
+                m_fieldX[i] = samples.get(i).fieldPt.getX();
+                m_fieldY[i] = samples.get(i).fieldPt.getY();
+            }
+            m_color = color;
+            m_labelOffset = labelOffset;
+        }
+    }
+
+    private final List<Overlay> m_overlays = new ArrayList<>();
+    // the view the layers were drawn for
+    private AffineTransform m_layerXfm = null;
+    private int m_layerWidth = 0;
+    private int m_layerHeight = 0;
+    private BufferedImage m_composite = null;
+    private boolean m_compositeValid = false;
+
+    /**
+     * Load a path file as an overlay.
+     *
+     * @param file The path file.
+     * @return {@code true} if the path was loaded, {@code false} if it could not be loaded or is empty.
+     */
+    public boolean load(@NotNull File file) {
+        try {
+            KochanekBartelsSpline path = new KochanekBartelsSpline();
+            PlannerEvents.loadPath(path, file.getAbsolutePath());
+            List<PathPoint> samples = path.getCurveSegments();
+            if (samples.isEmpty()) {
+                System.out.println("Overlay path is empty: " + file.getAbsolutePath());
+                return false;
+            }
+            String name = file.getName().endsWith(".json") ?
+                    file.getName().substring(0, file.getName().length() - ".json".length()) : file.getName();
+            int index = m_overlays.size();
+            m_overlays.add(new Overlay(name, samples, COLORS[index % COLORS.length],
+                    LABEL_SPACING * (index % LABEL_STAGGER)));
+            m_compositeValid = false;
+            return true;
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            System.out.println("Could not load overlay path: " + file.getAbsolutePath());
+            return false;
+        }
+    }
+
+    /**
+     * Remove all the overlays.
+     */
+    public void clear() {
+        m_overlays.clear();
+        m_composite = null;
+        m_compositeValid = false;
+    }
+
+    public int size() {
+        return m_overlays.size();
+    }
+
+    @NotNull
+    public String getName(int index) {
+        return m_overlays.get(index).m_name;
+    }
+
+    @NotNull
+    public Color getColor(int index) {
+        return m_overlays.get(index).m_color;
+    }
+
+    public boolean isVisible(int index) {
+        return m_overlays.get(index).m_visible;
+    }
+
+    public void setVisible(int index, boolean visible) {
+        Overlay overlay = m_overlays.get(index);
+        if (overlay.m_visible != visible) {
+            overlay.m_visible = visible;
+            m_compositeValid = false;
+        }
+    }
+
+    /**
+     * Draw the visible overlays.
+     *
+     * @param g2d     The graphics for the canvas back buffer.
+     * @param drawXfm The field to canvas transform.
+     * @param width   The canvas width.
+     * @param height  The canvas height.
+     */
+    public void draw(@NotNull Graphics2D g2d, @NotNull AffineTransform drawXfm, int width, int height) {
+        if (m_overlays.isEmpty() || (width <= 0) || (height <= 0)) {
+            return;
+        }
+        if ((width != m_layerWidth) || (height != m_layerHeight) || !drawXfm.equals(m_layerXfm)) {
+            // the view changed, every layer needs to be drawn again
+            for (Overlay overlay : m_overlays) {
+                overlay.m_layer = null;
+            }
+            m_layerXfm = new AffineTransform(drawXfm);
+            m_layerWidth = width;
+            m_layerHeight = height;
+            m_composite = null;
+            m_compositeValid = false;
+        }
+        if (!m_compositeValid) {
+            pkgComposite();
+        }
+        g2d.drawImage(m_composite, 0, 0, null);
+    }
+
+    private void pkgComposite() {
+        if (null == m_composite) {
+            m_composite = new BufferedImage(m_layerWidth, m_layerHeight, BufferedImage.TYPE_INT_ARGB);
+        }
+        Graphics2D g2d = m_composite.createGraphics();
+        try {
+            g2d.setComposite(AlphaComposite.Clear);
+            g2d.fillRect(0, 0, m_layerWidth, m_layerHeight);
+            g2d.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, LAYER_ALPHA));
+            for (Overlay overlay : m_overlays) {
+                if (overlay.m_visible) {
+                    if (null == overlay.m_layer) {
+                        overlay.m_layer = pkgDrawLayer(overlay);
+                    }
+                    g2d.drawImage(overlay.m_layer, 0, 0, null);
+                }
+            }
+        } finally {
+            g2d.dispose();
+        }
+        m_compositeValid = true;
+    }
+
+    @NotNull
+    private BufferedImage pkgDrawLayer(@NotNull Overlay overlay) {
+        BufferedImage layer = new BufferedImage(m_layerWidth, m_layerHeight, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2d = layer.createGraphics();
+        try {
+            g2d.setPaint(overlay.m_color);
+            Point2D.Double fieldPt = new Point2D.Double();
+            Point2D.Double lastPt = new Point2D.Double();
+            Point2D.Double thisPt = new Point2D.Double();
+            for (int i = 0; i < overlay.m_fieldX.length; i++) {
+                fieldPt.setLocation(overlay.m_fieldX[i], overlay.m_fieldY[i]);
+                m_layerXfm.transform(fieldPt, thisPt);
+                if (i > 0) {
+                    g2d.drawLine((int) lastPt.getX(), (int) lastPt.getY(), (int) thisPt.getX(), (int) thisPt.getY());
+                } else {
+                    // mark and label the start of the path
+                    g2d.fillOval((int) thisPt.getX() - 4, (int) thisPt.getY() - 4, 8, 8);
+                    g2d.drawString(overlay.m_name, (int) thisPt.getX() + 6,
+                            (int) thisPt.getY() - 6 - overlay.m_labelOffset);
+                }
+                lastPt.setLocation(thisPt);
+            }
+        } finally {
+            g2d.dispose();
+        }
+        return layer;
+    }
+}
@@ -5,7 +5,9 @@ import net.sourceforge.argparse4j.inf.ArgumentParser;
 import net.sourceforge.argparse4j.inf.ArgumentParserException;
 import net.sourceforge.argparse4j.inf.Namespace;
 import org.a05annex.util.Utl;
+import org.a05annex.util.geo2d.KochanekBartelsSpline;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import javax.swing.*;
 import javax.swing.event.MenuEvent;
@@ -14,9 +16,16 @@ import javax.swing.filechooser.FileNameExtensionFilter;
 import java.awt.*;
 import java.awt.event.*;
 import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
 
 public class PathPlanner extends JFrame implements ActionListener, MenuListener, WindowListener, TitleChangeListener {
 
+    // the animation play rates offered in the path menu
+    private static final double[] PLAY_RATES = {0.1, 0.25, 0.5, 1.0, 2.0, 4.0, 10.0};
+
     private int m_nSizeX = 565;         // the initial X size of the app window (for images for class website).
     private int m_nSizeY = 574;         // the initial Y size of the app window (for images for class website).
     private final GraphicsConfiguration m_graphicsConfig;       // the graphics configuration of the window device
@@ -31,42 +40,128 @@ public class PathPlanner extends JFrame implements ActionListener, MenuListener,
     private final JMenuItem m_menuPathNewPath;          // the menu start a new path
     private final JMenuItem m_menuPathLoadPath;         // the menu file-load path button
     private final JMenuItem m_menuPathReloadPath;       // the menu file-reload path button
+    private final JMenuItem m_menuPathLibrary;          // browse the path library
     private final JMenuItem m_menuPathSavePath;         // the menu path save button
     private final JMenuItem m_menuPathSaveAsPath;       // the menu path save-as button
+    // - undo/redo path edits
+    private final JMenuItem m_menuPathUndo;             // undo the last path edit
+    private final JMenuItem m_menuPathRedo;             // redo the last undone path edit
     // - animating the path
     private final JMenuItem m_menuPathPlay;             // play an animation of the current path
+    private final JMenuItem m_menuPathPause;            // pause/resume the animation
+    private final JMenuItem m_menuPathStepForward;      // step the animation forward
+    private final JMenuItem m_menuPathStepBack;         // step the animation back
+    private final JRadioButtonMenuItem[] m_menuPathPlayRates;   // the animation play rates
+    private final JMenuItem m_menuPathExportGif;        // export the animation as an animated GIF
+    private final JMenuItem m_menuPathExportFrames;     // export the animation as a PNG image sequence
     private final JMenuItem m_menuSpeedMultiplier;      // globally change the speed of a path
     // - path - switch alliance - in case you drew the path at the wrong end.
     private final JMenuItem m_menuSwitchAlliance;       // switch the alliance for the path
     // - path clear and start again - clearing and starting a new path (severe)
     private final JMenuItem m_menuPathClearPath;        // the menu edit - clear the current path and reset to
 
+    // Overlays menu items
+    private final JMenu m_menuOverlays;
+    private final JMenuItem m_menuOverlaysLoad;         // load overlay paths
+    private final JMenuItem m_menuOverlaysClear;        // remove all the overlay paths
+
+    // Alliance menu items
+    private final JMenu m_menuAlliance;
+    private final JMenuItem m_menuAllianceAddPartner;   // add a partner robot to play with the path
+    private final JMenuItem m_menuAllianceAddOpponent;  // add an opponent robot to play with the path
+    private final JMenuItem m_menuAllianceClear;        // remove all the partner and opponent robots
+
+    // View menu items
+    private final JCheckBoxMenuItem m_menuViewTimelinePlot; // show/hide the speed timeline plot
+    private final JCheckBoxMenuItem m_menuViewPerformance;  // toggle the paint/latency/timer performance overlay
+    private final JMenuItem m_menuViewFlightRecording;  // start/stop and save a flight recording
+    private final FlightRecorderControl m_flightRecorder = new FlightRecorderControl();
+
     private final PathCanvas m_canvas;                  // the rendering canvas (defined at the end of this file)
-    private final Robot m_robot = new Robot();          // the robot description
-    private final Field m_field = new Field();          // the field description
+    private final TimelinePlotPanel m_timelinePlot;     // the speed plot docked under the canvas
+    private Robot m_robot;                              // the robot description
+    private Field m_field;                              // the field description
+    private FileWatcher m_fileWatcher = null;           // hot-reloads the path, field, and robot files
+    private EditJournal m_editJournal = null;           // journals edits for crash recovery
+    private final StartupTimer m_startupTimer;          // the startup phase timings, reported at the first frame
+    private JDialog m_libraryDialog = null;             // the path library browser, created when first shown
+    private PathLibraryPanel m_libraryPanel = null;
+
+    /**
+     * The robot, field, and path descriptions named on the command line. These are loaded on background threads
+     * while the window and menus are built, and joined when the canvas is created.
+     */
+    private static class StartupLoader {
+        final StartupTimer m_timer = new StartupTimer();
+        final String m_robotDescFile;
+        final String m_fieldDescFile;
+        final String m_pathFile;
+        final CompletableFuture<Robot> m_robot;
+        final CompletableFuture<Field> m_field;
+        final CompletableFuture<KochanekBartelsSpline> m_path;
+
+        StartupLoader(@Nullable String robotDescFile, @Nullable String fieldDescFile, @Nullable String pathFile) {
+            m_robotDescFile = robotDescFile;
+            m_fieldDescFile = fieldDescFile;
+            m_pathFile = pathFile;
+            m_robot = CompletableFuture.supplyAsync(() -> m_timer.time("robot load", () -> {
+                Robot robot = new Robot();
+                if (null != robotDescFile) {
+                    robot.loadRobot(robotDescFile);
+                }
+                return robot;
+            }));
+            m_field = CompletableFuture.supplyAsync(() -> m_timer.time("field load", () -> {
+                Field field = new Field();
+                if (null != fieldDescFile) {
+                    field.loadField(fieldDescFile);
+                }
+                return field;
+            }));
+            m_path = (null == pathFile) ? CompletableFuture.completedFuture(null) :
+                    CompletableFuture.supplyAsync(() -> m_timer.time("path load", () -> {
+                        try {
+                            KochanekBartelsSpline path = new KochanekBartelsSpline();
+                            PlannerEvents.loadPath(path, new File(pathFile).getAbsolutePath());
+                            return path;
+                        } catch (RuntimeException e) {
+                            e.printStackTrace();
+                            return null;
+                        }
+                    }));
+        }
+    }
 
     public static void main(@NotNull final String[] args) {
         // Setup the commandline argument parser and parse any commandline arguments
         ArgumentParser parser = ArgumentParsers.newFor("PathPlanner").build()
-                .description("Swerve Drive Path Planner");
+                .description("Swerve Drive Path Planner")
+                .epilog("Run 'java -jar SwervePathPlanning-<version>-all.jar evaluate -h' for how to print path " +
+                        "statistics without the planner window.");
         parser.addArgument("-r", "--robot")
                 .type(String.class)
                 .help("specify a field description file");
         parser.addArgument("-f", "--field")
                 .type(String.class)
                 .help("specify a robot description file");
+        parser.addArgument("-p", "--path")
+                .type(String.class)
+                .help("specify a path file");
         String robotDescFile = null;
         String fieldDescFile = null;
+        String pathFile = null;
         try {
             Namespace parsedArgs = parser.parseArgs(args);
             robotDescFile = parsedArgs.get("robot");
             fieldDescFile = parsedArgs.get("field");
+            pathFile = parsedArgs.get("path");
         } catch (ArgumentParserException e) {
             parser.handleError(e);
         }
-        // start the path planning window
+        // start loading the descriptions before anything else, then start the path planning window
         try {
-            final PathPlanner pathPlanner = new PathPlanner(robotDescFile, fieldDescFile);
+            final StartupLoader loader = new StartupLoader(robotDescFile, fieldDescFile, pathFile);
+            final PathPlanner pathPlanner = new PathPlanner(loader);
             pathPlanner.setVisible(true);
         } catch (final Throwable t) {
             t.printStackTrace();
@@ -74,7 +169,9 @@ public class PathPlanner extends JFrame implements ActionListener, MenuListener,
         }
     }
 
-    private PathPlanner(String robotDescFile, String fieldDescFile) {
+    private PathPlanner(@NotNull StartupLoader loader) {
+        m_startupTimer = loader.m_timer;
+        final long windowStart = System.nanoTime();
         //------------------------------------------------------------------
         // setup the window for drawing the field and paths
         //------------------------------------------------------------------
@@ -99,33 +196,110 @@ public class PathPlanner extends JFrame implements ActionListener, MenuListener,
         m_menuPathNewPath = createMenuItem(m_menuPath, "New ...", this);
         m_menuPathLoadPath = createMenuItem(m_menuPath, "Load ...", this);
         m_menuPathReloadPath = createMenuItem(m_menuPath, "Reload", this);
+        m_menuPathLibrary = createMenuItem(m_menuPath, "Library ...", this);
         m_menuPathSavePath = createMenuItem(m_menuPath, "Save", this);
         m_menuPathSaveAsPath = createMenuItem(m_menuPath, "Save As ...", this);
         m_menuPath.addSeparator();
+        final int shortcutMask = Toolkit.getDefaultToolkit().getMenuShortcutKeyMaskEx();
+        m_menuPathUndo = createMenuItem(m_menuPath, "Undo", this);
+        m_menuPathUndo.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_Z, shortcutMask));
+        m_menuPathRedo = createMenuItem(m_menuPath, "Redo", this);
+        m_menuPathRedo.setAccelerator(
+                KeyStroke.getKeyStroke(KeyEvent.VK_Z, shortcutMask | InputEvent.SHIFT_DOWN_MASK));
+        m_menuPath.addSeparator();
         m_menuPathPlay = createMenuItem(m_menuPath, "Play Path", this);
+        m_menuPathPause = createMenuItem(m_menuPath, "Pause / Resume", this);
+        m_menuPathPause.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_P, shortcutMask));
+        m_menuPathStepForward = createMenuItem(m_menuPath, "Step Forward", this);
+        m_menuPathStepForward.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_CLOSE_BRACKET, shortcutMask));
+        m_menuPathStepBack = createMenuItem(m_menuPath, "Step Back", this);
+        m_menuPathStepBack.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_OPEN_BRACKET, shortcutMask));
+        final JMenu menuPlayRate = new JMenu("Play Rate");
+        m_menuPath.add(menuPlayRate);
+        final ButtonGroup playRateGroup = new ButtonGroup();
+        m_menuPathPlayRates = new JRadioButtonMenuItem[PLAY_RATES.length];
+        for (int i = 0; i < PLAY_RATES.length; i++) {
+            m_menuPathPlayRates[i] = new JRadioButtonMenuItem(
+                    BigDecimal.valueOf(PLAY_RATES[i]).stripTrailingZeros().toPlainString() + "x",
+                    1.0 == PLAY_RATES[i]);
+            m_menuPathPlayRates[i].addActionListener(this);
+            playRateGroup.add(m_menuPathPlayRates[i]);
+            menuPlayRate.add(m_menuPathPlayRates[i]);
+        }
+        m_menuPathExportGif = createMenuItem(m_menuPath, "Export Animation GIF ...", this);
+        m_menuPathExportFrames = createMenuItem(m_menuPath, "Export Animation Frames ...", this);
         m_menuSpeedMultiplier = createMenuItem(m_menuPath, "Speed Multiplier", this);
         m_menuPath.addSeparator();
         m_menuSwitchAlliance = createMenuItem(m_menuPath, "Switch Alliance", this);
         m_menuPath.addSeparator();
         m_menuPathClearPath = createMenuItem(m_menuPath, "Clear Path", this);
 
+        m_menuOverlays = createMenu(menubar, "Overlays");
+        m_menuOverlays.addMenuListener(this);
+        m_menuOverlaysLoad = createMenuItem(m_menuOverlays, "Load Overlay Paths ...", this);
+        m_menuOverlaysClear = createMenuItem(m_menuOverlays, "Clear Overlays", this);
+
+        m_menuAlliance = createMenu(menubar, "Alliance");
+        m_menuAlliance.addMenuListener(this);
+        m_menuAllianceAddPartner = createMenuItem(m_menuAlliance, "Add Partner Robot ...", this);
+        m_menuAllianceAddOpponent = createMenuItem(m_menuAlliance, "Add Opponent Robot ...", this);
+        m_menuAllianceClear = createMenuItem(m_menuAlliance, "Remove Robots", this);
+
+        final JMenu menuView = createMenu(menubar, "View");
+        m_menuViewTimelinePlot = new JCheckBoxMenuItem("Timeline Plot", true);
+        m_menuViewTimelinePlot.addActionListener(this);
+        menuView.add(m_menuViewTimelinePlot);
+        m_menuViewPerformance = new JCheckBoxMenuItem("Performance Overlay");
+        m_menuViewPerformance.addActionListener(this);
+        menuView.add(m_menuViewPerformance);
+        m_menuViewFlightRecording = createMenuItem(menuView, "Start Flight Recording", this);
+
         // the menubar is configured, now add it
         setJMenuBar(menubar);
         // and right now everything is so simple that this is the listener
         addWindowListener(this);
 
+        m_startupTimer.record("window and menus", windowStart);
+
         //------------------------------------------------------------------
-        // create a canvas to draw on
+        // create a canvas to draw on - the robot and field are needed now
         //------------------------------------------------------------------
-        if (null != robotDescFile) {
-            m_robot.loadRobot(robotDescFile);
-        }
-        if (null != fieldDescFile) {
-            m_field.loadField(fieldDescFile);
-        }
-        m_canvas = new PathCanvas(m_graphicsConfig, m_robot, m_field, this);
+        m_robot = loader.m_robot.join();
+        m_field = loader.m_field.join();
+        m_canvas = m_startupTimer.time("canvas", () -> new PathCanvas(m_graphicsConfig, m_robot, m_field, this));
         titleChanged();
         add(m_canvas, BorderLayout.CENTER);
+        m_timelinePlot = new TimelinePlotPanel(m_canvas);
+        final JPanel timeline = new JPanel(new BorderLayout());
+        timeline.add(m_timelinePlot, BorderLayout.CENTER);
+        timeline.add(new ScrubBar(m_canvas), BorderLayout.SOUTH);
+        add(timeline, BorderLayout.SOUTH);
+        final KochanekBartelsSpline startupPath = loader.m_path.join();
+        if (null != startupPath) {
+            m_canvas.setLoadedPath(new File(loader.m_pathFile), startupPath);
+        }
+
+        //------------------------------------------------------------------
+        // watch the loaded files so hand edits are reloaded
+        //------------------------------------------------------------------
+        try {
+            m_fileWatcher = new FileWatcher();
+            m_canvas.setFileWatcher(m_fileWatcher);
+            if (null != loader.m_robotDescFile) {
+                watchRobotFile(new File(loader.m_robotDescFile));
+            }
+            if (null != loader.m_fieldDescFile) {
+                watchFieldFile(new File(loader.m_fieldDescFile));
+            }
+        } catch (IOException e) {
+            System.out.println("No file watching, not supported by this platform.");
+        }
+
+        //------------------------------------------------------------------
+        // journal edits so a crash does not lose unsaved work
+        //------------------------------------------------------------------
+        m_editJournal = new EditJournal(PlannerFiles.getDirectory("recovery"));
+        m_canvas.setEditJournal(m_editJournal);
 
         //------------------------------------------------------------------
         // Setup the app menu
@@ -167,15 +341,81 @@ public class PathPlanner extends JFrame implements ActionListener, MenuListener,
         if (JFileChooser.APPROVE_OPTION == fc.showOpenDialog(m_canvas)) {
             File file = fc.getSelectedFile();
             System.out.println("Loading field from: " + file.getAbsolutePath());
-            m_field.loadField(file.getAbsolutePath());
+            // the field is loaded into a new field and swapped in, the path analysis and the path library
+            // thumbnails may be reading the current field on their own threads
+            Field field = new Field();
+            field.loadField(file.getAbsolutePath());
+            m_field = field;
+            m_canvas.setField(field);
             titleChanged();
-            m_canvas.resetFieldGeometry();
-            m_canvas.repaint();
+            watchFieldFile(file);
         } else {
             System.out.println("Load field command cancelled by user.");
         }
     }
 
+    /**
+     * Show the path library browser, which is rescanned every time it is shown so paths added or edited
+     * outside the planner appear, and the thumbnails follow the field if a different field was loaded. The
+     * library is {@code resources/paths} if the planner is run from the project, and the working directory
+     * otherwise.
+     */
+    private void showPathLibrary() {
+        if (null == m_libraryDialog) {
+            File root = new File(System.getProperty("user.dir"), "resources/paths");
+            m_libraryPanel = new PathLibraryPanel(root.isDirectory() ? root :
+                    new File(System.getProperty("user.dir")), m_field, this::openLibraryPath);
+            m_libraryDialog = new JDialog(this, "Path Library", false);
+            m_libraryDialog.add(m_libraryPanel);
+            m_libraryDialog.setSize(1000, 600);
+            m_libraryDialog.setLocationRelativeTo(this);
+        }
+        m_libraryPanel.setField(m_field);
+        m_libraryPanel.rescan();
+        m_libraryDialog.setVisible(true);
+    }
+
+    /**
+     * Open a path chosen in the path library browser as the path being edited.
+     *
+     * @param file The path file.
+     */
+    private void openLibraryPath(@NotNull File file) {
+        System.out.println("Loading path from: " + file.getAbsolutePath());
+        KochanekBartelsSpline loadedPath = new KochanekBartelsSpline();
+        PlannerEvents.loadPath(loadedPath, file.getAbsolutePath());
+        m_canvas.setLoadedPath(file, loadedPath);
+    }
+
+    private void toggleFlightRecording() {
+        if (!m_flightRecorder.isRecording()) {
+            if (m_flightRecorder.start()) {
+                m_menuViewFlightRecording.setText("Stop Flight Recording ...");
+            } else {
+                JOptionPane.showMessageDialog(this, "Flight recording is not available.");
+            }
+            return;
+        }
+        JFileChooser fc = new JFileChooser(System.getProperty("user.dir"));
+        fc.setDialogTitle("Save Flight Recording");
+        fc.setFileFilter(new FileNameExtensionFilter("Flight Recording", "jfr"));
+        fc.setSelectedFile(new File(FlightRecorderControl.suggestedFileName()));
+        File file = null;
+        if (JFileChooser.APPROVE_OPTION == fc.showSaveDialog(m_canvas)) {
+            file = fc.getSelectedFile();
+            if (!file.getName().endsWith(".jfr")) {
+                file = new File(file.getAbsolutePath() + ".jfr");
+            }
+        }
+        try {
+            m_flightRecorder.stop(file);
+        } catch (IOException e) {
+            e.printStackTrace();
+            JOptionPane.showMessageDialog(this, "Could not save the flight recording: " + e.getMessage());
+        }
+        m_menuViewFlightRecording.setText("Start Flight Recording");
+    }
+
     private void loadRobot() {
         JFileChooser fc = new JFileChooser(System.getProperty("user.dir"));
         fc.setDialogTitle("Load Robot");
@@ -184,14 +424,106 @@ public class PathPlanner extends JFrame implements ActionListener, MenuListener,
         if (JFileChooser.APPROVE_OPTION == fc.showOpenDialog(m_canvas)) {
             File file = fc.getSelectedFile();
             System.out.println("Loading robot from: " + file.getAbsolutePath());
-            m_robot.loadRobot(file.getAbsolutePath());
-            m_canvas.resetRobotGeometry();
-            m_canvas.repaint();
+            // the robot is loaded into a new robot and swapped in, the path analysis may be reading the
+            // current robot on its own thread
+            Robot robot = new Robot();
+            robot.loadRobot(file.getAbsolutePath());
+            m_robot = robot;
+            m_canvas.setRobot(robot);
+            watchRobotFile(file);
         } else {
             System.out.println("Load robot command cancelled by user.");
         }
     }
 
+    /**
+     * Export the path animation, with any partner and opponent robots, at the default resolution and frame
+     * rate. The frames are rendered in the background, and a message is shown when the export is done.
+     *
+     * @param gif {@code true} to export an animated GIF, {@code false} to export a directory of PNG frames.
+     */
+    private void exportAnimation(boolean gif) {
+        final AnimationExporter exporter = m_canvas.createAnimationExporter(AnimationExporter.DEFAULT_WIDTH,
+                AnimationExporter.DEFAULT_HEIGHT, AnimationExporter.DEFAULT_FRAME_RATE);
+        if (null == exporter) {
+            JOptionPane.showMessageDialog(this, "There is no path to export.");
+            return;
+        }
+        JFileChooser fc = new JFileChooser(System.getProperty("user.dir"));
+        if (gif) {
+            fc.setDialogTitle("Export Animation GIF");
+            fc.setFileFilter(new FileNameExtensionFilter("GIF image", "gif"));
+            fc.setAcceptAllFileFilterUsed(false);
+        } else {
+            fc.setDialogTitle("Export Animation Frames to Directory");
+            fc.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+        }
+        if (JFileChooser.APPROVE_OPTION != fc.showSaveDialog(this)) {
+            System.out.println("Export animation command cancelled by user.");
+            return;
+        }
+        File selected = fc.getSelectedFile();
+        final File file = (gif && !selected.getName().toLowerCase().endsWith(".gif")) ?
+                new File(selected.getParentFile(), selected.getName() + ".gif") : selected;
+        System.out.printf("Exporting %d animation frames to: %s%n", exporter.getFrameCount(), file.getAbsolutePath());
+        CompletableFuture.runAsync(() -> {
+            long start = System.nanoTime();
+            String message;
+            try {
+                if (gif) {
+                    exporter.exportGif(file);
+                } else {
+                    exporter.exportPngSequence(file);
+                }
+                message = String.format("Exported %d frames in %.1f seconds to %s", exporter.getFrameCount(),
+                        (System.nanoTime() - start) / 1.0e9, file.getAbsolutePath());
+            } catch (IOException e) {
+                e.printStackTrace();
+                message = "Could not export the animation: " + e.getMessage();
+            }
+            System.out.println(message);
+            final String done = message;
+            SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(this, done));
+        });
+    }
+
+    /**
+     * Watch the field file, and swap in a reloaded field when the file is edited.
+     *
+     * @param file The field description file.
+     */
+    private void watchFieldFile(@NotNull File file) {
+        if (null == m_fileWatcher) {
+            return;
+        }
+        m_fileWatcher.watch(FileWatcher.FIELD, file, changedFile -> {
+            Field field = new Field();
+            return field.loadField(changedFile.getAbsolutePath()) ? field : null;
+        }, field -> {
+            m_field = field;
+            m_canvas.setField(field);
+            titleChanged();
+        });
+    }
+
+    /**
+     * Watch the robot file, and swap in a reloaded robot when the file is edited.
+     *
+     * @param file The robot description file.
+     */
+    private void watchRobotFile(@NotNull File file) {
+        if (null == m_fileWatcher) {
+            return;
+        }
+        m_fileWatcher.watch(FileWatcher.ROBOT, file, changedFile -> {
+            Robot robot = new Robot();
+            return robot.loadRobot(changedFile.getAbsolutePath()) ? robot : null;
+        }, robot -> {
+            m_robot = robot;
+            m_canvas.setRobot(robot);
+        });
+    }
+
     private void exitPathPlaner() {
         // All done, dispose of the frame (window)
         if ( m_canvas.modifiedSinceSave()) {
@@ -208,6 +540,11 @@ public class PathPlanner extends JFrame implements ActionListener, MenuListener,
             }
         }
 
+        if (null != m_fileWatcher) {
+            m_fileWatcher.close();
+        }
+        m_editJournal.close();
+        m_flightRecorder.close();
         dispose();
     }
 
@@ -219,11 +556,135 @@ public class PathPlanner extends JFrame implements ActionListener, MenuListener,
             System.out.println("Path Menu enable/disable");
             m_menuPathReloadPath.setEnabled(null != m_canvas.getPathFile());
             m_menuPathSavePath.setEnabled(null != m_canvas.getPathFile());
+            m_menuPathUndo.setEnabled(m_canvas.canUndo());
+            m_menuPathRedo.setEnabled(m_canvas.canRedo());
+        } else if (e.getSource() == m_menuOverlays) {
+            buildOverlaysMenu();
+        } else if (e.getSource() == m_menuAlliance) {
+            buildAllianceMenu();
+        }
+    }
+
+    /**
+     * Enable adding robots to alliances that have room, and list the robots at the end of the alliance menu.
+     */
+    private void buildAllianceMenu() {
+        while (m_menuAlliance.getItemCount() > 3) {
+            m_menuAlliance.remove(3);
+        }
+        MultiRobotPlayback playback = m_canvas.getMultiRobotPlayback();
+        m_menuAllianceAddPartner.setEnabled(playback.canAdd(false));
+        m_menuAllianceAddOpponent.setEnabled(playback.canAdd(true));
+        m_menuAllianceClear.setEnabled(playback.size() > 0);
+        if (playback.size() > 0) {
+            m_menuAlliance.addSeparator();
+        }
+        for (int i = 0; i < playback.size(); i++) {
+            JMenuItem item = new JMenuItem(playback.getName(i) + (playback.isOpponent(i) ? " (opponent)" :
+                    " (partner)"));
+            item.setEnabled(false);
+            m_menuAlliance.add(item);
+        }
+    }
+
+    /**
+     * Add a partner or opponent robot to play with the path: its path, then its robot description. If the
+     * robot description is cancelled the robot is the same as the robot following the path.
+     *
+     * @param opponent {@code true} for an opponent robot, {@code false} for a partner robot.
+     */
+    private void addAllianceRobot(boolean opponent) {
+        String kind = opponent ? "Opponent" : "Partner";
+        JFileChooser fc = new JFileChooser(System.getProperty("user.dir"));
+        fc.setDialogTitle("Load " + kind + " Path");
+        fc.setFileFilter(new FileNameExtensionFilter("JSON file", "json"));
+        fc.setAcceptAllFileFilterUsed(false);
+        if (JFileChooser.APPROVE_OPTION != fc.showOpenDialog(this)) {
+            System.out.println("Add " + kind.toLowerCase() + " robot command cancelled by user.");
+            return;
+        }
+        File pathFile = fc.getSelectedFile();
+        Robot robot = m_robot;
+        fc.setDialogTitle("Load " + kind + " Robot (cancel to use the current robot)");
+        if (JFileChooser.APPROVE_OPTION == fc.showOpenDialog(this)) {
+            robot = new Robot();
+            if (!robot.loadRobot(fc.getSelectedFile().getAbsolutePath())) {
+                JOptionPane.showMessageDialog(this, "Could not load the robot: " + fc.getSelectedFile());
+                return;
+            }
+        }
+        System.out.println("Loading " + kind.toLowerCase() + " path from: " + pathFile.getAbsolutePath());
+        TrajectoryTable trajectory = MultiRobotPlayback.loadTrajectory(pathFile, robot);
+        if (null == trajectory) {
+            JOptionPane.showMessageDialog(this, "Could not load the path: " + pathFile);
+            return;
+        }
+        String name = pathFile.getName().endsWith(".json") ?
+                pathFile.getName().substring(0, pathFile.getName().length() - ".json".length()) :
+                pathFile.getName();
+        m_canvas.setMultiRobotPlayback(m_canvas.getMultiRobotPlayback().withRobot(name, opponent, trajectory));
+    }
+
+    /**
+     * Rebuild the overlay visibility check boxes at the end of the overlays menu.
+     */
+    private void buildOverlaysMenu() {
+        while (m_menuOverlays.getItemCount() > 2) {
+            m_menuOverlays.remove(2);
+        }
+        PathOverlays overlays = m_canvas.getOverlays();
+        m_menuOverlaysClear.setEnabled(overlays.size() > 0);
+        if (overlays.size() > 0) {
+            m_menuOverlays.addSeparator();
+        }
+        for (int i = 0; i < overlays.size(); i++) {
+            final int index = i;
+            JCheckBoxMenuItem item = new JCheckBoxMenuItem(overlays.getName(i), overlays.isVisible(i));
+            item.setForeground(overlays.getColor(i).darker());
+            item.addActionListener(e -> {
+                overlays.setVisible(index, item.isSelected());
+                m_canvas.repaint();
+            });
+            m_menuOverlays.add(item);
+        }
+    }
+
+    /**
+     * Load overlay paths - path files, or directories of path files, i.e. all of {@code resources/paths/2024}.
+     */
+    private void loadOverlays() {
+        JFileChooser fc = new JFileChooser(System.getProperty("user.dir"));
+        fc.setDialogTitle("Load Overlay Paths");
+        fc.setFileFilter(new FileNameExtensionFilter("JSON file", "json"));
+        fc.setFileSelectionMode(JFileChooser.FILES_AND_DIRECTORIES);
+        fc.setMultiSelectionEnabled(true);
+        if (JFileChooser.APPROVE_OPTION == fc.showOpenDialog(this)) {
+            PathOverlays overlays = m_canvas.getOverlays();
+            for (File selected : fc.getSelectedFiles()) {
+                File[] files = selected.isDirectory() ?
+                        selected.listFiles((dir, name) -> name.endsWith(".json")) : new File[]{selected};
+                if (null != files) {
+                    Arrays.sort(files);
+                    for (File file : files) {
+                        System.out.println("Loading overlay path from: " + file.getAbsolutePath());
+                        overlays.load(file);
+                    }
+                }
+            }
+            m_canvas.repaint();
+        } else {
+            System.out.println("Load overlay paths command cancelled by user.");
         }
     }
 
     @Override
     public void menuDeselected(MenuEvent e) {
+        if (e.getSource() == m_menuPath) {
+            // the undo/redo keyboard shortcuts only work for enabled menu items, the canvas ignores an
+            // undo or redo when there is nothing to undo or redo.
+            m_menuPathUndo.setEnabled(true);
+            m_menuPathRedo.setEnabled(true);
+        }
 
     }
 
@@ -242,34 +703,76 @@ public class PathPlanner extends JFrame implements ActionListener, MenuListener,
             m_canvas.loadPath();
         } else if (src == m_menuPathReloadPath) {
             m_canvas.reloadPath();
+        } else if (src == m_menuPathLibrary) {
+            showPathLibrary();
         } else if (src == m_menuContextLoadRobot) {
             loadRobot();
         } else if (src == m_menuPathSavePath) {
             m_canvas.savePath();
         } else if (src == m_menuPathSaveAsPath) {
             m_canvas.savePathAs();
-         } else if (src == m_menuPathNewPath) {
+         } else if (src == m_menuPathUndo) {
+            m_canvas.undo();
+        } else if (src == m_menuPathRedo) {
+            m_canvas.redo();
+        } else if (src == m_menuPathNewPath) {
             m_canvas.newPath();
         } else if (src == m_menuPathClearPath) {
             m_canvas.clearPath();
         } else if (src == m_menuPathPlay) {
             m_canvas.animatePath();
+        } else if (src == m_menuPathPause) {
+            m_canvas.togglePauseAnimation();
+        } else if (src == m_menuPathStepForward) {
+            m_canvas.stepAnimation(1);
+        } else if (src == m_menuPathStepBack) {
+            m_canvas.stepAnimation(-1);
+        } else if (src == m_menuPathExportGif) {
+            exportAnimation(true);
+        } else if (src == m_menuPathExportFrames) {
+            exportAnimation(false);
         } else if (src == m_menuSpeedMultiplier) {
             String m = JOptionPane.showInputDialog(this, "Speed Multiplier:",
                     String.format("%.2f", m_canvas.getPath().getSpeedMultiplier()));
             try {
-                m_canvas.getPath().setSpeedMultiplier(Utl.clip(Double.parseDouble(m), 0.1, 5.0));
+                m_canvas.setSpeedMultiplier(Utl.clip(Double.parseDouble(m), 0.1, 5.0));
             } catch (NumberFormatException e) {
                 JOptionPane.showMessageDialog(this, String.format("'%s' is not a valid number.", m));
             }
         } else if (src == m_menuSwitchAlliance) {
             m_canvas.switchAlliance();
+        } else if (src == m_menuViewFlightRecording) {
+            toggleFlightRecording();
+        } else if (src instanceof JRadioButtonMenuItem) {
+            for (int i = 0; i < m_menuPathPlayRates.length; i++) {
+                if (src == m_menuPathPlayRates[i]) {
+                    m_canvas.setPlayRate(PLAY_RATES[i]);
+                }
+            }
+        } else if (src == m_menuOverlaysLoad) {
+            loadOverlays();
+        } else if (src == m_menuOverlaysClear) {
+            m_canvas.getOverlays().clear();
+            m_canvas.repaint();
+        } else if (src == m_menuAllianceAddPartner) {
+            addAllianceRobot(false);
+        } else if (src == m_menuAllianceAddOpponent) {
+            addAllianceRobot(true);
+        } else if (src == m_menuAllianceClear) {
+            m_canvas.setMultiRobotPlayback(new MultiRobotPlayback());
+        } else if (src == m_menuViewTimelinePlot) {
+            m_timelinePlot.setVisible(m_menuViewTimelinePlot.isSelected());
+            revalidate();
+        } else if (src == m_menuViewPerformance) {
+            m_canvas.getPerformanceMonitor().setEnabled(m_menuViewPerformance.isSelected());
+            m_canvas.repaint();
         }
 
     }
 
     @Override
     public void windowOpened(WindowEvent e) {
+        m_startupTimer.report("first frame");
 
     }
 
@@ -0,0 +1,343 @@
+package frc6831.planner;
+
+import org.a05annex.util.geo2d.KochanekBartelsSpline;
+import org.a05annex.util.geo2d.KochanekBartelsSpline.PathPoint;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.imageio.ImageIO;
+import javax.swing.*;
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Thumbnail previews of paths drawn over the field, for the path library browser. Every thumbnail starts from
+ * the same small image of the field, which is drawn once per field at a higher resolution and scaled down so
+ * the field lines stay legible.
+ * <p>
+ * Thumbnails are kept in three places:
+ * <ul>
+ *     <li>a small in-memory LRU cache of the thumbnails that were recently shown, which is all that is used
+ *     while painting, so scrolling never waits for a thumbnail;</li>
+ *     <li>an on-disk cache of PNG images keyed by a hash of the path file contents and the compiled field, so a
+ *     thumbnail is drawn once and only drawn again when the path or field changes;</li>
+ *     <li>a pool of background threads that reads the thumbnails that are not in memory from the disk cache,
+ *     or draws them. The most recently requested thumbnails are generated first, so when the browser is
+ *     scrolled quickly the rows that are showing fill in first, and requests for rows that have scrolled far
+ *     out of sight are dropped.</li>
+ * </ul>
+ * Except for the background generation, this is only used on the event dispatch thread.
+ */
+@SuppressWarnings("HungarianNotationMemberVariables")
+public class PathThumbnails {
+
+    public static final int WIDTH = 160;
+    public static final int HEIGHT = 90;
+
+    /**
+     * The version of the thumbnail drawing. This must be incremented whenever a change to how thumbnails are
+     * drawn makes the thumbnails in the disk cache stale.
+     */
+    static final int THUMBNAIL_VERSION = 1;
+
+    private static final String CACHE_DIRECTORY = "thumbnails";
+    private static final String CACHE_SUFFIX = ".png";
+    // enough for several screens of the browser, each thumbnail is about 57KB
+    private static final int MEMORY_CAPACITY = 256;
+    // requests beyond this are for rows that have scrolled out of sight, and are dropped
+    private static final int MAX_QUEUED = 64;
+    // the field is drawn at this multiple of the thumbnail size and scaled down
+    private static final int FIELD_OVERSAMPLE = 4;
+    private static final Color PATH_COLOR = Color.WHITE;
+    private static final Color START_COLOR = Color.GREEN;
+    private static final Stroke PATH_STROKE = new BasicStroke(1.5f);
+    private static final double START_RADIUS = 3.0;
+
+    private final File m_cacheDirectory;
+    private final Runnable m_onGenerated;
+    private final LinkedBlockingDeque<Runnable> m_queue = new LinkedBlockingDeque<>() {
+        @Override
+        public boolean offer(@NotNull Runnable runnable) {
+            // most recent first - the executor only adds work with offer()
+            return offerFirst(runnable);
+        }
+    };
+    private final ExecutorService m_executor;
+    private final Map<String, ImageIcon> m_thumbnails = new LinkedHashMap<>(MEMORY_CAPACITY, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ImageIcon> eldest) {
+            return size() > MEMORY_CAPACITY;
+        }
+    };
+    private final Set<String> m_generating = new HashSet<>();
+    private String m_fieldHash = null;
+    private BufferedImage m_fieldImage = null;
+    private AffineTransform m_drawXfm = null;
+    private int m_generatedCount = 0;
+
+    /**
+     * A request for a thumbnail that is not in memory.
+     */
+    private final class Request implements Runnable {
+        private final String m_key;
+        private final File m_file;
+        private final String m_fieldHash;
+        private final BufferedImage m_fieldImage;
+        private final AffineTransform m_drawXfm;
+
+        private Request(@NotNull String key, @NotNull File file) {
+            m_key = key;
+            m_file = file;
+            // the field may change while this is queued, the thumbnail is drawn on the field it was requested for
+            m_fieldHash = PathThumbnails.this.m_fieldHash;
+            m_fieldImage = PathThumbnails.this.m_fieldImage;
+            m_drawXfm = PathThumbnails.this.m_drawXfm;
+        }
+
+        @Override
+        public void run() {
+            BufferedImage thumbnail = null;
+            try {
+                thumbnail = loadOrDraw(m_file, m_fieldHash, m_fieldImage, m_drawXfm);
+            } catch (IOException | RuntimeException e) {
+                System.out.println("Could not create thumbnail: " + m_file.getAbsolutePath());
+                e.printStackTrace();
+            }
+            final BufferedImage generated = thumbnail;
+            SwingUtilities.invokeLater(() -> {
+                m_generating.remove(m_key);
+                if (null != generated) {
+                    m_thumbnails.put(m_key, new ImageIcon(generated));
+                    m_onGenerated.run();
+                }
+            });
+        }
+    }
+
+    /**
+     * Create the thumbnails, with the disk cache in the planner directory.
+     *
+     * @param onGenerated Called on the event dispatch thread when a requested thumbnail is available, i.e. to
+     *                    repaint the browser.
+     */
+    public PathThumbnails(@NotNull Runnable onGenerated) {
+        this(PlannerFiles.getDirectory(CACHE_DIRECTORY), onGenerated);
+    }
+
+    /**
+     * Create the thumbnails with a specified disk cache directory, i.e. for testing.
+     *
+     * @param cacheDirectory The disk cache directory, {@code null} if thumbnails should not be kept on disk.
+     * @param onGenerated    Called on the event dispatch thread when a requested thumbnail is available.
+     */
+    PathThumbnails(@Nullable File cacheDirectory, @NotNull Runnable onGenerated) {
+        m_cacheDirectory = cacheDirectory;
+        m_onGenerated = onGenerated;
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        m_executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, m_queue, runnable -> {
+            Thread thread = new Thread(runnable, "path-thumbnails");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+
+    /**
+     * Set the field the paths are drawn on. If the field has changed since it was last set, the field image is
+     * drawn again and the thumbnails in memory are discarded. This draws the field, so the field must not be
+     * loaded while this is called.
+     *
+     * @param field The field.
+     */
+    public void setField(@NotNull Field field) {
+        String fieldHash = hashField(field);
+        if (fieldHash.equals(m_fieldHash)) {
+            return;
+        }
+        m_fieldHash = fieldHash;
+        m_drawXfm = PathCanvas.pkgFitFieldTransform(field.getMinMax(), WIDTH, HEIGHT);
+        m_fieldImage = drawField(field);
+        m_thumbnails.clear();
+    }
+
+    /**
+     * Get the thumbnail of a path. If the thumbnail is not in memory it is requested from the background
+     * threads, and {@link #PathThumbnails(Runnable) onGenerated} is called when it is available.
+     *
+     * @param file  The path file.
+     * @param entry The library entry of the path file, the modification time and size identify the version of
+     *              the path.
+     * @return The thumbnail, {@code null} if it is not in memory or the field has not been set.
+     */
+    @Nullable
+    public ImageIcon get(@NotNull File file, @NotNull PathLibrary.Entry entry) {
+        if (null == m_fieldHash) {
+            return null;
+        }
+        String key = m_fieldHash + '|' + file.getAbsolutePath() + '|' + entry.getModified() + '|' + entry.getSize();
+        ImageIcon thumbnail = m_thumbnails.get(key);
+        if ((null == thumbnail) && m_generating.add(key)) {
+            m_executor.execute(new Request(key, file));
+            while (m_queue.size() > MAX_QUEUED) {
+                Runnable stale = m_queue.pollLast();
+                if (stale instanceof Request) {
+                    // it will be requested again if it is shown again
+                    m_generating.remove(((Request) stale).m_key);
+                }
+            }
+        }
+        return thumbnail;
+    }
+
+    /**
+     * @return The number of thumbnails that have been drawn because they were not in the disk cache.
+     */
+    int getGeneratedCount() {
+        synchronized (this) {
+            return m_generatedCount;
+        }
+    }
+
+    /**
+     * Read a thumbnail from the disk cache, or draw it and write it to the disk cache.
+     */
+    @NotNull
+    private BufferedImage loadOrDraw(@NotNull File file, @NotNull String fieldHash, @NotNull BufferedImage fieldImage,
+                                     @NotNull AffineTransform drawXfm) throws IOException {
+        File cacheFile = null;
+        if (null != m_cacheDirectory) {
+            cacheFile = new File(m_cacheDirectory, PlannerFiles.sha256Hex(
+                    String.format("%d|%d|%d|%s|", THUMBNAIL_VERSION, WIDTH, HEIGHT, fieldHash).getBytes(),
+                    Files.readAllBytes(file.toPath())) + CACHE_SUFFIX);
+            if (cacheFile.isFile()) {
+                try {
+                    BufferedImage cached = ImageIO.read(cacheFile);
+                    if ((null != cached) && (WIDTH == cached.getWidth()) && (HEIGHT == cached.getHeight())) {
+                        return cached;
+                    }
+                } catch (IOException e) {
+                    // fall through and draw it again
+                }
+                System.out.println("Discarding unreadable thumbnail cache entry: " + cacheFile.getAbsolutePath());
+            }
+        }
+
+        BufferedImage thumbnail = drawPath(file, fieldImage, drawXfm);
+        synchronized (this) {
+            m_generatedCount++;
+        }
+        if (null != cacheFile) {
+            // written to a temporary file and moved into place so another planner never reads a partial image
+            File tempFile = new File(m_cacheDirectory, cacheFile.getName() + ".tmp" + Thread.currentThread().getId());
+            try {
+                ImageIO.write(thumbnail, "png", tempFile);
+                Files.move(tempFile.toPath(), cacheFile.toPath(),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                System.out.println("Could not write thumbnail cache entry: " + cacheFile.getAbsolutePath());
+                e.printStackTrace();
+                //noinspection ResultOfMethodCallIgnored
+                tempFile.delete();
+            }
+        }
+        return thumbnail;
+    }
+
+    /**
+     * Draw the path as a line through the path samples over the field image, with a dot at the start.
+     */
+    @NotNull
+    private static BufferedImage drawPath(@NotNull File file, @NotNull BufferedImage fieldImage,
+                                          @NotNull AffineTransform drawXfm) {
+        KochanekBartelsSpline path = new KochanekBartelsSpline();
+        PlannerEvents.loadPath(path, file.getAbsolutePath());
+        BufferedImage thumbnail = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = thumbnail.createGraphics();
+        try {
+            g2d.drawImage(fieldImage, 0, 0, null);
+            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            Path2D.Double line = new Path2D.Double();
+            Point2D.Double canvasPt = new Point2D.Double();
+            for (PathPoint pathPoint : path.getCurveSegments()) {
+                drawXfm.transform(pathPoint.fieldPt, canvasPt);
+                if (null == line.getCurrentPoint()) {
+                    line.moveTo(canvasPt.getX(), canvasPt.getY());
+                } else {
+                    line.lineTo(canvasPt.getX(), canvasPt.getY());
+                }
+            }
+            g2d.setPaint(PATH_COLOR);
+            g2d.setStroke(PATH_STROKE);
+            g2d.draw(line);
+            if (!path.getControlPoints().isEmpty()) {
+                KochanekBartelsSpline.ControlPoint start = path.getControlPoints().get(0);
+                drawXfm.transform(new Point2D.Double(start.getFieldX(), start.getFieldY()), canvasPt);
+                g2d.setPaint(START_COLOR);
+                g2d.fill(new Ellipse2D.Double(canvasPt.getX() - START_RADIUS, canvasPt.getY() - START_RADIUS,
+                        2.0 * START_RADIUS, 2.0 * START_RADIUS));
+            }
+        } finally {
+            g2d.dispose();
+        }
+        return thumbnail;
+    }
+
+    /**
+     * Draw the field at a multiple of the thumbnail size, and halve it until it is the thumbnail size. Halving
+     * with bilinear filtering averages the pixels, where drawing the field at the thumbnail size would drop
+     * the thin field lines.
+     */
+    @NotNull
+    private static BufferedImage drawField(@NotNull Field field) {
+        int width = WIDTH * FIELD_OVERSAMPLE;
+        int height = HEIGHT * FIELD_OVERSAMPLE;
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = image.createGraphics();
+        try {
+            g2d.setPaint(Color.BLACK);
+            g2d.fillRect(0, 0, width, height);
+            FieldRenderer.draw(field, g2d, PathCanvas.pkgFitFieldTransform(field.getMinMax(), width, height));
+        } finally {
+            g2d.dispose();
+        }
+        while (width > WIDTH) {
+            width /= 2;
+            height /= 2;
+            BufferedImage half = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            g2d = half.createGraphics();
+            try {
+                g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g2d.drawImage(image, 0, 0, width, height, null);
+            } finally {
+                g2d.dispose();
+            }
+            image = half;
+        }
+        return image;
+    }
+
+    /**
+     * Hash the compiled field, which is everything drawn in a thumbnail, so the thumbnails do not depend on
+     * which file the field was loaded from, or on edits to the field description that do not change the field.
+     */
+    @NotNull
+    static String hashField(@NotNull Field field) {
+        ByteArrayOutputStream compiled = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(compiled)) {
+            field.writeCompiled(out);
+        } catch (IOException e) {
+            // writing to memory, this cannot happen
+            throw new IllegalStateException(e);
+        }
+        return PlannerFiles.sha256Hex(compiled.toByteArray());
+    }
+}
@@ -0,0 +1,203 @@
+package frc6831.planner;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.awt.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Records where the time goes when the planner draws: how long each paint takes, how long from a mouse event
+ * until the paint that shows it, how far the animation timer strays from its period, and how much is
+ * allocated by each paint. The measurements are kept in {@link LogLinearHistogram}s and drawn as an overlay
+ * with the p50, p99, and max of each, so when someone says the planner is laggy on their laptop we can see
+ * which of these it is.
+ * <p>
+ * The monitor is toggled from the <i>View</i> menu. Nothing is recorded while it is disabled, and the
+ * histograms are cleared each time it is enabled. All the recording happens on the event dispatch thread.
+ */
+@SuppressWarnings("HungarianNotationMemberVariables")
+public class PerformanceMonitor {
+
+    private static final double NANOS_PER_MILLI = 1.0e6;
+    private static final double BYTES_PER_KB = 1024.0;
+    // a fixed width font so the columns line up
+    private static final Font OVERLAY_FONT = new Font(Font.MONOSPACED, Font.PLAIN, 12);
+
+    private final LogLinearHistogram m_paint = new LogLinearHistogram();
+    private final LogLinearHistogram m_inputLatency = new LogLinearHistogram();
+    private final LogLinearHistogram m_timerJitter = new LogLinearHistogram();
+    private final LogLinearHistogram m_allocation = new LogLinearHistogram();
+
+    // The allocation counter is a HotSpot extension, it may not be there, or may be disabled
+    private final com.sun.management.ThreadMXBean m_threadBean;
+
+    private boolean m_enabled = false;
+    private long m_paintStartNanos = 0;
+    private long m_paintStartBytes = 0;
+    private long m_pendingInputNanos = 0;
+    private long m_lastTimerNanos = 0;
+
+    public PerformanceMonitor() {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        if ((threadBean instanceof com.sun.management.ThreadMXBean) &&
+                ((com.sun.management.ThreadMXBean) threadBean).isThreadAllocatedMemorySupported() &&
+                ((com.sun.management.ThreadMXBean) threadBean).isThreadAllocatedMemoryEnabled()) {
+            m_threadBean = (com.sun.management.ThreadMXBean) threadBean;
+        } else {
+            m_threadBean = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return m_enabled;
+    }
+
+    /**
+     * Enable or disable the monitor. Enabling clears the histograms, disabling prints a summary of what was
+     * recorded to the console.
+     *
+     * @param enabled {@code true} to start recording, {@code false} to stop.
+     */
+    public void setEnabled(boolean enabled) {
+        if (enabled && !m_enabled) {
+            m_paint.reset();
+            m_inputLatency.reset();
+            m_timerJitter.reset();
+            m_allocation.reset();
+            m_pendingInputNanos = 0;
+            m_lastTimerNanos = 0;
+        } else if (!enabled && m_enabled) {
+            System.out.println("Performance summary:");
+            for (String line : summaryLines()) {
+                System.out.println("    " + line);
+            }
+        }
+        m_enabled = enabled;
+    }
+
+    /**
+     * Called at the start of a paint.
+     */
+    public void paintStarted() {
+        if (m_enabled) {
+            m_paintStartBytes = allocatedBytes();
+            m_paintStartNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * Called at the end of a paint. This records the paint time and allocation, and the latency of the
+     * earliest mouse event since the last paint.
+     */
+    public void paintFinished() {
+        if (m_enabled) {
+            long now = System.nanoTime();
+            m_paint.record(now - m_paintStartNanos);
+            if (null != m_threadBean) {
+                m_allocation.record(allocatedBytes() - m_paintStartBytes);
+            }
+            if (0 != m_pendingInputNanos) {
+                m_inputLatency.record(now - m_pendingInputNanos);
+                m_pendingInputNanos = 0;
+            }
+        }
+    }
+
+    /**
+     * Called when a mouse event is handled. The event timestamp is only millisecond resolution, on a different
+     * clock, so it is used to estimate how long the event was queued before it was handled.
+     *
+     * @param eventWhen The {@link java.awt.event.InputEvent#getWhen()} of the event.
+     */
+    public void inputReceived(long eventWhen) {
+        if (m_enabled && (0 == m_pendingInputNanos)) {
+            long queuedMillis = Math.max(0, System.currentTimeMillis() - eventWhen);
+            m_pendingInputNanos = System.nanoTime() - (queuedMillis * 1_000_000L);
+        }
+    }
+
+    /**
+     * Called when the animation timer fires. The jitter is how far the interval since the last tick is
+     * from the timer period.
+     *
+     * @param periodMillis The timer period in milliseconds.
+     */
+    public void timerTick(int periodMillis) {
+        if (m_enabled) {
+            long now = System.nanoTime();
+            if (0 != m_lastTimerNanos) {
+                m_timerJitter.record(Math.abs((now - m_lastTimerNanos) - (periodMillis * 1_000_000L)));
+            }
+            m_lastTimerNanos = now;
+        }
+    }
+
+    /**
+     * Called when the animation timer is stopped, so the time the animation was stopped is not recorded as
+     * jitter when it is restarted.
+     */
+    public void timerStopped() {
+        m_lastTimerNanos = 0;
+    }
+
+    /**
+     * Draw the overlay in the upper right corner of the canvas.
+     *
+     * @param g2d   The graphics for the canvas back buffer.
+     * @param width The width of the canvas.
+     */
+    public void draw(@NotNull Graphics2D g2d, int width) {
+        if (!m_enabled) {
+            return;
+        }
+        String[] lines = summaryLines();
+        Font oldFont = g2d.getFont();
+        g2d.setFont(OVERLAY_FONT);
+        FontMetrics metrics = g2d.getFontMetrics();
+        int textWidth = 0;
+        for (String line : lines) {
+            textWidth = Math.max(textWidth, metrics.stringWidth(line));
+        }
+        int lineHeight = metrics.getHeight();
+        int x = width - textWidth - 20;
+        int y = 10;
+        Paint oldPaint = g2d.getPaint();
+        g2d.setPaint(new Color(0, 0, 0, 192));
+        g2d.fillRect(x - 5, y, textWidth + 10, (lineHeight * lines.length) + 10);
+        g2d.setPaint(Color.YELLOW);
+        for (String line : lines) {
+            y += lineHeight;
+            g2d.drawString(line, x, y);
+        }
+        g2d.setPaint(oldPaint);
+        g2d.setFont(oldFont);
+    }
+
+    @NotNull
+    private String[] summaryLines() {
+        return new String[]{
+                String.format("%-8s %9s %9s %9s %7s", "", "p50", "p99", "max", "count"),
+                millisLine("paint", m_paint),
+                millisLine("input", m_inputLatency),
+                millisLine("jitter", m_timerJitter),
+                (null == m_threadBean) ? String.format("%-8s %9s", "alloc", "n/a") :
+                        String.format("%-8s %7.1fKB %7.1fKB %7.1fKB %7d", "alloc",
+                                m_allocation.getValueAtPercentile(50.0) / BYTES_PER_KB,
+                                m_allocation.getValueAtPercentile(99.0) / BYTES_PER_KB,
+                                m_allocation.getMax() / BYTES_PER_KB, m_allocation.getCount())
+        };
+    }
+
+    @NotNull
+    private static String millisLine(@NotNull String name, @NotNull LogLinearHistogram histogram) {
+        return String.format("%-8s %7.2fms %7.2fms %7.2fms %7d", name,
+                histogram.getValueAtPercentile(50.0) / NANOS_PER_MILLI,
+                histogram.getValueAtPercentile(99.0) / NANOS_PER_MILLI,
+                histogram.getMax() / NANOS_PER_MILLI, histogram.getCount());
+    }
+
+    private long allocatedBytes() {
+        return (null == m_threadBean) ? 0 : m_threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
@@ -0,0 +1,24 @@
+package frc6831.planner;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * The entry point of the planner jar. With {@code evaluate} as the first argument the path statistics are
+ * printed by the {@link PathEvaluator} without loading AWT windowing or Swing at all; otherwise the planner
+ * window is started by {@link PathPlanner#main(String[])} with the arguments as they are.
+ * <p>
+ * This is a separate class because {@link PathPlanner} is a {@code JFrame}: just running its {@code main}
+ * initializes the AWT and Swing window classes, and that is too late to make the JVM headless.
+ */
+public class PlannerLauncher {
+
+    public static void main(@NotNull final String[] args) {
+        if ((args.length > 0) && PathEvaluator.COMMAND.equals(args[0])) {
+            System.setProperty("java.awt.headless", "true");
+            System.exit(PathEvaluator.run(Arrays.copyOfRange(args, 1, args.length)));
+        }
+        PathPlanner.main(args);
+    }
+}
@@ -0,0 +1,66 @@
+package frc6831.planner;
+
+import org.jetbrains.annotations.NotNull;
+
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * The timeline under the field: a slider across the playback time of the path that follows the animation
+ * while it plays, and moves the robot to any time on the path when it is dragged. Every position is a
+ * lookup in the {@link TrajectoryTable}, so scrubbing back and forth is immediate however long the path is.
+ */
+@SuppressWarnings("HungarianNotationMemberVariables")
+public class ScrubBar extends JPanel {
+
+    private static final double MILLIS_PER_SECOND = 1000.0;
+
+    private final PathCanvas m_canvas;
+    private final JSlider m_slider = new JSlider(0, 0, 0);
+    private final JLabel m_time = new JLabel();
+    // set while the slider is being moved to follow the animation, so that is not taken as scrubbing
+    private boolean m_following = false;
+
+    /**
+     * Create the scrub bar for a canvas.
+     *
+     * @param canvas The canvas the path is animated on.
+     */
+    public ScrubBar(@NotNull PathCanvas canvas) {
+        super(new BorderLayout(5, 0));
+        m_canvas = canvas;
+        m_time.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        m_slider.setFocusable(false);
+        add(m_slider, BorderLayout.CENTER);
+        add(m_time, BorderLayout.EAST);
+        setBorder(BorderFactory.createEmptyBorder(2, 5, 2, 5));
+
+        m_slider.addChangeListener(e -> {
+            if (!m_following) {
+                m_canvas.seekAnimation(m_slider.getValue() / MILLIS_PER_SECOND);
+            }
+        });
+        canvas.addTimelineListener(this::follow);
+        follow();
+    }
+
+    /**
+     * Move the slider to the current animation time, and the slider range to the current playback duration.
+     */
+    private void follow() {
+        double duration = m_canvas.getPlaybackDuration();
+        AnimationFrame frame = m_canvas.getAnimationFrame();
+        double time = (null == frame) ? 0.0 : frame.getTime();
+        m_following = true;
+        try {
+            m_slider.setMaximum((int) Math.round(duration * MILLIS_PER_SECOND));
+            if (!m_slider.getValueIsAdjusting()) {
+                m_slider.setValue((int) Math.round(time * MILLIS_PER_SECOND));
+            }
+            m_slider.setEnabled(duration > 0.0);
+        } finally {
+            m_following = false;
+        }
+        m_time.setText(String.format("%6.2f / %6.2f s", time, duration));
+    }
+}
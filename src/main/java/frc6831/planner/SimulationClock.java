@@ -0,0 +1,122 @@
+package frc6831.planner;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.function.LongSupplier;
+
+/**
+ * The clock that drives path playback. Simulated time advances with real time multiplied by the play rate
+ * while the clock is running, and stands still while it is paused; it can also be stepped and moved to any
+ * time (scrubbing). Because playback reads the time from this clock rather than from the arrival times of
+ * timer events, the robot is at the same place at the same simulated time however late or irregular the
+ * ticks are, and the path can be reviewed at 4x, or stepped through a tick at a time.
+ * <p>
+ * The clock is set from the event dispatch thread and read from the animation thread, so all the methods
+ * are synchronized. The real time source can be replaced, i.e. by a test.
+ */
+@SuppressWarnings("HungarianNotationMemberVariables")
+public class SimulationClock {
+
+    /**
+     * The slowest play rate.
+     */
+    public static final double MIN_RATE = 0.1;
+    /**
+     * The fastest play rate.
+     */
+    public static final double MAX_RATE = 10.0;
+    private static final double NANOS_PER_SECOND = 1.0e9;
+
+    private final LongSupplier m_nanoTime;
+    private double m_rate = 1.0;
+    private boolean m_paused = true;
+    // the simulated time at m_anchorNanos, the simulated time is m_anchorTime while paused
+    private double m_anchorTime = 0.0;
+    private long m_anchorNanos = 0;
+
+    /**
+     * Create a paused simulation clock at time 0 using {@link System#nanoTime()} as the real time source.
+     */
+    public SimulationClock() {
+        this(System::nanoTime);
+    }
+
+    /**
+     * Create a paused simulation clock at time 0.
+     *
+     * @param nanoTime The real time source, in nanoseconds.
+     */
+    public SimulationClock(@NotNull LongSupplier nanoTime) {
+        m_nanoTime = nanoTime;
+    }
+
+    /**
+     * Get the simulated time.
+     *
+     * @return The simulated time in seconds.
+     */
+    public synchronized double getTime() {
+        return m_paused ? m_anchorTime :
+                m_anchorTime + (((m_nanoTime.getAsLong() - m_anchorNanos) / NANOS_PER_SECOND) * m_rate);
+    }
+
+    /**
+     * Set the simulated time, i.e. when scrubbing. The clock stays running or paused.
+     *
+     * @param time The new simulated time in seconds, times before 0 are set to 0.
+     */
+    public synchronized void seek(double time) {
+        m_anchorTime = Math.max(0.0, time);
+        m_anchorNanos = m_nanoTime.getAsLong();
+    }
+
+    /**
+     * Pause the clock, if it is running, and move it by some simulated time.
+     *
+     * @param seconds The simulated time to step, negative to step backwards.
+     */
+    public synchronized void step(double seconds) {
+        pause();
+        seek(m_anchorTime + seconds);
+    }
+
+    /**
+     * Start (or continue) running the clock at the play rate.
+     */
+    public synchronized void play() {
+        if (m_paused) {
+            m_anchorNanos = m_nanoTime.getAsLong();
+            m_paused = false;
+        }
+    }
+
+    /**
+     * Pause the clock at the current simulated time.
+     */
+    public synchronized void pause() {
+        if (!m_paused) {
+            m_anchorTime = getTime();
+            m_paused = true;
+        }
+    }
+
+    public synchronized boolean isPaused() {
+        return m_paused;
+    }
+
+    /**
+     * Set the play rate, the number of simulated seconds per real second. The simulated time is continuous
+     * across a change in rate.
+     *
+     * @param rate The play rate, limited to the range {@link #MIN_RATE} to {@link #MAX_RATE}.
+     */
+    public synchronized void setRate(double rate) {
+        m_anchorTime = getTime();
+        m_anchorNanos = m_nanoTime.getAsLong();
+        m_rate = Math.max(MIN_RATE, Math.min(MAX_RATE, rate));
+    }
+
+    public synchronized double getRate() {
+        return m_rate;
+    }
+}
@@ -0,0 +1,76 @@
+package frc6831.planner;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Records how long each phase of planner startup takes, and how long it takes to get to the first frame. Phases
+ * may run concurrently on different threads, so the phase durations can add up to more than the elapsed time
+ * to the first frame - the difference is the time saved by running them concurrently.
+ */
+@SuppressWarnings("HungarianNotationMemberVariables")
+public class StartupTimer {
+
+    private final long m_startNanos = System.nanoTime();
+    private final Map<String, Long> m_phaseNanos = new LinkedHashMap<>();
+
+    /**
+     * Time a startup phase.
+     *
+     * @param phase    The name of the phase.
+     * @param supplier The phase.
+     * @param <T>      The type of the result of the phase.
+     * @return The result of the phase.
+     */
+    public <T> T time(@NotNull String phase, @NotNull Supplier<T> supplier) {
+        long start = System.nanoTime();
+        try {
+            return supplier.get();
+        } finally {
+            put(phase, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Time a startup phase.
+     *
+     * @param phase    The name of the phase.
+     * @param runnable The phase.
+     */
+    public void time(@NotNull String phase, @NotNull Runnable runnable) {
+        time(phase, () -> {
+            runnable.run();
+            return null;
+        });
+    }
+
+    /**
+     * Record a startup phase that has just ended, for phases that are not conveniently wrapped in a lambda.
+     *
+     * @param phase      The name of the phase.
+     * @param startNanos The {@link System#nanoTime()} when the phase started.
+     */
+    public void record(@NotNull String phase, long startNanos) {
+        put(phase, System.nanoTime() - startNanos);
+    }
+
+    private synchronized void put(@NotNull String phase, long nanos) {
+        m_phaseNanos.put(phase, nanos);
+    }
+
+    /**
+     * Report the phase timings and the elapsed time since startup began.
+     *
+     * @param milestone The startup milestone that was just reached, i.e. {@code "first frame"}.
+     */
+    public synchronized void report(@NotNull String milestone) {
+        System.out.println("Startup timings:");
+        for (Map.Entry<String, Long> phase : m_phaseNanos.entrySet()) {
+            System.out.printf("    %-20s %8.1fms%n", phase.getKey(), phase.getValue() / 1.0e6);
+        }
+        System.out.printf("    %-20s %8.1fms%n", milestone, (System.nanoTime() - m_startNanos) / 1.0e6);
+    }
+}
@@ -0,0 +1,277 @@
+package frc6831.planner;
+
+import org.jetbrains.annotations.NotNull;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+
+/**
+ * A plot of the path speeds against path time, docked under the field: forward, strafe, and peak swerve
+ * module speed with the robot maximum module speed as a limit line, and below that the rotation speed with
+ * the robot maximum rotational speed. The plot is linked to the field canvas - the playback time is a cursor
+ * on the plot, the time under the mouse is marked on the field (and a path point under the mouse on the field
+ * is a cursor on the plot), and clicking or dragging on the plot moves the robot to that time.
+ * <p>
+ * The plot is drawn from the {@link TrajectoryTable}, which may have thousands of samples. When there are
+ * more samples than pixel columns, the samples are decimated to the minimum and maximum of each series in
+ * each pixel column, which preserves every peak, and the decimation is only recomputed when the trajectory
+ * or the plot width changes; so a redraw, which happens every animation frame, costs the same however long
+ * the path is.
+ */
+@SuppressWarnings("HungarianNotationMemberVariables")
+public class TimelinePlotPanel extends JPanel {
+
+    private static final int PREFERRED_HEIGHT = 160;
+    // the space left of the plot for the axis labels, and around the plot
+    private static final int LEFT_MARGIN = 45;
+    private static final int MARGIN = 5;
+    private static final double HEADROOM = 1.1;
+
+    private static final int FORWARD = 0;
+    private static final int STRAFE = 1;
+    private static final int PEAK_MODULE = 2;
+    private static final int ROTATION = 3;
+    private static final int SERIES_COUNT = 4;
+    private static final String[] SERIES_NAMES = {"forward", "strafe", "peak module", "rotation"};
+    private static final Color[] SERIES_COLORS = {Color.GREEN, Color.CYAN, Color.WHITE, Color.YELLOW};
+    private static final Color LIMIT_COLOR = Color.RED;
+    private static final Color GRID_COLOR = new Color(64, 64, 64);
+    private static final Stroke LIMIT_STROKE = new BasicStroke(1.0f, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER,
+            10.0f, new float[]{6.0f, 4.0f}, 0.0f);
+
+    private final PathCanvas m_canvas;
+
+    // The decimated trajectory: the min and max of each series for each pixel column, or each sample when
+    // there are fewer samples than columns, and the extent of the speeds and rotation.
+    private TrajectoryTable m_trajectory = null;
+    private int m_plotWidth = 0;
+    private int m_columns = 0;
+    private final double[][] m_min = new double[SERIES_COUNT][];
+    private final double[][] m_max = new double[SERIES_COUNT][];
+    private double m_speedExtent = 1.0;
+    private double m_rotationExtent = 1.0;
+
+    /**
+     * Create the timeline plot for a canvas.
+     *
+     * @param canvas The canvas the path is edited and animated on.
+     */
+    public TimelinePlotPanel(@NotNull PathCanvas canvas) {
+        m_canvas = canvas;
+        setBackground(Color.BLACK);
+        setPreferredSize(new Dimension(0, PREFERRED_HEIGHT));
+        canvas.addTimelineListener(this::repaint);
+
+        MouseAdapter mouseHandler = new MouseAdapter() {
+            @Override
+            public void mouseMoved(MouseEvent e) {
+                m_canvas.setHighlightPathTime(pkgPathTimeAt(e.getX()));
+            }
+
+            @Override
+            public void mouseExited(MouseEvent e) {
+                m_canvas.setHighlightPathTime(Double.NaN);
+            }
+
+            @Override
+            public void mousePressed(MouseEvent e) {
+                pkgSeek(e.getX());
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                m_canvas.setHighlightPathTime(pkgPathTimeAt(e.getX()));
+                pkgSeek(e.getX());
+            }
+        };
+        addMouseListener(mouseHandler);
+        addMouseMotionListener(mouseHandler);
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        Graphics2D g2d = (Graphics2D) g;
+        TrajectoryTable trajectory = m_canvas.getTrajectory();
+        int plotWidth = getWidth() - LEFT_MARGIN - MARGIN;
+        int laneHeight = (getHeight() - (3 * MARGIN)) / 2;
+        if ((null == trajectory) || (plotWidth < 2) || (laneHeight < 2)) {
+            return;
+        }
+        if ((trajectory != m_trajectory) || (plotWidth != m_plotWidth)) {
+            pkgDecimate(trajectory, plotWidth);
+        }
+
+        // the speeds in the upper lane, the rotation in the lower lane
+        int speedTop = MARGIN;
+        int rotationTop = (2 * MARGIN) + laneHeight;
+        pkgDrawLane(g2d, speedTop, laneHeight, m_speedExtent, trajectory.getMaxModuleSpeed(), "m/s");
+        pkgDrawLane(g2d, rotationTop, laneHeight, m_rotationExtent, trajectory.getMaxRotationalSpeed(), "rad/s");
+        pkgDrawSeries(g2d, FORWARD, speedTop, laneHeight, m_speedExtent);
+        pkgDrawSeries(g2d, STRAFE, speedTop, laneHeight, m_speedExtent);
+        pkgDrawSeries(g2d, PEAK_MODULE, speedTop, laneHeight, m_speedExtent);
+        pkgDrawSeries(g2d, ROTATION, rotationTop, laneHeight, m_rotationExtent);
+
+        // the legend
+        FontMetrics metrics = g2d.getFontMetrics();
+        int legendX = LEFT_MARGIN + 5;
+        for (int series = 0; series < SERIES_COUNT; series++) {
+            g2d.setPaint(SERIES_COLORS[series]);
+            g2d.drawString(SERIES_NAMES[series], legendX, speedTop + metrics.getAscent());
+            legendX += metrics.stringWidth(SERIES_NAMES[series]) + 10;
+        }
+
+        // the cursors: the playback time, and the highlighted time
+        int bottom = rotationTop + laneHeight;
+        AnimationFrame frame = m_canvas.getAnimationFrame();
+        if (null != frame) {
+            g2d.setPaint(Color.MAGENTA);
+            int x = pkgXAt(frame.getPathTime());
+            g2d.drawLine(x, speedTop, x, bottom);
+        }
+        double highlightPathTime = m_canvas.getHighlightPathTime();
+        if (!Double.isNaN(highlightPathTime)) {
+            g2d.setPaint(Color.CYAN);
+            int x = pkgXAt(highlightPathTime);
+            g2d.drawLine(x, speedTop, x, bottom);
+            g2d.drawString(String.format("%.2fs", highlightPathTime), x + 3, bottom - 3);
+        }
+    }
+
+    /**
+     * Decimate the trajectory to the plot width. When there are at least as many samples as columns, each column
+     * is seeded with the last value of the column before, so the min/max ranges of adjacent columns overlap and
+     * the plot is continuous, including when there is exactly one sample per column.
+     */
+    private void pkgDecimate(@NotNull TrajectoryTable trajectory, int plotWidth) {
+        m_trajectory = trajectory;
+        m_plotWidth = plotWidth;
+        int count = trajectory.getSampleCount();
+        m_columns = Math.min(count, plotWidth);
+        boolean seedColumns = count >= plotWidth;
+        for (int series = 0; series < SERIES_COUNT; series++) {
+            m_min[series] = new double[m_columns];
+            m_max[series] = new double[m_columns];
+        }
+        double speedExtent = trajectory.getMaxModuleSpeed();
+        double rotationExtent = trajectory.getMaxRotationalSpeed();
+        int column = -1;
+        for (int i = 0; i < count; i++) {
+            int sampleColumn = (int) (((long) i * m_columns) / count);
+            for (int series = 0; series < SERIES_COUNT; series++) {
+                double value = pkgValue(trajectory, series, i);
+                if (sampleColumn != column) {
+                    double seed = ((0 == i) || !seedColumns) ? value : pkgValue(trajectory, series, i - 1);
+                    m_min[series][sampleColumn] = Math.min(seed, value);
+                    m_max[series][sampleColumn] = Math.max(seed, value);
+                } else {
+                    m_min[series][sampleColumn] = Math.min(m_min[series][sampleColumn], value);
+                    m_max[series][sampleColumn] = Math.max(m_max[series][sampleColumn], value);
+                }
+                if (ROTATION == series) {
+                    rotationExtent = Math.max(rotationExtent, Math.abs(value));
+                } else {
+                    speedExtent = Math.max(speedExtent, Math.abs(value));
+                }
+            }
+            column = sampleColumn;
+        }
+        m_speedExtent = speedExtent * HEADROOM;
+        m_rotationExtent = rotationExtent * HEADROOM;
+    }
+
+    private static double pkgValue(@NotNull TrajectoryTable trajectory, int series, int index) {
+        switch (series) {
+            case FORWARD:
+                return trajectory.getSpeedForward(index);
+            case STRAFE:
+                return trajectory.getSpeedStrafe(index);
+            case PEAK_MODULE:
+                return trajectory.getPeakModuleSpeed(index);
+            default:
+                return trajectory.getSpeedRotation(index);
+        }
+    }
+
+    /**
+     * Draw a lane: the zero line, the limit lines at plus and minus the limit, and the axis labels.
+     */
+    private void pkgDrawLane(@NotNull Graphics2D g2d, int top, int height, double extent, double limit,
+                             @NotNull String units) {
+        int right = LEFT_MARGIN + m_plotWidth;
+        g2d.setPaint(GRID_COLOR);
+        g2d.drawRect(LEFT_MARGIN, top, m_plotWidth, height);
+        int zero = pkgYAt(0.0, top, height, extent);
+        g2d.drawLine(LEFT_MARGIN, zero, right, zero);
+        Stroke oldStroke = g2d.getStroke();
+        g2d.setStroke(LIMIT_STROKE);
+        g2d.setPaint(LIMIT_COLOR);
+        int upper = pkgYAt(limit, top, height, extent);
+        int lower = pkgYAt(-limit, top, height, extent);
+        g2d.drawLine(LEFT_MARGIN, upper, right, upper);
+        g2d.drawLine(LEFT_MARGIN, lower, right, lower);
+        g2d.setStroke(oldStroke);
+        g2d.drawString(String.format("%.1f", limit), 2, upper + 4);
+        g2d.setPaint(Color.LIGHT_GRAY);
+        g2d.drawString(units, 2, zero + 4);
+    }
+
+    private void pkgDrawSeries(@NotNull Graphics2D g2d, int series, int top, int height, double extent) {
+        g2d.setPaint(SERIES_COLORS[series]);
+        double[] min = m_min[series];
+        double[] max = m_max[series];
+        if (m_columns < m_plotWidth) {
+            // fewer samples than columns, connect the samples
+            int lastX = 0;
+            int lastY = 0;
+            for (int i = 0; i < m_columns; i++) {
+                int x = LEFT_MARGIN + (int) (((long) i * (m_plotWidth - 1)) / Math.max(1, m_columns - 1));
+                int y = pkgYAt(max[i], top, height, extent);
+                if (i > 0) {
+                    g2d.drawLine(lastX, lastY, x, y);
+                }
+                lastX = x;
+                lastY = y;
+            }
+        } else {
+            for (int column = 0; column < m_columns; column++) {
+                int x = LEFT_MARGIN + column;
+                g2d.drawLine(x, pkgYAt(min[column], top, height, extent), x, pkgYAt(max[column], top, height,
+                        extent));
+            }
+        }
+    }
+
+    private static int pkgYAt(double value, int top, int height, double extent) {
+        return top + (int) Math.round((height / 2.0) * (1.0 - (value / extent)));
+    }
+
+    private int pkgXAt(double pathTime) {
+        double pathDuration = Math.max(m_trajectory.getPathDuration(), TrajectoryTable.SAMPLE_INTERVAL);
+        return LEFT_MARGIN + (int) Math.round((m_plotWidth - 1) * Math.max(0.0, Math.min(1.0,
+                pathTime / pathDuration)));
+    }
+
+    /**
+     * Get the path time at a plot X.
+     *
+     * @param x The plot X.
+     * @return The path time, {@code Double.NaN} if nothing is plotted.
+     */
+    private double pkgPathTimeAt(int x) {
+        if ((null == m_trajectory) || (m_plotWidth < 2)) {
+            return Double.NaN;
+        }
+        double fraction = Math.max(0.0, Math.min(1.0, (x - LEFT_MARGIN) / (double) (m_plotWidth - 1)));
+        return fraction * m_trajectory.getPathDuration();
+    }
+
+    private void pkgSeek(int x) {
+        double pathTime = pkgPathTimeAt(x);
+        if (!Double.isNaN(pathTime)) {
+            m_canvas.seekAnimation(m_trajectory.toPlaybackTime(pathTime));
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package frc6831.planner;
+
+import org.a05annex.util.geo2d.KochanekBartelsSpline;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+
+/**
+ * The unbounded undo/redo history of the path being edited. The history is a list of {@link PathSnapshot}s,
+ * each captured relative to the one before it so unchanged control points are shared between steps, and a
+ * cursor to the snapshot that describes the current path. Recording after an undo discards the redo steps.
+ * <p>
+ * The history does not decide what a step is; the canvas records once per discrete edit, and once at the end
+ * of a drag, so all the mouse events of a drag are a single undo step.
+ */
+@SuppressWarnings("HungarianNotationMemberVariables")
+public class UndoHistory {
+
+    private final ArrayList<PathSnapshot> m_steps = new ArrayList<>();
+    private int m_current = -1;
+
+    /**
+     * Clear the history, and start it from the current state of the path (i.e. when a path is loaded).
+     *
+     * @param path The path.
+     */
+    public void reset(@NotNull KochanekBartelsSpline path) {
+        m_steps.clear();
+        m_steps.add(PathSnapshot.capture(path, null));
+        m_current = 0;
+    }
+
+    /**
+     * Record the current state of the path as an undo step. Nothing is recorded if the path did not change.
+     *
+     * @param path The path.
+     */
+    public void record(@NotNull KochanekBartelsSpline path) {
+        PathSnapshot current = (m_current < 0) ? null : m_steps.get(m_current);
+        PathSnapshot snapshot = PathSnapshot.capture(path, current);
+        if (snapshot != current) {
+            // discard the redo steps
+            m_steps.subList(m_current + 1, m_steps.size()).clear();
+            m_steps.add(snapshot);
+            m_current++;
+        }
+    }
+
+    /**
+     * Get the snapshot that describes the current path, as of the last recorded, undone, or redone step.
+     *
+     * @return The current snapshot, {@code null} if the history has not been reset from a path.
+     */
+    @Nullable
+    public PathSnapshot getCurrent() {
+        return (m_current < 0) ? null : m_steps.get(m_current);
+    }
+
+    public boolean canUndo() {
+        return m_current > 0;
+    }
+
+    public boolean canRedo() {
+        return m_current < m_steps.size() - 1;
+    }
+
+    /**
+     * Restore the path to the state before the last recorded step.
+     *
+     * @param path The path.
+     * @return {@code true} if the path was restored, {@code false} if there was nothing to undo.
+     */
+    public boolean undo(@NotNull KochanekBartelsSpline path) {
+        if (!canUndo()) {
+            return false;
+        }
+        m_steps.get(--m_current).restore(path);
+        return true;
+    }
+
+    /**
+     * Restore the path to the state of the last undone step.
+     *
+     * @param path The path.
+     * @return {@code true} if the path was restored, {@code false} if there was nothing to redo.
+     */
+    public boolean redo(@NotNull KochanekBartelsSpline path) {
+        if (!canRedo()) {
+            return false;
+        }
+        m_steps.get(++m_current).restore(path);
+        return true;
+    }
+}
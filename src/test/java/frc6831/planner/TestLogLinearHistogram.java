@@ -0,0 +1,83 @@
+package frc6831.planner;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the {@link LogLinearHistogram} bucket arithmetic and percentiles.
+ */
+public class TestLogLinearHistogram {
+
+    /**
+     * Test that a value is in the bucket whose range is just above the previous bucket's upper bound, and that
+     * the bucket is no more than 1/16 of the value wide.
+     */
+    private static void assertBucket(long value) {
+        int index = LogLinearHistogram.bucketIndex(value);
+        long upperBound = LogLinearHistogram.bucketUpperBound(index);
+        assertTrue(upperBound >= value, "value " + value);
+        if (index > 0) {
+            assertTrue(LogLinearHistogram.bucketUpperBound(index - 1) < value, "value " + value);
+        }
+        assertTrue((upperBound - value) <= (value / 16), "value " + value);
+    }
+
+    @Test
+    void testLinearBuckets() {
+        for (long value = 0; value < 32; value++) {
+            assertEquals(value, LogLinearHistogram.bucketIndex(value));
+            assertEquals(value, LogLinearHistogram.bucketUpperBound((int) value));
+        }
+    }
+
+    @Test
+    void testLinearToLogBoundary() {
+        // 32 starts the first log bucket, which is 2 values wide
+        assertEquals(31, LogLinearHistogram.bucketIndex(31));
+        assertEquals(32, LogLinearHistogram.bucketIndex(32));
+        assertEquals(32, LogLinearHistogram.bucketIndex(33));
+        assertEquals(33, LogLinearHistogram.bucketIndex(34));
+        assertEquals(33, LogLinearHistogram.bucketUpperBound(32));
+        assertEquals(63, LogLinearHistogram.bucketUpperBound(LogLinearHistogram.bucketIndex(63)));
+        assertEquals(67, LogLinearHistogram.bucketUpperBound(LogLinearHistogram.bucketIndex(64)));
+        for (long value = 0; value < 5000; value++) {
+            assertBucket(value);
+        }
+    }
+
+    @Test
+    void testLargeValues() {
+        for (int bit = 12; bit < 63; bit++) {
+            long power = 1L << bit;
+            assertBucket(power - 1);
+            assertBucket(power);
+            assertBucket(power + 1);
+            assertBucket(power + (power / 3));
+        }
+        assertEquals(Long.MAX_VALUE,
+                LogLinearHistogram.bucketUpperBound(LogLinearHistogram.bucketIndex(Long.MAX_VALUE)));
+    }
+
+    @Test
+    void testPercentiles() {
+        LogLinearHistogram histogram = new LogLinearHistogram();
+        assertEquals(0, histogram.getValueAtPercentile(99.0));
+        for (long value = 1; value <= 100; value++) {
+            histogram.record(value);
+        }
+        histogram.record(-5);
+        assertEquals(101, histogram.getCount());
+        assertEquals(0, histogram.getValueAtPercentile(0.0));
+        assertEquals(51, histogram.getValueAtPercentile(50.0));
+        assertEquals(100, histogram.getMax());
+        // the bucket containing 100 goes up to 103, which is clamped to the maximum recorded value
+        assertEquals(103, LogLinearHistogram.bucketUpperBound(LogLinearHistogram.bucketIndex(100)));
+        assertEquals(100, histogram.getValueAtPercentile(100.0));
+        assertEquals(100, histogram.getValueAtPercentile(99.9));
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getValueAtPercentile(50.0));
+    }
+}
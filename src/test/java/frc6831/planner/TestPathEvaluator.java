@@ -0,0 +1,87 @@
+package frc6831.planner;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the {@code evaluate} command on a bundled path: the text and JSON reports, that the report is all
+ * that is printed on stdout, and the exit status.
+ */
+public class TestPathEvaluator {
+
+    // a slow rotation in place, well within the capability of the default robot, inside the default field
+    private static final String PATH = "resources/paths/test/cal_rotate.json";
+
+    private final ByteArrayOutputStream m_stdout = new ByteArrayOutputStream();
+    private PrintStream m_savedStdout;
+
+    @BeforeEach
+    void captureStdout() {
+        m_savedStdout = System.out;
+        System.setOut(new PrintStream(m_stdout, true, StandardCharsets.UTF_8));
+    }
+
+    @AfterEach
+    void restoreStdout() {
+        System.setOut(m_savedStdout);
+    }
+
+    private String stdout() {
+        return m_stdout.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testTextReport() {
+        assertEquals(0, PathEvaluator.run(new String[]{"-p", PATH}));
+        String report = stdout();
+        assertTrue(report.startsWith("path:              " + PATH), report);
+        assertTrue(report.contains("too fast:          none"), report);
+        assertTrue(report.contains("outside field:     none"), report);
+        assertTrue(report.contains("collisions:        none"), report);
+    }
+
+    @Test
+    void testJsonReport() throws Exception {
+        assertEquals(0, PathEvaluator.run(new String[]{"-p", PATH, "--format", "json"}));
+        // the whole of stdout is the JSON report
+        JSONObject report = (JSONObject) new JSONParser().parse(stdout());
+        assertEquals(PATH, report.get("path"));
+        assertTrue(((Number) report.get("time")).doubleValue() > 0.0);
+        assertTrue(((Number) report.get("distance")).doubleValue() >= 0.0);
+        assertTrue(((JSONArray) report.get("tooFast")).isEmpty());
+        assertTrue(((JSONArray) report.get("outsideField")).isEmpty());
+        assertTrue(((JSONArray) report.get("collisions")).isEmpty());
+    }
+
+    @Test
+    void testProblemsExitStatus() throws Exception {
+        // a partner robot following the same path collides with the robot for the whole path
+        assertEquals(2, PathEvaluator.run(new String[]{"-p", PATH, "--partner", PATH, "--format", "json"}));
+        JSONObject report = (JSONObject) new JSONParser().parse(stdout());
+        JSONArray collisions = (JSONArray) report.get("collisions");
+        assertEquals(1, collisions.size());
+        assertEquals(0.0, ((Number) ((JSONObject) collisions.get(0)).get("start")).doubleValue());
+    }
+
+    @Test
+    void testErrorExitStatus() {
+        PrintStream stdout = System.out;
+        assertEquals(1, PathEvaluator.run(new String[]{"-p", PATH, "--partner", "no_such_path.json",
+                "--format", "json"}));
+        assertEquals(1, PathEvaluator.run(new String[]{"-p", PATH, "-r", "no_such_robot.json"}));
+        assertEquals(1, PathEvaluator.run(new String[]{"--format", "json"}));
+        // nothing is printed on stdout when there is no report
+        assertEquals("", stdout());
+        assertSame(stdout, System.out, "stdout is restored after the evaluation");
+    }
+}
@@ -0,0 +1,73 @@
+package frc6831.planner;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.swing.*;
+import java.io.File;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the {@link PathThumbnails} caches: a thumbnail is drawn in the background the first time it is
+ * requested, is read from the disk cache rather than drawn by a new planner, and depends on the field.
+ */
+public class TestPathThumbnails {
+
+    private static final File PATHS = new File("resources/paths/2024");
+    private static final File FIELD = new File("resources/fields/2024-crescendo.json");
+    private static final File OTHER_FIELD = new File("resources/fields/2023_charged_up.json");
+
+    /**
+     * Request the thumbnail of the first path in the library, and wait for it to be available.
+     */
+    private static ImageIcon awaitThumbnail(File cacheDirectory, Field field, PathThumbnails[] thumbnails)
+            throws InterruptedException, InvocationTargetException {
+        CountDownLatch generated = new CountDownLatch(1);
+        PathLibrary library = new PathLibrary(PATHS, null);
+        List<PathLibrary.Entry> entries = library.scan();
+        assertFalse(entries.isEmpty());
+        PathLibrary.Entry entry = entries.get(0);
+        SwingUtilities.invokeAndWait(() -> {
+            thumbnails[0] = new PathThumbnails(cacheDirectory, generated::countDown);
+            thumbnails[0].setField(field);
+            assertNull(thumbnails[0].get(library.getFile(entry), entry));
+        });
+        assertTrue(generated.await(30, TimeUnit.SECONDS), "thumbnail was not generated");
+        ImageIcon[] thumbnail = new ImageIcon[1];
+        SwingUtilities.invokeAndWait(() -> thumbnail[0] = thumbnails[0].get(library.getFile(entry), entry));
+        return thumbnail[0];
+    }
+
+    @Test
+    void testThumbnailCaches(@TempDir Path temp) throws Exception {
+        Field field = new Field();
+        assertTrue(field.loadField(FIELD.getPath()));
+        PathThumbnails[] thumbnails = new PathThumbnails[1];
+
+        ImageIcon thumbnail = awaitThumbnail(temp.toFile(), field, thumbnails);
+        assertNotNull(thumbnail);
+        assertEquals(PathThumbnails.WIDTH, thumbnail.getIconWidth());
+        assertEquals(PathThumbnails.HEIGHT, thumbnail.getIconHeight());
+        assertEquals(1, thumbnails[0].getGeneratedCount());
+        File[] cached = temp.toFile().listFiles((dir, name) -> name.endsWith(".png"));
+        assertNotNull(cached);
+        assertEquals(1, cached.length);
+
+        // a new planner reads the thumbnail from the disk cache
+        assertNotNull(awaitThumbnail(temp.toFile(), field, thumbnails));
+        assertEquals(0, thumbnails[0].getGeneratedCount());
+
+        // the same path on a different field is drawn again
+        Field otherField = new Field();
+        assertTrue(otherField.loadField(OTHER_FIELD.getPath()));
+        assertNotEquals(PathThumbnails.hashField(field), PathThumbnails.hashField(otherField));
+        assertNotNull(awaitThumbnail(temp.toFile(), otherField, thumbnails));
+        assertEquals(1, thumbnails[0].getGeneratedCount());
+    }
+}
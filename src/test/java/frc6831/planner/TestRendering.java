@@ -0,0 +1,162 @@
+package frc6831.planner;
+
+import org.a05annex.util.geo2d.KochanekBartelsSpline;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Headless rendering regression tests. Every field in {@code resources/fields} and every path in
+ * {@code resources/paths} is rendered into a fixed size image, compared to a golden image in
+ * {@code src/test/resources/golden}. Render times are measured by the JMH benchmarks, not here, where a busy build
+ * machine would fail them at random.
+ * <p>
+ * When a rendering change is intentional, record new golden images by running the tests with
+ * {@code -Dgolden.update=true} and commit them. The path images depend on how the a05annexUtil spline samples
+ * the path, so they must be recorded against the a05annexUtil version the build uses. A render that has no
+ * golden image fails, and an image that does not match is written to {@code build/golden-failures} for
+ * inspection.
+ */
+public class TestRendering {
+
+    private static final int WIDTH = 800;
+    private static final int HEIGHT = 450;
+
+    // Per channel differences this small are anti-aliasing noise, not a rendering change
+    private static final int PIXEL_TOLERANCE = 24;
+    // The fraction of pixels that may differ by more than PIXEL_TOLERANCE
+    private static final double MISMATCH_TOLERANCE = 0.002;
+
+    private static final File FIELDS = new File("resources/fields");
+    private static final File PATHS = new File("resources/paths");
+    private static final File GOLDEN = new File("src/test/resources/golden");
+    private static final File FAILURES = new File("build/golden-failures");
+
+    private static final boolean UPDATE_GOLDEN = Boolean.getBoolean("golden.update");
+
+    /**
+     * A render under test - it draws into the image, which has been cleared to the canvas background.
+     */
+    private interface Render {
+        void render(Graphics2D g2d);
+    }
+
+    @TestFactory
+    Stream<DynamicTest> testFieldRendering() throws IOException {
+        return listJson(FIELDS).stream().map(fieldFile -> DynamicTest.dynamicTest(fieldFile.getName(), () -> {
+            Field field = new Field();
+            assertTrue(field.parseField(fieldFile.getPath()), "could not parse " + fieldFile);
+            AffineTransform drawXfm = PathCanvas.pkgFitFieldTransform(field.getMinMax(), WIDTH, HEIGHT);
+            checkRender("fields/" + baseName(fieldFile), g2d -> FieldRenderer.draw(field, g2d, drawXfm));
+        }));
+    }
+
+    @TestFactory
+    Stream<DynamicTest> testPathRendering() throws IOException {
+        return listJson(PATHS).stream().map(pathFile -> DynamicTest.dynamicTest(
+                pathFile.getParentFile().getName() + "/" + pathFile.getName(), () -> {
+                    // Paths are drawn on the default field with the default robot, so a field change does not
+                    // change all the path golden images.
+                    BufferedImage scratch = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB);
+                    Graphics2D scratchGraphics = scratch.createGraphics();
+                    PathCanvas canvas = new PathCanvas(scratchGraphics.getDeviceConfiguration(),
+                            new Robot(), new Field(), () -> {
+                    });
+                    scratchGraphics.dispose();
+                    canvas.setSize(WIDTH, HEIGHT);
+                    canvas.resetFieldGeometry();
+                    KochanekBartelsSpline path = new KochanekBartelsSpline();
+                    path.loadPath(pathFile.getAbsolutePath());
+                    canvas.setLoadedPath(pathFile, path);
+                    canvas.pkgAwaitAnalysis();
+                    checkRender("paths/" + pathFile.getParentFile().getName() + "/" + baseName(pathFile),
+                            canvas::pkgPaintBuffer);
+                }));
+    }
+
+    /**
+     * Render and compare the image against the golden image.
+     *
+     * @param name   The name of the golden image, relative to the golden directory, without extension.
+     * @param render The render.
+     * @throws IOException Thrown if the golden image could not be read or written.
+     */
+    private static void checkRender(String name, Render render) throws IOException {
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = image.createGraphics();
+        try {
+            renderOnce(g2d, render);
+        } finally {
+            g2d.dispose();
+        }
+
+        File goldenFile = new File(GOLDEN, name + ".png");
+        if (UPDATE_GOLDEN) {
+            writeImage(image, goldenFile);
+            return;
+        }
+        assertTrue(goldenFile.isFile(), "no golden image, run with -Dgolden.update=true to record " + goldenFile);
+        BufferedImage golden = ImageIO.read(goldenFile);
+        assertEquals(WIDTH, golden.getWidth(), name + " golden image width");
+        assertEquals(HEIGHT, golden.getHeight(), name + " golden image height");
+        int mismatched = 0;
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                if (pixelDifference(image.getRGB(x, y), golden.getRGB(x, y)) > PIXEL_TOLERANCE) {
+                    mismatched++;
+                }
+            }
+        }
+        double mismatchFraction = (double) mismatched / (WIDTH * HEIGHT);
+        if (mismatchFraction > MISMATCH_TOLERANCE) {
+            File failureFile = new File(FAILURES, name + ".png");
+            writeImage(image, failureFile);
+            fail(String.format("%s differs from the golden image in %d pixels (%.2f%%), the render is in %s",
+                    name, mismatched, 100.0 * mismatchFraction, failureFile.getPath()));
+        }
+    }
+
+    private static void renderOnce(Graphics2D g2d, Render render) {
+        g2d.setBackground(Color.BLACK);
+        g2d.clearRect(0, 0, WIDTH, HEIGHT);
+        render.render(g2d);
+    }
+
+    private static int pixelDifference(int rgb1, int rgb2) {
+        int max = 0;
+        for (int shift = 0; shift <= 16; shift += 8) {
+            max = Math.max(max, Math.abs(((rgb1 >> shift) & 0xFF) - ((rgb2 >> shift) & 0xFF)));
+        }
+        return max;
+    }
+
+    private static void writeImage(BufferedImage image, File file) throws IOException {
+        Files.createDirectories(file.getParentFile().toPath());
+        ImageIO.write(image, "png", file);
+    }
+
+    private static List<File> listJson(File directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory.toPath())) {
+            return files.filter(p -> p.toString().endsWith(".json")).sorted()
+                    .map(Path::toFile).collect(Collectors.toList());
+        }
+    }
+
+    private static String baseName(File file) {
+        String name = file.getName();
+        return name.substring(0, name.length() - ".json".length());
+    }
+}
@@ -0,0 +1,61 @@
+package frc6831.planner;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the {@link SimulationClock} against a real time source the test controls, so the expected
+ * simulated times are exact.
+ */
+public class TestSimulationClock {
+
+    private static final long SECOND = 1_000_000_000L;
+    private long m_nanos = 0;
+
+    @Test
+    void testPausedUntilPlayed() {
+        SimulationClock clock = new SimulationClock(() -> m_nanos);
+        assertTrue(clock.isPaused());
+        m_nanos += SECOND;
+        assertEquals(0.0, clock.getTime());
+        clock.play();
+        m_nanos += 2 * SECOND;
+        assertEquals(2.0, clock.getTime(), 1.0e-9);
+        clock.pause();
+        m_nanos += 5 * SECOND;
+        assertEquals(2.0, clock.getTime(), 1.0e-9);
+    }
+
+    @Test
+    void testRate() {
+        SimulationClock clock = new SimulationClock(() -> m_nanos);
+        clock.play();
+        m_nanos += SECOND;
+        clock.setRate(4.0);
+        m_nanos += SECOND;
+        assertEquals(5.0, clock.getTime(), 1.0e-9, "the time is continuous across a rate change");
+        clock.setRate(100.0);
+        assertEquals(SimulationClock.MAX_RATE, clock.getRate());
+        clock.setRate(0.0);
+        assertEquals(SimulationClock.MIN_RATE, clock.getRate());
+    }
+
+    @Test
+    void testStepAndSeek() {
+        SimulationClock clock = new SimulationClock(() -> m_nanos);
+        clock.play();
+        m_nanos += SECOND;
+        clock.step(0.5);
+        assertTrue(clock.isPaused(), "stepping pauses the clock");
+        assertEquals(1.5, clock.getTime(), 1.0e-9);
+        clock.step(-2.0);
+        assertEquals(0.0, clock.getTime(), "the clock does not go before 0");
+        clock.seek(7.0);
+        m_nanos += SECOND;
+        assertEquals(7.0, clock.getTime(), 1.0e-9);
+        clock.play();
+        m_nanos += SECOND;
+        assertEquals(8.0, clock.getTime(), 1.0e-9);
+    }
+}